@@ -29,6 +29,7 @@ import org.opencb.opencga.catalog.exceptions.CatalogException;
 import org.opencb.opencga.server.grpc.AdminServiceGrpc;
 import org.opencb.opencga.server.grpc.GenericServiceModel;
 import org.opencb.opencga.server.grpc.VariantServiceGrpc;
+import org.opencb.opencga.server.grpc.VariantServiceModel;
 import org.opencb.opencga.storage.core.manager.variant.VariantStorageManager;
 import org.opencb.opencga.storage.core.variant.VariantStorageEngine;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptor;
@@ -217,12 +218,13 @@ public class VariantCommandExecutor extends OpencgaCommandExecutor {
             } else if (queryCommandOptions.genericVariantQueryOptions.samplesMetadata || StringUtils.isNoneEmpty(queryCommandOptions.genericVariantQueryOptions.groupBy) || queryCommandOptions.genericVariantQueryOptions.histogram) {
                 queryResponse = openCGAClient.getVariantClient().genericQuery(params, options);
             } else {
-                Iterator<VariantProto.Variant> variantIterator = variantServiceBlockingStub.get(request);
+                Iterator<VariantServiceModel.VariantBatch> batchIterator = variantServiceBlockingStub.getBatch(request);
                 JsonFormat.Printer printer = JsonFormat.printer();
                 try (PrintStream printStream = new PrintStream(System.out)) {
-                    while (variantIterator.hasNext()) {
-                        VariantProto.Variant next = variantIterator.next();
-                        printStream.println(printer.print(next));
+                    while (batchIterator.hasNext()) {
+                        for (VariantProto.Variant next : batchIterator.next().getVariantsList()) {
+                            printStream.println(printer.print(next));
+                        }
                     }
                 }
                 queryResponse = null;
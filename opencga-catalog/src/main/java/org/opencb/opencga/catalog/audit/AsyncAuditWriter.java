@@ -0,0 +1,163 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.catalog.audit;
+
+import org.opencb.commons.datastore.core.ObjectMap;
+import org.opencb.opencga.catalog.db.api.AuditDBAdaptor;
+import org.opencb.opencga.catalog.exceptions.CatalogDBException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes the audit records in batches from a background thread, out of the request thread.
+ *
+ * Records are kept in a bounded lock-free queue, and written when there are at least batchSize records waiting, or after
+ * flushInterval milliseconds. When the queue is full, new records are dropped and counted.
+ *
+ * Created on 18/10/26.
+ */
+public class AsyncAuditWriter implements AutoCloseable {
+
+    private final AuditDBAdaptor auditDBAdaptor;
+    private final int maxQueueSize;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+
+    private final ConcurrentLinkedQueue<AuditRecord> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueSize = new AtomicInteger();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    private static Logger logger = LoggerFactory.getLogger(AsyncAuditWriter.class);
+
+    public AsyncAuditWriter(AuditDBAdaptor auditDBAdaptor, int maxQueueSize, int batchSize, long flushInterval) {
+        this.auditDBAdaptor = auditDBAdaptor;
+        this.maxQueueSize = maxQueueSize;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushInterval));
+        thread = new Thread(this::run, "audit-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queue a record to be written.
+     *
+     * @param auditRecord Audit record
+     * @return false if the queue was full and the record was dropped
+     */
+    public boolean offer(AuditRecord auditRecord) {
+        if (queueSize.incrementAndGet() > maxQueueSize) {
+            queueSize.decrementAndGet();
+            dropped.increment();
+            long numDropped = dropped.sum();
+            // Do not flood the log
+            if (Long.bitCount(numDropped) == 1) {
+                logger.warn("Audit queue full. {} audit records dropped", numDropped);
+            }
+            return false;
+        }
+        queue.offer(auditRecord);
+        if (!running) {
+            // Already closed. Write it from the caller thread
+            flush();
+        } else if (queueSize.get() >= batchSize) {
+            LockSupport.unpark(thread);
+        }
+        return true;
+    }
+
+    private void run() {
+        while (running) {
+            if (queueSize.get() < batchSize) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            flush();
+        }
+    }
+
+    /**
+     * Write all the records in the queue.
+     */
+    public void flush() {
+        List<AuditRecord> batch = new ArrayList<>(batchSize);
+        AuditRecord auditRecord;
+        while ((auditRecord = queue.poll()) != null) {
+            batch.add(auditRecord);
+            if (batch.size() == batchSize) {
+                write(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    private void write(List<AuditRecord> batch) {
+        queueSize.addAndGet(-batch.size());
+        try {
+            auditDBAdaptor.insertAuditRecords(batch);
+            written.add(batch.size());
+        } catch (CatalogDBException | RuntimeException e) {
+            failed.add(batch.size());
+            logger.error("Error writing " + batch.size() + " audit records", e);
+        }
+    }
+
+    /**
+     * Metrics of the writer.
+     *
+     * @return queueDepth, written, dropped and failed records
+     */
+    public ObjectMap getMetrics() {
+        return new ObjectMap("queueDepth", queueSize.get())
+                .append("written", written.sum())
+                .append("dropped", dropped.sum())
+                .append("failed", failed.sum());
+    }
+
+    /**
+     * Stop the background writer and write the pending records.
+     */
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) * 10);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+}
@@ -23,6 +23,8 @@ import org.opencb.commons.datastore.core.QueryResult;
 import org.opencb.opencga.catalog.audit.AuditRecord.Resource;
 import org.opencb.opencga.catalog.exceptions.CatalogException;
 
+import java.util.List;
+
 /**
  * Created on 18/08/15.
  * <p>
@@ -115,6 +117,24 @@ public interface AuditManager {
                              Object before, Object after, String description, ObjectMap attributes)
             throws CatalogException;
 
+    /**
+     * Records the same action over several objects with a single write to the Catalog Database.
+     *
+     * @param resource    Resource type
+     * @param action      Executed action
+     * @param importance  Importance of the documents being audited (high, medium or low)
+     * @param ids         Resource ids (either String or Integer)
+     * @param userId      User who performs the action
+     * @param after       Optional Posterior state of each object, in the same order as the ids
+     * @param description Optional description
+     * @param attributes  Optional attributes
+     * @return Generated AuditRecords
+     * @throws CatalogException CatalogException
+     */
+    List<AuditRecord> recordActions(Resource resource, AuditRecord.Action action, AuditRecord.Magnitude importance, List<?> ids,
+                                    String userId, List<?> after, String description, ObjectMap attributes)
+            throws CatalogException;
+
     /**
      * Executes a query over the audit log.
      *
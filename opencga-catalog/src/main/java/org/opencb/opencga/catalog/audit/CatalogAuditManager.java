@@ -16,21 +16,25 @@
 
 package org.opencb.opencga.catalog.audit;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.apache.commons.lang.NotImplementedException;
 import org.opencb.commons.datastore.core.ObjectMap;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.commons.datastore.core.QueryResult;
 import org.opencb.opencga.catalog.auth.authorization.AuthorizationManager;
+import org.opencb.opencga.catalog.config.Audit;
 import org.opencb.opencga.catalog.config.Configuration;
 import org.opencb.opencga.catalog.db.api.AuditDBAdaptor;
 import org.opencb.opencga.catalog.db.api.UserDBAdaptor;
+import org.opencb.opencga.catalog.exceptions.CatalogDBException;
 import org.opencb.opencga.catalog.exceptions.CatalogException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 import static org.opencb.opencga.catalog.audit.AuditRecord.Resource;
@@ -43,11 +47,16 @@ import static org.opencb.opencga.catalog.audit.AuditRecord.Resource;
 public class CatalogAuditManager implements AuditManager {
 
     protected static Logger logger = LoggerFactory.getLogger(CatalogAuditManager.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+
     private final AuditDBAdaptor auditDBAdaptor;
     private final UserDBAdaptor userDBAdaptor;
     private final AuthorizationManager authorizationManager;
     private final Properties catalogProperties;
     private final Configuration configuration;
+    private final Audit.Mode mode;
+    private final AsyncAuditWriter writer;
 
     @Deprecated
     public CatalogAuditManager(AuditDBAdaptor auditDBAdaptor, UserDBAdaptor userDBAdaptor,
@@ -57,6 +66,8 @@ public class CatalogAuditManager implements AuditManager {
         this.authorizationManager = authorizationManager;
         this.catalogProperties = catalogProperties;
         this.configuration = null;
+        this.mode = Audit.Mode.SYNC;
+        this.writer = null;
     }
 
     public CatalogAuditManager(AuditDBAdaptor auditDBAdaptor, UserDBAdaptor userDBAdaptor,
@@ -66,6 +77,17 @@ public class CatalogAuditManager implements AuditManager {
         this.authorizationManager = authorizationManager;
         this.configuration = configuration;
         this.catalogProperties = null;
+
+        Audit audit = configuration.getAudit() == null ? new Audit() : configuration.getAudit();
+        this.mode = audit.getMode() == null ? Audit.Mode.SYNC_CRITICAL : audit.getMode();
+        if (mode == Audit.Mode.SYNC) {
+            this.writer = null;
+        } else {
+            this.writer = new AsyncAuditWriter(auditDBAdaptor,
+                    audit.getQueueSize() > 0 ? audit.getQueueSize() : Audit.DEFAULT_QUEUE_SIZE,
+                    audit.getBatchSize() > 0 ? audit.getBatchSize() : Audit.DEFAULT_BATCH_SIZE,
+                    audit.getFlushInterval() > 0 ? audit.getFlushInterval() : Audit.DEFAULT_FLUSH_INTERVAL);
+        }
     }
 
     @Deprecated
@@ -75,7 +97,28 @@ public class CatalogAuditManager implements AuditManager {
         AuditRecord auditRecord = new AuditRecord(id, resource, AuditRecord.Action.create, AuditRecord.Magnitude.medium, null,
                 toObjectMap(object), System.currentTimeMillis(), userId, description, attributes);
         logger.debug("{}", auditRecord);
-        return auditDBAdaptor.insertAuditRecord(auditRecord).first();
+        return write(auditRecord);
+    }
+
+    @Override
+    public List<AuditRecord> recordActions(Resource resource, AuditRecord.Action action, AuditRecord.Magnitude importance, List<?> ids,
+                                           String userId, List<?> after, String description, ObjectMap attributes)
+            throws CatalogException {
+        long timeStamp = System.currentTimeMillis();
+        List<AuditRecord> auditRecords = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            ObjectMap afterMap = after == null ? null : toObjectMap(after.get(i));
+            auditRecords.add(new AuditRecord(ids.get(i), resource, action, importance, null, afterMap, timeStamp, userId, description,
+                    attributes));
+        }
+        logger.debug("{} {} {}", action, auditRecords.size(), resource);
+        if (writer == null || mode == Audit.Mode.SYNC_CRITICAL && importance == AuditRecord.Magnitude.high) {
+            return auditDBAdaptor.insertAuditRecords(auditRecords).getResult();
+        }
+        for (AuditRecord auditRecord : auditRecords) {
+            writer.offer(auditRecord);
+        }
+        return auditRecords;
     }
 
     @Deprecated
@@ -92,7 +135,7 @@ public class CatalogAuditManager implements AuditManager {
         AuditRecord auditRecord = new AuditRecord(id, resource, AuditRecord.Action.update, AuditRecord.Magnitude.medium, null, update,
                 System.currentTimeMillis(), userId, description, attributes);
         logger.debug("{}", auditRecord);
-        return auditDBAdaptor.insertAuditRecord(auditRecord).first();
+        return write(auditRecord);
     }
 
     @Deprecated
@@ -102,7 +145,7 @@ public class CatalogAuditManager implements AuditManager {
         AuditRecord auditRecord = new AuditRecord(id, resource, AuditRecord.Action.delete, AuditRecord.Magnitude.medium,
                 toObjectMap(object), null, System.currentTimeMillis(), userId, description, attributes);
         logger.debug("{}", auditRecord);
-        return auditDBAdaptor.insertAuditRecord(auditRecord).first();
+        return write(auditRecord);
     }
 
     @Override
@@ -111,8 +154,8 @@ public class CatalogAuditManager implements AuditManager {
             throws CatalogException {
         AuditRecord auditRecord = new AuditRecord(id, resource, action, importance, toObjectMap(before), toObjectMap(after),
                 System.currentTimeMillis(), userId, description, attributes);
-        logger.debug("{}", action, auditRecord);
-        return auditDBAdaptor.insertAuditRecord(auditRecord).first();
+        logger.debug("{} {}", action, auditRecord);
+        return write(auditRecord);
     }
 
     @Override
@@ -126,15 +169,57 @@ public class CatalogAuditManager implements AuditManager {
 //        return auditDBAdaptor.get(query, queryOptions);
     }
 
+    /**
+     * Write the record from the request thread, or queue it for the background writer depending on the audit mode.
+     *
+     * @param auditRecord Audit record
+     * @return the audit record
+     * @throws CatalogDBException if the record is written from the request thread and fails
+     */
+    private AuditRecord write(AuditRecord auditRecord) throws CatalogDBException {
+        if (writer == null || mode == Audit.Mode.SYNC_CRITICAL && auditRecord.getImportance() == AuditRecord.Magnitude.high) {
+            return auditDBAdaptor.insertAuditRecord(auditRecord).first();
+        }
+        writer.offer(auditRecord);
+        return auditRecord;
+    }
+
+    /**
+     * Write all the queued records.
+     */
+    public void flush() {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    /**
+     * Metrics of the background writer: queueDepth, written, dropped and failed records.
+     *
+     * @return the metrics, empty in SYNC mode
+     */
+    public ObjectMap getMetrics() {
+        return writer == null ? new ObjectMap() : writer.getMetrics();
+    }
+
+    /**
+     * Stop the background writer, writing the queued records.
+     */
+    public void close() {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
     private ObjectMap toObjectMap(Object object) {
         if (object == null) {
             return null;
         }
-        ObjectMapper objectMapper = new ObjectMapper();
+        // Convert without going through a JSON string. This also takes a copy, so the object can be modified once queued
         try {
-            return new ObjectMap(objectMapper.writeValueAsString(object));
-        } catch (JsonProcessingException e) {
-            e.printStackTrace();
+            return OBJECT_MAPPER.convertValue(object, ObjectMap.class);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Unable to convert " + object.getClass() + " for the audit", e);
             return new ObjectMap("object", object);
         }
     }
@@ -22,6 +22,7 @@ import org.opencb.opencga.catalog.models.acls.permissions.AbstractAclEntry;
 
 import javax.annotation.Nullable;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Created by pfurio on 29/07/16.
@@ -53,6 +54,15 @@ public interface AclDBAdaptor<T extends AbstractAclEntry> {
      */
     List<T> getAcl(long resourceId, List<String> members);
 
+    /**
+     * Retrieve the list of Acls for the list of members in several resources with one single query.
+     *
+     * @param resourceIds ids of the studies, files, samples... where the Acls will be looked for.
+     * @param members members for whom the Acls will be obtained.
+     * @return the list of Acls defined for the members, by resource id. Resources without Acls for the members are not included.
+     */
+    Map<Long, List<T>> getAcl(List<Long> resourceIds, List<String> members);
+
     /**
      * Remove the existing Acl for the member.
      *
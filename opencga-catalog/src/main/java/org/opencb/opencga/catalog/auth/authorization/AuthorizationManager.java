@@ -16,7 +16,9 @@
 
 package org.opencb.opencga.catalog.auth.authorization;
 
+import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryResult;
+import org.opencb.opencga.catalog.audit.AuditRecord;
 import org.opencb.opencga.catalog.exceptions.CatalogException;
 import org.opencb.opencga.catalog.managers.AbstractManager;
 import org.opencb.opencga.catalog.models.*;
@@ -177,6 +179,20 @@ public interface AuthorizationManager {
      */
     void filterJobs(String userId, long studyId, List<Job> jobs) throws CatalogException;
 
+    /**
+     * Get a copy of the query restricted to the entries of the resource that the user can view, so the permissions are
+     * checked in the database and the pages are filled with visible entries only. The results still need to be filtered with
+     * the filterXxx methods.
+     *
+     * @param userId   UserId.
+     * @param studyId  StudyId.
+     * @param resource Resource being queried. One of file, sample, individual, cohort or job.
+     * @param query    Query.
+     * @return the query with the ACL filters, or the same query if the user can view every entry.
+     * @throws CatalogException CatalogException.
+     */
+    Query getViewAclQuery(String userId, long studyId, AuditRecord.Resource resource, Query query) throws CatalogException;
+
     /**
      * Removes from the list the datasets that the user can not read.
      *
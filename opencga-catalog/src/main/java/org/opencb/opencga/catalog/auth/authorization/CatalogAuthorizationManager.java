@@ -21,6 +21,7 @@ import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.commons.datastore.core.QueryResult;
 import org.opencb.opencga.catalog.audit.AuditManager;
+import org.opencb.opencga.catalog.audit.AuditRecord;
 import org.opencb.opencga.catalog.db.DBAdaptorFactory;
 import org.opencb.opencga.catalog.db.api.AclDBAdaptor;
 import org.opencb.opencga.catalog.db.api.*;
@@ -34,6 +35,7 @@ import org.opencb.opencga.catalog.models.acls.permissions.*;
 import javax.annotation.Nullable;
 import java.util.*;
 import java.util.function.Function;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
 
 import static org.opencb.opencga.catalog.utils.CatalogMemberValidator.checkMembers;
@@ -165,50 +167,34 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
     }
 
     private FileAclEntry resolveFilePermissions(long studyId, File file, String userId) throws CatalogException {
-        if (file.getAcl() == null) {
-            return resolveFilePermissions(studyId, file.getId(), userId);
-        } else {
-            String groupId = null;
-            if (!userId.equalsIgnoreCase(ANONYMOUS)) {
-                QueryResult<Group> group = getGroupBelonging(studyId, userId);
-                groupId = group.getNumResults() == 1 ? group.first().getName() : null;
-            }
-
-            Map<String, FileAclEntry> userAclMap = new HashMap<>();
-            for (FileAclEntry fileAcl : file.getAcl()) {
-                userAclMap.put(fileAcl.getMember(), fileAcl);
-            }
-            return resolveFilePermissions(studyId, userId, groupId, userAclMap);
-        }
+        return resolveFilePermissions(new StudyPermissionContext(studyId, userId), file.getAcl(), file.getId());
     }
 
     private FileAclEntry resolveFilePermissions(long studyId, long fileId, String userId) throws CatalogException {
-        String groupId = null;
-        if (!userId.equalsIgnoreCase(ANONYMOUS)) {
-            QueryResult<Group> group = getGroupBelonging(studyId, userId);
-            groupId = group.getNumResults() == 1 ? group.first().getName() : null;
-        }
-
-        List<String> userIds = (groupId == null)
-                ? Arrays.asList(userId, OTHER_USERS_ID, ANONYMOUS)
-                : Arrays.asList(userId, groupId, OTHER_USERS_ID, ANONYMOUS);
-        List<FileAclEntry> fileAclEntryList = fileDBAdaptor.getAcl(fileId, userIds).getResult();
+        return resolveFilePermissions(new StudyPermissionContext(studyId, userId), null, fileId);
+    }
 
+    private FileAclEntry resolveFilePermissions(StudyPermissionContext context, List<FileAclEntry> acls, long fileId)
+            throws CatalogException {
+        if (acls == null) {
+            acls = fileDBAdaptor.getAcl(fileId, context.getMembers()).getResult();
+        }
         Map<String, FileAclEntry> userAclMap = new HashMap<>();
-        for (FileAclEntry fileAclEntry : fileAclEntryList) {
-            userAclMap.put(fileAclEntry.getMember(), fileAclEntry);
+        for (FileAclEntry acl : acls) {
+            userAclMap.put(acl.getMember(), acl);
         }
-
-        return resolveFilePermissions(studyId, userId, groupId, userAclMap);
+        return resolveFilePermissions(context, userAclMap);
     }
 
-    private FileAclEntry resolveFilePermissions(long studyId, String userId, String groupId, Map<String, FileAclEntry> userAclMap)
+    private FileAclEntry resolveFilePermissions(StudyPermissionContext context, Map<String, FileAclEntry> userAclMap)
             throws CatalogException {
+        String userId = context.getUserId();
+        String groupId = context.getGroupId();
         if (userId.equals(ANONYMOUS)) {
             if (userAclMap.containsKey(userId)) {
                 return userAclMap.get(userId);
             } else {
-                return transformStudyAclToFileAcl(getStudyAclBelonging(studyId, userId, groupId));
+                return transformStudyAclToFileAcl(context.getStudyAcl());
             }
         }
 
@@ -236,7 +222,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
         if (flagPermissionFound) {
             return new FileAclEntry(userId, permissions);
         } else {
-            return transformStudyAclToFileAcl(getStudyAclBelonging(studyId, userId, groupId));
+            return transformStudyAclToFileAcl(context.getStudyAcl());
         }
     }
 
@@ -274,50 +260,34 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
      * @throws CatalogException
      */
     private SampleAclEntry resolveSamplePermissions(long studyId, Sample sample, String userId) throws CatalogException {
-        if (sample.getAcl() == null) {
-            return resolveSamplePermissions(studyId, sample.getId(), userId);
-        } else {
-            String groupId = null;
-            if (!userId.equalsIgnoreCase(ANONYMOUS)) {
-                QueryResult<Group> group = getGroupBelonging(studyId, userId);
-                groupId = group.getNumResults() == 1 ? group.first().getName() : null;
-            }
-
-            Map<String, SampleAclEntry> userAclMap = new HashMap<>();
-            for (SampleAclEntry sampleAcl : sample.getAcl()) {
-                userAclMap.put(sampleAcl.getMember(), sampleAcl);
-            }
-            return resolveSamplePermissions(studyId, userId, groupId, userAclMap);
-        }
+        return resolveSamplePermissions(new StudyPermissionContext(studyId, userId), sample.getAcl(), sample.getId());
     }
 
     private SampleAclEntry resolveSamplePermissions(long studyId, long sampleId, String userId) throws CatalogException {
-        String groupId = null;
-        if (!userId.equalsIgnoreCase(ANONYMOUS)) {
-            QueryResult<Group> group = getGroupBelonging(studyId, userId);
-            groupId = group.getNumResults() == 1 ? group.first().getName() : null;
-        }
-
-        List<String> userIds = (groupId == null)
-                ? Arrays.asList(userId, OTHER_USERS_ID, ANONYMOUS)
-                : Arrays.asList(userId, groupId, OTHER_USERS_ID, ANONYMOUS);
-        List<SampleAclEntry> sampleAclList = sampleDBAdaptor.getAcl(sampleId, userIds).getResult();
+        return resolveSamplePermissions(new StudyPermissionContext(studyId, userId), null, sampleId);
+    }
 
+    private SampleAclEntry resolveSamplePermissions(StudyPermissionContext context, List<SampleAclEntry> acls, long sampleId)
+            throws CatalogException {
+        if (acls == null) {
+            acls = sampleDBAdaptor.getAcl(sampleId, context.getMembers()).getResult();
+        }
         Map<String, SampleAclEntry> userAclMap = new HashMap<>();
-        for (SampleAclEntry sampleAcl : sampleAclList) {
-            userAclMap.put(sampleAcl.getMember(), sampleAcl);
+        for (SampleAclEntry acl : acls) {
+            userAclMap.put(acl.getMember(), acl);
         }
-
-        return resolveSamplePermissions(studyId, userId, groupId, userAclMap);
+        return resolveSamplePermissions(context, userAclMap);
     }
 
-    private SampleAclEntry resolveSamplePermissions(long studyId, String userId, String groupId, Map<String, SampleAclEntry> userAclMap)
+    private SampleAclEntry resolveSamplePermissions(StudyPermissionContext context, Map<String, SampleAclEntry> userAclMap)
             throws CatalogException {
+        String userId = context.getUserId();
+        String groupId = context.getGroupId();
         if (userId.equals(ANONYMOUS)) {
             if (userAclMap.containsKey(userId)) {
                 return userAclMap.get(userId);
             } else {
-                return transformStudyAclToSampleAcl(getStudyAclBelonging(studyId, userId, groupId));
+                return transformStudyAclToSampleAcl(context.getStudyAcl());
             }
         }
 
@@ -345,7 +315,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
         if (flagPermissionFound) {
             return new SampleAclEntry(userId, permissions);
         } else {
-            return transformStudyAclToSampleAcl(getStudyAclBelonging(studyId, userId, groupId));
+            return transformStudyAclToSampleAcl(context.getStudyAcl());
         }
     }
 
@@ -373,50 +343,34 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
     }
 
     private IndividualAclEntry resolveIndividualPermissions(long studyId, Individual individual, String userId) throws CatalogException {
-        if (individual.getAcl() == null) {
-            return resolveIndividualPermissions(studyId, individual.getId(), userId);
-        } else {
-            String groupId = null;
-            if (!userId.equalsIgnoreCase(ANONYMOUS)) {
-                QueryResult<Group> group = getGroupBelonging(studyId, userId);
-                groupId = group.getNumResults() == 1 ? group.first().getName() : null;
-            }
-
-            Map<String, IndividualAclEntry> userAclMap = new HashMap<>();
-            for (IndividualAclEntry individualAcl : individual.getAcl()) {
-                userAclMap.put(individualAcl.getMember(), individualAcl);
-            }
-            return resolveIndividualPermissions(studyId, userId, groupId, userAclMap);
-        }
+        return resolveIndividualPermissions(new StudyPermissionContext(studyId, userId), individual.getAcl(), individual.getId());
     }
 
     private IndividualAclEntry resolveIndividualPermissions(long studyId, long individualId, String userId) throws CatalogException {
-        String groupId = null;
-        if (!userId.equalsIgnoreCase(ANONYMOUS)) {
-            QueryResult<Group> group = getGroupBelonging(studyId, userId);
-            groupId = group.getNumResults() == 1 ? group.first().getName() : null;
-        }
-
-        List<String> userIds = (groupId == null)
-                ? Arrays.asList(userId, OTHER_USERS_ID, ANONYMOUS)
-                : Arrays.asList(userId, groupId, OTHER_USERS_ID, ANONYMOUS);
-        List<IndividualAclEntry> individualAcls = individualDBAdaptor.getAcl(individualId, userIds).getResult();
+        return resolveIndividualPermissions(new StudyPermissionContext(studyId, userId), null, individualId);
+    }
 
+    private IndividualAclEntry resolveIndividualPermissions(StudyPermissionContext context, List<IndividualAclEntry> acls,
+                                                            long individualId) throws CatalogException {
+        if (acls == null) {
+            acls = individualDBAdaptor.getAcl(individualId, context.getMembers()).getResult();
+        }
         Map<String, IndividualAclEntry> userAclMap = new HashMap<>();
-        for (IndividualAclEntry individualAcl : individualAcls) {
-            userAclMap.put(individualAcl.getMember(), individualAcl);
+        for (IndividualAclEntry acl : acls) {
+            userAclMap.put(acl.getMember(), acl);
         }
-
-        return resolveIndividualPermissions(studyId, userId, groupId, userAclMap);
+        return resolveIndividualPermissions(context, userAclMap);
     }
 
-    private IndividualAclEntry resolveIndividualPermissions(long studyId, String userId, String groupId, Map<String,
-            IndividualAclEntry> userAclMap) throws CatalogException {
+    private IndividualAclEntry resolveIndividualPermissions(StudyPermissionContext context, Map<String, IndividualAclEntry> userAclMap)
+            throws CatalogException {
+        String userId = context.getUserId();
+        String groupId = context.getGroupId();
         if (userId.equals(ANONYMOUS)) {
             if (userAclMap.containsKey(userId)) {
                 return userAclMap.get(userId);
             } else {
-                return transformStudyAclToIndividualAcl(getStudyAclBelonging(studyId, userId, groupId));
+                return transformStudyAclToIndividualAcl(context.getStudyAcl());
             }
         }
 
@@ -444,7 +398,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
         if (flagPermissionFound) {
             return new IndividualAclEntry(userId, permissions);
         } else {
-            return transformStudyAclToIndividualAcl(getStudyAclBelonging(studyId, userId, groupId));
+            return transformStudyAclToIndividualAcl(context.getStudyAcl());
         }
     }
 
@@ -472,50 +426,32 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
     }
 
     private JobAclEntry resolveJobPermissions(long studyId, Job job, String userId) throws CatalogException {
-        if (job.getAcl() == null) {
-            return resolveJobPermissions(studyId, job.getId(), userId);
-        } else {
-            String groupId = null;
-            if (!userId.equalsIgnoreCase(ANONYMOUS)) {
-                QueryResult<Group> group = getGroupBelonging(studyId, userId);
-                groupId = group.getNumResults() == 1 ? group.first().getName() : null;
-            }
-
-            Map<String, JobAclEntry> userAclMap = new HashMap<>();
-            for (JobAclEntry jobAcl : job.getAcl()) {
-                userAclMap.put(jobAcl.getMember(), jobAcl);
-            }
-            return resolveJobPermissions(studyId, userId, groupId, userAclMap);
-        }
+        return resolveJobPermissions(new StudyPermissionContext(studyId, userId), job.getAcl(), job.getId());
     }
 
     private JobAclEntry resolveJobPermissions(long studyId, long jobId, String userId) throws CatalogException {
-        String groupId = null;
-        if (!userId.equalsIgnoreCase(ANONYMOUS)) {
-            QueryResult<Group> group = getGroupBelonging(studyId, userId);
-            groupId = group.getNumResults() == 1 ? group.first().getName() : null;
-        }
-
-        List<String> userIds = (groupId == null)
-                ? Arrays.asList(userId, OTHER_USERS_ID, ANONYMOUS)
-                : Arrays.asList(userId, groupId, OTHER_USERS_ID, ANONYMOUS);
-        List<JobAclEntry> jobAcls = jobDBAdaptor.getAcl(jobId, userIds).getResult();
+        return resolveJobPermissions(new StudyPermissionContext(studyId, userId), null, jobId);
+    }
 
+    private JobAclEntry resolveJobPermissions(StudyPermissionContext context, List<JobAclEntry> acls, long jobId) throws CatalogException {
+        if (acls == null) {
+            acls = jobDBAdaptor.getAcl(jobId, context.getMembers()).getResult();
+        }
         Map<String, JobAclEntry> userAclMap = new HashMap<>();
-        for (JobAclEntry jobAcl : jobAcls) {
-            userAclMap.put(jobAcl.getMember(), jobAcl);
+        for (JobAclEntry acl : acls) {
+            userAclMap.put(acl.getMember(), acl);
         }
-
-        return resolveJobPermissions(studyId, userId, groupId, userAclMap);
+        return resolveJobPermissions(context, userAclMap);
     }
 
-    private JobAclEntry resolveJobPermissions(long studyId, String userId, String groupId, Map<String, JobAclEntry> userAclMap)
-            throws CatalogException {
+    private JobAclEntry resolveJobPermissions(StudyPermissionContext context, Map<String, JobAclEntry> userAclMap) throws CatalogException {
+        String userId = context.getUserId();
+        String groupId = context.getGroupId();
         if (userId.equals(ANONYMOUS)) {
             if (userAclMap.containsKey(userId)) {
                 return userAclMap.get(userId);
             } else {
-                return transformStudyAclToJobAcl(getStudyAclBelonging(studyId, userId, groupId));
+                return transformStudyAclToJobAcl(context.getStudyAcl());
             }
         }
 
@@ -543,7 +479,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
         if (flagPermissionFound) {
             return new JobAclEntry(userId, permissions);
         } else {
-            return transformStudyAclToJobAcl(getStudyAclBelonging(studyId, userId, groupId));
+            return transformStudyAclToJobAcl(context.getStudyAcl());
         }
     }
 
@@ -570,50 +506,34 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
     }
 
     private CohortAclEntry resolveCohortPermissions(long studyId, Cohort cohort, String userId) throws CatalogException {
-        if (cohort.getAcl() == null) {
-            return resolveCohortPermissions(studyId, cohort.getId(), userId);
-        } else {
-            String groupId = null;
-            if (!userId.equalsIgnoreCase(ANONYMOUS)) {
-                QueryResult<Group> group = getGroupBelonging(studyId, userId);
-                groupId = group.getNumResults() == 1 ? group.first().getName() : null;
-            }
-
-            Map<String, CohortAclEntry> userAclMap = new HashMap<>();
-            for (CohortAclEntry cohortAcl : cohort.getAcl()) {
-                userAclMap.put(cohortAcl.getMember(), cohortAcl);
-            }
-            return resolveCohortPermissions(studyId, userId, groupId, userAclMap);
-        }
+        return resolveCohortPermissions(new StudyPermissionContext(studyId, userId), cohort.getAcl(), cohort.getId());
     }
 
     private CohortAclEntry resolveCohortPermissions(long studyId, long cohortId, String userId) throws CatalogException {
-        String groupId = null;
-        if (!userId.equalsIgnoreCase(ANONYMOUS)) {
-            QueryResult<Group> group = getGroupBelonging(studyId, userId);
-            groupId = group.getNumResults() == 1 ? group.first().getName() : null;
-        }
-
-        List<String> userIds = (groupId == null)
-                ? Arrays.asList(userId, OTHER_USERS_ID, ANONYMOUS)
-                : Arrays.asList(userId, groupId, OTHER_USERS_ID, ANONYMOUS);
-        List<CohortAclEntry> cohortAcls = cohortDBAdaptor.getAcl(cohortId, userIds).getResult();
+        return resolveCohortPermissions(new StudyPermissionContext(studyId, userId), null, cohortId);
+    }
 
+    private CohortAclEntry resolveCohortPermissions(StudyPermissionContext context, List<CohortAclEntry> acls, long cohortId)
+            throws CatalogException {
+        if (acls == null) {
+            acls = cohortDBAdaptor.getAcl(cohortId, context.getMembers()).getResult();
+        }
         Map<String, CohortAclEntry> userAclMap = new HashMap<>();
-        for (CohortAclEntry cohortAcl : cohortAcls) {
-            userAclMap.put(cohortAcl.getMember(), cohortAcl);
+        for (CohortAclEntry acl : acls) {
+            userAclMap.put(acl.getMember(), acl);
         }
-
-        return resolveCohortPermissions(studyId, userId, groupId, userAclMap);
+        return resolveCohortPermissions(context, userAclMap);
     }
 
-    private CohortAclEntry resolveCohortPermissions(long studyId, String userId, String groupId, Map<String, CohortAclEntry> userAclMap)
+    private CohortAclEntry resolveCohortPermissions(StudyPermissionContext context, Map<String, CohortAclEntry> userAclMap)
             throws CatalogException {
+        String userId = context.getUserId();
+        String groupId = context.getGroupId();
         if (userId.equals(ANONYMOUS)) {
             if (userAclMap.containsKey(userId)) {
                 return userAclMap.get(userId);
             } else {
-                return transformStudyAclToCohortAcl(getStudyAclBelonging(studyId, userId, groupId));
+                return transformStudyAclToCohortAcl(context.getStudyAcl());
             }
         }
 
@@ -641,7 +561,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
         if (flagPermissionFound) {
             return new CohortAclEntry(userId, permissions);
         } else {
-            return transformStudyAclToCohortAcl(getStudyAclBelonging(studyId, userId, groupId));
+            return transformStudyAclToCohortAcl(context.getStudyAcl());
         }
     }
 
@@ -669,50 +589,34 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
     }
 
     private DatasetAclEntry resolveDatasetPermissions(long studyId, Dataset dataset, String userId) throws CatalogException {
-        if (dataset.getAcl() == null) {
-            return resolveDatasetPermissions(studyId, dataset.getId(), userId);
-        } else {
-            String groupId = null;
-            if (!userId.equalsIgnoreCase(ANONYMOUS)) {
-                QueryResult<Group> group = getGroupBelonging(studyId, userId);
-                groupId = group.getNumResults() == 1 ? group.first().getName() : null;
-            }
-
-            Map<String, DatasetAclEntry> userAclMap = new HashMap<>();
-            for (DatasetAclEntry datasetAcl : dataset.getAcl()) {
-                userAclMap.put(datasetAcl.getMember(), datasetAcl);
-            }
-            return resolveDatasetPermissions(studyId, userId, groupId, userAclMap);
-        }
+        return resolveDatasetPermissions(new StudyPermissionContext(studyId, userId), dataset.getAcl(), dataset.getId());
     }
 
     private DatasetAclEntry resolveDatasetPermissions(long studyId, long datasetId, String userId) throws CatalogException {
-        String groupId = null;
-        if (!userId.equalsIgnoreCase(ANONYMOUS)) {
-            QueryResult<Group> group = getGroupBelonging(studyId, userId);
-            groupId = group.getNumResults() == 1 ? group.first().getName() : null;
-        }
-
-        List<String> userIds = (groupId == null)
-                ? Arrays.asList(userId, OTHER_USERS_ID, ANONYMOUS)
-                : Arrays.asList(userId, groupId, OTHER_USERS_ID, ANONYMOUS);
-        List<DatasetAclEntry> datasetAcls = datasetDBAdaptor.getAcl(datasetId, userIds).getResult();
+        return resolveDatasetPermissions(new StudyPermissionContext(studyId, userId), null, datasetId);
+    }
 
+    private DatasetAclEntry resolveDatasetPermissions(StudyPermissionContext context, List<DatasetAclEntry> acls, long datasetId)
+            throws CatalogException {
+        if (acls == null) {
+            acls = datasetDBAdaptor.getAcl(datasetId, context.getMembers()).getResult();
+        }
         Map<String, DatasetAclEntry> userAclMap = new HashMap<>();
-        for (DatasetAclEntry datasetAcl : datasetAcls) {
-            userAclMap.put(datasetAcl.getMember(), datasetAcl);
+        for (DatasetAclEntry acl : acls) {
+            userAclMap.put(acl.getMember(), acl);
         }
-
-        return resolveDatasetPermissions(studyId, userId, groupId, userAclMap);
+        return resolveDatasetPermissions(context, userAclMap);
     }
 
-    private DatasetAclEntry resolveDatasetPermissions(long studyId, String userId, String groupId, Map<String, DatasetAclEntry> userAclMap)
+    private DatasetAclEntry resolveDatasetPermissions(StudyPermissionContext context, Map<String, DatasetAclEntry> userAclMap)
             throws CatalogException {
+        String userId = context.getUserId();
+        String groupId = context.getGroupId();
         if (userId.equals(ANONYMOUS)) {
             if (userAclMap.containsKey(userId)) {
                 return userAclMap.get(userId);
             } else {
-                return transformStudyAclToDatasetAcl(getStudyAclBelonging(studyId, userId, groupId));
+                return transformStudyAclToDatasetAcl(context.getStudyAcl());
             }
         }
 
@@ -740,7 +644,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
         if (flagPermissionFound) {
             return new DatasetAclEntry(userId, permissions);
         } else {
-            return transformStudyAclToDatasetAcl(getStudyAclBelonging(studyId, userId, groupId));
+            return transformStudyAclToDatasetAcl(context.getStudyAcl());
         }
     }
 
@@ -768,50 +672,34 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
     }
 
     private DiseasePanelAclEntry resolveDiseasePanelPermissions(long studyId, DiseasePanel panel, String userId) throws CatalogException {
-        if (panel.getAcl() == null) {
-            return resolveDiseasePanelPermissions(studyId, panel.getId(), userId);
-        } else {
-            String groupId = null;
-            if (!userId.equalsIgnoreCase(ANONYMOUS)) {
-                QueryResult<Group> group = getGroupBelonging(studyId, userId);
-                groupId = group.getNumResults() == 1 ? group.first().getName() : null;
-            }
-
-            Map<String, DiseasePanelAclEntry> userAclMap = new HashMap<>();
-            for (DiseasePanelAclEntry panelAcl : panel.getAcl()) {
-                userAclMap.put(panelAcl.getMember(), panelAcl);
-            }
-            return resolveDiseasePanelPermissions(studyId, userId, groupId, userAclMap);
-        }
+        return resolveDiseasePanelPermissions(new StudyPermissionContext(studyId, userId), panel.getAcl(), panel.getId());
     }
 
     private DiseasePanelAclEntry resolveDiseasePanelPermissions(long studyId, long panelId, String userId) throws CatalogException {
-        String groupId = null;
-        if (!userId.equalsIgnoreCase(ANONYMOUS)) {
-            QueryResult<Group> group = getGroupBelonging(studyId, userId);
-            groupId = group.getNumResults() == 1 ? group.first().getName() : null;
-        }
-
-        List<String> userIds = (groupId == null)
-                ? Arrays.asList(userId, OTHER_USERS_ID, ANONYMOUS)
-                : Arrays.asList(userId, groupId, OTHER_USERS_ID, ANONYMOUS);
-        List<DiseasePanelAclEntry> panelAcls = panelDBAdaptor.getAcl(panelId, userIds).getResult();
+        return resolveDiseasePanelPermissions(new StudyPermissionContext(studyId, userId), null, panelId);
+    }
 
+    private DiseasePanelAclEntry resolveDiseasePanelPermissions(StudyPermissionContext context, List<DiseasePanelAclEntry> acls,
+                                                                long panelId) throws CatalogException {
+        if (acls == null) {
+            acls = panelDBAdaptor.getAcl(panelId, context.getMembers()).getResult();
+        }
         Map<String, DiseasePanelAclEntry> userAclMap = new HashMap<>();
-        for (DiseasePanelAclEntry panelAcl : panelAcls) {
-            userAclMap.put(panelAcl.getMember(), panelAcl);
+        for (DiseasePanelAclEntry acl : acls) {
+            userAclMap.put(acl.getMember(), acl);
         }
-
-        return resolveDiseasePanelPermissions(studyId, userId, groupId, userAclMap);
+        return resolveDiseasePanelPermissions(context, userAclMap);
     }
 
-    private DiseasePanelAclEntry resolveDiseasePanelPermissions(long studyId, String userId, String groupId,
+    private DiseasePanelAclEntry resolveDiseasePanelPermissions(StudyPermissionContext context,
                                                                 Map<String, DiseasePanelAclEntry> userAclMap) throws CatalogException {
+        String userId = context.getUserId();
+        String groupId = context.getGroupId();
         if (userId.equals(ANONYMOUS)) {
             if (userAclMap.containsKey(userId)) {
                 return userAclMap.get(userId);
             } else {
-                return transformStudyAclToDiseasePanelAcl(getStudyAclBelonging(studyId, userId, groupId));
+                return transformStudyAclToDiseasePanelAcl(context.getStudyAcl());
             }
         }
 
@@ -840,7 +728,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
         if (flagPermissionFound) {
             return new DiseasePanelAclEntry(userId, permissions);
         } else {
-            return transformStudyAclToDiseasePanelAcl(getStudyAclBelonging(studyId, userId, groupId));
+            return transformStudyAclToDiseasePanelAcl(context.getStudyAcl());
         }
     }
 
@@ -891,6 +779,45 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
         }
     }
 
+    @Override
+    public Query getViewAclQuery(String userId, long studyId, AuditRecord.Resource resource, Query query) throws CatalogException {
+        if (studyId <= 0 || userId.equals(ADMIN) || isStudyOwner(studyId, userId)) {
+            return query;
+        }
+
+        StudyPermissionContext context = new StudyPermissionContext(studyId, userId);
+        StudyAclEntry studyAcl = context.getStudyAcl();
+        boolean studyView;
+        switch (resource) {
+            case file:
+                studyView = transformStudyAclToFileAcl(studyAcl).getPermissions().contains(FileAclEntry.FilePermissions.VIEW);
+                break;
+            case sample:
+                studyView = transformStudyAclToSampleAcl(studyAcl).getPermissions()
+                        .contains(SampleAclEntry.SamplePermissions.VIEW);
+                break;
+            case individual:
+                studyView = transformStudyAclToIndividualAcl(studyAcl).getPermissions()
+                        .contains(IndividualAclEntry.IndividualPermissions.VIEW);
+                break;
+            case cohort:
+                studyView = transformStudyAclToCohortAcl(studyAcl).getPermissions()
+                        .contains(CohortAclEntry.CohortPermissions.VIEW);
+                break;
+            case job:
+                studyView = transformStudyAclToJobAcl(studyAcl).getPermissions().contains(JobAclEntry.JobPermissions.VIEW);
+                break;
+            default:
+                throw new CatalogException("Cannot filter " + resource + " by ACLs in the database");
+        }
+
+        // Anonymous users only get the permissions given to the anonymous member
+        List<String> members = userId.equals(ANONYMOUS) ? Collections.singletonList(ANONYMOUS) : context.getMembers();
+        return new Query(query)
+                .append(AclDBAdaptor.ACL_VIEW_MEMBERS, members)
+                .append(AclDBAdaptor.ACL_VIEW_STUDY, studyView);
+    }
+
     @Override
     public void filterFiles(String userId, long studyId, List<File> files) throws CatalogException {
         if (files == null || files.isEmpty()) {
@@ -903,10 +830,14 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
             return;
         }
 
+        StudyPermissionContext context = new StudyPermissionContext(studyId, userId);
+        Map<Long, List<FileAclEntry>> acls = getMissingAcls(files, File::getAcl, File::getId, fileDBAdaptor, context);
+
         Iterator<File> fileIt = files.iterator();
         while (fileIt.hasNext()) {
             File file = fileIt.next();
-            FileAclEntry fileAcl = resolveFilePermissions(studyId, file, userId);
+            FileAclEntry fileAcl = resolveFilePermissions(context,
+                    file.getAcl() == null ? acls.get(file.getId()) : file.getAcl(), file.getId());
             if (!fileAcl.getPermissions().contains(FileAclEntry.FilePermissions.VIEW)) {
                 fileIt.remove();
             }
@@ -925,10 +856,14 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
             return;
         }
 
+        StudyPermissionContext context = new StudyPermissionContext(studyId, userId);
+        Map<Long, List<SampleAclEntry>> acls = getMissingAcls(samples, Sample::getAcl, Sample::getId, sampleDBAdaptor, context);
+
         Iterator<Sample> sampleIterator = samples.iterator();
         while (sampleIterator.hasNext()) {
             Sample sample = sampleIterator.next();
-            SampleAclEntry sampleACL = resolveSamplePermissions(studyId, sample, userId);
+            SampleAclEntry sampleACL = resolveSamplePermissions(context,
+                    sample.getAcl() == null ? acls.get(sample.getId()) : sample.getAcl(), sample.getId());
             if (!sampleACL.getPermissions().contains(SampleAclEntry.SamplePermissions.VIEW)) {
                 sampleIterator.remove();
                 continue;
@@ -952,10 +887,15 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
             return;
         }
 
+        StudyPermissionContext context = new StudyPermissionContext(studyId, userId);
+        Map<Long, List<IndividualAclEntry>> acls = getMissingAcls(individuals, Individual::getAcl, Individual::getId, individualDBAdaptor,
+                context);
+
         Iterator<Individual> individualIterator = individuals.iterator();
         while (individualIterator.hasNext()) {
             Individual individual = individualIterator.next();
-            IndividualAclEntry individualAcl = resolveIndividualPermissions(studyId, individual, userId);
+            IndividualAclEntry individualAcl = resolveIndividualPermissions(context,
+                    individual.getAcl() == null ? acls.get(individual.getId()) : individual.getAcl(), individual.getId());
             if (!individualAcl.getPermissions().contains(IndividualAclEntry.IndividualPermissions.VIEW)) {
                 individualIterator.remove();
                 continue;
@@ -979,10 +919,14 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
             return;
         }
 
+        StudyPermissionContext context = new StudyPermissionContext(studyId, userId);
+        Map<Long, List<CohortAclEntry>> acls = getMissingAcls(cohorts, Cohort::getAcl, Cohort::getId, cohortDBAdaptor, context);
+
         Iterator<Cohort> cohortIterator = cohorts.iterator();
         while (cohortIterator.hasNext()) {
             Cohort cohort = cohortIterator.next();
-            CohortAclEntry cohortAcl = resolveCohortPermissions(studyId, cohort, userId);
+            CohortAclEntry cohortAcl = resolveCohortPermissions(context,
+                    cohort.getAcl() == null ? acls.get(cohort.getId()) : cohort.getAcl(), cohort.getId());
             if (!cohortAcl.getPermissions().contains(CohortAclEntry.CohortPermissions.VIEW)) {
                 cohortIterator.remove();
                 continue;
@@ -1006,10 +950,13 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
             return;
         }
 
+        StudyPermissionContext context = new StudyPermissionContext(studyId, userId);
+        Map<Long, List<JobAclEntry>> acls = getMissingAcls(jobs, Job::getAcl, Job::getId, jobDBAdaptor, context);
+
         Iterator<Job> jobIterator = jobs.iterator();
         while (jobIterator.hasNext()) {
             Job job = jobIterator.next();
-            JobAclEntry jobAcl = resolveJobPermissions(studyId, job, userId);
+            JobAclEntry jobAcl = resolveJobPermissions(context, job.getAcl() == null ? acls.get(job.getId()) : job.getAcl(), job.getId());
             if (!jobAcl.getPermissions().contains(JobAclEntry.JobPermissions.VIEW)) {
                 jobIterator.remove();
             }
@@ -2670,6 +2617,86 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
     Auxiliar methods
     ====================================
      */
+    /**
+     * Permissions of a user in a study. The group of the user and the study ACLs are resolved only once, so they can be
+     * reused to resolve the permissions of every entry of a list.
+     */
+    private class StudyPermissionContext {
+
+        private final long studyId;
+        private final String userId;
+        private final String groupId;
+        private final List<String> members;
+        private StudyAclEntry studyAcl;
+        private boolean studyAclResolved = false;
+
+        StudyPermissionContext(long studyId, String userId) throws CatalogException {
+            this.studyId = studyId;
+            this.userId = userId;
+            String group = null;
+            if (!userId.equalsIgnoreCase(ANONYMOUS)) {
+                QueryResult<Group> groupBelonging = getGroupBelonging(studyId, userId);
+                group = groupBelonging.getNumResults() == 1 ? groupBelonging.first().getName() : null;
+            }
+            this.groupId = group;
+            this.members = (groupId == null)
+                    ? Arrays.asList(userId, OTHER_USERS_ID, ANONYMOUS)
+                    : Arrays.asList(userId, groupId, OTHER_USERS_ID, ANONYMOUS);
+        }
+
+        String getUserId() {
+            return userId;
+        }
+
+        String getGroupId() {
+            return groupId;
+        }
+
+        List<String> getMembers() {
+            return members;
+        }
+
+        StudyAclEntry getStudyAcl() throws CatalogException {
+            if (!studyAclResolved) {
+                studyAcl = getStudyAclBelonging(studyId, userId, groupId);
+                studyAclResolved = true;
+            }
+            return studyAcl;
+        }
+    }
+
+    /**
+     * Fetch with one single query the ACLs of all the entries that were retrieved without them.
+     *
+     * @param entries   List of entries
+     * @param getAcl    Get the ACLs from an entry. Null if the ACLs were not retrieved
+     * @param getId     Get the id from an entry
+     * @param dbAdaptor DBAdaptor to fetch the missing ACLs
+     * @param context   Permission context of the user
+     * @param <E>       Entry type
+     * @param <A>       ACL type
+     * @return ACLs of the entries without ACLs, by id
+     * @throws CatalogDBException when there is any database error.
+     */
+    private <E, A> Map<Long, List<A>> getMissingAcls(List<E> entries, Function<E, List<A>> getAcl, ToLongFunction<E> getId,
+                                                     AclDBAdaptor<E, A> dbAdaptor, StudyPermissionContext context)
+            throws CatalogDBException {
+        List<Long> ids = new ArrayList<>();
+        for (E entry : entries) {
+            if (getAcl.apply(entry) == null) {
+                ids.add(getId.applyAsLong(entry));
+            }
+        }
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Long, List<A>> acls = new HashMap<>(dbAdaptor.getAcl(ids, context.getMembers()));
+        for (Long id : ids) {
+            acls.putIfAbsent(id, Collections.emptyList());
+        }
+        return acls;
+    }
+
     /**
      * Retrieves the groupId where the members belongs to.
      *
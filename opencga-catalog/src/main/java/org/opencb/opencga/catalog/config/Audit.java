@@ -28,7 +28,32 @@ public class Audit {
     private String javaClass;
     private List<String> exclude;
 
+    private Mode mode;
+    private int queueSize;
+    private int batchSize;
+    private long flushInterval;
+
+    public static final int DEFAULT_QUEUE_SIZE = 100000;
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final long DEFAULT_FLUSH_INTERVAL = 1000;
+
+    /**
+     * Durability of the audit records.
+     */
+    public enum Mode {
+        /** Every record is written on the request thread. */
+        SYNC,
+        /** Records are queued and written in batches by a background writer. */
+        ASYNC,
+        /** As ASYNC, but the records with {@code high} magnitude are written on the request thread. */
+        SYNC_CRITICAL
+    }
+
     public Audit() {
+        this.mode = Mode.SYNC_CRITICAL;
+        this.queueSize = DEFAULT_QUEUE_SIZE;
+        this.batchSize = DEFAULT_BATCH_SIZE;
+        this.flushInterval = DEFAULT_FLUSH_INTERVAL;
     }
 
     public Audit(long maxDocuments, long maxSize, String javaClass, List<String> exclude) {
@@ -36,6 +61,10 @@ public class Audit {
         this.maxSize = maxSize;
         this.javaClass = javaClass;
         this.exclude = exclude;
+        this.mode = Mode.SYNC_CRITICAL;
+        this.queueSize = DEFAULT_QUEUE_SIZE;
+        this.batchSize = DEFAULT_BATCH_SIZE;
+        this.flushInterval = DEFAULT_FLUSH_INTERVAL;
     }
 
     public long getMaxDocuments() {
@@ -74,6 +103,42 @@ public class Audit {
         return this;
     }
 
+    public Mode getMode() {
+        return mode;
+    }
+
+    public Audit setMode(Mode mode) {
+        this.mode = mode;
+        return this;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public Audit setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+        return this;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public Audit setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public long getFlushInterval() {
+        return flushInterval;
+    }
+
+    public Audit setFlushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+        return this;
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder("Audit{");
@@ -81,6 +146,10 @@ public class Audit {
         sb.append(", maxSize=").append(maxSize);
         sb.append(", javaClass='").append(javaClass).append('\'');
         sb.append(", exclude=").append(exclude);
+        sb.append(", mode=").append(mode);
+        sb.append(", queueSize=").append(queueSize);
+        sb.append(", batchSize=").append(batchSize);
+        sb.append(", flushInterval=").append(flushInterval);
         sb.append('}');
         return sb.toString();
     }
@@ -7,6 +7,8 @@ public class Catalog {
 
     private long offset;
     private CatalogDBCredentials database;
+    private String checksumAlgorithm;
+    private int checksumThreads;
 
     public Catalog() {
     }
@@ -16,6 +18,8 @@ public class Catalog {
         final StringBuilder sb = new StringBuilder("Catalog{");
         sb.append("offset=").append(offset);
         sb.append(", database=").append(database);
+        sb.append(", checksumAlgorithm='").append(checksumAlgorithm).append('\'');
+        sb.append(", checksumThreads=").append(checksumThreads);
         sb.append('}');
         return sb.toString();
     }
@@ -37,4 +41,22 @@ public class Catalog {
         this.database = database;
         return this;
     }
+
+    public String getChecksumAlgorithm() {
+        return checksumAlgorithm;
+    }
+
+    public Catalog setChecksumAlgorithm(String checksumAlgorithm) {
+        this.checksumAlgorithm = checksumAlgorithm;
+        return this;
+    }
+
+    public int getChecksumThreads() {
+        return checksumThreads;
+    }
+
+    public Catalog setChecksumThreads(int checksumThreads) {
+        this.checksumThreads = checksumThreads;
+        return this;
+    }
 }
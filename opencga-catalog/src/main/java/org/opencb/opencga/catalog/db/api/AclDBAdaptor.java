@@ -21,13 +21,25 @@ import org.opencb.commons.datastore.core.QueryResult;
 import org.opencb.opencga.catalog.exceptions.CatalogDBException;
 
 import javax.annotation.Nullable;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Created by pfurio on 04/07/16.
  */
 public interface AclDBAdaptor<T, U> extends DBAdaptor<T> {
 
+    /**
+     * Query param with the list of members (user, group, anonymous...) that must be granted the VIEW permission.
+     */
+    String ACL_VIEW_MEMBERS = "aclViewMembers";
+    /**
+     * Query param. If true, documents without ACLs for any of the {@link #ACL_VIEW_MEMBERS} are also returned, as the
+     * permissions of the study apply to them.
+     */
+    String ACL_VIEW_STUDY = "aclViewStudy";
+
     /**
      * Creates a new Acl.
      *
@@ -58,6 +70,25 @@ public interface AclDBAdaptor<T, U> extends DBAdaptor<T> {
      */
     QueryResult<U> getAcl(long id, List<String> members) throws CatalogDBException;
 
+    /**
+     * Obtains the acls of several documents for the list of members with one single query.
+     *
+     * @param ids ids.
+     * @param members List of members to look for permissions. Can only be existing users or groups.
+     * @return The acls of each document, by id. Documents without acls for the members are not included.
+     * @throws CatalogDBException if there is any internal error.
+     */
+    default Map<Long, List<U>> getAcl(List<Long> ids, List<String> members) throws CatalogDBException {
+        Map<Long, List<U>> aclMap = new HashMap<>();
+        for (Long id : ids) {
+            List<U> acls = getAcl(id, members).getResult();
+            if (!acls.isEmpty()) {
+                aclMap.put(id, acls);
+            }
+        }
+        return aclMap;
+    }
+
     /**
      * Removes the Acl of the member.
      *
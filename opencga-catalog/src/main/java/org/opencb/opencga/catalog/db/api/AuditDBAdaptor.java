@@ -22,6 +22,8 @@ import org.opencb.commons.datastore.core.QueryResult;
 import org.opencb.opencga.catalog.audit.AuditRecord;
 import org.opencb.opencga.catalog.exceptions.CatalogDBException;
 
+import java.util.List;
+
 /**
  * Created on 18/08/15.
  *
@@ -31,6 +33,8 @@ public interface AuditDBAdaptor {
 
     QueryResult<AuditRecord> insertAuditRecord(AuditRecord auditRecord) throws CatalogDBException;
 
+    QueryResult<AuditRecord> insertAuditRecords(List<AuditRecord> auditRecords) throws CatalogDBException;
+
     QueryResult<AuditRecord> get(Query query, QueryOptions queryOptions) throws CatalogDBException;
 
 }
@@ -167,6 +167,17 @@ public interface FileDBAdaptor extends AclDBAdaptor<File, FileAclEntry> {
      */
     QueryResult<File> insert(File file, long studyId, QueryOptions options) throws CatalogDBException;
 
+    /***
+     * Inserts a batch of files in the database with a single write.
+     *
+     * @param files The files to be inserted in the database. The ids are assigned by this method.
+     * @param studyId Id of the study where the files belong to.
+     * @param options Options for the insertion.
+     * @return A QueryResult object containing the inserted files.
+     * @throws CatalogDBException when any of the paths already exists in the study.
+     */
+    QueryResult<File> insert(List<File> files, long studyId, QueryOptions options) throws CatalogDBException;
+
     /***
      * Retrieves the file from the database containing the fileId given.
      *
@@ -197,6 +197,34 @@ public class AclMongoDBAdaptor<T extends AbstractAclEntry> implements AclDBAdapt
         return retList;
     }
 
+    @Override
+    public Map<Long, List<T>> getAcl(List<Long> resourceIds, List<String> members) {
+        Map<Long, List<T>> aclMap = new HashMap<>();
+        if (resourceIds.isEmpty()) {
+            return aclMap;
+        }
+        List<Bson> aggregation = new ArrayList<>();
+        aggregation.add(Aggregates.match(Filters.in(PRIVATE_ID, resourceIds)));
+        aggregation.add(Aggregates.project(Projections.include(QueryParams.ID.key(), QueryParams.ACL.key())));
+        aggregation.add(Aggregates.unwind("$" + QueryParams.ACL.key()));
+        if (members != null && members.size() > 0) {
+            aggregation.add(Aggregates.match(Filters.in(QueryParams.ACL_MEMBER.key(), members)));
+        }
+
+        for (Bson bson : aggregation) {
+            logger.debug("Get Acl: {}", bson.toBsonDocument(Document.class, MongoClient.getDefaultCodecRegistry()));
+        }
+
+        QueryResult<Document> aggregate = collection.aggregate(aggregation, null);
+        for (Document document : aggregate.getResult()) {
+            long resourceId = ((Number) document.get(PRIVATE_ID)).longValue();
+            aclMap.computeIfAbsent(resourceId, id -> new ArrayList<>())
+                    .add((T) converter.convertToDataModelType(document).getAcl().get(0));
+        }
+
+        return aclMap;
+    }
+
     @Override
     public void removeAcl(long resourceId, String member) throws CatalogDBException {
         Document query = new Document()
@@ -28,6 +28,7 @@ import org.opencb.opencga.catalog.db.api.AuditDBAdaptor;
 import org.opencb.opencga.catalog.exceptions.CatalogDBException;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -60,6 +61,21 @@ public class AuditMongoDBAdaptor extends MongoDBAdaptor implements AuditDBAdapto
         return endQuery("insertAuditRecord", startQuery, Collections.singletonList(auditRecord));
     }
 
+    @Override
+    public QueryResult<AuditRecord> insertAuditRecords(List<AuditRecord> auditRecords) throws CatalogDBException {
+        long startQuery = startQuery();
+
+        if (!auditRecords.isEmpty()) {
+            List<Document> documents = new ArrayList<>(auditRecords.size());
+            for (AuditRecord auditRecord : auditRecords) {
+                documents.add(MongoDBUtils.getMongoDBDocument(auditRecord, "AuditRecord"));
+            }
+            auditCollection.insert(documents, new QueryOptions());
+        }
+
+        return endQuery("insertAuditRecords", startQuery, auditRecords);
+    }
+
     @Override
     public QueryResult<AuditRecord> get(Query query, QueryOptions queryOptions) throws CatalogDBException {
         long startTime = startQuery();
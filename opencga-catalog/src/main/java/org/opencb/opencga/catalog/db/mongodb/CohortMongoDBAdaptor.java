@@ -601,6 +601,7 @@ public class CohortMongoDBAdaptor extends AnnotationMongoDBAdaptor implements Co
 
     private Bson parseQuery(Query query, boolean isolated) throws CatalogDBException {
         List<Bson> andBsonList = new ArrayList<>();
+        addAclViewFilter(query, andBsonList);
         List<Bson> annotationList = new ArrayList<>();
         // We declare variableMap here just in case we have different annotation queries
         Map<String, Variable> variableMap = null;
@@ -743,6 +744,11 @@ public class CohortMongoDBAdaptor extends AnnotationMongoDBAdaptor implements Co
         return endQuery("get cohort Acl", startTime, aclDBAdaptor.getAcl(id, members));
     }
 
+    @Override
+    public Map<Long, List<CohortAclEntry>> getAcl(List<Long> ids, List<String> members) throws CatalogDBException {
+        return aclDBAdaptor.getAcl(ids, members);
+    }
+
     @Override
     public void removeAcl(long id, String member) throws CatalogDBException {
         aclDBAdaptor.removeAcl(id, member);
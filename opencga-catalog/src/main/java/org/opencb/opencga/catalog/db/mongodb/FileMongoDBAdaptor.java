@@ -16,7 +16,9 @@
 
 package org.opencb.opencga.catalog.db.mongodb;
 
+import com.mongodb.BulkWriteError;
 import com.mongodb.DuplicateKeyException;
+import com.mongodb.MongoBulkWriteException;
 import com.mongodb.MongoClient;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.client.model.Aggregates;
@@ -123,6 +125,61 @@ public class FileMongoDBAdaptor extends MongoDBAdaptor implements FileDBAdaptor
         return endQuery("Create file", startTime, get(newFileId, options));
     }
 
+    @Override
+    public QueryResult<File> insert(List<File> files, long studyId, QueryOptions options) throws CatalogDBException {
+        long startTime = startQuery();
+        if (files.isEmpty()) {
+            return endQuery("Create files", startTime, Collections.emptyList());
+        }
+
+        dbAdaptorFactory.getCatalogStudyDBAdaptor().checkId(studyId);
+
+        List<String> paths = new ArrayList<>(files.size());
+        for (File file : files) {
+            paths.add(file.getPath());
+        }
+        Bson existingQuery = Filters.and(Filters.eq(PRIVATE_STUDY_ID, studyId), Filters.in(QueryParams.PATH.key(), paths));
+        QueryResult<Document> existing = fileCollection.find(existingQuery, new QueryOptions(QueryOptions.INCLUDE, QueryParams.PATH.key())
+                .append(QueryOptions.LIMIT, 1));
+        if (existing.getNumResults() > 0) {
+            throw CatalogDBException.alreadyExists("File", studyId, "path", existing.first().getString(QueryParams.PATH.key()));
+        }
+
+        List<Document> fileDocuments = new ArrayList<>(files.size());
+        long diskUsage = 0;
+        // Reserve all the ids at once
+        long newFileId = reserveIds(files.size());
+        for (File file : files) {
+            file.setId(newFileId);
+            Document fileDocument = fileConverter.convertToStorageType(file);
+            fileDocument.append(PRIVATE_STUDY_ID, studyId);
+            fileDocument.append(PRIVATE_ID, newFileId);
+            fileDocuments.add(fileDocument);
+            if (!file.isExternal()) {
+                diskUsage += file.getSize();
+            }
+            newFileId++;
+        }
+
+        try {
+            fileCollection.insert(fileDocuments, null);
+        } catch (MongoBulkWriteException e) {
+            for (BulkWriteError writeError : e.getWriteErrors()) {
+                if (writeError.getCode() == 11000) {
+                    throw CatalogDBException.alreadyExists("File", studyId, "path", files.get(writeError.getIndex()).getPath(), e);
+                }
+            }
+            throw e;
+        }
+
+        // Update the size field from the study collection once for the whole batch
+        if (diskUsage != 0) {
+            dbAdaptorFactory.getCatalogStudyDBAdaptor().updateDiskUsage(studyId, diskUsage);
+        }
+
+        return endQuery("Create files", startTime, files);
+    }
+
     @Override
     public QueryResult<File> get(Query query, QueryOptions options) throws CatalogDBException {
         long startTime = startQuery();
@@ -541,6 +598,7 @@ public class FileMongoDBAdaptor extends MongoDBAdaptor implements FileDBAdaptor
 
     private Bson parseQuery(Query query, boolean isolated) throws CatalogDBException {
         List<Bson> andBsonList = new ArrayList<>();
+        addAclViewFilter(query, andBsonList);
 
         if (isolated) {
             andBsonList.add(new Document("$isolated", 1));
@@ -829,6 +887,11 @@ public class FileMongoDBAdaptor extends MongoDBAdaptor implements FileDBAdaptor
         return endQuery("get file Acl", startTime, aclDBAdaptor.getAcl(id, members));
     }
 
+    @Override
+    public Map<Long, List<FileAclEntry>> getAcl(List<Long> ids, List<String> members) throws CatalogDBException {
+        return aclDBAdaptor.getAcl(ids, members);
+    }
+
     @Override
     public void removeAcl(long id, String member) throws CatalogDBException {
 //        CatalogMongoDBUtils.removeAcl(id, member, fileCollection);
@@ -713,6 +713,7 @@ public class IndividualMongoDBAdaptor extends AnnotationMongoDBAdaptor implement
 
     private Bson parseQuery(Query query, boolean isolated) throws CatalogDBException {
         List<Bson> andBsonList = new ArrayList<>();
+        addAclViewFilter(query, andBsonList);
         List<Bson> annotationList = new ArrayList<>();
         // We declare variableMap here just in case we have different annotation queries
         Map<String, Variable> variableMap = null;
@@ -918,6 +919,11 @@ public class IndividualMongoDBAdaptor extends AnnotationMongoDBAdaptor implement
         return endQuery("get individual Acl", startTime, aclDBAdaptor.getAcl(id, members));
     }
 
+    @Override
+    public Map<Long, List<IndividualAclEntry>> getAcl(List<Long> ids, List<String> members) throws CatalogDBException {
+        return aclDBAdaptor.getAcl(ids, members);
+    }
+
     @Override
     public void removeAcl(long id, String member) throws CatalogDBException {
 //        CatalogMongoDBUtils.removeAcl(id, member, individualCollection);
@@ -620,6 +620,7 @@ public class JobMongoDBAdaptor extends MongoDBAdaptor implements JobDBAdaptor {
 
     private Bson parseQuery(Query query, boolean isolated) throws CatalogDBException {
         List<Bson> andBsonList = new ArrayList<>();
+        addAclViewFilter(query, andBsonList);
 
         if (isolated) {
             andBsonList.add(new Document("$isolated", 1));
@@ -730,6 +731,11 @@ public class JobMongoDBAdaptor extends MongoDBAdaptor implements JobDBAdaptor {
         return endQuery("get job Acl", startTime, aclDBAdaptor.getAcl(id, members));
     }
 
+    @Override
+    public Map<Long, List<JobAclEntry>> getAcl(List<Long> ids, List<String> members) throws CatalogDBException {
+        return aclDBAdaptor.getAcl(ids, members);
+    }
+
     @Override
     public void removeAcl(long id, String member) throws CatalogDBException {
 //        CatalogMongoDBUtils.removeAcl(id, member, jobCollection);
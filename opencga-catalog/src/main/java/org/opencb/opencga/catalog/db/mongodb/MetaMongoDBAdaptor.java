@@ -42,6 +42,8 @@ import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import static org.opencb.opencga.catalog.db.mongodb.MongoDBUtils.getMongoDBDocument;
@@ -54,6 +56,35 @@ public class MetaMongoDBAdaptor extends MongoDBAdaptor implements MetaDBAdaptor
 
     private final MongoDBCollection metaCollection;
     private static final String VERSION = "v0.8";
+    private static final String ID_COUNTER = "idCounter";
+
+    /** Number of ids reserved from the database each time the current block of ids is exhausted. */
+    public static final int ID_BLOCK_SIZE = 100;
+
+    // Block of ids reserved by this adaptor. Ids are taken from the block without accessing the database.
+    private final AtomicReference<IdBlock> idBlock = new AtomicReference<>(new IdBlock(0, 0));
+
+    /**
+     * Range of reserved ids, from "next" (inclusive) to "end" (exclusive).
+     */
+    private static final class IdBlock {
+        private final AtomicLong next;
+        private final long end;
+
+        private IdBlock(long first, long end) {
+            this.next = new AtomicLong(first);
+            this.end = end;
+        }
+
+        // Returns the first of "n" consecutive ids, or -1 if there are not enough ids in the block
+        private long take(int n) {
+            if (next.get() + n > end) {
+                return -1;
+            }
+            long first = next.getAndAdd(n);
+            return first + n <= end ? first : -1;
+        }
+    }
 
     public MetaMongoDBAdaptor(MongoDBCollection metaMongoDBCollection, MongoDBAdaptorFactory dbAdaptorFactory) {
         super(LoggerFactory.getLogger(ProjectMongoDBAdaptor.class));
@@ -61,11 +92,56 @@ public class MetaMongoDBAdaptor extends MongoDBAdaptor implements MetaDBAdaptor
         this.metaCollection = metaMongoDBCollection;
     }
 
+    /**
+     * Get a new unique id for any catalog entry.
+     *
+     * Ids are reserved from the database in blocks of {@link #ID_BLOCK_SIZE}, with one $inc on the id counter, and handed out
+     * from memory. The only persisted state is the counter, so ids reserved and not used are lost when the process ends.
+     * Ids are unique, but not consecutive between different processes.
+     *
+     * @return New id
+     */
     public long getNewAutoIncrementId() {
-        return getNewAutoIncrementId("idCounter"); //, metaCollection
+        return reserveIds(1);
+    }
+
+    /**
+     * Reserve a range of consecutive ids, for batch creation of catalog entries.
+     *
+     * @param n Number of ids to reserve
+     * @return The first reserved id. The ids from this one to "first + n - 1" can be used.
+     */
+    public long reserveIds(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("Number of ids to reserve must be positive: " + n);
+        }
+        if (n >= ID_BLOCK_SIZE) {
+            // Big range. Reserve directly from the database
+            return getNewAutoIncrementId(ID_COUNTER, n) - n + 1;
+        }
+        while (true) {
+            IdBlock block = idBlock.get();
+            long first = block.take(n);
+            if (first >= 0) {
+                return first;
+            }
+            newIdBlock(block);
+        }
+    }
+
+    private synchronized void newIdBlock(IdBlock exhaustedBlock) {
+        // Other thread may have replaced the block already
+        if (idBlock.get() == exhaustedBlock) {
+            long last = getNewAutoIncrementId(ID_COUNTER, ID_BLOCK_SIZE);
+            idBlock.set(new IdBlock(last - ID_BLOCK_SIZE + 1, last + 1));
+        }
     }
 
     public long getNewAutoIncrementId(String field) { //, MongoDBCollection metaCollection
+        return getNewAutoIncrementId(field, 1);
+    }
+
+    private long getNewAutoIncrementId(String field, long increment) {
 //        QueryResult<BasicDBObject> result = metaCollection.findAndModify(
 //                new BasicDBObject("_id", CatalogMongoDBAdaptor.METADATA_OBJECT_ID),  //Query
 //                new BasicDBObject(field, true),  //Fields
@@ -77,7 +153,7 @@ public class MetaMongoDBAdaptor extends MongoDBAdaptor implements MetaDBAdaptor
 
         Bson query = Filters.eq(PRIVATE_ID, MongoDBAdaptorFactory.METADATA_OBJECT_ID);
         Document projection = new Document(field, true);
-        Bson inc = Updates.inc(field, 1L);
+        Bson inc = Updates.inc(field, increment);
         QueryOptions queryOptions = new QueryOptions("returnNew", true);
         QueryResult<Document> result = metaCollection.findAndUpdate(query, projection, null, inc, queryOptions);
 //        return (int) Float.parseFloat(result.getResult().get(0).get(field).toString());
@@ -176,6 +252,8 @@ public class MetaMongoDBAdaptor extends MongoDBAdaptor implements MetaDBAdaptor
         admin.setPassword(CatalogAuthenticationManager.cypherPassword(admin.getPassword()));
 
         Metadata metadata = new Metadata().setIdCounter(configuration.getCatalog().getOffset()).setVersion(VERSION);
+        // Discard ids reserved from a previous counter
+        idBlock.set(new IdBlock(0, 0));
 
         if (configuration.isOpenRegister()) {
             metadata.setOpen("public");
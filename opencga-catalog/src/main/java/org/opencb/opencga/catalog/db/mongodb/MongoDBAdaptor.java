@@ -64,6 +64,16 @@ public class MongoDBAdaptor extends AbstractDBAdaptor {
         return dbAdaptorFactory.getCatalogMetaDBAdaptor().getNewAutoIncrementId();
     }
 
+    /**
+     * Reserve a range of consecutive ids for batch insertions.
+     *
+     * @param n Number of ids
+     * @return  First id of the range
+     */
+    protected long reserveIds(int n) {
+        return dbAdaptorFactory.getCatalogMetaDBAdaptor().reserveIds(n);
+    }
+
 
     @Deprecated
     protected void addIntegerOrQuery(String mongoDbField, String queryParam, Query query, List<Bson> andBsonList) {
@@ -34,9 +34,11 @@ import org.opencb.commons.datastore.mongodb.MongoDBCollection;
 import org.opencb.commons.datastore.mongodb.MongoDBQueryUtils;
 import org.opencb.opencga.catalog.db.AbstractDBAdaptor;
 import org.opencb.opencga.catalog.db.DBAdaptorFactory;
+import org.opencb.opencga.catalog.db.api.AclDBAdaptor;
 import org.opencb.opencga.catalog.db.api.DBAdaptor;
 import org.opencb.opencga.catalog.db.api.FileDBAdaptor;
 import org.opencb.opencga.catalog.db.api.SampleDBAdaptor;
+import org.opencb.opencga.catalog.db.mongodb.converters.CatalogModelCodec;
 import org.opencb.opencga.catalog.exceptions.CatalogDBException;
 import org.opencb.opencga.catalog.models.*;
 import org.opencb.opencga.catalog.models.acls.permissions.AbstractAclEntry;
@@ -83,7 +85,7 @@ class MongoDBUtils {
     //    public static final Pattern OPERATION_PATTERN = Pattern.compile("^([^=<>~!]*)(<=?|>=?|!=|!?=?~|==?)([^=<>~!]+.*)$");
     public static final Pattern OPERATION_PATTERN = Pattern.compile("^()(<=?|>=?|!=|!?=?~|==?)([^=<>~!]+.*)$");
     public static final Pattern ANNOTATION_PATTERN = Pattern.compile("^([a-zA-Z\\\\.]+)([\\^=<>~!$]+.*)$");
-    static final String TO_REPLACE_DOTS = "&#46;";
+    static final String TO_REPLACE_DOTS = CatalogModelCodec.TO_REPLACE_DOTS;
     private static ObjectMapper jsonObjectMapper;
     private static ObjectWriter jsonObjectWriter;
     private static Map<Class, ObjectReader> jsonReaderMap;
@@ -157,6 +159,26 @@ class MongoDBUtils {
         return collection.aggregate(aggregation, null);
     }
 
+    /**
+     * Push down to the database the VIEW permission check of the members given in {@link AclDBAdaptor#ACL_VIEW_MEMBERS}.
+     *
+     * @param query       Query object.
+     * @param andBsonList List of filters where the ACL filter will be added.
+     */
+    static void addAclViewFilter(Query query, List<Bson> andBsonList) {
+        List<String> members = query.getAsStringList(AclDBAdaptor.ACL_VIEW_MEMBERS);
+        if (members == null || members.isEmpty()) {
+            return;
+        }
+        Bson granted = Filters.elemMatch(FileDBAdaptor.QueryParams.ACL.key(), Filters.and(Filters.in("member", members),
+                Filters.eq("permissions", "VIEW")));
+        if (query.getBoolean(AclDBAdaptor.ACL_VIEW_STUDY)) {
+            andBsonList.add(Filters.or(granted, Filters.nin(FileDBAdaptor.QueryParams.ACL_MEMBER.key(), members)));
+        } else {
+            andBsonList.add(granted);
+        }
+    }
+
     static void removeAcl(long id, String member, MongoDBCollection collection) throws CatalogDBException {
         Document query = new Document()
                 .append(PRIVATE_ID, id)
@@ -265,13 +287,13 @@ class MongoDBUtils {
     }
 
     static <T> List<T> parseObjects(QueryResult<Document> result, Class<T> tClass) throws CatalogDBException {
-        LinkedList<T> objects = new LinkedList<>();
-        ObjectReader objectReader = getObjectReader(tClass);
+        List<T> objects = new ArrayList<>(result.getResult().size());
+        CatalogModelCodec<T> codec = CatalogModelCodec.get(tClass);
         try {
             for (Document document : result.getResult()) {
 //                document.remove("_id");
 //                document.remove("_projectId");
-                objects.add(objectReader.<T>readValue(restoreDotsInKeys(jsonObjectWriter.writeValueAsString(document))));
+                objects.add(codec.decode(document));
             }
         } catch (IOException e) {
             throw new CatalogDBException("Error parsing " + tClass.getName(), e);
@@ -286,9 +308,7 @@ class MongoDBUtils {
         try {
 //            result.first().remove("_id");
 //            result.first().remove("_studyId");
-            String s = jsonObjectWriter.writeValueAsString(result.first());
-//            return getObjectReader(tClass).readValue(restoreDotsInKeys(result.first().toJson()));
-            return getObjectReader(tClass).readValue(restoreDotsInKeys(s));
+            return CatalogModelCodec.get(tClass).decode(result.first());
         } catch (IOException e) {
             throw new CatalogDBException("Error parsing " + tClass.getName(), e);
         }
@@ -296,7 +316,7 @@ class MongoDBUtils {
 
     static <T> T parseObject(Document result, Class<T> tClass) throws CatalogDBException {
         try {
-            return getObjectReader(tClass).readValue(restoreDotsInKeys(result).toJson());
+            return CatalogModelCodec.get(tClass).decode(result);
         } catch (IOException e) {
             throw new CatalogDBException("Error parsing " + tClass.getName(), e);
         }
@@ -325,18 +345,11 @@ class MongoDBUtils {
     }
 
     static Document getMongoDBDocument(Object object, String objectName) throws CatalogDBException {
-        Document document;
-        String jsonString = null;
         try {
-            jsonString = jsonObjectWriter.writeValueAsString(object);
-            document = Document.parse(jsonString);
-            document = replaceDotsInKeys(document);
+            return CatalogModelCodec.toDocument(object);
         } catch (Exception e) {
-            throw new CatalogDBException("Error while writing to Json : " + objectName + (jsonString == null
-                    ? ""
-                    : (" -> " + jsonString)), e);
+            throw new CatalogDBException("Error while converting to Document : " + objectName, e);
         }
-        return document;
     }
 //    static final String TO_REPLACE_DOTS = "\uff0e";
 
@@ -355,8 +368,8 @@ class MongoDBUtils {
     }
 
     static <T> T replaceInKeys(T object, String target, String replacement) {
-        if (object instanceof Document) {
-            Document document = (Document) object;
+        if (object instanceof Map) {
+            Map<String, Object> document = (Map<String, Object>) object;
             List<String> keys = new ArrayList<>();
             for (String s : document.keySet()) {
                 if (s.contains(target)) {
@@ -632,6 +632,7 @@ public class SampleMongoDBAdaptor extends AnnotationMongoDBAdaptor implements Sa
 
     private Bson parseQuery(Query query, boolean isolated) throws CatalogDBException {
         List<Bson> andBsonList = new ArrayList<>();
+        addAclViewFilter(query, andBsonList);
         List<Bson> annotationList = new ArrayList<>();
         // We declare variableMap here just in case we have different annotation queries
         Map<String, Variable> variableMap = null;
@@ -784,6 +785,11 @@ public class SampleMongoDBAdaptor extends AnnotationMongoDBAdaptor implements Sa
         return endQuery("get sample Acl", startTime, aclDBAdaptor.getAcl(id, members));
     }
 
+    @Override
+    public Map<Long, List<SampleAclEntry>> getAcl(List<Long> ids, List<String> members) throws CatalogDBException {
+        return aclDBAdaptor.getAcl(ids, members);
+    }
+
     @Override
     public void removeAcl(long id, String member) throws CatalogDBException {
 //        CatalogMongoDBUtils.removeAcl(id, member, sampleCollection);
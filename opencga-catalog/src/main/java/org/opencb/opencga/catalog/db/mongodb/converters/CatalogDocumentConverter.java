@@ -0,0 +1,57 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.catalog.db.mongodb.converters;
+
+import org.bson.Document;
+import org.opencb.commons.datastore.mongodb.GenericDocumentComplexConverter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Document converter for the catalog models backed by a {@link CatalogModelCodec}, so documents are not written
+ * as JSON strings to be parsed again.
+ *
+ * Created on 18/10/26.
+ */
+public class CatalogDocumentConverter<T> extends GenericDocumentComplexConverter<T> {
+
+    private final CatalogModelCodec<T> codec;
+
+    public CatalogDocumentConverter(Class<T> clazz) {
+        super(clazz);
+        codec = CatalogModelCodec.get(clazz);
+    }
+
+    @Override
+    public T convertToDataModelType(Document document) {
+        try {
+            return codec.decode(document);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error converting document to " + codec.getEncoderClass().getName(), e);
+        }
+    }
+
+    @Override
+    public Document convertToStorageType(T object) {
+        try {
+            return codec.encode(object);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error converting " + codec.getEncoderClass().getName() + " to document", e);
+        }
+    }
+}
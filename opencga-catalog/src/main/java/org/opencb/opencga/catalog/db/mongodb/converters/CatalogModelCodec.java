@@ -0,0 +1,360 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.catalog.db.mongodb.converters;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Converts catalog models to and from MongoDB documents without writing intermediate JSON strings.
+ *
+ * The Jackson annotations of the models are still used, but the serializer writes into a {@link TokenBuffer} that is
+ * read straight into a {@link Document} or a {@link BsonWriter}, and documents are fed to the deserializer token by token.
+ * Dots in keys, not allowed by MongoDB, are escaped with {@link #TO_REPLACE_DOTS} while the keys are written, and restored
+ * while they are read.
+ *
+ * Created on 18/10/26.
+ */
+public class CatalogModelCodec<T> implements Codec<T> {
+
+    public static final String TO_REPLACE_DOTS = "&#46;";
+
+    private static final ObjectMapper OBJECT_MAPPER;
+    private static final Map<Class<?>, CatalogModelCodec<?>> CODECS = new ConcurrentHashMap<>();
+
+    private final Class<T> clazz;
+    private final ObjectReader objectReader;
+
+    static {
+        OBJECT_MAPPER = new ObjectMapper();
+        OBJECT_MAPPER.configure(DeserializationFeature.FAIL_ON_IGNORED_PROPERTIES, false);
+        OBJECT_MAPPER.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        OBJECT_MAPPER.configure(DeserializationFeature.FAIL_ON_NULL_FOR_PRIMITIVES, false);
+        OBJECT_MAPPER.configure(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY, true);
+        OBJECT_MAPPER.configure(MapperFeature.REQUIRE_SETTERS_FOR_GETTERS, true);
+    }
+
+    public CatalogModelCodec(Class<T> clazz) {
+        this.clazz = clazz;
+        this.objectReader = OBJECT_MAPPER.readerFor(clazz);
+    }
+
+    /**
+     * Get the shared codec for the given class.
+     *
+     * @param clazz Class of the model
+     * @param <T>   Type of the model
+     * @return Codec for the class
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> CatalogModelCodec<T> get(Class<T> clazz) {
+        return (CatalogModelCodec<T>) CODECS.computeIfAbsent(clazz, CatalogModelCodec::new);
+    }
+
+    /**
+     * Read a document, as returned by the driver, into the model.
+     *
+     * @param document Document or any other map of documents, lists and BSON values
+     * @return the model
+     * @throws IOException if the document can not be deserialized into the model
+     */
+    public T decode(Map<String, Object> document) throws IOException {
+        TokenBuffer buffer = new TokenBuffer(OBJECT_MAPPER, false);
+        writeValue(buffer, document);
+        return objectReader.readValue(buffer.asParser());
+    }
+
+    /**
+     * Write the model into a new document.
+     *
+     * @param object Model to write
+     * @return the document
+     * @throws IOException if the model can not be serialized, or is not serialized as an object
+     */
+    public Document encode(T object) throws IOException {
+        return toDocument(object);
+    }
+
+    /**
+     * Write any object into a new document, with the same mapper used by the codecs.
+     *
+     * @param object Object to write
+     * @return the document
+     * @throws IOException if the object can not be serialized, or is not serialized as an object
+     */
+    public static Document toDocument(Object object) throws IOException {
+        JsonParser parser = serialize(object);
+        JsonToken token = parser.nextToken();
+        if (token != JsonToken.START_OBJECT) {
+            throw new IOException("Expected an object but found " + token);
+        }
+        return readDocument(parser);
+    }
+
+    @Override
+    public T decode(BsonReader reader, DecoderContext decoderContext) {
+        TokenBuffer buffer = new TokenBuffer(OBJECT_MAPPER, false);
+        try {
+            readBsonDocument(reader, buffer);
+            return objectReader.readValue(buffer.asParser());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error decoding " + clazz.getName(), e);
+        }
+    }
+
+    @Override
+    public void encode(BsonWriter writer, T value, EncoderContext encoderContext) {
+        try {
+            JsonParser parser = serialize(value);
+            JsonToken token = parser.nextToken();
+            if (token != JsonToken.START_OBJECT) {
+                throw new IOException("Expected an object but found " + token);
+            }
+            writeBson(parser, token, writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error encoding " + clazz.getName(), e);
+        }
+    }
+
+    @Override
+    public Class<T> getEncoderClass() {
+        return clazz;
+    }
+
+    static String escapeDots(String key) {
+        return key.indexOf('.') < 0 ? key : key.replace(".", TO_REPLACE_DOTS);
+    }
+
+    static String restoreDots(String key) {
+        return key.contains(TO_REPLACE_DOTS) ? key.replace(TO_REPLACE_DOTS, ".") : key;
+    }
+
+    private static JsonParser serialize(Object object) throws IOException {
+        TokenBuffer buffer = new TokenBuffer(OBJECT_MAPPER, false);
+        OBJECT_MAPPER.writeValue(buffer, object);
+        return buffer.asParser();
+    }
+
+    /*  Model tokens -> Document  */
+
+    private static Document readDocument(JsonParser parser) throws IOException {
+        Document document = new Document();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String key = escapeDots(parser.getCurrentName());
+            document.put(key, readValue(parser, parser.nextToken()));
+        }
+        return document;
+    }
+
+    private static Object readValue(JsonParser parser, JsonToken token) throws IOException {
+        switch (token) {
+            case START_OBJECT:
+                return readDocument(parser);
+            case START_ARRAY:
+                List<Object> list = new ArrayList<>();
+                for (JsonToken t = parser.nextToken(); t != JsonToken.END_ARRAY; t = parser.nextToken()) {
+                    list.add(readValue(parser, t));
+                }
+                return list;
+            default:
+                return readScalar(parser, token);
+        }
+    }
+
+    // Same types Document.parse would give for the JSON of the value: small integers as Integer, decimals as Double and
+    // binary as base64.
+    private static Object readScalar(JsonParser parser, JsonToken token) throws IOException {
+        switch (token) {
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+                long l = parser.getLongValue();
+                return l == (int) l ? (Object) (int) l : (Object) l;
+            case VALUE_NUMBER_FLOAT:
+                if (parser.getNumberType() == JsonParser.NumberType.FLOAT) {
+                    return Double.valueOf(parser.getText());
+                }
+                return parser.getDoubleValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NULL:
+                return null;
+            case VALUE_EMBEDDED_OBJECT:
+                Object object = parser.getEmbeddedObject();
+                if (object instanceof byte[]) {
+                    return Base64.getEncoder().encodeToString((byte[]) object);
+                }
+                return object;
+            default:
+                throw new IOException("Unexpected token " + token);
+        }
+    }
+
+    /*  Model tokens -> BsonWriter  */
+
+    private static void writeBson(JsonParser parser, JsonToken token, BsonWriter writer) throws IOException {
+        switch (token) {
+            case START_OBJECT:
+                writer.writeStartDocument();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    writer.writeName(escapeDots(parser.getCurrentName()));
+                    writeBson(parser, parser.nextToken(), writer);
+                }
+                writer.writeEndDocument();
+                break;
+            case START_ARRAY:
+                writer.writeStartArray();
+                for (JsonToken t = parser.nextToken(); t != JsonToken.END_ARRAY; t = parser.nextToken()) {
+                    writeBson(parser, t, writer);
+                }
+                writer.writeEndArray();
+                break;
+            default:
+                Object value = readScalar(parser, token);
+                if (value == null) {
+                    writer.writeNull();
+                } else if (value instanceof String) {
+                    writer.writeString((String) value);
+                } else if (value instanceof Integer) {
+                    writer.writeInt32((Integer) value);
+                } else if (value instanceof Long) {
+                    writer.writeInt64((Long) value);
+                } else if (value instanceof Double) {
+                    writer.writeDouble((Double) value);
+                } else if (value instanceof Boolean) {
+                    writer.writeBoolean((Boolean) value);
+                } else {
+                    throw new IOException("Unexpected value of type " + value.getClass().getName());
+                }
+                break;
+        }
+    }
+
+    /*  Document -> model tokens  */
+
+    private static void writeValue(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof String) {
+            generator.writeString((String) value);
+        } else if (value instanceof Map) {
+            generator.writeStartObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                generator.writeFieldName(restoreDots(String.valueOf(entry.getKey())));
+                writeValue(generator, entry.getValue());
+            }
+            generator.writeEndObject();
+        } else if (value instanceof Collection) {
+            generator.writeStartArray();
+            for (Object o : (Collection<?>) value) {
+                writeValue(generator, o);
+            }
+            generator.writeEndArray();
+        } else if (value instanceof Integer) {
+            generator.writeNumber((Integer) value);
+        } else if (value instanceof Long) {
+            generator.writeNumber((Long) value);
+        } else if (value instanceof Double) {
+            generator.writeNumber((Double) value);
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else {
+            // Dates, ObjectIds... are serialized by the mapper, as they were when the document was written as JSON
+            generator.writeObject(value);
+        }
+    }
+
+    /*  BsonReader -> model tokens  */
+
+    private static void readBsonDocument(BsonReader reader, JsonGenerator generator) throws IOException {
+        reader.readStartDocument();
+        generator.writeStartObject();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            generator.writeFieldName(restoreDots(reader.readName()));
+            readBsonValue(reader, generator);
+        }
+        reader.readEndDocument();
+        generator.writeEndObject();
+    }
+
+    private static void readBsonValue(BsonReader reader, JsonGenerator generator) throws IOException {
+        switch (reader.getCurrentBsonType()) {
+            case DOCUMENT:
+                readBsonDocument(reader, generator);
+                break;
+            case ARRAY:
+                reader.readStartArray();
+                generator.writeStartArray();
+                while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                    readBsonValue(reader, generator);
+                }
+                reader.readEndArray();
+                generator.writeEndArray();
+                break;
+            case STRING:
+                generator.writeString(reader.readString());
+                break;
+            case INT32:
+                generator.writeNumber(reader.readInt32());
+                break;
+            case INT64:
+                generator.writeNumber(reader.readInt64());
+                break;
+            case DOUBLE:
+                generator.writeNumber(reader.readDouble());
+                break;
+            case BOOLEAN:
+                generator.writeBoolean(reader.readBoolean());
+                break;
+            case DATE_TIME:
+                generator.writeNumber(reader.readDateTime());
+                break;
+            case OBJECT_ID:
+                generator.writeString(reader.readObjectId().toHexString());
+                break;
+            case NULL:
+                reader.readNull();
+                generator.writeNull();
+                break;
+            default:
+                // No catalog model maps any other BSON type
+                reader.skipValue();
+                generator.writeNull();
+                break;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.catalog.db.mongodb.converters;
+
+import com.mongodb.MongoClient;
+import org.bson.codecs.Codec;
+import org.bson.codecs.configuration.CodecProvider;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+
+/**
+ * Provides a {@link CatalogModelCodec} for each class in the catalog models package.
+ *
+ * Created on 18/10/26.
+ */
+public class CatalogModelCodecProvider implements CodecProvider {
+
+    public static final String MODELS_PACKAGE = "org.opencb.opencga.catalog.models.";
+
+    /**
+     * Catalog models first, then the default codecs of the driver.
+     */
+    public static final CodecRegistry CODEC_REGISTRY = CodecRegistries.fromRegistries(
+            CodecRegistries.fromProviders(new CatalogModelCodecProvider()),
+            MongoClient.getDefaultCodecRegistry());
+
+    @Override
+    public <T> Codec<T> get(Class<T> clazz, CodecRegistry registry) {
+        if (clazz.getName().startsWith(MODELS_PACKAGE)) {
+            return CatalogModelCodec.get(clazz);
+        }
+        return null;
+    }
+}
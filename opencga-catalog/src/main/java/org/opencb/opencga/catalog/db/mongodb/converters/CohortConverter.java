@@ -17,12 +17,11 @@
 package org.opencb.opencga.catalog.db.mongodb.converters;
 
 import org.bson.Document;
-import org.opencb.commons.datastore.mongodb.GenericDocumentComplexConverter;
 import org.opencb.opencga.catalog.models.Cohort;
 /**
  * Created by pfurio on 3/22/16.
  */
-public class CohortConverter extends GenericDocumentComplexConverter<Cohort> {
+public class CohortConverter extends CatalogDocumentConverter<Cohort> {
 
     public CohortConverter() {
         super(Cohort.class);
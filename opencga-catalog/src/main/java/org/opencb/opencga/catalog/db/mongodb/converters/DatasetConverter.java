@@ -17,12 +17,11 @@
 package org.opencb.opencga.catalog.db.mongodb.converters;
 
 import org.bson.Document;
-import org.opencb.commons.datastore.mongodb.GenericDocumentComplexConverter;
 import org.opencb.opencga.catalog.models.Dataset;
 /**
  * Created by pfurio on 04/05/16.
  */
-public class DatasetConverter extends GenericDocumentComplexConverter<Dataset> {
+public class DatasetConverter extends CatalogDocumentConverter<Dataset> {
 
     public DatasetConverter() {
         super(Dataset.class);
@@ -17,13 +17,12 @@
 package org.opencb.opencga.catalog.db.mongodb.converters;
 
 import org.bson.Document;
-import org.opencb.commons.datastore.mongodb.GenericDocumentComplexConverter;
 import org.opencb.opencga.catalog.models.Individual;
 
 /**
  * Created by pfurio on 19/01/16.
  */
-public class IndividualConverter extends GenericDocumentComplexConverter<Individual> {
+public class IndividualConverter extends CatalogDocumentConverter<Individual> {
 
     public IndividualConverter() {
         super(Individual.class);
@@ -17,13 +17,12 @@
 package org.opencb.opencga.catalog.db.mongodb.converters;
 
 import org.bson.Document;
-import org.opencb.commons.datastore.mongodb.GenericDocumentComplexConverter;
 import org.opencb.opencga.catalog.models.Job;
 
 /**
  * Created by pfurio on 19/01/16.
  */
-public class JobConverter extends GenericDocumentComplexConverter<Job> {
+public class JobConverter extends CatalogDocumentConverter<Job> {
 
     public JobConverter() {
         super(Job.class);
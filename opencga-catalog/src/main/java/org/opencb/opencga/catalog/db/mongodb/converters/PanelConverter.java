@@ -17,13 +17,12 @@
 package org.opencb.opencga.catalog.db.mongodb.converters;
 
 import org.bson.Document;
-import org.opencb.commons.datastore.mongodb.GenericDocumentComplexConverter;
 import org.opencb.opencga.catalog.models.DiseasePanel;
 
 /**
  * Created by pfurio on 01/06/16.
  */
-public class PanelConverter extends GenericDocumentComplexConverter<DiseasePanel> {
+public class PanelConverter extends CatalogDocumentConverter<DiseasePanel> {
 
     public PanelConverter() {
         super(DiseasePanel.class);
@@ -17,13 +17,12 @@
 package org.opencb.opencga.catalog.db.mongodb.converters;
 
 import org.bson.Document;
-import org.opencb.commons.datastore.mongodb.GenericDocumentComplexConverter;
 import org.opencb.opencga.catalog.models.Project;
 
 /**
  * Created by pfurio on 18/01/16.
  */
-public class ProjectConverter extends GenericDocumentComplexConverter<Project> {
+public class ProjectConverter extends CatalogDocumentConverter<Project> {
 
     public ProjectConverter() {
         super(Project.class);
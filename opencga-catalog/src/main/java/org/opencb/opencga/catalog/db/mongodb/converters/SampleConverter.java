@@ -17,7 +17,6 @@
 package org.opencb.opencga.catalog.db.mongodb.converters;
 
 import org.bson.Document;
-import org.opencb.commons.datastore.mongodb.GenericDocumentComplexConverter;
 import org.opencb.opencga.catalog.models.Sample;
 
 import java.util.List;
@@ -25,7 +24,7 @@ import java.util.List;
 /**
  * Created by pfurio on 19/01/16.
  */
-public class SampleConverter extends GenericDocumentComplexConverter<Sample> {
+public class SampleConverter extends CatalogDocumentConverter<Sample> {
 
     public SampleConverter() {
         super(Sample.class);
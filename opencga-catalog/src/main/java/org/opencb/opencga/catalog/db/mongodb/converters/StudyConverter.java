@@ -17,13 +17,12 @@
 package org.opencb.opencga.catalog.db.mongodb.converters;
 
 import org.bson.Document;
-import org.opencb.commons.datastore.mongodb.GenericDocumentComplexConverter;
 import org.opencb.opencga.catalog.models.Study;
 
 /**
  * Created by pfurio on 18/01/16.
  */
-public class StudyConverter extends GenericDocumentComplexConverter<Study> {
+public class StudyConverter extends CatalogDocumentConverter<Study> {
 
     public StudyConverter() {
         super(Study.class);
@@ -16,13 +16,12 @@
 
 package org.opencb.opencga.catalog.db.mongodb.converters;
 
-import org.opencb.commons.datastore.mongodb.GenericDocumentComplexConverter;
 import org.opencb.opencga.catalog.models.User;
 
 /**
  * Created by pfurio on 19/01/16.
  */
-public class UserConverter extends GenericDocumentComplexConverter<User> {
+public class UserConverter extends CatalogDocumentConverter<User> {
 
     public UserConverter() {
         super(User.class);
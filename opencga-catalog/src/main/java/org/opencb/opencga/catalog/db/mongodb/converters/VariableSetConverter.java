@@ -17,13 +17,12 @@
 package org.opencb.opencga.catalog.db.mongodb.converters;
 
 import org.bson.Document;
-import org.opencb.commons.datastore.mongodb.GenericDocumentComplexConverter;
 import org.opencb.opencga.catalog.models.VariableSet;
 
 /**
  * Created by pfurio on 04/04/16.
  */
-public class VariableSetConverter extends GenericDocumentComplexConverter<VariableSet> {
+public class VariableSetConverter extends CatalogDocumentConverter<VariableSet> {
 
     public VariableSetConverter() {
         super(VariableSet.class);
@@ -24,9 +24,11 @@ import org.slf4j.LoggerFactory;
 import java.io.*;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.Date;
-import java.util.List;
-import java.util.Properties;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Stream;
 
 public abstract class CatalogIOManager {
@@ -492,6 +494,41 @@ public abstract class CatalogIOManager {
 
     public abstract String calculateChecksum(URI file) throws CatalogIOException;
 
+    /**
+     * Calculate the checksum of several files concurrently.
+     *
+     * Files that fail are not included in the result, so the caller may calculate them again and get the error.
+     *
+     * @param files     Files to checksum
+     * @param threads   Number of files to read concurrently
+     * @return          Map from file to checksum
+     */
+    public Map<URI, String> calculateChecksums(List<URI> files, int threads) {
+        Map<URI, String> checksums = new HashMap<>(files.size() * 2);
+        if (files.isEmpty()) {
+            return checksums;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, files.size())));
+        try {
+            Map<URI, Future<String>> futures = new LinkedHashMap<>(files.size() * 2);
+            for (URI file : files) {
+                futures.put(file, executor.submit(() -> calculateChecksum(file)));
+            }
+            for (Map.Entry<URI, Future<String>> entry : futures.entrySet()) {
+                try {
+                    checksums.put(entry.getKey(), entry.getValue().get());
+                } catch (ExecutionException e) {
+                    logger.warn("Unable to calculate checksum of file " + entry.getKey(), e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+        return checksums;
+    }
+
     public abstract List<URI> listFiles(URI directory) throws CatalogIOException;
 
     public Stream<URI> listFilesStream(URI directory) throws CatalogIOException {
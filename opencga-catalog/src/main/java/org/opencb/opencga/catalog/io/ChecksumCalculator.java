@@ -0,0 +1,160 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.catalog.io;
+
+import org.apache.commons.codec.binary.Hex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-process file checksum calculator.
+ *
+ * Files are read through a FileChannel into a large direct buffer, reused by each thread. Checksums are cached by
+ * path, size and modification time, so unchanged files are not read again.
+ *
+ * Created on 18/10/26.
+ */
+public class ChecksumCalculator {
+
+    public static final String XXHASH64_PREFIX = "xxh64:";
+
+    private static final int BUFFER_SIZE = 4 * 1024 * 1024;
+    private static final int MAX_CACHE_ENTRIES = 100000;
+
+    private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+    private static final Map<String, String> CACHE = Collections.synchronizedMap(new LinkedHashMap<String, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_CACHE_ENTRIES;
+        }
+    });
+
+    public enum Algorithm {
+        /** MD5 digest, as returned by md5sum. */
+        MD5,
+        /** Non-cryptographic 64 bits xxHash. Much faster than MD5. Values are prefixed with {@link #XXHASH64_PREFIX}. */
+        XXHASH64
+    }
+
+    private final Algorithm algorithm;
+
+    public ChecksumCalculator() {
+        this(Algorithm.MD5);
+    }
+
+    public ChecksumCalculator(Algorithm algorithm) {
+        this.algorithm = algorithm == null ? Algorithm.MD5 : algorithm;
+    }
+
+    /**
+     * Parse the algorithm name. Empty values default to {@link Algorithm#MD5}.
+     *
+     * @param algorithm Algorithm name
+     * @return          Checksum calculator
+     */
+    public static ChecksumCalculator get(String algorithm) {
+        if (algorithm == null || algorithm.isEmpty()) {
+            return new ChecksumCalculator();
+        }
+        return new ChecksumCalculator(Algorithm.valueOf(algorithm.toUpperCase()));
+    }
+
+    /**
+     * Calculate the checksum of a file, or get it from the cache if the file has not changed.
+     *
+     * @param path  File to read
+     * @return      Hexadecimal checksum
+     * @throws IOException if the file can not be read
+     */
+    public String calculate(Path path) throws IOException {
+        path = path.toAbsolutePath();
+        String key = getKey(path);
+        String checksum = CACHE.get(key);
+        if (checksum == null) {
+            checksum = compute(path);
+            // Do not cache if the file was modified while reading
+            if (key.equals(getKey(path))) {
+                CACHE.put(key, checksum);
+            }
+        }
+        return checksum;
+    }
+
+    private String getKey(Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        return algorithm.name() + ':' + path + ':' + attributes.size() + ':' + attributes.lastModifiedTime().toMillis();
+    }
+
+    private String compute(Path path) throws IOException {
+        ByteBuffer buffer = BUFFER.get();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            switch (algorithm) {
+                case XXHASH64:
+                    XXHash64 xxHash64 = new XXHash64();
+                    while (read(channel, buffer)) {
+                        xxHash64.update(buffer);
+                    }
+                    return XXHASH64_PREFIX + String.format("%016x", xxHash64.getValue());
+                case MD5:
+                default:
+                    MessageDigest md5 = getMd5();
+                    while (read(channel, buffer)) {
+                        md5.update(buffer);
+                    }
+                    return Hex.encodeHexString(md5.digest());
+            }
+        }
+    }
+
+    private static boolean read(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        int read = channel.read(buffer);
+        buffer.flip();
+        return read >= 0;
+    }
+
+    private static MessageDigest getMd5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Remove all the cached checksums.
+     */
+    public static void clearCache() {
+        CACHE.clear();
+    }
+
+}
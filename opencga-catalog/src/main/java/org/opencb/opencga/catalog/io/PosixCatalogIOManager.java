@@ -39,6 +39,9 @@ public class PosixCatalogIOManager extends CatalogIOManager {
     protected static ObjectMapper jsonObjectMapper;
     protected static ObjectWriter jsonObjectWriter;
 
+    // Not initialized in the declaration, as it is set from the parent constructor
+    private ChecksumCalculator checksumCalculator;
+
 
     public PosixCatalogIOManager(String propertiesFile) throws CatalogIOException {
         super(propertiesFile);
@@ -74,6 +77,9 @@ public class PosixCatalogIOManager extends CatalogIOManager {
         if (!jobsDir.getScheme().equals("file")) {
             throw new CatalogIOException("wrong posix file system in catalog.properties: " + jobsDir);
         }
+        checksumCalculator = configuration.getCatalog() == null
+                ? new ChecksumCalculator()
+                : ChecksumCalculator.get(configuration.getCatalog().getChecksumAlgorithm());
     }
 
     /*
@@ -573,26 +579,11 @@ public class PosixCatalogIOManager extends CatalogIOManager {
 
     @Override
     public String calculateChecksum(URI file) throws CatalogIOException {
-        String checksum;
         try {
-            String[] command = {"md5sum", file.getPath()};
-            logger.debug("command = {} {}", command[0], command[1]);
-            Process p = Runtime.getRuntime().exec(command);
-            BufferedReader br = new BufferedReader(new InputStreamReader(p.getInputStream()));
-            checksum = br.readLine();
-
-            if (p.waitFor() != 0) {
-                //TODO: Handle error in checksum
-                logger.info("checksum = " + checksum);
-                br = new BufferedReader(new InputStreamReader(p.getErrorStream()));
-                throw new CatalogIOException("md5sum failed with exit value : " + p.exitValue() + ". ERROR: " + br.readLine());
-            }
-        } catch (IOException | InterruptedException e) {
-            //TODO: Handle error in checksum
+            return checksumCalculator.calculate(Paths.get(file.getPath()));
+        } catch (IOException e) {
             throw new CatalogIOException("Checksum error in file " + file, e);
         }
-
-        return checksum.split(" ")[0];
     }
 
     @Override
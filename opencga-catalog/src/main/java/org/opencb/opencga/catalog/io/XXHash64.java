@@ -0,0 +1,162 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.catalog.io;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Streaming implementation of the 64 bits xxHash non-cryptographic hash function.
+ *
+ * See https://github.com/Cyan4973/xxHash
+ *
+ * Created on 18/10/26.
+ */
+public class XXHash64 {
+
+    private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME64_3 = 0x165667B19E3779F9L;
+    private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+    private static final int STRIPE = 32;
+
+    private final long seed;
+    private final ByteBuffer memory = ByteBuffer.allocate(STRIPE).order(ByteOrder.LITTLE_ENDIAN);
+    private long v1;
+    private long v2;
+    private long v3;
+    private long v4;
+    private long totalLength;
+
+    public XXHash64() {
+        this(0);
+    }
+
+    public XXHash64(long seed) {
+        this.seed = seed;
+        reset();
+    }
+
+    public void reset() {
+        v1 = seed + PRIME64_1 + PRIME64_2;
+        v2 = seed + PRIME64_2;
+        v3 = seed;
+        v4 = seed - PRIME64_1;
+        totalLength = 0;
+        memory.clear();
+    }
+
+    public void update(byte[] bytes, int offset, int length) {
+        update(ByteBuffer.wrap(bytes, offset, length));
+    }
+
+    /**
+     * Consume all the remaining bytes of the buffer.
+     *
+     * @param buffer Input data. Heap and direct buffers are supported
+     */
+    public void update(ByteBuffer buffer) {
+        ByteOrder order = buffer.order();
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        totalLength += buffer.remaining();
+
+        // Complete the pending stripe
+        if (memory.position() > 0) {
+            while (memory.hasRemaining() && buffer.hasRemaining()) {
+                memory.put(buffer.get());
+            }
+            if (memory.hasRemaining()) {
+                buffer.order(order);
+                return;
+            }
+            memory.flip();
+            processStripe(memory);
+            memory.clear();
+        }
+
+        while (buffer.remaining() >= STRIPE) {
+            processStripe(buffer);
+        }
+
+        // Keep the remaining bytes for the next update
+        while (buffer.hasRemaining()) {
+            memory.put(buffer.get());
+        }
+        buffer.order(order);
+    }
+
+    private void processStripe(ByteBuffer buffer) {
+        v1 = round(v1, buffer.getLong());
+        v2 = round(v2, buffer.getLong());
+        v3 = round(v3, buffer.getLong());
+        v4 = round(v4, buffer.getLong());
+    }
+
+    /**
+     * Hash of all the consumed data. Does not modify the state, so more data can be consumed later.
+     *
+     * @return 64 bits hash
+     */
+    public long getValue() {
+        long h;
+        if (totalLength >= STRIPE) {
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            h = mergeRound(h, v1);
+            h = mergeRound(h, v2);
+            h = mergeRound(h, v3);
+            h = mergeRound(h, v4);
+        } else {
+            h = seed + PRIME64_5;
+        }
+        h += totalLength;
+
+        ByteBuffer remaining = memory.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        remaining.flip();
+        while (remaining.remaining() >= 8) {
+            h ^= round(0, remaining.getLong());
+            h = Long.rotateLeft(h, 27) * PRIME64_1 + PRIME64_4;
+        }
+        if (remaining.remaining() >= 4) {
+            h ^= (remaining.getInt() & 0xFFFFFFFFL) * PRIME64_1;
+            h = Long.rotateLeft(h, 23) * PRIME64_2 + PRIME64_3;
+        }
+        while (remaining.hasRemaining()) {
+            h ^= (remaining.get() & 0xFF) * PRIME64_5;
+            h = Long.rotateLeft(h, 11) * PRIME64_1;
+        }
+
+        h ^= h >>> 33;
+        h *= PRIME64_2;
+        h ^= h >>> 29;
+        h *= PRIME64_3;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * PRIME64_2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * PRIME64_1;
+    }
+
+    private static long mergeRound(long acc, long val) {
+        acc ^= round(0, val);
+        return acc * PRIME64_1 + PRIME64_4;
+    }
+
+}
@@ -246,6 +246,7 @@ public class CatalogManager implements AutoCloseable {
 
     @Override
     public void close() throws CatalogException {
+        auditManager.close();
         catalogDBAdaptorFactory.close();
     }
 
@@ -150,8 +150,9 @@ public class CohortManager extends AbstractManager implements ICohortManager {
             throw CatalogAuthorizationException.deny(userId, "view", "cohorts", studyId, null);
         }
 
-        QueryResult<Cohort> queryResult = cohortDBAdaptor.get(new Query(query)
-                .append(CohortDBAdaptor.QueryParams.STUDY_ID.key(), studyId), options);
+        Query cohortQuery = new Query(query).append(CohortDBAdaptor.QueryParams.STUDY_ID.key(), studyId);
+        QueryResult<Cohort> queryResult = cohortDBAdaptor.get(
+                authorizationManager.getViewAclQuery(userId, studyId, AuditRecord.Resource.cohort, cohortQuery), options);
         authorizationManager.filterCohorts(userId, studyId, queryResult.getResult());
         queryResult.setNumResults(queryResult.getResult().size());
         return queryResult;
@@ -779,6 +779,86 @@ public class FileManager extends AbstractManager implements IFileManager {
         return queryResult;
     }
 
+    @Override
+    public QueryResult<File> createFiles(long studyId, List<File> files, long jobId, QueryOptions options, String sessionId)
+            throws CatalogException {
+        long startTime = System.currentTimeMillis();
+        String userId = userManager.getId(sessionId);
+        studyDBAdaptor.checkId(studyId);
+        if (jobId > 0 && !jobDBAdaptor.exists(jobId)) {
+            throw new CatalogException("Job { id: " + jobId + "} does not exist.");
+        }
+        URI studyUri = getStudyUri(studyId);
+
+        // Permissions, ACLs and URIs are resolved once per parent folder
+        Map<String, File> parentFiles = new HashMap<>();
+        Map<Long, List<FileAclEntry>> parentAcls = new HashMap<>();
+        List<File> newFiles = new ArrayList<>(files.size());
+        for (File file : files) {
+            String path = file.getPath();
+            ParamUtils.checkPath(path, "filePath");
+            if (path.endsWith("/")) {
+                path = path.substring(0, path.length() - 1);
+            }
+            if (file.getSize() < 0) {
+                throw new CatalogException("Error: DiskUsage can't be negative!");
+            }
+
+            String parentPath = getParentPath(path);
+            File parent = parentFiles.get(parentPath);
+            if (parent == null) {
+                long parentFileId = fileDBAdaptor.getId(studyId, parentPath);
+                if (parentFileId < 0) {
+                    throw new CatalogDBException("Directory not found " + parentPath);
+                }
+                authorizationManager.checkFilePermission(parentFileId, userId, FileAclEntry.FilePermissions.WRITE);
+                parent = fileDBAdaptor.get(parentFileId, new QueryOptions(QueryOptions.INCLUDE, Arrays.asList(
+                        FileDBAdaptor.QueryParams.ID.key(), FileDBAdaptor.QueryParams.PATH.key(),
+                        FileDBAdaptor.QueryParams.URI.key()))).first();
+                parentFiles.put(parentPath, parent);
+                parentAcls.put(parentFileId, authorizationManager.getAllFileAcls(userId, parentFileId).getResult());
+            }
+
+            String name = Paths.get(path).getFileName().toString();
+            URI uri = UriUtils.createUri(Paths.get(parent.getUri().getPath()).resolve(name).toString());
+            boolean external = !studyUri.resolve(path).getPath().equals(uri.getPath());
+
+            File.FileStatus status = file.getStatus() == null || file.getStatus().getName() == null
+                    ? new File.FileStatus(File.FileStatus.STAGE)
+                    : file.getStatus();
+            String now = TimeUtils.getTime();
+            File newFile = new File(-1, name, File.Type.FILE, ParamUtils.defaultObject(file.getFormat(), File.Format.PLAIN),
+                    ParamUtils.defaultObject(file.getBioformat(), File.Bioformat.NONE), uri, path, now, now,
+                    ParamUtils.defaultString(file.getDescription(), ""), status, external, file.getSize(), new Experiment().setId(-1),
+                    new LinkedList<>(), new Job().setId(jobId), Collections.emptyList(), parentAcls.get(parent.getId()), null,
+                    new HashMap<>(), ParamUtils.defaultObject(file.getAttributes(), HashMap<String, Object>::new));
+            newFiles.add(newFile);
+        }
+
+        QueryResult<File> queryResult = fileDBAdaptor.insert(newFiles, studyId, options);
+
+        List<Long> ids = new ArrayList<>(newFiles.size());
+        for (File file : newFiles) {
+            ids.add(file.getId());
+        }
+        auditManager.recordActions(AuditRecord.Resource.file, AuditRecord.Action.create, AuditRecord.Magnitude.low, ids, userId,
+                newFiles, null, null);
+
+        List<File> transformedFiles = new ArrayList<>();
+        for (File file : newFiles) {
+            if (isTransformedFile(file.getName())) {
+                transformedFiles.add(file);
+            }
+        }
+        if (!transformedFiles.isEmpty()) {
+            matchUpVariantFiles(transformedFiles, sessionId);
+        }
+
+        queryResult.setId("Create files");
+        queryResult.setDbTime((int) (System.currentTimeMillis() - startTime));
+        return queryResult;
+    }
+
     /**
      * Get the URI where a file should be in Catalog, given a study and a path.
      * @param studyId       Study identifier
@@ -983,7 +1063,8 @@ public class FileManager extends AbstractManager implements IFileManager {
             query.put(FileDBAdaptor.QueryParams.STUDY_ID.key(), studyId);
         }
 
-        QueryResult<File> queryResult = fileDBAdaptor.get(query, options);
+        QueryResult<File> queryResult = fileDBAdaptor.get(
+                authorizationManager.getViewAclQuery(userId, studyId, AuditRecord.Resource.file, query), options);
         authorizationManager.filterFiles(userId, studyId, queryResult.getResult());
         queryResult.setNumResults(queryResult.getResult().size());
 
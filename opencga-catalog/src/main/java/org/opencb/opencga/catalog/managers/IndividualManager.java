@@ -145,7 +145,8 @@ public class IndividualManager extends AbstractManager implements IIndividualMan
             throw CatalogAuthorizationException.deny(userId, "view", "individual", studyId, null);
         }
         query.append(IndividualDBAdaptor.QueryParams.STUDY_ID.key(), studyId);
-        QueryResult<Individual> queryResult = individualDBAdaptor.get(query, options);
+        QueryResult<Individual> queryResult = individualDBAdaptor.get(
+                authorizationManager.getViewAclQuery(userId, studyId, AuditRecord.Resource.individual, query), options);
         authorizationManager.filterIndividuals(userId, studyId, queryResult.getResult());
         queryResult.setNumResults(queryResult.getResult().size());
         return queryResult;
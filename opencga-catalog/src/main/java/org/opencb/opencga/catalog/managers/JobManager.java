@@ -397,7 +397,8 @@ public class JobManager extends AbstractManager implements IJobManager {
             throw CatalogAuthorizationException.deny(userId, "view", "jobs", studyId, null);
         }
 
-        QueryResult<Job> queryResult = jobDBAdaptor.get(query, options);
+        QueryResult<Job> queryResult = jobDBAdaptor.get(
+                authorizationManager.getViewAclQuery(userId, studyId, AuditRecord.Resource.job, query), options);
         authorizationManager.filterJobs(userId, studyId, queryResult.getResult());
         queryResult.setNumResults(queryResult.getResult().size());
         return queryResult;
@@ -361,7 +361,8 @@ public class SampleManager extends AbstractManager implements ISampleManager {
         }
 
         query.append(SampleDBAdaptor.QueryParams.STUDY_ID.key(), studyId);
-        QueryResult<Sample> queryResult = sampleDBAdaptor.get(query, options);
+        QueryResult<Sample> queryResult = sampleDBAdaptor.get(
+                authorizationManager.getViewAclQuery(userId, studyId, AuditRecord.Resource.sample, query), options);
         authorizationManager.filterSamples(userId, studyId, queryResult.getResult());
         queryResult.setNumResults(queryResult.getResult().size());
 
@@ -163,6 +163,23 @@ public interface IFileManager extends ResourceManager<Long, File> {
     QueryResult<File> createFolder(String studyStr, String path, File.FileStatus status, boolean parents, String description,
                                    QueryOptions options, String sessionId) throws CatalogException;
 
+    /**
+     * Register a batch of new files in Catalog with a bulk insert. The parent folders must already exist.
+     *
+     * Only the path, format, bioformat, description, status, size and attributes of the given files are used. The files are
+     * registered with status {@link File.FileStatus#STAGE} if no other status is given.
+     *
+     * @param studyId   Study id
+     * @param files     Files to register
+     * @param jobId     Job that has generated the files, or -1
+     * @param options   Options for the insertion
+     * @param sessionId Session id
+     * @return The registered files
+     * @throws CatalogException if any parent folder is missing, the user can not write on it or any file already exists
+     */
+    QueryResult<File> createFiles(long studyId, List<File> files, long jobId, QueryOptions options, String sessionId)
+            throws CatalogException;
+
     QueryResult<File> get(long studyId, Query query, QueryOptions options, String sessionId) throws CatalogException;
 
     /**
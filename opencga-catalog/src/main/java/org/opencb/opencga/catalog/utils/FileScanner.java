@@ -19,6 +19,7 @@ package org.opencb.opencga.catalog.utils;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.commons.datastore.core.QueryResult;
+import org.opencb.opencga.catalog.config.Configuration;
 import org.opencb.opencga.catalog.db.api.FileDBAdaptor;
 import org.opencb.opencga.catalog.exceptions.CatalogException;
 import org.opencb.opencga.catalog.io.CatalogIOManager;
@@ -27,6 +28,7 @@ import org.opencb.opencga.catalog.managers.CatalogManager;
 import org.opencb.opencga.catalog.managers.FileManager;
 import org.opencb.opencga.catalog.models.File;
 import org.opencb.opencga.catalog.models.Study;
+import org.opencb.opencga.core.common.ProgressLogger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,6 +37,7 @@ import java.net.URI;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -46,7 +49,10 @@ public class FileScanner {
 
     protected final CatalogManager catalogManager;
 
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
     private CatalogFileUtils catalogFileUtils;
+    private int batchSize = DEFAULT_BATCH_SIZE;
 
     public enum FileScannerPolicy {
         DELETE,     //Delete file and file entry. Then create a new one
@@ -60,6 +66,17 @@ public class FileScanner {
         catalogFileUtils = new CatalogFileUtils(catalogManager);
     }
 
+    /**
+     * Set the number of new files registered in catalog with each bulk insert.
+     *
+     * @param batchSize Number of files per batch
+     * @return this
+     */
+    public FileScanner setBatchSize(int batchSize) {
+        this.batchSize = batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+        return this;
+    }
+
     /**
      * Check tracking from all files from a study.
      *
@@ -218,16 +235,38 @@ public class FileScanner {
         long studyId = catalogManager.getStudyIdByFileId(directory.getId());
 
         long createFilesTime = 0, uploadFilesTime = 0, metadataReadTime = 0;
-        Stream<URI> uris = catalogManager.getCatalogIOManagerFactory().get(directoryToScan).listFilesStream(directoryToScan);
+        CatalogIOManager ioManager = catalogManager.getCatalogIOManagerFactory().get(directoryToScan);
+        List<URI> uris = new ArrayList<>();
+        try (Stream<URI> stream = ioManager.listFilesStream(directoryToScan)) {
+            stream.filter(filter).forEach(uris::add);
+        }
+
+        // Read the files concurrently before registering them. The upload will get the checksum from the cache.
+        Map<URI, String> checksums = Collections.emptyMap();
+        if (calculateChecksum) {
+            long start = System.currentTimeMillis();
+            List<URI> filesToChecksum = new ArrayList<>(uris.size());
+            for (URI uri : uris) {
+                if (!uri.getPath().endsWith("/")) {
+                    filesToChecksum.add(uri);
+                }
+            }
+            checksums = ioManager.calculateChecksums(filesToChecksum, getChecksumThreads());
+            logger.debug("Calculate checksum of {} files: {}s", filesToChecksum.size(), (System.currentTimeMillis() - start) / 1000.0);
+        }
+
+        // Get all the files already registered under the target folder with one single query
+        Map<String, File> existingFiles = new HashMap<>();
+        Query existingFilesQuery = new Query(FileDBAdaptor.QueryParams.PATH.key(), "~^" + directory.getPath());
+        for (File existingFile : catalogManager.searchFile(studyId, existingFilesQuery, sessionId).getResult()) {
+            existingFiles.put(existingFile.getPath(), existingFile);
+        }
+
         List<File> files = new LinkedList<>();
         FileMetadataReader fileMetadataReader = FileMetadataReader.get(catalogManager);
-        Iterator<URI> iterator = uris.iterator();
-        while (iterator.hasNext()) {
-            long fileScanStart = System.currentTimeMillis();
-            URI uri = iterator.next();
-            if (!filter.test(uri)) {
-                continue;
-            }
+        ProgressLogger progressLogger = new ProgressLogger("Scanned files:", uris.size());
+        Map<String, URI> newFiles = new LinkedHashMap<>();
+        for (URI uri : uris) {
             URI generatedFile = directoryToScan.relativize(uri);
             String filePath = URI.create(directory.getPath()).resolve(generatedFile).toString();
 //            String filePath = Paths.get(directory.getPath(), generatedFile.toString()).toString();
@@ -235,12 +274,10 @@ public class FileScanner {
                 filePath += "/";
             }
 
-            Query query = new Query(FileDBAdaptor.QueryParams.PATH.key(), filePath);
-            QueryResult<File> searchFile = catalogManager.searchFile(studyId, query, sessionId);
             File file = null;
             boolean returnFile = false;
-            if (searchFile.getNumResults() != 0) {
-                File existingFile = searchFile.first();
+            File existingFile = existingFiles.get(filePath);
+            if (existingFile != null) {
                 logger.info("File already existing in target \"" + filePath + "\". FileScannerPolicy = " + policy);
                 switch (policy) {
                     case DELETE:
@@ -248,6 +285,11 @@ public class FileScanner {
                         // Delete completely the file/folder !
                         catalogManager.getFileManager().delete(Long.toString(existingFile.getId()), null,
                                 new QueryOptions(FileManager.SKIP_TRASH, true), sessionId);
+                        if (existingFile.getType() == File.Type.DIRECTORY) {
+                            // The content of the folder has been deleted as well
+                            String folderPath = existingFile.getPath();
+                            existingFiles.keySet().removeIf(path -> path.startsWith(folderPath));
+                        }
                         break;
                     case REPLACE:
                         file = existingFile;
@@ -261,30 +303,17 @@ public class FileScanner {
                 }
             }
 
-            long createFileTime = 0, uploadFileTime = 0, metadataFileTime = 0;
             if (file == null) {
-                long start, end;
                 if (uri.getPath().endsWith("/")) {
+                    // Folders are created right away, so they exist before registering their content
                     file = catalogManager.getFileManager().createFolder(Long.toString(studyId), Paths.get(filePath).toString(), null, true,
                             null, QueryOptions.empty(), sessionId).first();
+                    logger.debug("Created new file entry for " + uri + " { id:" + file.getId() + ", path:\"" + file.getPath() + "\" } ");
                 } else {
-                    start = System.currentTimeMillis();
-                    File.Format format = FormatDetector.detect(uri);
-                    File.Bioformat bioformat = BioformatDetector.detect(uri);
-                    file = catalogManager.createFile(studyId, format, bioformat, filePath, "", true, jobId, sessionId).first();
-                    end = System.currentTimeMillis();
-                    createFileTime = end - start;
-                    createFilesTime += createFileTime;
-
-                    /** Moves the file to the read output **/
-                    start = System.currentTimeMillis();
-                    catalogFileUtils.upload(uri, file, null, sessionId, false, false, deleteSource, calculateChecksum);
-                    end = System.currentTimeMillis();
-                    uploadFileTime = end - start;
-                    uploadFilesTime += uploadFileTime;
-                    returnFile = true;      //Return file because is new
+                    // New files are registered later in batches
+                    newFiles.put(filePath, uri);
+                    continue;
                 }
-                logger.debug("Created new file entry for " + uri + " { id:" + file.getId() + ", path:\"" + file.getPath() + "\" } ");
             } else {
                 if (file.getType() == File.Type.FILE) {
                     if (file.getStatus().getName().equals(File.FileStatus.MISSING)) {
@@ -293,29 +322,59 @@ public class FileScanner {
                         returnFile = true;      //Return file because was missing
                     }
                     long start = System.currentTimeMillis();
-                    catalogFileUtils.upload(uri, file, null, sessionId, true, true, deleteSource, calculateChecksum);
+                    catalogFileUtils.upload(uri, file, checksums.get(uri), sessionId, true, true, deleteSource, calculateChecksum);
                     long end = System.currentTimeMillis();
                     uploadFilesTime += end - start;
                 }
             }
 
-            try {
-                long start = System.currentTimeMillis();
-                fileMetadataReader.setMetadataInformation(file, null, null, sessionId, false);
-                long end = System.currentTimeMillis();
-                metadataFileTime = end - start;
-                metadataReadTime += metadataFileTime;
-            } catch (Exception e) {
-                logger.error("Unable to read metadata information from file "
-                        + "{ id:" + file.getId() + ", name: \"" + file.getName() + "\" }", e);
-            }
+            metadataReadTime += setMetadataInformation(fileMetadataReader, file, sessionId);
 
             if (returnFile) { //Return only new and found files.
                 files.add(catalogManager.getFile(file.getId(), sessionId).first());
             }
             logger.info("Added file {}", filePath);
-            logger.debug("{}s (create {}s, upload {}s, metadata {}s)", (System.currentTimeMillis() - fileScanStart) / 1000.0,
-                    createFileTime / 1000.0, uploadFileTime / 1000.0, metadataFileTime / 1000.0);
+            progressLogger.increment(1);
+        }
+
+        List<Map.Entry<String, URI>> newFilesList = new ArrayList<>(newFiles.entrySet());
+        for (int i = 0; i < newFilesList.size(); i += batchSize) {
+            List<Map.Entry<String, URI>> batch = newFilesList.subList(i, Math.min(i + batchSize, newFilesList.size()));
+
+            // Detecting the format may require reading the header of the file
+            long start = System.currentTimeMillis();
+            List<File> batchFiles = batch.parallelStream()
+                    .map(entry -> new File(null, File.Type.FILE, FormatDetector.detect(entry.getValue()),
+                            BioformatDetector.detect(entry.getValue()), entry.getKey(), "", null, 0))
+                    .collect(Collectors.toList());
+            List<File> createdFiles = catalogManager.getFileManager().createFiles(studyId, batchFiles, jobId, null, sessionId).getResult();
+            createFilesTime += System.currentTimeMillis() - start;
+
+            List<Long> ids = new ArrayList<>(createdFiles.size());
+            for (int j = 0; j < batch.size(); j++) {
+                URI uri = batch.get(j).getValue();
+                File file = createdFiles.get(j);
+                logger.debug("Created new file entry for " + uri + " { id:" + file.getId() + ", path:\"" + file.getPath() + "\" } ");
+
+                /** Moves the file to the read output **/
+                start = System.currentTimeMillis();
+                catalogFileUtils.upload(uri, file, checksums.get(uri), sessionId, false, false, deleteSource, calculateChecksum);
+                uploadFilesTime += System.currentTimeMillis() - start;
+
+                metadataReadTime += setMetadataInformation(fileMetadataReader, file, sessionId);
+                ids.add(file.getId());      //Return file because is new
+                logger.info("Added file {}", batch.get(j).getKey());
+            }
+
+            Map<Long, File> filesById = new HashMap<>();
+            Query query = new Query(FileDBAdaptor.QueryParams.ID.key(), ids);
+            for (File file : catalogManager.searchFile(studyId, query, sessionId).getResult()) {
+                filesById.put(file.getId(), file);
+            }
+            for (Long id : ids) {
+                files.add(filesById.get(id));
+            }
+            progressLogger.increment(batch.size());
         }
         logger.debug("Create catalog file entries: " + createFilesTime / 1000.0 + "s");
         logger.debug("Upload files: " + uploadFilesTime / 1000.0 + "s");
@@ -323,4 +382,24 @@ public class FileScanner {
         return files;
     }
 
+    private long setMetadataInformation(FileMetadataReader fileMetadataReader, File file, String sessionId) {
+        try {
+            long start = System.currentTimeMillis();
+            fileMetadataReader.setMetadataInformation(file, null, null, sessionId, false);
+            return System.currentTimeMillis() - start;
+        } catch (Exception e) {
+            logger.error("Unable to read metadata information from file "
+                    + "{ id:" + file.getId() + ", name: \"" + file.getName() + "\" }", e);
+            return 0;
+        }
+    }
+
+    private int getChecksumThreads() {
+        Configuration configuration = catalogManager.getConfiguration();
+        if (configuration != null && configuration.getCatalog() != null && configuration.getCatalog().getChecksumThreads() > 0) {
+            return configuration.getCatalog().getChecksumThreads();
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
 }
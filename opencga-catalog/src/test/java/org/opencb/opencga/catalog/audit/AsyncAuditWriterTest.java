@@ -0,0 +1,123 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.catalog.audit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opencb.commons.datastore.core.Query;
+import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.commons.datastore.core.QueryResult;
+import org.opencb.opencga.catalog.db.api.AuditDBAdaptor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created on 18/10/26.
+ */
+public class AsyncAuditWriterTest {
+
+    private List<Integer> batches;
+
+    private AuditDBAdaptor auditDBAdaptor = new AuditDBAdaptor() {
+        @Override
+        public QueryResult<AuditRecord> insertAuditRecord(AuditRecord auditRecord) {
+            return insertAuditRecords(Collections.singletonList(auditRecord));
+        }
+
+        @Override
+        public QueryResult<AuditRecord> insertAuditRecords(List<AuditRecord> auditRecords) {
+            batches.add(auditRecords.size());
+            return new QueryResult<>("insertAuditRecords", 0, auditRecords.size(), auditRecords.size(), "", "", auditRecords);
+        }
+
+        @Override
+        public QueryResult<AuditRecord> get(Query query, QueryOptions queryOptions) {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        batches = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    private AuditRecord newRecord(int i) {
+        return new AuditRecord(i, AuditRecord.Resource.file, AuditRecord.Action.create, AuditRecord.Magnitude.low, null, null,
+                System.currentTimeMillis(), "user", "", null);
+    }
+
+    private void waitForWritten(AsyncAuditWriter writer, long expected) throws InterruptedException {
+        long limit = System.currentTimeMillis() + 10000;
+        while (writer.getMetrics().getLong("written") < expected && System.currentTimeMillis() < limit) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testWriteInBatches() throws Exception {
+        AsyncAuditWriter writer = new AsyncAuditWriter(auditDBAdaptor, 1000, 10, 60000);
+        for (int i = 0; i < 25; i++) {
+            assertTrue(writer.offer(newRecord(i)));
+        }
+        waitForWritten(writer, 20);
+        writer.close();
+
+        assertEquals(25, writer.getMetrics().getLong("written"));
+        assertEquals(0, writer.getMetrics().getInt("queueDepth"));
+        for (Integer batch : batches) {
+            assertTrue(batch <= 10);
+        }
+    }
+
+    @Test
+    public void testFlushInterval() throws Exception {
+        AsyncAuditWriter writer = new AsyncAuditWriter(auditDBAdaptor, 1000, 100, 50);
+        writer.offer(newRecord(0));
+        waitForWritten(writer, 1);
+        assertEquals(1, writer.getMetrics().getLong("written"));
+        writer.close();
+    }
+
+    @Test
+    public void testDropWhenFull() throws Exception {
+        AsyncAuditWriter writer = new AsyncAuditWriter(auditDBAdaptor, 5, 100, 60000);
+        int accepted = 0;
+        for (int i = 0; i < 8; i++) {
+            if (writer.offer(newRecord(i))) {
+                accepted++;
+            }
+        }
+        writer.close();
+
+        assertEquals(5, accepted);
+        assertEquals(3, writer.getMetrics().getLong("dropped"));
+        assertEquals(5, writer.getMetrics().getLong("written"));
+    }
+
+    @Test
+    public void testOfferAfterClose() throws Exception {
+        AsyncAuditWriter writer = new AsyncAuditWriter(auditDBAdaptor, 1000, 100, 60000);
+        writer.close();
+        assertTrue(writer.offer(newRecord(0)));
+        assertEquals(1, writer.getMetrics().getLong("written"));
+    }
+
+}
@@ -737,6 +737,22 @@ public class CatalogAuthorizationManagerTest extends GenericTest {
         assertFalse(sampleMap.containsKey(smp3));
     }
 
+    @Test
+    public void readAllSamplesMemberPaginated() throws CatalogException {
+        Set<Long> visible = catalogManager.getAllSamples(s1, new Query(), new QueryOptions(), externalSessionId)
+                .getResult().stream().map(Sample::getId).collect(Collectors.toSet());
+
+        // The ACLs are checked in the database, so every page is filled with visible samples
+        Set<Long> paginated = new HashSet<>();
+        for (int skip = 0; skip < visible.size(); skip++) {
+            QueryOptions options = new QueryOptions(QueryOptions.LIMIT, 1).append(QueryOptions.SKIP, skip);
+            List<Sample> page = catalogManager.getAllSamples(s1, new Query(), options, externalSessionId).getResult();
+            assertEquals(1, page.size());
+            paginated.add(page.get(0).getId());
+        }
+        assertEquals(visible, paginated);
+    }
+
     @Test
     public void readCohort() throws CatalogException {
         assertEquals(1, catalogManager.getAllCohorts(s1, null, null, ownerSessionId).getNumResults());
@@ -22,6 +22,13 @@ import org.opencb.opencga.catalog.exceptions.CatalogDBException;
 import org.opencb.opencga.catalog.models.acls.permissions.StudyAclEntry;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -37,6 +44,47 @@ public class MetaMongoDBAdaptorTest extends MongoDBAdaptorTest {
         catalogDBAdaptor.getCatalogMetaDBAdaptor().createIndexes();
     }
 
+    @Test
+    public void getNewAutoIncrementId() throws Exception {
+        MetaMongoDBAdaptor metaDBAdaptor = catalogDBAdaptor.getCatalogMetaDBAdaptor();
+        long first = metaDBAdaptor.getNewAutoIncrementId();
+        for (int i = 1; i < MetaMongoDBAdaptor.ID_BLOCK_SIZE * 3; i++) {
+            assertEquals(first + i, metaDBAdaptor.getNewAutoIncrementId());
+        }
+    }
+
+    @Test
+    public void reserveIds() throws Exception {
+        MetaMongoDBAdaptor metaDBAdaptor = catalogDBAdaptor.getCatalogMetaDBAdaptor();
+        Set<Long> ids = new HashSet<>();
+        for (int n : Arrays.asList(1, 10, MetaMongoDBAdaptor.ID_BLOCK_SIZE - 1, MetaMongoDBAdaptor.ID_BLOCK_SIZE * 2, 3)) {
+            long first = metaDBAdaptor.reserveIds(n);
+            for (long id = first; id < first + n; id++) {
+                assertTrue(ids.add(id));
+            }
+        }
+        assertTrue(ids.add(metaDBAdaptor.getNewAutoIncrementId()));
+    }
+
+    @Test
+    public void getNewAutoIncrementIdConcurrent() throws Exception {
+        MetaMongoDBAdaptor metaDBAdaptor = catalogDBAdaptor.getCatalogMetaDBAdaptor();
+        Set<Long> ids = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        int numThreads = 4;
+        int idsPerThread = MetaMongoDBAdaptor.ID_BLOCK_SIZE * 5;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        for (int i = 0; i < numThreads; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < idsPerThread; j++) {
+                    ids.add(metaDBAdaptor.getNewAutoIncrementId());
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        assertEquals(numThreads * idsPerThread, ids.size());
+    }
+
     @Test
     public void getAcl() throws CatalogDBException {
         QueryResult<StudyAclEntry> aclQueryResult = catalogDBAdaptor.getCatalogMetaDBAdaptor().getDaemonAcl(Arrays.asList("admin"));
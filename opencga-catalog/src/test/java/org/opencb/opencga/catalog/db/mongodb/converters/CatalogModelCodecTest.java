@@ -0,0 +1,140 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.catalog.db.mongodb.converters;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.ObjectId;
+import org.junit.Before;
+import org.junit.Test;
+import org.opencb.commons.datastore.core.ObjectMap;
+import org.opencb.opencga.catalog.models.File;
+import org.opencb.opencga.catalog.models.Sample;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created on 18/10/26.
+ */
+public class CatalogModelCodecTest {
+
+    private ObjectMapper objectMapper;
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        objectMapper = new ObjectMapper();
+        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        objectMapper.configure(MapperFeature.REQUIRE_SETTERS_FOR_GETTERS, true);
+
+        file = new File("file.vcf", File.Type.FILE, File.Format.VCF, File.Bioformat.VARIANT, "data/file.vcf", "A file",
+                new File.FileStatus(File.FileStatus.READY), 1000);
+        file.setId(5);
+        file.setSampleIds(Arrays.asList(1L, 2L, 3000000000L));
+        file.setStats(new ObjectMap("ratio", 0.25).append("count", 10));
+    }
+
+    @Test
+    public void testEncodeAsLegacyJson() throws Exception {
+        Document expected = Document.parse(objectMapper.writeValueAsString(file));
+        Document document = CatalogModelCodec.get(File.class).encode(file);
+
+        assertEquals(expected, document);
+        assertEquals(Integer.class, document.get("id").getClass());
+        assertEquals(Long.class, ((List) document.get("sampleIds")).get(2).getClass());
+    }
+
+    @Test
+    public void testDecode() throws Exception {
+        CatalogModelCodec<File> codec = CatalogModelCodec.get(File.class);
+        Document document = codec.encode(file);
+        document.put("id", 5L);
+        document.put("_id", new ObjectId());
+
+        File decoded = codec.decode(document);
+        assertEquals(5, decoded.getId());
+        assertEquals(file.getName(), decoded.getName());
+        assertEquals(file.getSampleIds(), decoded.getSampleIds());
+        assertEquals(0.25, decoded.getStats().get("ratio"));
+        assertEquals(File.FileStatus.READY, decoded.getStatus().getName());
+    }
+
+    @Test
+    public void testEscapeDots() throws Exception {
+        Map<String, Object> nested = new HashMap<>();
+        nested.put("key....k", "value...2.2.2");
+        file.setAttributes(new ObjectMap("o.o", 4)
+                .append("4.4", Arrays.asList(1, new Document("933.44", "df.sdf")))
+                .append("key", nested));
+
+        CatalogModelCodec<File> codec = CatalogModelCodec.get(File.class);
+        Document document = codec.encode(file);
+        Document attributes = (Document) document.get("attributes");
+        assertEquals(4, attributes.get("o&#46;o"));
+        assertEquals(new Document("933&#46;44", "df.sdf"), ((List) attributes.get("4&#46;4")).get(1));
+        assertEquals(new Document("key&#46;&#46;&#46;&#46;k", "value...2.2.2"), attributes.get("key"));
+
+        File decoded = codec.decode(document);
+        assertEquals(4, decoded.getAttributes().get("o.o"));
+        assertEquals(Collections.singletonMap("key....k", "value...2.2.2"), decoded.getAttributes().get("key"));
+        assertEquals(Collections.singletonMap("933.44", "df.sdf"), ((List) decoded.getAttributes().get("4.4")).get(1));
+        // The input document is not modified
+        assertTrue(((Document) document.get("attributes")).containsKey("o&#46;o"));
+    }
+
+    @Test
+    public void testBsonCodec() throws Exception {
+        file.setAttributes(new ObjectMap("a.b", "c.d"));
+        Codec<File> codec = CatalogModelCodecProvider.CODEC_REGISTRY.get(File.class);
+        assertTrue(codec instanceof CatalogModelCodec);
+
+        BsonDocument bsonDocument = new BsonDocument();
+        codec.encode(new BsonDocumentWriter(bsonDocument), file, EncoderContext.builder().build());
+        assertEquals(5, bsonDocument.getInt32("id").getValue());
+        assertEquals(3000000000L, bsonDocument.getArray("sampleIds").get(2).asInt64().getValue());
+        assertEquals("c.d", bsonDocument.getDocument("attributes").getString("a&#46;b").getValue());
+
+        File decoded = codec.decode(new BsonDocumentReader(bsonDocument), DecoderContext.builder().build());
+        assertEquals(file.getPath(), decoded.getPath());
+        assertEquals(file.getSampleIds(), decoded.getSampleIds());
+        assertEquals("c.d", decoded.getAttributes().get("a.b"));
+
+        // Same document as the Document based conversion
+        Document document = CatalogModelCodec.get(File.class).encode(file);
+        assertEquals(document.toJson(), bsonDocument.toJson());
+    }
+
+    @Test
+    public void testProvider() throws Exception {
+        assertNotNull(new CatalogModelCodecProvider().get(Sample.class, CatalogModelCodecProvider.CODEC_REGISTRY));
+        assertNull(new CatalogModelCodecProvider().get(Document.class, CatalogModelCodecProvider.CODEC_REGISTRY));
+    }
+}
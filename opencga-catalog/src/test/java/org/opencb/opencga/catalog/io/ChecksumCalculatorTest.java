@@ -0,0 +1,92 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.catalog.io;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Created on 18/10/26.
+ */
+public class ChecksumCalculatorTest {
+
+    private Path file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = Files.createTempFile("checksum", ".txt");
+        ChecksumCalculator.clearCache();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testMd5() throws Exception {
+        Files.write(file, "abc".getBytes(StandardCharsets.UTF_8));
+        assertEquals("900150983cd24fb0d6963f7d28e17f72", new ChecksumCalculator().calculate(file));
+    }
+
+    @Test
+    public void testXXHash64() throws Exception {
+        ChecksumCalculator calculator = ChecksumCalculator.get("xxhash64");
+        assertEquals("xxh64:ef46db3751d8e999", calculator.calculate(file));
+        Files.write(file, "Nobody inspects the spammish repetition".getBytes(StandardCharsets.UTF_8));
+        assertEquals("xxh64:fbcea83c8a378bf1", calculator.calculate(file));
+    }
+
+    @Test
+    public void testXXHash64Incremental() throws Exception {
+        byte[] bytes = new byte[1000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 31);
+        }
+        XXHash64 expected = new XXHash64();
+        expected.update(bytes, 0, bytes.length);
+        for (int step : new int[]{1, 7, 32, 33, 100}) {
+            XXHash64 xxHash64 = new XXHash64();
+            for (int i = 0; i < bytes.length; i += step) {
+                xxHash64.update(bytes, i, Math.min(step, bytes.length - i));
+            }
+            assertEquals(expected.getValue(), xxHash64.getValue());
+        }
+    }
+
+    @Test
+    public void testCacheInvalidatedOnChange() throws Exception {
+        ChecksumCalculator calculator = new ChecksumCalculator();
+        Files.write(file, "abc".getBytes(StandardCharsets.UTF_8));
+        FileTime time = Files.getLastModifiedTime(file);
+        String checksum = calculator.calculate(file);
+
+        Files.write(file, "abd".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(time.toMillis() + 1000));
+        assertNotEquals(checksum, calculator.calculate(file));
+    }
+
+}
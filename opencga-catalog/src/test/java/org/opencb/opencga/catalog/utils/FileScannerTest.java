@@ -100,6 +100,26 @@ public class FileScannerTest {
 
     }
 
+    @Test
+    public void testScanMultipleBatches() throws IOException, CatalogException {
+        Files.createDirectory(directory.resolve("subfolder"));
+        for (int i = 0; i < 10; i++) {
+            CatalogManagerTest.createDebugFile(directory.resolve("file" + i + ".txt").toString());
+            CatalogManagerTest.createDebugFile(directory.resolve("subfolder/file" + i + ".txt").toString());
+        }
+
+        FileScanner fileScanner = new FileScanner(catalogManager).setBatchSize(3);
+        List<File> files = fileScanner.scan(folder, directory.toUri(), FileScanner.FileScannerPolicy.DELETE, true, true, sessionIdUser);
+
+        assertEquals(20, files.size());
+        for (File file : files) {
+            assertEquals(File.FileStatus.READY, file.getStatus().getName());
+            assertTrue(file.getAttributes().containsKey("checksum"));
+            assertEquals(file.getPath(), catalogManager.getFile(file.getId(), sessionIdUser).first().getPath());
+        }
+        assertEquals(20, files.stream().map(File::getPath).distinct().count());
+    }
+
     @Test
     public void testDeleteExisting() throws IOException, CatalogException {
 
@@ -114,6 +134,25 @@ public class FileScannerTest {
         assertEquals(File.FileStatus.DELETED, getFile(file.getId()).getStatus().getName());
     }
 
+    @Test
+    public void testDeleteExistingFolder() throws IOException, CatalogException {
+        File file = catalogManager.createFile(study.getId(), File.Format.PLAIN, File.Bioformat.NONE, folder.getPath() + "s/s2/file2.txt",
+                CatalogManagerTest.createDebugFile().toURI(), "", true, sessionIdUser).first();
+
+        Files.createDirectory(directory.resolve("s/"));
+        Files.createDirectory(directory.resolve("s/s2/"));
+        CatalogManagerTest.createDebugFile(directory.resolve("s/s2/file2.txt").toString());
+        List<File> files = new FileScanner(catalogManager).scan(folder, directory.toUri(), FileScanner.FileScannerPolicy.DELETE, false,
+                true, sessionIdUser);
+
+        // The folder "s/" is deleted with all its content, that is registered again
+        assertEquals(File.FileStatus.DELETED, getFile(file.getId()).getStatus().getName());
+        assertEquals(1, files.size());
+        assertEquals(folder.getPath() + "s/s2/file2.txt", files.get(0).getPath());
+        assertNotEquals(file.getId(), files.get(0).getId());
+        assertEquals(File.FileStatus.READY, files.get(0).getStatus().getName());
+    }
+
     public File getFile(long id) throws CatalogException {
         return catalogManager.searchFile(study.getId(),
                 new Query(FileDBAdaptor.QueryParams.ID.key(), id)
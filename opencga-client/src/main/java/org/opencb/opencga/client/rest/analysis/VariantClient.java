@@ -48,6 +48,31 @@ public class VariantClient extends AbstractParentClient {
         return ((VariantQueryResult<Variant>) query(params, options).getResponse().get(0));
     }
 
+    /**
+     * Get the page of results after the given one, using its continuation token.
+     *
+     * @param params    Same params as the previous page
+     * @param options   Same options as the previous page
+     * @param previous  Previous page
+     * @return Next page, or null if there are no more results
+     * @throws CatalogException CatalogException
+     * @throws IOException IOException
+     */
+    public VariantQueryResult<Variant> nextPage(ObjectMap params, QueryOptions options, VariantQueryResult<Variant> previous)
+            throws CatalogException, IOException {
+        if (previous == null || previous.getNextToken() == null || previous.getNextToken().isEmpty()) {
+            return null;
+        }
+        ObjectMap nextParams = new ObjectMap(params);
+        nextParams.put("token", previous.getNextToken());
+        nextParams.remove(QueryOptions.SKIP);
+        QueryOptions nextOptions = options == null ? null : new QueryOptions(options);
+        if (nextOptions != null) {
+            nextOptions.remove(QueryOptions.SKIP);
+        }
+        return queryResult(nextParams, nextOptions);
+    }
+
     public QueryResponse<Long> count(ObjectMap params, QueryOptions options) throws CatalogException, IOException {
         if (options != null) {
             params.putAll(options);
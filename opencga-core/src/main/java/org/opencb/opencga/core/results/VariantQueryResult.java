@@ -13,6 +13,7 @@ import java.util.Map;
 public class VariantQueryResult<T> extends QueryResult<T> {
 
     private Map<String, List<String>> samples;
+    private String nextToken;
 
     public VariantQueryResult() {
         this.samples = null;
@@ -43,4 +44,18 @@ public class VariantQueryResult<T> extends QueryResult<T> {
         this.samples = samples;
         return this;
     }
+
+    /**
+     * Opaque token to get the next page of results. Only available for full pages of sorted results.
+     *
+     * @return Token, or null if there are no more pages
+     */
+    public String getNextToken() {
+        return nextToken;
+    }
+
+    public VariantQueryResult setNextToken(String nextToken) {
+        this.nextToken = nextToken;
+        return this;
+    }
 }
@@ -37,7 +37,10 @@ public class AdminGrpcService extends AdminServiceGrpc.AdminServiceImplBase {
 
     @Override
     public void status(GenericServiceModel.Request request, StreamObserver<ServiceTypesModel.MapResponse> responseObserver) {
-        responseObserver.onNext(ServiceTypesModel.MapResponse.newBuilder().putValues("status", "alive").build());
+        ServiceTypesModel.MapResponse.Builder builder = ServiceTypesModel.MapResponse.newBuilder().putValues("status", "alive");
+        // Throughput and backpressure metrics of the streaming calls
+        FlowControlledStreamer.getMetrics().forEach((key, value) -> builder.putValues("stream." + key, String.valueOf(value)));
+        responseObserver.onNext(builder.build());
         responseObserver.onCompleted();
     }
 
@@ -10,6 +10,10 @@ import org.opencb.opencga.catalog.config.Configuration;
 import org.opencb.opencga.storage.core.alignment.iterators.AlignmentIterator;
 import org.opencb.opencga.storage.core.config.StorageConfiguration;
 import org.opencb.opencga.storage.core.manager.AlignmentStorageManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.BiFunction;
 
 /**
  * Created by pfurio on 26/10/16.
@@ -19,6 +23,8 @@ public class AlignmentGrpcService extends AlignmentServiceGrpc.AlignmentServiceI
     private GenericGrpcService genericGrpcService;
     private AlignmentStorageManager alignmentStorageManager;
 
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
     public AlignmentGrpcService(Configuration configuration, StorageConfiguration storageConfiguration) {
         genericGrpcService = new GenericGrpcService(configuration, storageConfiguration);
         alignmentStorageManager = new AlignmentStorageManager(genericGrpcService.catalogManager, GenericGrpcService.storageEngineFactory);
@@ -58,27 +64,45 @@ public class AlignmentGrpcService extends AlignmentServiceGrpc.AlignmentServiceI
 
     @Override
     public void get(GenericAlignmentServiceModel.Request request, StreamObserver<Reads.ReadAlignment> responseObserver) {
-        // Creating the datastore Query and QueryOptions objects from the gRPC request Map of Strings
-        Query query = createQuery(request);
-        QueryOptions queryOptions = createQueryOptions(request);
+        stream("alignment.get", request, responseObserver, Reads.ReadAlignment.class,
+                (iterator, queryOptions) -> FlowControlledStreamer.single("alignment.get", responseObserver, iterator, iterator,
+                        alignment -> alignment));
+    }
 
-        String studyIdStr = query.getString("study");
-        String fileIdStr = query.getString("fileId");
-        String sessionId = query.getString("sid");
+    @Override
+    public void getAsSam(GenericAlignmentServiceModel.Request request, StreamObserver<ServiceTypesModel.StringResponse> responseObserver) {
+        stream("alignment.getAsSam", request, responseObserver, SAMRecord.class,
+                (iterator, queryOptions) -> FlowControlledStreamer.single("alignment.getAsSam", responseObserver, iterator, iterator,
+                        samRecord -> ServiceTypesModel.StringResponse.newBuilder().setValue(samRecord.getSAMString()).build()));
+    }
 
-        try (AlignmentIterator<Reads.ReadAlignment> iterator =
-                     alignmentStorageManager.iterator(studyIdStr, fileIdStr, query, queryOptions, sessionId)) {
-            while (iterator.hasNext()) {
-                responseObserver.onNext(iterator.next());
-            }
-            responseObserver.onCompleted();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+    @Override
+    public void getBatch(GenericAlignmentServiceModel.Request request,
+                         StreamObserver<AlignmentServiceModel.ReadAlignmentBatch> responseObserver) {
+        stream("alignment.getBatch", request, responseObserver, Reads.ReadAlignment.class,
+                (iterator, queryOptions) -> new FlowControlledStreamer<>("alignment.getBatch", responseObserver, iterator, iterator,
+                        queryOptions.getInt(FlowControlledStreamer.BATCH_SIZE, FlowControlledStreamer.DEFAULT_BATCH_SIZE),
+                        batch -> AlignmentServiceModel.ReadAlignmentBatch.newBuilder().addAllAlignments(batch).build()));
     }
 
     @Override
-    public void getAsSam(GenericAlignmentServiceModel.Request request, StreamObserver<ServiceTypesModel.StringResponse> responseObserver) {
+    public void getAsSamBatch(GenericAlignmentServiceModel.Request request,
+                              StreamObserver<ServiceTypesModel.StringArrayResponse> responseObserver) {
+        stream("alignment.getAsSamBatch", request, responseObserver, SAMRecord.class,
+                (iterator, queryOptions) -> new FlowControlledStreamer<>("alignment.getAsSamBatch", responseObserver, iterator, iterator,
+                        queryOptions.getInt(FlowControlledStreamer.BATCH_SIZE, FlowControlledStreamer.DEFAULT_BATCH_SIZE),
+                        batch -> {
+                            ServiceTypesModel.StringArrayResponse.Builder builder = ServiceTypesModel.StringArrayResponse.newBuilder();
+                            for (SAMRecord samRecord : batch) {
+                                builder.addValues(samRecord.getSAMString());
+                            }
+                            return builder.build();
+                        }));
+    }
+
+    private <T, M> void stream(String name, GenericAlignmentServiceModel.Request request, StreamObserver<M> responseObserver,
+                               Class<T> clazz,
+                               BiFunction<AlignmentIterator<T>, QueryOptions, FlowControlledStreamer<T, M>> streamerFactory) {
         // Creating the datastore Query and QueryOptions objects from the gRPC request Map of Strings
         Query query = createQuery(request);
         QueryOptions queryOptions = createQueryOptions(request);
@@ -87,17 +111,21 @@ public class AlignmentGrpcService extends AlignmentServiceGrpc.AlignmentServiceI
         String fileIdStr = query.getString("fileId");
         String sessionId = query.getString("sid");
 
-        try (AlignmentIterator<SAMRecord> iterator =
-                     alignmentStorageManager.iterator(studyIdStr, fileIdStr, query, queryOptions, sessionId,
-                             SAMRecord.class)) {
-            while (iterator.hasNext()) {
-                ServiceTypesModel.StringResponse response =
-                        ServiceTypesModel.StringResponse.newBuilder().setValue(iterator.next().getSAMString()).build();
-                responseObserver.onNext(response);
-            }
-            responseObserver.onCompleted();
+        AlignmentIterator<T> iterator = null;
+        try {
+            iterator = alignmentStorageManager.iterator(studyIdStr, fileIdStr, query, queryOptions, sessionId, clazz);
+            // The iterator is closed by the streamer once finished or cancelled
+            streamerFactory.apply(iterator, queryOptions).start();
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error on " + name, e);
+            if (iterator != null) {
+                try {
+                    iterator.close();
+                } catch (Exception e1) {
+                    e.addSuppressed(e1);
+                }
+            }
+            responseObserver.onError(e);
         }
     }
 
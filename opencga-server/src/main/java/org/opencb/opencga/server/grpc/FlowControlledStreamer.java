@@ -0,0 +1,202 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.server.grpc;
+
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Streams the content of an iterator to a gRPC client, respecting the flow control of the transport.
+ *
+ * Messages are only produced while the client is ready to receive them, driven by the onReadyHandler, so a slow client
+ * does not make the server buffer the whole result in memory. If the client cancels the call, the iterator is closed,
+ * releasing the database cursor.
+ *
+ * Elements can be grouped in batches to reduce the per-message overhead.
+ *
+ * Created on 18/10/26.
+ *
+ * @param <T> Type of the elements from the iterator
+ * @param <M> Type of the messages sent to the client
+ */
+public class FlowControlledStreamer<T, M> {
+
+    public static final String BATCH_SIZE = "batchSize";
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    private static final ConcurrentMap<String, LongAdder> METRICS = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final ServerCallStreamObserver<M> observer;
+    private final Iterator<T> iterator;
+    private final AutoCloseable closeable;
+    private final int batchSize;
+    private final Function<List<T>, M> toMessage;
+
+    private boolean done = false;
+    private long start;
+    private long blockedSince = -1;
+    private long blockedTime = 0;
+    private long numMessages = 0;
+    private long numElements = 0;
+
+    private final Logger logger = LoggerFactory.getLogger(FlowControlledStreamer.class);
+
+    /**
+     * Create a new streamer. Use {@link #start()} to begin the streaming.
+     *
+     * @param name          Name of the stream, used for metrics
+     * @param observer      Response observer of the call
+     * @param iterator      Iterator with the elements to send
+     * @param closeable     Resource to close when the streaming finishes or the call is cancelled. May be null
+     * @param batchSize     Number of elements per message
+     * @param toMessage     Convert a batch of elements into a message
+     */
+    public FlowControlledStreamer(String name, StreamObserver<M> observer, Iterator<T> iterator, AutoCloseable closeable,
+                                  int batchSize, Function<List<T>, M> toMessage) {
+        this.name = name;
+        this.observer = (ServerCallStreamObserver<M>) observer;
+        this.iterator = iterator;
+        this.closeable = closeable;
+        this.batchSize = Math.max(1, batchSize);
+        this.toMessage = toMessage;
+    }
+
+    /**
+     * Create a streamer sending one message per element.
+     *
+     * @param name          Name of the stream, used for metrics
+     * @param observer      Response observer of the call
+     * @param iterator      Iterator with the elements to send
+     * @param closeable     Resource to close when the streaming finishes or the call is cancelled. May be null
+     * @param converter     Convert an element into a message
+     * @param <T>           Type of the elements from the iterator
+     * @param <M>           Type of the messages sent to the client
+     * @return              New streamer
+     */
+    public static <T, M> FlowControlledStreamer<T, M> single(String name, StreamObserver<M> observer, Iterator<T> iterator,
+                                                             AutoCloseable closeable, Function<T, M> converter) {
+        return new FlowControlledStreamer<>(name, observer, iterator, closeable, 1, batch -> converter.apply(batch.get(0)));
+    }
+
+    /**
+     * Register the handlers and send the first messages. Must be called from the call handler.
+     */
+    public synchronized void start() {
+        start = System.nanoTime();
+        count("streams");
+        observer.setOnCancelHandler(this::onCancel);
+        observer.setOnReadyHandler(this::onReady);
+        onReady();
+    }
+
+    private synchronized void onReady() {
+        if (done) {
+            return;
+        }
+        if (blockedSince >= 0) {
+            blockedTime += System.nanoTime() - blockedSince;
+            blockedSince = -1;
+        }
+        try {
+            while (observer.isReady()) {
+                if (observer.isCancelled()) {
+                    onCancel();
+                    return;
+                }
+                List<T> batch = new ArrayList<>(batchSize);
+                while (batch.size() < batchSize && iterator.hasNext()) {
+                    batch.add(iterator.next());
+                }
+                if (batch.isEmpty()) {
+                    finish();
+                    observer.onCompleted();
+                    return;
+                }
+                observer.onNext(toMessage.apply(batch));
+                numMessages++;
+                numElements += batch.size();
+            }
+            // Wait for the client. The onReadyHandler will resume the streaming
+            blockedSince = System.nanoTime();
+        } catch (RuntimeException e) {
+            logger.error("Error streaming " + name, e);
+            finish();
+            observer.onError(Status.INTERNAL.withDescription(e.getMessage()).withCause(e).asRuntimeException());
+        }
+    }
+
+    private synchronized void onCancel() {
+        if (!done) {
+            logger.info("Stream {} cancelled by the client", name);
+            count("cancelled");
+            finish();
+        }
+    }
+
+    private void finish() {
+        done = true;
+        if (blockedSince >= 0) {
+            blockedTime += System.nanoTime() - blockedSince;
+            blockedSince = -1;
+        }
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                logger.warn("Error closing " + name + " iterator", e);
+            }
+        }
+        long time = System.nanoTime() - start;
+        count("messages", numMessages);
+        count("elements", numElements);
+        count("timeMs", TimeUnit.NANOSECONDS.toMillis(time));
+        count("blockedMs", TimeUnit.NANOSECONDS.toMillis(blockedTime));
+        logger.info("Stream {} : {} elements in {} messages in {}s ({} elements/s), {}s blocked by the client", name, numElements,
+                numMessages, time / 1e9, time > 0 ? (long) (numElements / (time / 1e9)) : 0, blockedTime / 1e9);
+    }
+
+    private void count(String metric) {
+        count(metric, 1);
+    }
+
+    private void count(String metric, long delta) {
+        METRICS.computeIfAbsent(name + '.' + metric, k -> new LongAdder()).add(delta);
+    }
+
+    /**
+     * Accumulated metrics of all the finished streams, by stream name.
+     *
+     * @return Map from metric name to value
+     */
+    public static Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new TreeMap<>();
+        METRICS.forEach((key, value) -> metrics.put(key, value.sum()));
+        return metrics;
+    }
+
+}
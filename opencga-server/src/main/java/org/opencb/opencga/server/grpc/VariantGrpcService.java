@@ -27,9 +27,12 @@ import org.opencb.commons.datastore.core.QueryResult;
 import org.opencb.opencga.catalog.config.Configuration;
 import org.opencb.opencga.storage.core.config.StorageConfiguration;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantDBIterator;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantQueryToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.function.BiFunction;
+
 /**
  * Created by imedina on 29/12/15.
  */
@@ -64,20 +67,49 @@ public class VariantGrpcService extends VariantServiceGrpc.VariantServiceImplBas
 
     @Override
     public void get(GenericServiceModel.Request request, StreamObserver<VariantProto.Variant> responseObserver) {
+        VariantAvroToVariantProtoConverter converter = new VariantAvroToVariantProtoConverter();
+        stream("variant.get", request, responseObserver,
+                (iterator, queryOptions) -> FlowControlledStreamer.single("variant.get", responseObserver, iterator, iterator,
+                        converter::convert));
+    }
+
+    @Override
+    public void getBatch(GenericServiceModel.Request request, StreamObserver<VariantServiceModel.VariantBatch> responseObserver) {
+        VariantAvroToVariantProtoConverter converter = new VariantAvroToVariantProtoConverter();
+        stream("variant.getBatch", request, responseObserver,
+                (iterator, queryOptions) -> new FlowControlledStreamer<>("variant.getBatch", responseObserver, iterator, iterator,
+                        queryOptions.getInt(FlowControlledStreamer.BATCH_SIZE, FlowControlledStreamer.DEFAULT_BATCH_SIZE),
+                        batch -> {
+                            VariantServiceModel.VariantBatch.Builder builder = VariantServiceModel.VariantBatch.newBuilder();
+                            for (Variant variant : batch) {
+                                builder.addVariants(converter.convert(variant));
+                            }
+                            if (iterator.getQueryHash() != null && !batch.isEmpty()) {
+                                builder.setNextToken(VariantQueryToken.encode(iterator.getQueryHash(), batch.get(batch.size() - 1)));
+                            }
+                            return builder.build();
+                        }));
+    }
+
+    private <M> void stream(String name, GenericServiceModel.Request request, StreamObserver<M> responseObserver,
+                            BiFunction<VariantDBIterator, QueryOptions, FlowControlledStreamer<Variant, M>> streamerFactory) {
+        VariantDBIterator iterator = null;
         try {
-            VariantAvroToVariantProtoConverter converter = new VariantAvroToVariantProtoConverter();
             Query query = genericGrpcService.createQuery(request);
             QueryOptions queryOptions = genericGrpcService.createQueryOptions(request);
             logger.info("Get variants query : {} , queryOptions : {}" , query.toJson(), queryOptions.toJson());
-            try (VariantDBIterator iterator = genericGrpcService.variantStorageManager.iterator(query, queryOptions, request.getSessionId())) {
-                while (iterator.hasNext()) {
-                    Variant variant = iterator.next();
-                    responseObserver.onNext(converter.convert(variant));
+            iterator = genericGrpcService.variantStorageManager.iterator(query, queryOptions, request.getSessionId());
+            // The iterator is closed by the streamer once finished or cancelled
+            streamerFactory.apply(iterator, queryOptions).start();
+        } catch (Exception e) {
+            logger.error("Error on " + name, e);
+            if (iterator != null) {
+                try {
+                    iterator.close();
+                } catch (Exception e1) {
+                    e.addSuppressed(e1);
                 }
             }
-            responseObserver.onCompleted();
-        } catch (Exception e) {
-            logger.error("Error on get variants", e);
             responseObserver.onError(e);
         }
     }
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.server.grpc;
+
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created on 18/10/26.
+ */
+public class FlowControlledStreamerTest {
+
+    private TestObserver observer;
+    private AtomicInteger produced;
+    private AtomicInteger closed;
+
+    @Before
+    public void setUp() throws Exception {
+        observer = new TestObserver();
+        produced = new AtomicInteger();
+        closed = new AtomicInteger();
+    }
+
+    // Iterator over 0..size-1, counting the produced elements. Fails when producing the element "failAt"
+    private Iterator<Integer> iterator(int size, int failAt) {
+        return new Iterator<Integer>() {
+            @Override
+            public boolean hasNext() {
+                return produced.get() < size;
+            }
+
+            @Override
+            public Integer next() {
+                int next = produced.getAndIncrement();
+                if (next == failAt) {
+                    throw new IllegalStateException("Error reading element " + next);
+                }
+                return next;
+            }
+        };
+    }
+
+    private FlowControlledStreamer<Integer, List<Integer>> newStreamer(String name, Iterator<Integer> iterator, int batchSize) {
+        return new FlowControlledStreamer<>(name, observer, iterator, closed::incrementAndGet, batchSize, ArrayList::new);
+    }
+
+    @Test
+    public void testBackpressure() throws Exception {
+        observer.window = 2;
+        newStreamer("backpressure", iterator(10, -1), 2).start();
+
+        // The producer stops when the client is not ready
+        assertEquals(2, observer.messages.size());
+        assertEquals(4, produced.get());
+        assertFalse(observer.completed);
+
+        // Nothing is produced if the client is still not ready
+        observer.onReadyHandler.run();
+        assertEquals(2, observer.messages.size());
+        assertEquals(4, produced.get());
+
+        observer.window = 4;
+        observer.onReadyHandler.run();
+        assertEquals(4, observer.messages.size());
+        assertEquals(8, produced.get());
+        assertEquals(0, closed.get());
+
+        observer.window = Integer.MAX_VALUE;
+        observer.onReadyHandler.run();
+        assertTrue(observer.completed);
+        assertEquals(5, observer.messages.size());
+        assertEquals(10, produced.get());
+        List<Integer> elements = new ArrayList<>();
+        observer.messages.forEach(elements::addAll);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, elements.get(i).intValue());
+        }
+        assertEquals(1, closed.get());
+
+        // Late onReady notifications are ignored
+        observer.onReadyHandler.run();
+        assertEquals(5, observer.messages.size());
+        assertEquals(1, closed.get());
+        assertEquals(10, FlowControlledStreamer.getMetrics().get("backpressure.elements").longValue());
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        observer.window = 1;
+        FlowControlledStreamer.single("cancel", observer, iterator(10, -1), closed::incrementAndGet,
+                Collections::singletonList).start();
+        assertEquals(1, observer.messages.size());
+
+        observer.cancelled = true;
+        observer.onCancelHandler.run();
+        assertEquals(1, closed.get());
+
+        // Do not send anything else once cancelled
+        observer.window = Integer.MAX_VALUE;
+        observer.onReadyHandler.run();
+        observer.onCancelHandler.run();
+        assertEquals(1, observer.messages.size());
+        assertEquals(1, produced.get());
+        assertFalse(observer.completed);
+        assertNull(observer.error);
+        assertEquals(1, closed.get());
+        assertTrue(FlowControlledStreamer.getMetrics().get("cancel.cancelled") >= 1);
+    }
+
+    @Test
+    public void testCancelDetectedWhileStreaming() throws Exception {
+        observer.window = 1;
+        newStreamer("cancelStreaming", iterator(10, -1), 1).start();
+
+        // The call is cancelled, but the onCancelHandler was not executed yet
+        observer.cancelled = true;
+        observer.window = Integer.MAX_VALUE;
+        observer.onReadyHandler.run();
+        assertEquals(1, observer.messages.size());
+        assertEquals(1, closed.get());
+        assertFalse(observer.completed);
+    }
+
+    @Test
+    public void testIteratorError() throws Exception {
+        observer.window = Integer.MAX_VALUE;
+        newStreamer("iteratorError", iterator(10, 5), 2).start();
+
+        assertEquals(2, observer.messages.size());
+        assertFalse(observer.completed);
+        assertNotNull(observer.error);
+        Status status = ((StatusRuntimeException) observer.error).getStatus();
+        assertEquals(Status.Code.INTERNAL, status.getCode());
+        assertEquals("Error reading element 5", status.getDescription());
+        assertEquals(1, closed.get());
+
+        // The stream is finished
+        observer.onReadyHandler.run();
+        assertEquals(2, observer.messages.size());
+        assertEquals(6, produced.get());
+    }
+
+    @Test
+    public void testConverterError() throws Exception {
+        observer.window = Integer.MAX_VALUE;
+        new FlowControlledStreamer<Integer, List<Integer>>("converterError", observer, iterator(10, -1), closed::incrementAndGet, 3,
+                batch -> {
+                    if (batch.contains(4)) {
+                        throw new IllegalArgumentException("Wrong batch " + batch);
+                    }
+                    return batch;
+                }).start();
+
+        assertEquals(1, observer.messages.size());
+        assertEquals("Wrong batch [3, 4, 5]", ((StatusRuntimeException) observer.error).getStatus().getDescription());
+        assertEquals(1, closed.get());
+        assertFalse(observer.completed);
+    }
+
+    /**
+     * Response observer of a call with a flow control window of a given number of messages.
+     */
+    private static class TestObserver extends ServerCallStreamObserver<List<Integer>> {
+        private final List<List<Integer>> messages = new ArrayList<>();
+        private int window;
+        private boolean cancelled;
+        private boolean completed;
+        private Throwable error;
+        private Runnable onReadyHandler;
+        private Runnable onCancelHandler;
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public void setOnCancelHandler(Runnable onCancelHandler) {
+            this.onCancelHandler = onCancelHandler;
+        }
+
+        public void setCompression(String compression) {
+        }
+
+        @Override
+        public boolean isReady() {
+            return messages.size() < window;
+        }
+
+        @Override
+        public void setOnReadyHandler(Runnable onReadyHandler) {
+            this.onReadyHandler = onReadyHandler;
+        }
+
+        @Override
+        public void disableAutoInboundFlowControl() {
+        }
+
+        @Override
+        public void request(int count) {
+        }
+
+        @Override
+        public void setMessageCompression(boolean enable) {
+        }
+
+        @Override
+        public void onNext(List<Integer> value) {
+            assertFalse("Message sent after finishing the stream", completed || error != null);
+            messages.add(value);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+        }
+
+        @Override
+        public void onCompleted() {
+            completed = true;
+        }
+    }
+}
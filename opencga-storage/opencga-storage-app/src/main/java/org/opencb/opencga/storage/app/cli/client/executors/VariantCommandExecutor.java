@@ -37,6 +37,8 @@ import org.opencb.opencga.storage.core.config.StorageEngineConfiguration;
 import org.opencb.opencga.storage.core.exceptions.StorageEngineException;
 import org.opencb.opencga.storage.core.metadata.FileStudyConfigurationManager;
 import org.opencb.opencga.storage.core.metadata.StudyConfiguration;
+import org.opencb.opencga.storage.core.search.SearchManager;
+import org.opencb.opencga.storage.core.search.VariantSearchLoadResult;
 import org.opencb.opencga.storage.core.variant.VariantStorageEngine;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptor;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantDBIterator;
@@ -131,6 +133,10 @@ public class VariantCommandExecutor extends CommandExecutor {
                 configure(variantCommandOptions.statsVariantsCommandOptions.commonOptions);
                 stats();
                 break;
+            case "search-index":
+                configure(variantCommandOptions.searchIndexVariantsCommandOptions.commonOptions);
+                searchIndex();
+                break;
 //            case "benchmark":
 //                configure(variantCommandOptions.statsVariantsCommandOptions.commonOptions);
 //                benchmark();
@@ -451,6 +457,27 @@ public class VariantCommandExecutor extends CommandExecutor {
         }
     }
 
+    private void searchIndex() throws StorageEngineException, IOException {
+        StorageVariantCommandOptions.VariantSearchIndexCommandOptions searchIndexCommandOptions
+                = variantCommandOptions.searchIndexVariantsCommandOptions;
+
+        Query query = new Query();
+        if (StringUtils.isNotEmpty(searchIndexCommandOptions.region)) {
+            query.put(VariantDBAdaptor.VariantQueryParams.REGION.key(), searchIndexCommandOptions.region);
+        }
+        QueryOptions options = new QueryOptions();
+        options.put(SearchManager.LOAD_BATCH_SIZE, searchIndexCommandOptions.batchSize);
+        options.put(SearchManager.LOAD_THREADS, searchIndexCommandOptions.numThreads);
+        options.put(SearchManager.LOAD_COMMIT_WITHIN, searchIndexCommandOptions.commitWithin);
+        options.putAll(searchIndexCommandOptions.commonOptions.params);
+
+        VariantSearchLoadResult result = variantStorageEngine.insertVariantIntoSolr(searchIndexCommandOptions.dbName, query, options);
+        logger.info("Search index finished: {}", result);
+        if (result.getNumFailedVariants() > 0) {
+            throw new StorageEngineException("Unable to index " + result.getNumFailedVariants() + " variants in the search engine");
+        }
+    }
+
     private void stats() throws IOException, URISyntaxException, StorageEngineException, IllegalAccessException, InstantiationException,
             ClassNotFoundException {
         StorageVariantCommandOptions.VariantStatsCommandOptions statsVariantsCommandOptions = variantCommandOptions.statsVariantsCommandOptions;
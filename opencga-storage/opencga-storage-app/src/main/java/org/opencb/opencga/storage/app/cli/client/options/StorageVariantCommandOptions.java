@@ -21,6 +21,7 @@ import com.beust.jcommander.converters.CommaParameterSplitter;
 import org.opencb.biodata.models.variant.VariantSource;
 import org.opencb.biodata.models.variant.VariantStudy;
 import org.opencb.opencga.storage.app.cli.GeneralCliOptions;
+import org.opencb.opencga.storage.core.search.SearchManager;
 import org.opencb.opencga.storage.core.variant.VariantStorageEngine;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptor;
 import org.opencb.opencga.storage.core.variant.annotation.annotators.VariantAnnotatorFactory;
@@ -39,6 +40,7 @@ public class StorageVariantCommandOptions {
     public ImportVariantsCommandOptions importVariantsCommandOptions;
     public VariantAnnotateCommandOptions annotateVariantsCommandOptions;
     public VariantStatsCommandOptions statsVariantsCommandOptions;
+    public VariantSearchIndexCommandOptions searchIndexVariantsCommandOptions;
 
     public JCommander jCommander;
     public GeneralCliOptions.CommonOptions commonCommandOptions;
@@ -57,6 +59,7 @@ public class StorageVariantCommandOptions {
         this.importVariantsCommandOptions = new ImportVariantsCommandOptions();
         this.annotateVariantsCommandOptions = new VariantAnnotateCommandOptions();
         this.statsVariantsCommandOptions = new VariantStatsCommandOptions();
+        this.searchIndexVariantsCommandOptions = new VariantSearchIndexCommandOptions();
     }
 
     public static class GenericVariantIndexOptions {
@@ -420,6 +423,29 @@ public class StorageVariantCommandOptions {
     }
 
 
+    @Parameters(commandNames = {"search-index"}, commandDescription = "Index variants into the search engine")
+    public class VariantSearchIndexCommandOptions {
+
+        @ParametersDelegate
+        public GeneralCliOptions.CommonOptions commonOptions = commonCommandOptions;
+
+        @Parameter(names = {"-d", "--database"}, description = "DataBase name", required = true, arity = 1)
+        public String dbName;
+
+        @Parameter(names = {"-r", "--region"}, description = "Comma separated region filters", arity = 1)
+        public String region;
+
+        @Parameter(names = {"--batch-size"}, description = "Number of variants sent to the search engine on each request", arity = 1)
+        public int batchSize = SearchManager.LOAD_BATCH_SIZE_DEFAULT;
+
+        @Parameter(names = {"--num-threads"}, description = "Number of threads converting variants", arity = 1)
+        public int numThreads = SearchManager.LOAD_THREADS_DEFAULT;
+
+        @Parameter(names = {"--commit-within"}, description = "Max time in milliseconds before the indexed variants are committed",
+                arity = 1)
+        public int commitWithin = SearchManager.LOAD_COMMIT_WITHIN_DEFAULT;
+    }
+
     @Parameters(commandNames = {"benchmark"}, commandDescription = "[PENDING] Benchmark load and fetch variants with different databases")
     public class BenchmarkCommandOptions {
 
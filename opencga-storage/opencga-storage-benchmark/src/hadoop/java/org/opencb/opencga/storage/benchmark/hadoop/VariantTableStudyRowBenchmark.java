@@ -0,0 +1,96 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.opencb.opencga.storage.benchmark.hadoop;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.opencga.storage.benchmark.VariantFixtureGenerator;
+import org.opencb.opencga.storage.hadoop.variant.index.VariantTableStudyRow;
+import org.opencb.opencga.storage.hadoop.variant.models.protobuf.VariantTableStudyRowProto;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.opencb.opencga.storage.benchmark.VariantFixtureGenerator.STUDY_ID;
+
+/**
+ * Throughput of the {@link VariantTableStudyRow} protobuf encoding used in the Hadoop variants table, in rows per second.
+ *
+ * Created on 18/10/26.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class VariantTableStudyRowBenchmark {
+
+    public static final int NUM_VARIANTS = 100;
+
+    @Param({"10", "100", "1000", "5000"})
+    protected int numSamples;
+
+    private Map<String, Integer> sampleIds;
+    private List<Variant> variants;
+    private List<VariantTableStudyRow> rows;
+    private List<byte[]> encodedRows;
+
+    @Setup
+    public void setup() {
+        VariantFixtureGenerator generator = new VariantFixtureGenerator(numSamples);
+        sampleIds = generator.getStudyConfiguration().getSampleIds();
+        variants = generator.generate(NUM_VARIANTS);
+        rows = new ArrayList<>(NUM_VARIANTS);
+        encodedRows = new ArrayList<>(NUM_VARIANTS);
+        for (Variant variant : variants) {
+            VariantTableStudyRow row = new VariantTableStudyRow(variant, STUDY_ID, sampleIds);
+            rows.add(row);
+            encodedRows.add(row.toProto().toByteArray());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_VARIANTS)
+    public void fromVariant(Blackhole blackhole) {
+        for (Variant variant : variants) {
+            blackhole.consume(new VariantTableStudyRow(variant, STUDY_ID, sampleIds));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_VARIANTS)
+    public void encode(Blackhole blackhole) {
+        for (VariantTableStudyRow row : rows) {
+            blackhole.consume(row.toProto().toByteArray());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_VARIANTS)
+    public void decode(Blackhole blackhole) throws InvalidProtocolBufferException {
+        for (byte[] encodedRow : encodedRows) {
+            VariantTableStudyRowProto proto = VariantTableStudyRowProto.parseFrom(encodedRow);
+            blackhole.consume(new VariantTableStudyRow(proto, VariantFixtureGenerator.CHROMOSOME, STUDY_ID));
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.opencb.opencga.storage.benchmark;
+
+import org.opencb.biodata.models.variant.StudyEntry;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.biodata.models.variant.avro.FileEntry;
+import org.opencb.opencga.storage.core.metadata.StudyConfiguration;
+import org.opencb.opencga.storage.core.variant.VariantStorageEngine;
+
+import java.util.*;
+
+/**
+ * Generates synthetic multi-sample variants to be used as benchmark fixtures.
+ *
+ * All the variants belong to a single study with a single file containing all the samples.
+ * Genotypes follow a typical population distribution (mostly hom-ref), so the converters
+ * are exercised with realistic sparse genotype data. The generator is seeded, so two
+ * generators with the same parameters produce the same fixtures.
+ *
+ * Created on 18/10/26.
+ */
+public class VariantFixtureGenerator {
+
+    public static final int STUDY_ID = 1;
+    public static final String STUDY_NAME = String.valueOf(STUDY_ID);
+    public static final int FILE_ID = 1;
+    public static final String FILE_NAME = "synthetic.vcf.gz";
+    public static final String CHROMOSOME = "1";
+    public static final String COHORT = StudyEntry.DEFAULT_COHORT;
+
+    public static final List<String> FORMAT = Collections.unmodifiableList(Arrays.asList("GT", "FT", "DP"));
+
+    private static final String[] BASES = {"A", "C", "G", "T"};
+    private static final String[] FILTERS = {"PASS", "PASS", "PASS", "LowQual", "."};
+
+    private final int numSamples;
+    private final Random random;
+    private final List<String> sampleNames;
+    private final LinkedHashMap<String, Integer> samplesPosition;
+    private final StudyConfiguration studyConfiguration;
+
+    public VariantFixtureGenerator(int numSamples) {
+        this(numSamples, 0L);
+    }
+
+    public VariantFixtureGenerator(int numSamples, long seed) {
+        this.numSamples = numSamples;
+        this.random = new Random(seed);
+
+        sampleNames = new ArrayList<>(numSamples);
+        samplesPosition = new LinkedHashMap<>(numSamples);
+        for (int i = 0; i < numSamples; i++) {
+            String sampleName = "S" + i;
+            sampleNames.add(sampleName);
+            samplesPosition.put(sampleName, i);
+        }
+        studyConfiguration = buildStudyConfiguration();
+    }
+
+    private StudyConfiguration buildStudyConfiguration() {
+        StudyConfiguration sc = new StudyConfiguration(STUDY_ID, STUDY_NAME, FILE_ID, FILE_NAME);
+        LinkedHashSet<Integer> sampleIds = new LinkedHashSet<>(numSamples);
+        for (int i = 0; i < numSamples; i++) {
+            // Do not use the sample position as sample id, so the converters have to do the actual translation
+            int sampleId = i + 1;
+            sc.getSampleIds().put(sampleNames.get(i), sampleId);
+            sampleIds.add(sampleId);
+        }
+        sc.getIndexedFiles().add(FILE_ID);
+        sc.getSamplesInFiles().put(FILE_ID, sampleIds);
+        sc.getCohortIds().put(COHORT, 1);
+        sc.getCohorts().put(1, new HashSet<>(sampleIds));
+        sc.getAttributes().put(VariantStorageEngine.Options.EXTRA_GENOTYPE_FIELDS.key(), Collections.singletonList("DP"));
+        sc.getAttributes().put(VariantStorageEngine.Options.EXTRA_GENOTYPE_FIELDS_TYPE.key(), Collections.singletonList("Integer"));
+        return sc;
+    }
+
+    /**
+     * Generates a sorted list of SNVs over {@link #CHROMOSOME}, with genotypes for every sample.
+     *
+     * @param numVariants Number of variants to generate
+     * @return List of variants
+     */
+    public List<Variant> generate(int numVariants) {
+        List<Variant> variants = new ArrayList<>(numVariants);
+        int start = 10000;
+        for (int i = 0; i < numVariants; i++) {
+            start += 1 + random.nextInt(200);
+            variants.add(generate(CHROMOSOME, start));
+        }
+        return variants;
+    }
+
+    /**
+     * Generates a SNV at the given position, with genotypes for every sample.
+     *
+     * @param chromosome Chromosome
+     * @param start      Position
+     * @return A new variant
+     */
+    public Variant generate(String chromosome, int start) {
+        int refIdx = random.nextInt(BASES.length);
+        String reference = BASES[refIdx];
+        String alternate = BASES[(refIdx + 1 + random.nextInt(BASES.length - 1)) % BASES.length];
+        Variant variant = new Variant(chromosome, start, start, reference, alternate);
+
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("QUAL", String.valueOf(random.nextInt(1000)));
+        attributes.put("FILTER", FILTERS[random.nextInt(FILTERS.length)]);
+        attributes.put("PR", String.valueOf(random.nextDouble()));
+        attributes.put("CR", String.valueOf(random.nextDouble()));
+        attributes.put("OPR", String.valueOf(random.nextDouble()));
+        FileEntry fileEntry = new FileEntry(String.valueOf(FILE_ID), "", attributes);
+
+        StudyEntry studyEntry = new StudyEntry(STUDY_NAME, new ArrayList<>(Collections.singletonList(fileEntry)), FORMAT);
+        List<List<String>> samplesData = new ArrayList<>(numSamples);
+        for (int i = 0; i < numSamples; i++) {
+            String gt = nextGenotype();
+            String ft = gt.equals("./.") ? "." : FILTERS[random.nextInt(FILTERS.length)];
+            samplesData.add(Arrays.asList(gt, ft, String.valueOf(random.nextInt(60))));
+        }
+        studyEntry.setSamplesPosition(samplesPosition);
+        studyEntry.setSamplesData(samplesData);
+
+        variant.addStudyEntry(studyEntry);
+        return variant;
+    }
+
+    private String nextGenotype() {
+        int i = random.nextInt(100);
+        if (i < 70) {
+            return "0/0";
+        } else if (i < 88) {
+            return "0/1";
+        } else if (i < 96) {
+            return "1/1";
+        } else {
+            return "./.";
+        }
+    }
+
+    /**
+     * @return Cohorts to calculate stats with. A single cohort with all the samples.
+     */
+    public Map<String, Set<String>> getCohorts() {
+        return Collections.singletonMap(COHORT, new HashSet<>(sampleNames));
+    }
+
+    public int getNumSamples() {
+        return numSamples;
+    }
+
+    public List<String> getSampleNames() {
+        return sampleNames;
+    }
+
+    public LinkedHashMap<String, Integer> getSamplesPosition() {
+        return samplesPosition;
+    }
+
+    public StudyConfiguration getStudyConfiguration() {
+        return studyConfiguration;
+    }
+}
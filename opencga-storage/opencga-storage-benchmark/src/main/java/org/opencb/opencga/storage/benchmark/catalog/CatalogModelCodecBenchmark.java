@@ -0,0 +1,143 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.benchmark.catalog;
+
+import com.fasterxml.jackson.databind.*;
+import org.bson.Document;
+import org.opencb.commons.datastore.core.ObjectMap;
+import org.opencb.opencga.catalog.db.mongodb.converters.CatalogModelCodec;
+import org.opencb.opencga.catalog.models.File;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the catalog document conversion, in files per second.
+ * Compares {@link CatalogModelCodec} with the previous JSON string round trip of MongoDBUtils.
+ *
+ * Created on 18/10/26.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CatalogModelCodecBenchmark {
+
+    public static final int NUM_FILES = 100;
+
+    @Param({"10", "100", "1000"})
+    protected int numAttributes;
+
+    private CatalogModelCodec<File> codec;
+    private ObjectWriter jsonObjectWriter;
+    private ObjectReader jsonObjectReader;
+    private List<File> files;
+    private List<Document> documents;
+
+    @Setup
+    public void setup() throws IOException {
+        ObjectMapper jsonObjectMapper = new ObjectMapper();
+        jsonObjectMapper.configure(DeserializationFeature.FAIL_ON_IGNORED_PROPERTIES, false);
+        jsonObjectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        jsonObjectMapper.configure(DeserializationFeature.FAIL_ON_NULL_FOR_PRIMITIVES, false);
+        jsonObjectMapper.configure(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY, true);
+        jsonObjectMapper.configure(MapperFeature.REQUIRE_SETTERS_FOR_GETTERS, true);
+        jsonObjectWriter = jsonObjectMapper.writer();
+        jsonObjectReader = jsonObjectMapper.readerFor(File.class);
+        codec = CatalogModelCodec.get(File.class);
+
+        Random random = new Random(1);
+        files = new ArrayList<>(NUM_FILES);
+        documents = new ArrayList<>(NUM_FILES);
+        for (int i = 0; i < NUM_FILES; i++) {
+            File file = new File("file_" + i + ".vcf.gz", File.Type.FILE, File.Format.VCF, File.Bioformat.VARIANT,
+                    "data/file_" + i + ".vcf.gz", "", new File.FileStatus(File.FileStatus.READY), random.nextInt(1000000));
+            file.setId(i);
+            file.setSampleIds(Arrays.asList((long) i, i + 1L, i + 2L));
+            ObjectMap attributes = new ObjectMap();
+            for (int a = 0; a < numAttributes; a++) {
+                // Some keys with dots, to be escaped
+                attributes.put(a % 4 == 0 ? "variant.stats." + a : "attribute_" + a,
+                        a % 2 == 0 ? random.nextDouble() : Collections.singletonMap("value", "v" + a));
+            }
+            file.setAttributes(attributes);
+            files.add(file);
+            documents.add(codec.encode(file));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_FILES)
+    public void decodeJson(Blackhole blackhole) throws IOException {
+        for (Document document : documents) {
+            String json = jsonObjectWriter.writeValueAsString(document);
+            blackhole.consume(jsonObjectReader.readValue(json.replace(CatalogModelCodec.TO_REPLACE_DOTS, ".")));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_FILES)
+    public void decodeCodec(Blackhole blackhole) throws IOException {
+        for (Document document : documents) {
+            blackhole.consume(codec.decode(document));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_FILES)
+    public void encodeJson(Blackhole blackhole) throws IOException {
+        for (File file : files) {
+            blackhole.consume(replaceDotsInKeys(Document.parse(jsonObjectWriter.writeValueAsString(file))));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_FILES)
+    public void encodeCodec(Blackhole blackhole) throws IOException {
+        for (File file : files) {
+            blackhole.consume(codec.encode(file));
+        }
+    }
+
+    // Copy of MongoDBUtils.replaceInKeys, used by the JSON round trip
+    private static Object replaceDotsInKeys(Object object) {
+        if (object instanceof Map) {
+            Map<String, Object> document = (Map<String, Object>) object;
+            List<String> keys = new ArrayList<>();
+            for (String s : document.keySet()) {
+                if (s.contains(".")) {
+                    keys.add(s);
+                }
+                replaceDotsInKeys(document.get(s));
+            }
+            for (String key : keys) {
+                Object value = document.remove(key);
+                document.put(key.replace(".", CatalogModelCodec.TO_REPLACE_DOTS), value);
+            }
+        } else if (object instanceof List) {
+            for (Object o : ((List) object)) {
+                replaceDotsInKeys(o);
+            }
+        }
+        return object;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.opencb.opencga.storage.benchmark.mongodb;
+
+import org.bson.Document;
+import org.opencb.biodata.models.variant.StudyEntry;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.opencga.storage.benchmark.VariantFixtureGenerator;
+import org.opencb.opencga.storage.mongodb.variant.converters.DocumentToSamplesConverter;
+import org.opencb.opencga.storage.mongodb.variant.converters.DocumentToVariantConverter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.opencb.opencga.storage.benchmark.VariantFixtureGenerator.STUDY_ID;
+import static org.opencb.opencga.storage.benchmark.VariantFixtureGenerator.STUDY_NAME;
+
+/**
+ * Throughput of {@link DocumentToSamplesConverter}, in variants per second.
+ * This is the part of the variant conversion that grows with the number of samples.
+ *
+ * Created on 18/10/26.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class DocumentToSamplesConverterBenchmark {
+
+    public static final int NUM_VARIANTS = 100;
+
+    @Param({"10", "100", "1000", "5000"})
+    protected int numSamples;
+
+    private DocumentToSamplesConverter converter;
+    private List<StudyEntry> studyEntries;
+    private List<Document> studyDocuments;
+    private LinkedHashSet<String> samplesInFile;
+
+    @Setup
+    public void setup() {
+        VariantFixtureGenerator generator = new VariantFixtureGenerator(numSamples);
+        converter = MongoDBBenchmarkUtils.getSamplesConverter(generator);
+        DocumentToVariantConverter variantConverter = MongoDBBenchmarkUtils.getVariantConverter(generator);
+        samplesInFile = new LinkedHashSet<>(generator.getSampleNames());
+
+        studyEntries = new ArrayList<>(NUM_VARIANTS);
+        studyDocuments = new ArrayList<>(NUM_VARIANTS);
+        for (Variant variant : generator.generate(NUM_VARIANTS)) {
+            studyEntries.add(variant.getStudy(STUDY_NAME));
+            Document document = variantConverter.convertToStorageType(variant);
+            studyDocuments.add(((List<Document>) document.get(DocumentToVariantConverter.STUDIES_FIELD)).get(0));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_VARIANTS)
+    public void convertToDataModelType(Blackhole blackhole) {
+        for (Document studyDocument : studyDocuments) {
+            StudyEntry studyEntry = new StudyEntry(STUDY_NAME);
+            blackhole.consume(converter.convertToDataModelType(studyDocument, studyEntry, STUDY_ID));
+            blackhole.consume(studyEntry);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_VARIANTS)
+    public void convertToStorageType(Blackhole blackhole) {
+        for (StudyEntry studyEntry : studyEntries) {
+            blackhole.consume(converter.convertToStorageType(studyEntry, STUDY_ID, new Document(), samplesInFile));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.opencb.opencga.storage.benchmark.mongodb;
+
+import org.opencb.opencga.storage.benchmark.VariantFixtureGenerator;
+import org.opencb.opencga.storage.core.metadata.StudyConfiguration;
+import org.opencb.opencga.storage.mongodb.variant.converters.DocumentToSamplesConverter;
+import org.opencb.opencga.storage.mongodb.variant.converters.DocumentToStudyVariantEntryConverter;
+import org.opencb.opencga.storage.mongodb.variant.converters.DocumentToVariantConverter;
+
+import java.util.Collections;
+
+import static org.opencb.opencga.storage.mongodb.variant.MongoDBVariantStorageEngine.MongoDBVariantOptions.DEFAULT_GENOTYPE;
+
+/**
+ * Builds the MongoDB converters used by the benchmarks, configured as the {@code VariantMongoDBAdaptor} would.
+ *
+ * Created on 18/10/26.
+ */
+final class MongoDBBenchmarkUtils {
+
+    private MongoDBBenchmarkUtils() {
+    }
+
+    static StudyConfiguration getStudyConfiguration(VariantFixtureGenerator generator) {
+        StudyConfiguration studyConfiguration = generator.getStudyConfiguration();
+        studyConfiguration.getAttributes().put(DEFAULT_GENOTYPE.key(), Collections.singleton("0/0"));
+        return studyConfiguration;
+    }
+
+    static DocumentToSamplesConverter getSamplesConverter(VariantFixtureGenerator generator) {
+        return new DocumentToSamplesConverter(getStudyConfiguration(generator));
+    }
+
+    static DocumentToVariantConverter getVariantConverter(VariantFixtureGenerator generator) {
+        DocumentToStudyVariantEntryConverter studyEntryConverter = new DocumentToStudyVariantEntryConverter(false,
+                VariantFixtureGenerator.FILE_ID, getSamplesConverter(generator));
+        studyEntryConverter.addStudyName(VariantFixtureGenerator.STUDY_ID, VariantFixtureGenerator.STUDY_NAME);
+        return new DocumentToVariantConverter(studyEntryConverter, null);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.opencb.opencga.storage.benchmark.mongodb;
+
+import org.bson.types.Binary;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.opencga.storage.benchmark.VariantFixtureGenerator;
+import org.opencb.opencga.storage.mongodb.variant.converters.stage.VariantToAvroBinaryConverter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Throughput of {@link VariantToAvroBinaryConverter}, used to write and read the stage collection, in variants per second.
+ *
+ * Created on 18/10/26.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class VariantToAvroBinaryConverterBenchmark {
+
+    public static final int NUM_VARIANTS = 100;
+
+    @Param({"10", "100", "1000"})
+    protected int numSamples;
+
+    private VariantToAvroBinaryConverter converter;
+    private List<Variant> variants;
+    private List<Binary> binaries;
+
+    @Setup
+    public void setup() {
+        converter = new VariantToAvroBinaryConverter();
+        variants = new VariantFixtureGenerator(numSamples).generate(NUM_VARIANTS);
+        binaries = variants.stream().map(converter::convertToStorageType).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_VARIANTS)
+    public void convertToDataModelType(Blackhole blackhole) {
+        for (Binary binary : binaries) {
+            blackhole.consume(converter.convertToDataModelType(binary));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_VARIANTS)
+    public void convertToStorageType(Blackhole blackhole) {
+        for (Variant variant : variants) {
+            blackhole.consume(converter.convertToStorageType(variant));
+        }
+    }
+}
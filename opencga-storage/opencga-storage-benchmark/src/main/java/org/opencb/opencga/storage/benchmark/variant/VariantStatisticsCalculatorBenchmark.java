@@ -0,0 +1,66 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.opencb.opencga.storage.benchmark.variant;
+
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.opencga.storage.benchmark.VariantFixtureGenerator;
+import org.opencb.opencga.storage.core.variant.stats.VariantStatisticsCalculator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link VariantStatisticsCalculator#calculateBatch}, in variants per second.
+ *
+ * Created on 18/10/26.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class VariantStatisticsCalculatorBenchmark {
+
+    public static final int NUM_VARIANTS = 100;
+
+    @Param({"10", "100", "1000"})
+    protected int numSamples;
+
+    private VariantStatisticsCalculator calculator;
+    private List<Variant> variants;
+    private Map<String, Set<String>> cohorts;
+
+    @Setup
+    public void setup() {
+        VariantFixtureGenerator generator = new VariantFixtureGenerator(numSamples);
+        calculator = new VariantStatisticsCalculator(true);
+        variants = generator.generate(NUM_VARIANTS);
+        cohorts = generator.getCohorts();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_VARIANTS)
+    public Object calculateBatch() {
+        return calculator.calculateBatch(variants, VariantFixtureGenerator.STUDY_NAME,
+                String.valueOf(VariantFixtureGenerator.FILE_ID), cohorts);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.opencb.opencga.storage.benchmark.variant;
+
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.opencga.storage.benchmark.VariantFixtureGenerator;
+import org.opencb.opencga.storage.core.variant.io.VariantVcfDataWriter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link VariantVcfDataWriter#convertVariantToVariantContext}, in variants per second.
+ * Only the conversion is measured, the HTSJDK encoding is not included.
+ *
+ * Created on 18/10/26.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class VariantVcfDataWriterBenchmark {
+
+    public static final int NUM_VARIANTS = 100;
+
+    private static final OutputStream NULL_OUTPUT_STREAM = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+    };
+
+    @Param({"10", "100", "1000"})
+    protected int numSamples;
+
+    private VariantVcfDataWriter writer;
+    private List<Variant> variants;
+
+    @Setup
+    public void setup() {
+        VariantFixtureGenerator generator = new VariantFixtureGenerator(numSamples);
+        variants = generator.generate(NUM_VARIANTS);
+        writer = new VariantVcfDataWriter(generator.getStudyConfiguration(), null, NULL_OUTPUT_STREAM, new QueryOptions());
+        writer.open();
+        writer.pre();
+    }
+
+    @TearDown
+    public void tearDown() {
+        writer.post();
+        writer.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_VARIANTS)
+    public void convertVariantToVariantContext(Blackhole blackhole) {
+        for (Variant variant : variants) {
+            blackhole.consume(writer.convertVariantToVariantContext(variant, null));
+        }
+    }
+}
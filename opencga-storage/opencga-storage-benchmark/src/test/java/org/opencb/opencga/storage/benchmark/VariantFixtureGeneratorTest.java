@@ -0,0 +1,68 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.benchmark;
+
+import org.bson.Document;
+import org.junit.Test;
+import org.opencb.biodata.models.variant.StudyEntry;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.opencga.storage.mongodb.variant.MongoDBVariantStorageEngine;
+import org.opencb.opencga.storage.mongodb.variant.converters.DocumentToSamplesConverter;
+import org.opencb.opencga.storage.mongodb.variant.converters.DocumentToStudyVariantEntryConverter;
+import org.opencb.opencga.storage.mongodb.variant.converters.DocumentToVariantConverter;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Created on 18/10/26.
+ */
+public class VariantFixtureGeneratorTest {
+
+    @Test
+    public void testDeterministic() throws Exception {
+        List<Variant> variants1 = new VariantFixtureGenerator(20, 5).generate(50);
+        List<Variant> variants2 = new VariantFixtureGenerator(20, 5).generate(50);
+        assertEquals(variants1, variants2);
+        for (int i = 0; i < variants1.size(); i++) {
+            assertEquals(variants1.get(i).getStudy(VariantFixtureGenerator.STUDY_NAME).getSamplesData(),
+                    variants2.get(i).getStudy(VariantFixtureGenerator.STUDY_NAME).getSamplesData());
+        }
+    }
+
+    @Test
+    public void testConvertFixtures() throws Exception {
+        VariantFixtureGenerator generator = new VariantFixtureGenerator(20);
+        generator.getStudyConfiguration().getAttributes()
+                .put(MongoDBVariantStorageEngine.MongoDBVariantOptions.DEFAULT_GENOTYPE.key(), Collections.singleton("0/0"));
+        DocumentToVariantConverter converter = new DocumentToVariantConverter(new DocumentToStudyVariantEntryConverter(false,
+                VariantFixtureGenerator.FILE_ID, new DocumentToSamplesConverter(generator.getStudyConfiguration())), null);
+
+        for (Variant variant : generator.generate(50)) {
+            Document document = converter.convertToStorageType(variant);
+            Variant converted = converter.convertToDataModelType(document);
+            StudyEntry expected = variant.getStudy(VariantFixtureGenerator.STUDY_NAME);
+            StudyEntry actual = converted.getStudy(VariantFixtureGenerator.STUDY_NAME);
+            assertEquals(variant.toString(), converted.toString());
+            for (String sample : generator.getSampleNames()) {
+                assertEquals(expected.getSampleData(sample, "GT"), actual.getSampleData(sample, "GT"));
+            }
+        }
+    }
+}
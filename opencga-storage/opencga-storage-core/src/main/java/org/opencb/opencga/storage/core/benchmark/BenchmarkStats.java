@@ -16,38 +16,151 @@
 
 package org.opencb.opencga.storage.core.benchmark;
 
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Created by imedina on 16/06/15.
  */
 public class BenchmarkStats {
 
+    /** Percentiles reported for every query type. */
+    public static final double[] PERCENTILES = {50, 95, 99, 99.9};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p95", "p99", "p999"};
+    private static final int SIGNIFICANT_DIGITS = 3;
+
     private Map<String, List<Integer>> counters;
     private Map<String, List<Double>> std;
+    // Latencies in microseconds, measured from the intended start time of each query
+    private final Map<String, Histogram> latencies;
+    private final Map<String, AtomicLong> errors;
+    private long startTime;
+    private long endTime;
 
     public BenchmarkStats() {
         counters = new LinkedHashMap<>();
         std = new LinkedHashMap<>();
+        latencies = Collections.synchronizedMap(new LinkedHashMap<>());
+        errors = new ConcurrentHashMap<>();
     }
 
-    public void addExecutionTime(String counter, int executionTime) {
+    public synchronized void addExecutionTime(String counter, int executionTime) {
         if (!counters.containsKey(counter)) {
             counters.put(counter, new ArrayList<>());
         }
         counters.get(counter).add(executionTime);
     }
 
-    public void addStdDeviation(String counter, double executionTime) {
+    public synchronized void addStdDeviation(String counter, double executionTime) {
         if (!std.containsKey(counter)) {
             std.put(counter, new ArrayList<>());
         }
         std.get(counter).add(executionTime);
     }
 
+    /**
+     * Record the latency of one query. Thread safe.
+     *
+     * @param queryType     Query type
+     * @param latencyNanos  Latency in nanoseconds
+     */
+    public void recordLatency(String queryType, long latencyNanos) {
+        getHistogram(queryType).recordValue(Math.max(0, latencyNanos / 1000));
+    }
+
+    public void recordError(String queryType) {
+        getHistogram(queryType);
+        errors.computeIfAbsent(queryType, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    public Histogram getHistogram(String queryType) {
+        return latencies.computeIfAbsent(queryType, k -> new ConcurrentHistogram(SIGNIFICANT_DIGITS));
+    }
+
+    public Set<String> getQueryTypes() {
+        synchronized (latencies) {
+            return new LinkedHashSet<>(latencies.keySet());
+        }
+    }
+
+    public long getErrors(String queryType) {
+        AtomicLong count = errors.get(queryType);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * Mark the begin and the end of the measured period, used to calculate the achieved throughput.
+     *
+     * @param startTime Start time, in nanoseconds
+     * @param endTime   End time, in nanoseconds
+     */
+    public void setMeasuredPeriod(long startTime, long endTime) {
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    /**
+     * Summary of the latencies of each query type, in milliseconds.
+     *
+     * @return List of summaries, one per query type
+     */
+    public List<Map<String, Object>> latencySummary() {
+        double seconds = (endTime - startTime) / 1e9;
+        List<Map<String, Object>> summary = new ArrayList<>();
+        for (String queryType : getQueryTypes()) {
+            Histogram histogram = getHistogram(queryType).copy();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("query", queryType);
+            map.put("count", histogram.getTotalCount());
+            map.put("errors", getErrors(queryType));
+            map.put("qps", seconds > 0 ? round(histogram.getTotalCount() / seconds) : 0);
+            map.put("min", toMillis(histogram.getMinValue()));
+            map.put("mean", round(histogram.getMean() / 1000));
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                map.put(PERCENTILE_NAMES[i], toMillis(histogram.getValueAtPercentile(PERCENTILES[i])));
+            }
+            map.put("max", toMillis(histogram.getMaxValue()));
+            summary.add(map);
+        }
+        return summary;
+    }
+
+    public void writeCsv(OutputStream outputStream) {
+        PrintStream out = new PrintStream(outputStream);
+        List<Map<String, Object>> summary = latencySummary();
+        boolean header = true;
+        for (Map<String, Object> map : summary) {
+            if (header) {
+                out.println(String.join(",", map.keySet()));
+                header = false;
+            }
+            StringJoiner joiner = new StringJoiner(",");
+            map.values().forEach(value -> joiner.add(String.valueOf(value)));
+            out.println(joiner.toString());
+        }
+        out.flush();
+    }
+
+    public void writeJson(OutputStream outputStream) throws IOException {
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(outputStream, latencySummary());
+    }
+
+    private static double toMillis(long micros) {
+        return round(micros / 1000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000d) / 1000d;
+    }
+
     public double avg(String counter) {
         if (counter != null && counters.get(counter) != null) {
             List<Integer> integers = counters.get(counter);
@@ -103,6 +216,18 @@ public class BenchmarkStats {
             System.out.print(ANSI_GREEN + "Standard Deviation: " + ANSI_CYAN + standardDeviation(key));
             System.out.println();
         }
+        for (Map<String, Object> summary : latencySummary()) {
+            System.out.print(ANSI_GREEN + "Query: " + ANSI_CYAN + summary.get("query") + ", ");
+            System.out.print(ANSI_GREEN + "Count: " + ANSI_CYAN + summary.get("count") + ", ");
+            System.out.print(ANSI_GREEN + "Errors: " + ANSI_CYAN + summary.get("errors") + ", ");
+            System.out.print(ANSI_GREEN + "QPS: " + ANSI_CYAN + summary.get("qps") + ", ");
+            System.out.print(ANSI_GREEN + "Latency (ms): " + ANSI_CYAN);
+            for (String percentile : PERCENTILE_NAMES) {
+                System.out.print(percentile + "=" + summary.get(percentile) + " ");
+            }
+            System.out.print("max=" + summary.get("max"));
+            System.out.println();
+        }
     }
 
 
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.opencb.opencga.storage.core.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.opencb.commons.datastore.core.ObjectMap;
+import org.opencb.commons.datastore.core.Query;
+import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.commons.datastore.core.QueryResult;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Query to be executed by the {@link VariantBenchmarkRunner}.
+ *
+ * A query mix can be read from a file with one JSON object per line. Each line is either a plain {@link Query}, executed
+ * with {@link VariantDBAdaptor#get}, or an object with the following fields:
+ * <pre>
+ *     {"name": "geneQuery", "method": "get", "weight": 2, "query": {"gene": "BRCA2"}, "options": {"limit": 10}}
+ * </pre>
+ * Lines starting with '#' are ignored.
+ *
+ * Created on 18/10/26.
+ */
+public class VariantBenchmarkQuery {
+
+    public static final String NAME = "name";
+    public static final String METHOD = "method";
+    public static final String WEIGHT = "weight";
+    public static final String QUERY = "query";
+    public static final String OPTIONS = "options";
+    public static final String FIELD = "field";
+
+    public enum Method {
+        GET,
+        COUNT,
+        DISTINCT,
+        GROUP_BY
+    }
+
+    private final String name;
+    private final Method method;
+    private final Query query;
+    private final QueryOptions options;
+    private final int weight;
+
+    public VariantBenchmarkQuery(String name, Method method, Query query, QueryOptions options) {
+        this(name, method, query, options, 1);
+    }
+
+    public VariantBenchmarkQuery(String name, Method method, Query query, QueryOptions options, int weight) {
+        this.name = name;
+        this.method = method;
+        this.query = query == null ? new Query() : query;
+        this.options = options == null ? new QueryOptions() : options;
+        if (weight <= 0) {
+            throw new IllegalArgumentException("Weight of query '" + name + "' must be positive. Found: " + weight);
+        }
+        this.weight = weight;
+    }
+
+    public QueryResult execute(VariantDBAdaptor dbAdaptor) {
+        switch (method) {
+            case GET:
+                return dbAdaptor.get(query, options);
+            case COUNT:
+                return dbAdaptor.count(query);
+            case DISTINCT:
+                return dbAdaptor.distinct(query, options.getString(FIELD));
+            case GROUP_BY:
+                return dbAdaptor.groupBy(query, options.getString(FIELD), options);
+            default:
+                throw new IllegalStateException("Unknown method " + method);
+        }
+    }
+
+    /**
+     * Read a query mix from a file with one JSON object per line.
+     *
+     * @param path  Path to the file
+     * @return      List of queries, in the same order as the file
+     * @throws IOException if there is any problem reading the file
+     */
+    public static List<VariantBenchmarkQuery> read(Path path) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<VariantBenchmarkQuery> queries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                ObjectMap map = new ObjectMap(objectMapper.readValue(line, Map.class));
+                queries.add(parse(map, path.getFileName() + ":" + lineNumber));
+            }
+        }
+        return queries;
+    }
+
+    static VariantBenchmarkQuery parse(ObjectMap map, String defaultName) {
+        if (map.containsKey(QUERY) || map.containsKey(METHOD)) {
+            Method method = Method.valueOf(map.getString(METHOD, Method.GET.name()).toUpperCase());
+            Query query = new Query(map.getMap(QUERY, Collections.emptyMap()));
+            QueryOptions options = new QueryOptions(map.getMap(OPTIONS, Collections.emptyMap()));
+            if (map.containsKey(FIELD)) {
+                options.put(FIELD, map.getString(FIELD));
+            }
+            return new VariantBenchmarkQuery(map.getString(NAME, defaultName), method, query, options, map.getInt(WEIGHT, 1));
+        } else {
+            return new VariantBenchmarkQuery(defaultName, Method.GET, new Query(map), new QueryOptions());
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public Query getQuery() {
+        return query;
+    }
+
+    public QueryOptions getOptions() {
+        return options;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    @Override
+    public String toString() {
+        return name + " : " + method + " " + query.toJson() + " " + options.toJson();
+    }
+}
@@ -16,16 +16,21 @@
 
 package org.opencb.opencga.storage.core.benchmark;
 
+import org.apache.commons.lang3.StringUtils;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.commons.datastore.core.QueryResult;
 import org.opencb.opencga.storage.core.exceptions.StorageEngineException;
 import org.opencb.opencga.storage.core.StorageEngineFactory;
+import org.opencb.opencga.storage.core.config.BenchmarkConfiguration;
 import org.opencb.opencga.storage.core.config.StorageConfiguration;
 import org.opencb.opencga.storage.core.variant.VariantStorageEngine;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptor;
 import org.slf4j.LoggerFactory;
 
+import java.io.*;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.*;
 
@@ -34,8 +39,6 @@ import java.util.concurrent.*;
  */
 public class VariantBenchmarkRunner extends BenchmarkRunner {
 
-    private String[] queryType;
-    private String queryParams;
     private BenchmarkStats benchmarkStats;
 
     public VariantBenchmarkRunner(StorageConfiguration storageConfiguration) throws IllegalAccessException, ClassNotFoundException,
@@ -76,104 +79,195 @@ public class VariantBenchmarkRunner extends BenchmarkRunner {
 
     @Override
     public BenchmarkStats query(int numRepetitions, Set<String> benchmarkTests) throws ExecutionException, InterruptedException {
-//        int executionTime = 0;
-
-        benchmarkStats = new BenchmarkStats();
-        for (int i = 0; i < numRepetitions; i++) {
-            Iterator<String> iterator = benchmarkTests.iterator();
-            while (iterator.hasNext()) {
-                String next = iterator.next();
-
-                queryType = next.split("-");
-                if (queryType.length >= 2) {
-                    queryParams = queryType[1];
-                } else if (queryType.length == 1 && queryType[0].equals("distinct")) {
-//                    System.out.println("inside else .query :: ");
-                    queryParams = "gene";
-                }
-
-                Query query = new Query();
-                QueryOptions queryOptions = new QueryOptions();
-
-                switch (queryType[0]) {
-                    case "count":
-                        executeThreads(queryType[0], () -> variantDBAdaptor.count(new Query()));
-                        System.out.println("VariantBenchmarkRunner.query" + variantDBAdaptor.count(new Query()).getResult());
-//                        executionTime = count();
-                        break;
-                    case "distinct":
-                        executeThreads(queryType[0], () -> variantDBAdaptor.distinct(new Query(), queryParams));
-//                        System.out.println("VariantBenchmarkRunner.query >>>>>> " + queryParams + "   "
-//                                + variantDBAdaptor.distinct(new Query(),
-//                                queryParams).getResult().size());
-                        break;
-                    case "queryById":
-                        query.put(VariantDBAdaptor.VariantQueryParams.ID.key(), queryParams);
-                        executeThreads(queryType[0], () -> variantDBAdaptor.get(query, queryOptions));
-                        break;
-                    case "queryByRegion":
-                        query.put(VariantDBAdaptor.VariantQueryParams.REGION.key(), queryParams);
-                        executeThreads(queryType[0], () -> variantDBAdaptor.get(query, queryOptions));
-                        break;
-                    case "queryByChromosome":
-                        query.put(VariantDBAdaptor.VariantQueryParams.CHROMOSOME.key(), queryParams);
-                        executeThreads(queryType[0], () -> variantDBAdaptor.get(query, queryOptions));
-                        break;
-                    case "queryByGene":
-                        query.put(VariantDBAdaptor.VariantQueryParams.GENE.key(), queryParams);
-                        executeThreads(queryType[0], () -> variantDBAdaptor.get(query, queryOptions));
-                        break;
-                    case "queryByType":
-                        query.put(VariantDBAdaptor.VariantQueryParams.TYPE.key(), queryParams);
-                        executeThreads(queryType[0], () -> variantDBAdaptor.get(query, queryOptions));
-                        break;
-                    case "queryByReference":
-                        query.put(VariantDBAdaptor.VariantQueryParams.REFERENCE.key(), queryParams);
-                        executeThreads(queryType[0], () -> variantDBAdaptor.get(query, queryOptions));
-                        break;
-                    case "queryByAlternate":
-                        query.put(VariantDBAdaptor.VariantQueryParams.ALTERNATE.key(), queryParams);
-                        executeThreads(queryType[0], () -> variantDBAdaptor.get(query, queryOptions));
-                        break;
-                    case "queryByStudies":
-                        query.put(VariantDBAdaptor.VariantQueryParams.STUDIES.key(), queryParams);
-                        executeThreads(queryType[0], () -> variantDBAdaptor.get(query, queryOptions));
-                        break;
-                    default:
-                        break;
+        BenchmarkConfiguration configuration = storageConfiguration.getBenchmark();
+        List<VariantBenchmarkQuery> queries = new ArrayList<>();
+        if (benchmarkTests != null) {
+            for (String benchmarkTest : benchmarkTests) {
+                VariantBenchmarkQuery query = parseBenchmarkTest(benchmarkTest);
+                if (query != null) {
+                    queries.add(query);
                 }
-//                benchmarkStats.addExecutionTime(next, executionTime);
             }
         }
+        if (StringUtils.isNotEmpty(configuration.getQueryFile())) {
+            try {
+                queries.addAll(VariantBenchmarkQuery.read(Paths.get(configuration.getQueryFile())));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        if (queries.isEmpty()) {
+            throw new IllegalArgumentException("Empty query mix. Add queries or a query file to the benchmark configuration.");
+        }
 
-        benchmarkStats.printSummary(storageConfiguration.getBenchmark().getDatabaseName(),
-                storageConfiguration.getBenchmark().getTable(), storageConfiguration.getBenchmark().getNumRepetitions(),
-                storageConfiguration.getBenchmark().getConcurrency());
+        benchmarkStats = new BenchmarkStats();
+        run(queries, numRepetitions);
+
+        benchmarkStats.printSummary(configuration.getDatabaseName(), configuration.getTable(), numRepetitions,
+                configuration.getConcurrency());
+        if (StringUtils.isNotEmpty(configuration.getOutput())) {
+            writeReport(Paths.get(configuration.getOutput()));
+        }
         return benchmarkStats;
     }
 
-    private <T> List<Future<T>> executeThreads(String test, Callable<T> task) throws ExecutionException, InterruptedException {
-        int concurrency = storageConfiguration.getBenchmark().getConcurrency();
-//        System.out.println("concurrency :: " + concurrency);
-        ExecutorService executorService = Executors.newFixedThreadPool(10);
-        List<Future<T>> futureList = new ArrayList<>(10);
-        for (int i = 0; i < concurrency; i++) {
-            futureList.add(executorService.submit(task));
+    /**
+     * Parse a benchmark test from the configuration, with the format "type-params". e.g. "queryByRegion-1:1000-2000".
+     *
+     * @param benchmarkTest Benchmark test
+     * @return Query to execute, or null if the type is unknown
+     */
+    private VariantBenchmarkQuery parseBenchmarkTest(String benchmarkTest) {
+        int idx = benchmarkTest.indexOf('-');
+        String type = idx < 0 ? benchmarkTest : benchmarkTest.substring(0, idx);
+        String params = idx < 0 ? null : benchmarkTest.substring(idx + 1);
+
+        Query query = new Query();
+        switch (type) {
+            case "count":
+                return new VariantBenchmarkQuery(type, VariantBenchmarkQuery.Method.COUNT, query, null);
+            case "distinct":
+                QueryOptions options = new QueryOptions(VariantBenchmarkQuery.FIELD, params == null ? "gene" : params);
+                return new VariantBenchmarkQuery(type, VariantBenchmarkQuery.Method.DISTINCT, query, options);
+            case "queryById":
+                query.put(VariantDBAdaptor.VariantQueryParams.ID.key(), params);
+                break;
+            case "queryByRegion":
+                query.put(VariantDBAdaptor.VariantQueryParams.REGION.key(), params);
+                break;
+            case "queryByChromosome":
+                query.put(VariantDBAdaptor.VariantQueryParams.CHROMOSOME.key(), params);
+                break;
+            case "queryByGene":
+                query.put(VariantDBAdaptor.VariantQueryParams.GENE.key(), params);
+                break;
+            case "queryByType":
+                query.put(VariantDBAdaptor.VariantQueryParams.TYPE.key(), params);
+                break;
+            case "queryByReference":
+                query.put(VariantDBAdaptor.VariantQueryParams.REFERENCE.key(), params);
+                break;
+            case "queryByAlternate":
+                query.put(VariantDBAdaptor.VariantQueryParams.ALTERNATE.key(), params);
+                break;
+            case "queryByStudies":
+                query.put(VariantDBAdaptor.VariantQueryParams.STUDIES.key(), params);
+                break;
+            default:
+                logger.warn("Unknown benchmark test '{}'. Skip", benchmarkTest);
+                return null;
         }
+        return new VariantBenchmarkQuery(type, VariantBenchmarkQuery.Method.GET, query, null);
+    }
 
-        int totalTime = 0;
-        for (Future<T> queryResultFuture : futureList) {
-            totalTime += ((QueryResult) queryResultFuture.get()).getDbTime();
-//            System.out.println("queryResultFuture.get().getDbTime() = " + queryResultFuture.get().getDbTime());
-//            System.out.println("queryResultFuture.get().getResult().size() = " + queryResultFuture.get().getResult().get(0));
+    /**
+     * Open-loop load generator.
+     *
+     * If a target QPS is configured, queries are issued at a fixed rate independently of the response times, and the latency
+     * is measured from the intended start time of each query, so the queueing delay of a saturated backend is accounted for.
+     * Otherwise, runs a closed loop with up to "concurrency" queries in flight.
+     *
+     * Queries are picked randomly from the query mix, proportionally to their weight. Latencies recorded during the warm-up
+     * are discarded. The measured phase lasts "duration" seconds, or "numRepetitions" times the size of the query mix
+     * if no duration is provided.
+     *
+     * @param queries           Query mix
+     * @param numRepetitions    Number of repetitions of the query mix, if there is no duration
+     * @throws InterruptedException if the thread is interrupted
+     */
+    private void run(List<VariantBenchmarkQuery> queries, int numRepetitions) throws InterruptedException {
+        BenchmarkConfiguration configuration = storageConfiguration.getBenchmark();
+        int concurrency = Math.max(1, configuration.getConcurrency());
+        double qps = configuration.getQps();
+        long intervalNanos = qps > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / qps) : 0;
+        long warmUpNanos = TimeUnit.SECONDS.toNanos(Math.max(0, configuration.getWarmUp()));
+        long durationNanos = TimeUnit.SECONDS.toNanos(Math.max(0, configuration.getDuration()));
+        long maxQueries = durationNanos > 0 ? Long.MAX_VALUE : (long) Math.max(1, numRepetitions) * queries.size();
+
+        int[] cumulativeWeights = new int[queries.size()];
+        int totalWeight = 0;
+        for (int i = 0; i < queries.size(); i++) {
+            totalWeight += queries.get(i).getWeight();
+            cumulativeWeights[i] = totalWeight;
         }
+        Random random = new Random(0);
 
-        benchmarkStats.addExecutionTime(test, totalTime);
-        benchmarkStats.addStdDeviation(test, totalTime);
+        logger.info("Running {} queries. Concurrency: {}, target QPS: {}, warm-up: {}s, duration: {}",
+                queries.size(), concurrency, qps > 0 ? qps : "unbounded", configuration.getWarmUp(),
+                durationNanos > 0 ? configuration.getDuration() + "s" : maxQueries + " queries");
 
-        return futureList;
-    }
-}
+        // In open-loop mode the pool queue is unbounded, so a slow backend is reflected in the latencies instead of
+        // slowing down the load generator. In closed-loop mode the semaphore bounds the number of queries in flight.
+        ExecutorService executorService = Executors.newFixedThreadPool(concurrency);
+        Semaphore inFlight = intervalNanos > 0 ? null : new Semaphore(concurrency);
 
+        long start = System.nanoTime();
+        long measureStart = start + warmUpNanos;
+        long end = durationNanos > 0 ? measureStart + durationNanos : Long.MAX_VALUE;
+        long measuredQueries = 0;
+        try {
+            for (long i = 0; measuredQueries < maxQueries; i++) {
+                final long intendedStart;
+                if (inFlight == null) {
+                    intendedStart = start + i * intervalNanos;
+                    long sleep = intendedStart - System.nanoTime();
+                    if (sleep > 0) {
+                        TimeUnit.NANOSECONDS.sleep(sleep);
+                    }
+                } else {
+                    inFlight.acquire();
+                    intendedStart = System.nanoTime();
+                }
+                if (intendedStart >= end) {
+                    if (inFlight != null) {
+                        inFlight.release();
+                    }
+                    break;
+                }
+                final boolean measure = intendedStart >= measureStart;
+                if (measure) {
+                    measuredQueries++;
+                }
+                int idx = Arrays.binarySearch(cumulativeWeights, random.nextInt(totalWeight) + 1);
+                VariantBenchmarkQuery query = queries.get(idx < 0 ? -idx - 1 : idx);
+                executorService.submit(() -> execute(query, intendedStart, measure, inFlight));
+            }
+        } finally {
+            executorService.shutdown();
+            executorService.awaitTermination(1, TimeUnit.HOURS);
+        }
+        benchmarkStats.setMeasuredPeriod(measureStart, Math.min(end, System.nanoTime()));
+    }
 
+    private void execute(VariantBenchmarkQuery query, long intendedStart, boolean measure, Semaphore inFlight) {
+        try {
+            QueryResult result = query.execute(variantDBAdaptor);
+            if (measure) {
+                benchmarkStats.recordLatency(query.getName(), System.nanoTime() - intendedStart);
+                benchmarkStats.addExecutionTime(query.getName(), result.getDbTime());
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Error executing query " + query, e);
+            if (measure) {
+                benchmarkStats.recordError(query.getName());
+            }
+        } finally {
+            if (inFlight != null) {
+                inFlight.release();
+            }
+        }
+    }
 
+    private void writeReport(Path output) {
+        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(output.toFile()))) {
+            if (output.toString().endsWith(".json")) {
+                benchmarkStats.writeJson(outputStream);
+            } else {
+                benchmarkStats.writeCsv(outputStream);
+            }
+            logger.info("Benchmark report written to {}", output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
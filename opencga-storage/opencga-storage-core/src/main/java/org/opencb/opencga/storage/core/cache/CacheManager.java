@@ -1,153 +1,314 @@
 package org.opencb.opencga.storage.core.cache;
 
 import org.apache.commons.codec.digest.DigestUtils;
-import org.apache.commons.lang3.StringUtils;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.biodata.models.variant.avro.VariantAvro;
+import org.opencb.commons.datastore.core.ObjectMap;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.commons.datastore.core.QueryResult;
+import org.opencb.opencga.core.results.VariantQueryResult;
 import org.opencb.opencga.storage.core.config.CacheConfiguration;
 import org.opencb.opencga.storage.core.config.StorageConfiguration;
-import org.redisson.Config;
-import org.redisson.Redisson;
-import org.redisson.RedissonClient;
-import org.redisson.client.RedisConnectionException;
-import org.redisson.codec.JsonJacksonCodec;
-import org.redisson.codec.KryoCodec;
-import org.redisson.core.RKeys;
-import org.redisson.core.RMap;
+import org.opencb.opencga.storage.core.metadata.StudyConfiguration;
+import org.opencb.opencga.storage.core.metadata.StudyConfigurationManager;
 
 import java.util.*;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 /**
+ * Tiered cache of query results.
+ *
+ * The in-memory tier is shared by all the CacheManagers of the JVM, so the short lived DBAdaptors can profit from it.
+ * Keys are built from the canonical form of the Query and the QueryOptions, the namespace (database) and the
+ * timeStamp of every StudyConfiguration, so any change in the studies makes the previous entries unreachable.
+ * The timeStamps are reused for {@link CacheConfiguration#getMetadataTtl()} milliseconds, so a cache hit does not need
+ * to read the StudyConfigurations.
+ * Writes that do not modify any StudyConfiguration, like loading annotations or statistics, must call {@link #invalidate()}.
+ * Invalidations are local to the JVM: other servers sharing the redis tier only see the changes in the StudyConfigurations.
+ * A server does not see the annotations or statistics loaded by other processes until the entries expire, so the cache
+ * is opt-in: it has to be active in the configuration, and each query has to ask for it with {@link #CACHE}=true.
+ *
+ * Cached variants are copied on every read and write, so callers can modify them.
+ *
  * Created by wasim on 26/10/16.
  */
 public class CacheManager {
 
-    private StorageConfiguration storageConfiguration;
+    public static final String CACHE = "cache";
+    public static final String VARIANT = "var";
+    public static final String ALIGNMENT = "aln";
+    public static final String PREFIX_DATABASE_KEY = "ocga:";
 
-    private Config redissonConfig;
-    private Set<String> allowedTypesSet;
-    private RedissonClient redissonClient;
-    private boolean redisState;
+    private static final Set<String> NON_KEY_OPTIONS = new HashSet<>(Arrays.asList(CACHE, "sId", QueryOptions.TIMEOUT));
+    private static final ConcurrentMap<String, AtomicLong> GENERATIONS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, StudyTimeStamps> STUDY_TIME_STAMPS = new ConcurrentHashMap<>();
+    private static InMemoryQueryResultCache sharedMemoryTier;
 
-
-    private static final String PREFIX_DATABASE_KEY = "ocga:";
+    private CacheConfiguration cacheConfiguration;
+    private Set<String> allowedTypesSet = Collections.emptySet();
+    private List<QueryResultCache> tiers = Collections.emptyList();
+    private RedisQueryResultCache redisTier;
+    private final String namespace;
 
     public CacheManager() {
+        namespace = "";
     }
 
     public CacheManager(StorageConfiguration configuration) {
+        this(configuration, "");
+    }
 
-        CacheConfiguration cache;
-
+    public CacheManager(StorageConfiguration configuration, String namespace) {
+        this.namespace = namespace;
         if (configuration != null && configuration.getCache() != null) {
-
-            this.storageConfiguration = configuration;
-
-            cache = configuration.getCache();
-            redissonConfig = new Config();
-
-            String host = (StringUtils.isNotEmpty(cache.getHost()))
-                    ? cache.getHost()
-                    : CacheConfiguration.DEFAULT_HOST;
-            redissonConfig.useSingleServer().setAddress(host);
-
-            String codec = (StringUtils.isNotEmpty(cache.getSerialization()))
-                    ? cache.getSerialization()
-                    : CacheConfiguration.DEFAULT_SERIALIZATION;
-
-            this.allowedTypesSet = new HashSet<>(Arrays.asList(cache.getAllowedTypes().split(",")));
-
-
-            if (StringUtils.isNotEmpty(cache.getPassword())) {
-                redissonConfig.useSingleServer().setPassword(cache.getPassword());
-            }
-
-            if ("KRYO".equalsIgnoreCase(codec)) {
-                redissonConfig.setCodec(new KryoCodec());
-            } else {
-                redissonConfig.setCodec(new JsonJacksonCodec());
+            cacheConfiguration = configuration.getCache();
+            allowedTypesSet = new HashSet<>(Arrays.asList(cacheConfiguration.getAllowedTypes().split(",")));
+
+            String tiersStr = cacheConfiguration.getTiers() == null ? CacheConfiguration.DEFAULT_TIERS : cacheConfiguration.getTiers();
+            tiers = new ArrayList<>(2);
+            for (String tier : tiersStr.split(",")) {
+                switch (tier.trim().toLowerCase()) {
+                    case "memory":
+                        tiers.add(getSharedMemoryTier(cacheConfiguration));
+                        break;
+                    case "redis":
+                        redisTier = new RedisQueryResultCache(cacheConfiguration);
+                        tiers.add(redisTier);
+                        break;
+                    case "":
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown cache tier '" + tier + "'");
+                }
             }
-
-            redisState = true;
-
-//            redissonClient = Redisson.create(redissonConfig);
-            redissonClient = null;
         }
     }
 
+    private static synchronized InMemoryQueryResultCache getSharedMemoryTier(CacheConfiguration cacheConfiguration) {
+        if (sharedMemoryTier == null) {
+            long maxMemory = cacheConfiguration.getMaxMemory() > 0
+                    ? cacheConfiguration.getMaxMemory()
+                    : CacheConfiguration.DEFAULT_MAX_MEMORY;
+            sharedMemoryTier = new InMemoryQueryResultCache(maxMemory, cacheConfiguration.getTtl());
+        }
+        return sharedMemoryTier;
+    }
 
-    public <T> QueryResult<T> get(String key) {
+    /**
+     * Get a result from the cache, or load and cache it if missing.
+     *
+     * @param type          Cache type. See {@link CacheConfiguration#getAllowedTypes()}
+     * @param method        Name of the cached method, including any parameter not present in the query or the options
+     * @param studyConfigurationManager StudyConfigurationManager to read the current timeStamp of the studies
+     * @param query         Query
+     * @param options       Query options. Use {@link #CACHE}=true to use the cache
+     * @param loader        Load the result from the database
+     * @param <R>           QueryResult type
+     * @return              Result from the cache or from the loader
+     */
+    public <R extends QueryResult> R cached(String type, String method, StudyConfigurationManager studyConfigurationManager,
+                                            Query query, QueryOptions options, Supplier<R> loader) {
+        if (!isActive() || !isTypeAllowed(type) || options == null || !options.getBoolean(CACHE, false)) {
+            return loader.get();
+        }
 
-        QueryResult<T> queryResult = new QueryResult<>();
-        if (isActive()) {
-            long start = System.currentTimeMillis();
-            RMap<Integer, Map<String, Object>> map = getRedissonClient().getMap(key);
+        long start = System.currentTimeMillis();
+        String key = createKey(type, method, getStudyTimeStamps(studyConfigurationManager), query, options);
+        QueryResult<?> queryResult = get(key);
+        if (queryResult != null) {
+            count(type, method, "hit");
+            R cachedResult = copy(queryResult);
+            cachedResult.setDbTime((int) (System.currentTimeMillis() - start));
+            return cachedResult;
+        }
+        count(type, method, "miss");
 
-            try {
-                // We only retrieve the first field of the HASH, which is the only one that exist.
-                Map<Integer, Map<String, Object>> result = map.getAll(new HashSet<>(Collections.singletonList(0)));
+        R result = loader.get();
+        if (result != null && result.getResult() != null) {
+            set(key, query, copy(result));
+        }
+        return result;
+    }
 
-                if (result != null && !result.isEmpty()) {
-                    Object resultMap = result.get(0).get("result");
-                    queryResult = (QueryResult<T>) resultMap;
-                    queryResult.setDbTime((int) (System.currentTimeMillis() - start));
+    public <T> QueryResult<T> get(String key) {
+        if (!isActive()) {
+            return null;
+        }
+        for (int i = 0; i < tiers.size(); i++) {
+            QueryResult<T> queryResult = tiers.get(i).get(key);
+            if (queryResult != null) {
+                // Promote to the faster tiers
+                for (int j = 0; j < i; j++) {
+                    tiers.get(j).put(key, queryResult);
                 }
-            } catch (RedisConnectionException e) {
-                redisState = false;
-                queryResult.setWarningMsg("Unable to connect to Redis Cache, Please query WITHOUT Cache (Falling back to Database)");
                 return queryResult;
             }
         }
-        return queryResult;
+        return null;
     }
 
     public void set(String key, Query query, QueryResult queryResult) {
+        if (isActive() && queryResult != null && queryResult.getResult() != null) {
+            if (queryResult.getDbTime() >= cacheConfiguration.getSlowThreshold()
+                    && queryResult.getResult().size() <= cacheConfiguration.getMaxResultSize()) {
+                for (QueryResultCache tier : tiers) {
+                    tier.put(key, queryResult);
+                }
+            }
+        }
+    }
 
-        if (isActive()) {
-            if (queryResult.getDbTime() >= storageConfiguration.getCache().getSlowThreshold()
-                    && queryResult.getResult().size() >= storageConfiguration.getCache().getMaxResultSize()) {
-                RMap<Integer, Map<String, Object>> map = getRedissonClient().getMap(key);
-                Map<String, Object> record = new HashMap<>();
-                record.put("query", query);
-                record.put("result", queryResult);
-                try {
-                    map.fastPut(0, record);
-                } catch (RedisConnectionException e) {
-                    redisState = false;
-                    queryResult.setWarningMsg("Unable to connect to Redis Cache, Please query WITHOUT Cache (Falling back to Database)");
+    /**
+     * Build a canonical key for a query. The order of the params is not relevant, neither the options that do not
+     * change the result, like {@link #CACHE} or {@link QueryOptions#TIMEOUT}. Empty values are considered as missing.
+     *
+     * @param type          Cache type
+     * @param method        Cached method
+     * @param studyTimeStamps   TimeStamp of each study
+     * @param query         Query
+     * @param queryOptions  Query options
+     * @return              Key
+     */
+    public String createKey(String type, String method, Map<Integer, Long> studyTimeStamps, Query query, QueryOptions queryOptions) {
+        SortedMap<String, String> map = new TreeMap<>();
+        if (query != null) {
+            for (String key : query.keySet()) {
+                putCanonical(map, "q." + key, query.get(key));
+            }
+        }
+        if (queryOptions != null) {
+            for (String key : queryOptions.keySet()) {
+                if (!NON_KEY_OPTIONS.contains(key)) {
+                    putCanonical(map, "o." + key, queryOptions.get(key));
                 }
             }
         }
+
+        String sha1 = DigestUtils.sha1Hex(namespace + '|' + getGeneration() + '|' + new TreeMap<>(studyTimeStamps) + '|' + map);
+        return PREFIX_DATABASE_KEY + type + ':' + method + ':' + sha1;
     }
 
-    public String createKey(String studyId, String allowedType, Query query, QueryOptions queryOptions) {
+    private static void putCanonical(Map<String, String> map, String key, Object value) {
+        String str;
+        if (value == null) {
+            return;
+        } else if (value instanceof Collection) {
+            StringJoiner joiner = new StringJoiner(",");
+            for (Object o : (Collection<?>) value) {
+                joiner.add(String.valueOf(o));
+            }
+            str = joiner.toString();
+        } else if (value instanceof Object[]) {
+            str = String.join(",", Arrays.stream((Object[]) value).map(String::valueOf).toArray(String[]::new));
+        } else {
+            str = value.toString();
+        }
+        if (!str.isEmpty()) {
+            map.put(key, str);
+        }
+    }
 
-        queryOptions.remove("cache");
-        queryOptions.remove("sId");
+    private static final class StudyTimeStamps {
+        private final Map<Integer, Long> timeStamps;
+        private final long expiration;
 
-        StringBuilder key = new StringBuilder(PREFIX_DATABASE_KEY);
-        key.append(studyId).append(":").append(allowedType);
-        SortedMap<String, SortedSet<Object>> map = new TreeMap<>();
+        private StudyTimeStamps(Map<Integer, Long> timeStamps, long expiration) {
+            this.timeStamps = timeStamps;
+            this.expiration = expiration;
+        }
+    }
 
-        for (String item : query.keySet()) {
-            map.put(item.toLowerCase(), new TreeSet<>(query.getAsStringList(item)));
+    private Map<Integer, Long> getStudyTimeStamps(StudyConfigurationManager studyConfigurationManager) {
+        if (studyConfigurationManager == null) {
+            return Collections.emptyMap();
         }
+        int metadataTtl = cacheConfiguration.getMetadataTtl();
+        if (metadataTtl <= 0 || namespace.isEmpty()) {
+            return readStudyTimeStamps(studyConfigurationManager);
+        }
+        long now = System.currentTimeMillis();
+        StudyTimeStamps studyTimeStamps = STUDY_TIME_STAMPS.get(namespace);
+        if (studyTimeStamps == null || studyTimeStamps.expiration < now) {
+            studyTimeStamps = new StudyTimeStamps(readStudyTimeStamps(studyConfigurationManager), now + metadataTtl);
+            STUDY_TIME_STAMPS.put(namespace, studyTimeStamps);
+        }
+        return studyTimeStamps.timeStamps;
+    }
 
-        for (String item : queryOptions.keySet()) {
-            map.put(item.toLowerCase(), new TreeSet<>(queryOptions.getAsStringList(item)));
+    private static Map<Integer, Long> readStudyTimeStamps(StudyConfigurationManager studyConfigurationManager) {
+        QueryOptions options = new QueryOptions(StudyConfigurationManager.READ_ONLY, true);
+        Map<Integer, Long> timeStamps = new TreeMap<>();
+        for (Integer studyId : studyConfigurationManager.getStudyIds(options)) {
+            StudyConfiguration studyConfiguration = studyConfigurationManager.getStudyConfiguration(studyId, options).first();
+            Long timeStamp = studyConfiguration == null ? null : studyConfiguration.getTimeStamp();
+            timeStamps.put(studyId, timeStamp == null ? 0L : timeStamp);
+        }
+        return Collections.unmodifiableMap(timeStamps);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R extends QueryResult> R copy(QueryResult<?> queryResult) {
+        // Copy, so the caller can modify the QueryResult and the variants without altering the cached ones
+        List<Object> result = new ArrayList<>(queryResult.getResult().size());
+        for (Object o : queryResult.getResult()) {
+            if (o instanceof Variant) {
+                result.add(new Variant(VariantAvro.newBuilder(((Variant) o).getImpl()).build()));
+            } else {
+                result.add(o);
+            }
+        }
+        QueryResult<Object> copy = new QueryResult<>(queryResult.getId(), queryResult.getDbTime(), queryResult.getNumResults(),
+                queryResult.getNumTotalResults(), queryResult.getWarningMsg(), queryResult.getErrorMsg(), result);
+        if (queryResult instanceof VariantQueryResult) {
+            VariantQueryResult<?> variantQueryResult = (VariantQueryResult<?>) queryResult;
+            copy = new VariantQueryResult<>(copy, variantQueryResult.getSamples())
+                    .setNextToken(variantQueryResult.getNextToken());
         }
+        return (R) copy;
+    }
+
+    private void count(String type, String method, String event) {
+        COUNTERS.computeIfAbsent(type + '.' + method + '.' + event, k -> new LongAdder()).increment();
+    }
 
-        String sha1 = DigestUtils.sha1Hex(map.toString());
-        key.append(":").append(sha1);
+    private long getGeneration() {
+        AtomicLong generation = GENERATIONS.get(namespace);
+        return generation == null ? 0 : generation.get();
+    }
 
-        queryOptions.add("cache", "true");
-        return key.toString();
+    /**
+     * Make unreachable all the entries of this namespace in every CacheManager of the JVM.
+     * Other JVMs sharing the redis tier are not notified.
+     */
+    public void invalidate() {
+        GENERATIONS.computeIfAbsent(namespace, k -> new AtomicLong()).incrementAndGet();
+        STUDY_TIME_STAMPS.remove(namespace);
+    }
+
+    /**
+     * Hit and miss counters by type and method, plus the number of entries in each tier.
+     *
+     * @return Cache statistics
+     */
+    public ObjectMap getStats() {
+        ObjectMap stats = new ObjectMap();
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(COUNTERS).entrySet()) {
+            stats.put(entry.getKey(), entry.getValue().sum());
+        }
+        for (QueryResultCache tier : tiers) {
+            stats.put(tier.getClass().getSimpleName() + ".size", tier.size());
+        }
+        return stats;
     }
 
     public boolean isActive() {
-        return storageConfiguration.getCache().isActive() && redisState;
+        return cacheConfiguration != null && cacheConfiguration.isActive() && !tiers.isEmpty();
     }
 
     public boolean isTypeAllowed(String type) {
@@ -155,27 +316,25 @@ public class CacheManager {
     }
 
     public void clear() {
-        RKeys redisKeys = getRedissonClient().getKeys();
-        redisKeys.deleteByPattern(PREFIX_DATABASE_KEY + "*");
-    }
-
-    public void clear(Pattern pattern) {
-        RKeys redisKeys = getRedissonClient().getKeys();
-        redisKeys.deleteByPattern(pattern.toString());
+        for (QueryResultCache tier : tiers) {
+            tier.invalidateAll();
+        }
     }
 
     public void close() {
-        if (redissonClient != null) {
-            redissonClient.shutdown();
-            redissonClient = null;
+        // The shared memory tier outlives this CacheManager
+        if (redisTier != null) {
+            redisTier.close();
+            redisTier = null;
         }
     }
 
-    private synchronized RedissonClient getRedissonClient() {
-        if (redissonClient == null) {
-            redissonClient = Redisson.create(redissonConfig);
-        }
-        return redissonClient;
+    public String getNamespace() {
+        return namespace;
     }
 
+    @Override
+    public String toString() {
+        return "CacheManager{namespace='" + namespace + "', active=" + isActive() + ", tiers=" + tiers.size() + '}';
+    }
 }
@@ -0,0 +1,140 @@
+package org.opencb.opencga.storage.core.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.opencb.biodata.models.variant.StudyEntry;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.biodata.models.variant.avro.VariantAnnotation;
+import org.opencb.commons.datastore.core.QueryResult;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-JVM cache tier, bounded by the estimated size in bytes of the stored results.
+ *
+ * Eviction follows the W-TinyLFU policy provided by Caffeine, so a burst of one-off queries
+ * does not flush the frequently requested results.
+ *
+ * Created on 18/10/26.
+ */
+public class InMemoryQueryResultCache implements QueryResultCache {
+
+    private static final int QUERY_RESULT_SIZE = 128;
+    private static final int OBJECT_SIZE = 64;
+    private static final int VARIANT_SIZE = 256;
+    private static final int SAMPLE_SIZE = 32;
+    private static final int SAMPLE_FIELD_SIZE = 48;
+    private static final int FILE_SIZE = 256;
+    private static final int ANNOTATION_SIZE = 1024;
+    private static final int CONSEQUENCE_TYPE_SIZE = 512;
+
+    private final Cache<String, QueryResult<?>> cache;
+
+    public InMemoryQueryResultCache(long maxMemory, int ttl) {
+        Caffeine<String, QueryResult<?>> builder = Caffeine.newBuilder()
+                .maximumWeight(maxMemory)
+                .weigher((String key, QueryResult<?> value) -> estimateSize(value));
+        if (ttl > 0) {
+            builder.expireAfterWrite(ttl, TimeUnit.SECONDS);
+        }
+        cache = builder.build();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> QueryResult<T> get(String key) {
+        return (QueryResult<T>) cache.getIfPresent(key);
+    }
+
+    @Override
+    public void put(String key, QueryResult<?> queryResult) {
+        cache.put(key, queryResult);
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    @Override
+    public void close() {
+        cache.invalidateAll();
+        cache.cleanUp();
+    }
+
+    /**
+     * Rough estimation of the heap used by a QueryResult. Only needs to be proportional to the real size.
+     *
+     * @param queryResult   QueryResult to measure
+     * @return              Estimated size in bytes
+     */
+    public static int estimateSize(QueryResult<?> queryResult) {
+        long size = QUERY_RESULT_SIZE;
+        List<?> result = queryResult.getResult();
+        if (result != null) {
+            for (Object o : result) {
+                size += estimateSize(o);
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, size);
+    }
+
+    private static long estimateSize(Object o) {
+        if (o == null) {
+            return 0;
+        } else if (o instanceof CharSequence) {
+            return 40 + 2 * ((CharSequence) o).length();
+        } else if (o instanceof Number || o instanceof Boolean) {
+            return 16;
+        } else if (o instanceof Variant) {
+            return estimateSize((Variant) o);
+        } else if (o instanceof Map) {
+            long size = OBJECT_SIZE;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) o).entrySet()) {
+                size += 32 + estimateSize(entry.getKey()) + estimateSize(entry.getValue());
+            }
+            return size;
+        } else if (o instanceof Collection) {
+            long size = OBJECT_SIZE;
+            for (Object element : (Collection<?>) o) {
+                size += 8 + estimateSize(element);
+            }
+            return size;
+        } else {
+            return OBJECT_SIZE;
+        }
+    }
+
+    private static long estimateSize(Variant variant) {
+        long size = VARIANT_SIZE + estimateSize(variant.getReference()) + estimateSize(variant.getAlternate());
+        if (variant.getStudies() != null) {
+            for (StudyEntry study : variant.getStudies()) {
+                size += OBJECT_SIZE;
+                if (study.getSamplesData() != null) {
+                    int formatSize = study.getFormat() == null ? 1 : study.getFormat().size();
+                    size += (long) study.getSamplesData().size() * (SAMPLE_SIZE + formatSize * SAMPLE_FIELD_SIZE);
+                }
+                if (study.getFiles() != null) {
+                    size += study.getFiles().size() * (long) FILE_SIZE;
+                }
+            }
+        }
+        VariantAnnotation annotation = variant.getAnnotation();
+        if (annotation != null) {
+            size += ANNOTATION_SIZE;
+            if (annotation.getConsequenceTypes() != null) {
+                size += annotation.getConsequenceTypes().size() * (long) CONSEQUENCE_TYPE_SIZE;
+            }
+        }
+        return size;
+    }
+
+}
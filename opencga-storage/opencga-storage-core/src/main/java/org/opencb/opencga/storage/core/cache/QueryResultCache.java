@@ -0,0 +1,46 @@
+package org.opencb.opencga.storage.core.cache;
+
+import org.opencb.commons.datastore.core.QueryResult;
+
+/**
+ * Cache tier used by the {@link CacheManager}. Tiers are queried from the fastest to the slowest one.
+ *
+ * Created on 18/10/26.
+ */
+public interface QueryResultCache {
+
+    /**
+     * Get a cached result.
+     *
+     * @param key   Canonical key, as created by {@link CacheManager#createKey}
+     * @param <T>   Type of the result elements
+     * @return      Cached result, or null if missing
+     */
+    <T> QueryResult<T> get(String key);
+
+    /**
+     * Store a result. The tier may decide not to keep it.
+     *
+     * @param key           Canonical key, as created by {@link CacheManager#createKey}
+     * @param queryResult   Result to store
+     */
+    void put(String key, QueryResult<?> queryResult);
+
+    /**
+     * Discard all the entries of this tier.
+     */
+    void invalidateAll();
+
+    /**
+     * Approximate number of entries in this tier.
+     *
+     * @return Number of entries
+     */
+    long size();
+
+    /**
+     * Release any resource used by this tier.
+     */
+    void close();
+
+}
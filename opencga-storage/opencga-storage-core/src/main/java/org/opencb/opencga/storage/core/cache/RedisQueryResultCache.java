@@ -0,0 +1,135 @@
+package org.opencb.opencga.storage.core.cache;
+
+import org.apache.commons.lang3.StringUtils;
+import org.opencb.commons.datastore.core.QueryResult;
+import org.opencb.opencga.storage.core.config.CacheConfiguration;
+import org.redisson.Config;
+import org.redisson.Redisson;
+import org.redisson.RedissonClient;
+import org.redisson.client.RedisConnectionException;
+import org.redisson.codec.JsonJacksonCodec;
+import org.redisson.codec.KryoCodec;
+import org.redisson.core.RBucket;
+import org.redisson.core.RKeys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache tier backed by a Redis server. Once the server is found unreachable, the tier is disabled.
+ *
+ * Created by wasim on 26/10/16.
+ */
+public class RedisQueryResultCache implements QueryResultCache {
+
+    private final Config redissonConfig;
+    private final int ttl;
+    private RedissonClient redissonClient;
+    private volatile boolean redisState;
+
+    private final Logger logger = LoggerFactory.getLogger(RedisQueryResultCache.class);
+
+    public RedisQueryResultCache(CacheConfiguration cache) {
+        redissonConfig = new Config();
+
+        String host = (StringUtils.isNotEmpty(cache.getHost()))
+                ? cache.getHost()
+                : CacheConfiguration.DEFAULT_HOST;
+        redissonConfig.useSingleServer().setAddress(host);
+
+        String codec = (StringUtils.isNotEmpty(cache.getSerialization()))
+                ? cache.getSerialization()
+                : CacheConfiguration.DEFAULT_SERIALIZATION;
+
+        if (StringUtils.isNotEmpty(cache.getPassword())) {
+            redissonConfig.useSingleServer().setPassword(cache.getPassword());
+        }
+
+        if ("KRYO".equalsIgnoreCase(codec)) {
+            redissonConfig.setCodec(new KryoCodec());
+        } else {
+            redissonConfig.setCodec(new JsonJacksonCodec());
+        }
+        ttl = cache.getTtl();
+        redisState = true;
+    }
+
+    @Override
+    public <T> QueryResult<T> get(String key) {
+        if (!redisState) {
+            return null;
+        }
+        try {
+            RBucket<QueryResult<T>> bucket = getRedissonClient().getBucket(key);
+            return bucket.get();
+        } catch (RedisConnectionException e) {
+            disable(e);
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String key, QueryResult<?> queryResult) {
+        if (!redisState) {
+            return;
+        }
+        try {
+            RBucket<QueryResult<?>> bucket = getRedissonClient().getBucket(key);
+            if (ttl > 0) {
+                bucket.set(queryResult, ttl, TimeUnit.SECONDS);
+            } else {
+                bucket.set(queryResult);
+            }
+        } catch (RedisConnectionException e) {
+            disable(e);
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        if (!redisState) {
+            return;
+        }
+        try {
+            RKeys redisKeys = getRedissonClient().getKeys();
+            redisKeys.deleteByPattern(CacheManager.PREFIX_DATABASE_KEY + "*");
+        } catch (RedisConnectionException e) {
+            disable(e);
+        }
+    }
+
+    @Override
+    public long size() {
+        if (!redisState) {
+            return 0;
+        }
+        try {
+            return getRedissonClient().getKeys().findKeysByPattern(CacheManager.PREFIX_DATABASE_KEY + "*").size();
+        } catch (RedisConnectionException e) {
+            disable(e);
+            return 0;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (redissonClient != null) {
+            redissonClient.shutdown();
+            redissonClient = null;
+        }
+    }
+
+    private void disable(RedisConnectionException e) {
+        logger.warn("Unable to connect to Redis cache. Disabling redis cache tier", e);
+        redisState = false;
+    }
+
+    private synchronized RedissonClient getRedissonClient() {
+        if (redissonClient == null) {
+            redissonClient = Redisson.create(redissonConfig);
+        }
+        return redissonClient;
+    }
+
+}
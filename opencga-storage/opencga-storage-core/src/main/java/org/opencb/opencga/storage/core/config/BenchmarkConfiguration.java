@@ -33,6 +33,17 @@ public class BenchmarkConfiguration {
     private DatabaseCredentials database;
     private int concurrency;
 
+    /** Target queries per second. If not positive, run a closed loop with "concurrency" queries in flight. */
+    private double qps;
+    /** Warm-up time, in seconds. Latencies during the warm-up are discarded. */
+    private int warmUp;
+    /** Measurement time, in seconds. If not positive, run "numRepetitions" times the query mix. */
+    private int duration;
+    /** File with the query mix, one JSON query per line. */
+    private String queryFile;
+    /** Output file for the latency report. The format (csv or json) is taken from the extension. */
+    private String output;
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder("BenchmarkConfiguration{");
@@ -44,6 +55,11 @@ public class BenchmarkConfiguration {
         sb.append(", table='").append(table).append('\'');
         sb.append(", database=").append(database);
         sb.append(", concurrency=").append(concurrency);
+        sb.append(", qps=").append(qps);
+        sb.append(", warmUp=").append(warmUp);
+        sb.append(", duration=").append(duration);
+        sb.append(", queryFile='").append(queryFile).append('\'');
+        sb.append(", output='").append(output).append('\'');
         sb.append('}');
         return sb.toString();
     }
@@ -111,4 +127,44 @@ public class BenchmarkConfiguration {
     public void setConcurrency(int concurrency) {
         this.concurrency = concurrency;
     }
+
+    public double getQps() {
+        return qps;
+    }
+
+    public void setQps(double qps) {
+        this.qps = qps;
+    }
+
+    public int getWarmUp() {
+        return warmUp;
+    }
+
+    public void setWarmUp(int warmUp) {
+        this.warmUp = warmUp;
+    }
+
+    public int getDuration() {
+        return duration;
+    }
+
+    public void setDuration(int duration) {
+        this.duration = duration;
+    }
+
+    public String getQueryFile() {
+        return queryFile;
+    }
+
+    public void setQueryFile(String queryFile) {
+        this.queryFile = queryFile;
+    }
+
+    public String getOutput() {
+        return output;
+    }
+
+    public void setOutput(String output) {
+        this.output = output;
+    }
 }
@@ -24,12 +24,37 @@ public class CacheConfiguration {
      */
     private String allowedTypes;
 
-    public static final boolean DEFAULT_ACTVE = true;
+    /**
+     * Comma separated list of cache tiers, from fastest to slowest. Accepted values are: memory, redis.
+     */
+    private String tiers;
+
+    /**
+     * Maximum estimated size in bytes of the results kept by the in-memory tier.
+     */
+    private long maxMemory;
+
+    /**
+     * Seconds an entry is kept after being written. Non positive values disable the expiration.
+     */
+    private int ttl;
+
+    /**
+     * Milliseconds the timeStamps of the studies, used to build the keys, are reused before being read again.
+     * Non positive values read them for every query.
+     */
+    private int metadataTtl;
+
+    public static final boolean DEFAULT_ACTVE = false;
     public static final String DEFAULT_SERIALIZATION = "json";
     public static final String DEFAULT_ALLOWED_TYPE = "aln,var";
     public static final String DEFAULT_HOST = "localhost:6379";
     public static final String DEFAULT_PASSWORD = "";
     public static final int DEFAULT_MAX_FILE_SIZE = 500;
+    public static final String DEFAULT_TIERS = "memory";
+    public static final long DEFAULT_MAX_MEMORY = 256L * 1024 * 1024;
+    public static final int DEFAULT_TTL = 600;
+    public static final int DEFAULT_METADATA_TTL = 1000;
 
     public CacheConfiguration() {
         this(DEFAULT_HOST, DEFAULT_ACTVE, DEFAULT_SERIALIZATION, 50, DEFAULT_MAX_FILE_SIZE, DEFAULT_PASSWORD,
@@ -45,6 +70,10 @@ public class CacheConfiguration {
         this.maxResultSize = maxFileSize;
         this.password = password;
         this.allowedTypes = allowedTypes;
+        this.tiers = DEFAULT_TIERS;
+        this.maxMemory = DEFAULT_MAX_MEMORY;
+        this.ttl = DEFAULT_TTL;
+        this.metadataTtl = DEFAULT_METADATA_TTL;
     }
 
     @Override
@@ -56,6 +85,10 @@ public class CacheConfiguration {
                 + ", slowThreshold=" + slowThreshold
                 + ", maxResultSize=" + maxResultSize
                 + ", allowedTypes='" + allowedTypes + '\''
+                + ", tiers='" + tiers + '\''
+                + ", maxMemory=" + maxMemory
+                + ", ttl=" + ttl
+                + ", metadataTtl=" + metadataTtl
                 + '}');
         return sb.toString();
     }
@@ -122,4 +155,40 @@ public class CacheConfiguration {
         this.allowedTypes = allowedTypes;
         return this;
     }
+
+    public String getTiers() {
+        return tiers;
+    }
+
+    public CacheConfiguration setTiers(String tiers) {
+        this.tiers = tiers;
+        return this;
+    }
+
+    public long getMaxMemory() {
+        return maxMemory;
+    }
+
+    public CacheConfiguration setMaxMemory(long maxMemory) {
+        this.maxMemory = maxMemory;
+        return this;
+    }
+
+    public int getTtl() {
+        return ttl;
+    }
+
+    public CacheConfiguration setTtl(int ttl) {
+        this.ttl = ttl;
+        return this;
+    }
+
+    public int getMetadataTtl() {
+        return metadataTtl;
+    }
+
+    public CacheConfiguration setMetadataTtl(int metadataTtl) {
+        this.metadataTtl = metadataTtl;
+        return this;
+    }
 }
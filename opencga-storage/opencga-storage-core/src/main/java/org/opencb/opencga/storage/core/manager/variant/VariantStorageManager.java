@@ -42,6 +42,7 @@ import org.opencb.opencga.storage.core.exceptions.StorageEngineException;
 import org.opencb.opencga.storage.core.manager.StorageManager;
 import org.opencb.opencga.storage.core.manager.models.StudyInfo;
 import org.opencb.opencga.storage.core.manager.variant.operations.*;
+import org.opencb.opencga.storage.core.search.SearchManager;
 import org.opencb.opencga.storage.core.variant.adaptors.*;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptor.VariantQueryParams;
 import org.opencb.opencga.storage.core.variant.io.VariantWriterFactory.VariantOutputFormat;
@@ -57,6 +58,16 @@ public class VariantStorageManager extends StorageManager {
     public static final int LIMIT_DEFAULT = 1000;
     public static final int LIMIT_MAX = 5000;
 
+    // Query params that do not filter variants
+    private static final Set<VariantQueryParams> NON_FILTER_PARAMS = EnumSet.of(
+            VariantQueryParams.RETURNED_STUDIES,
+            VariantQueryParams.RETURNED_SAMPLES,
+            VariantQueryParams.RETURNED_FILES,
+            VariantQueryParams.SAMPLES_METADATA,
+            VariantQueryParams.UNKNOWN_GENOTYPE);
+
+    private SearchManager searchManager;
+
     public VariantStorageManager(CatalogManager catalogManager, StorageEngineFactory storageEngineFactory) {
         super(catalogManager, storageEngineFactory);
     }
@@ -253,7 +264,46 @@ public class VariantStorageManager extends StorageManager {
     //TODO: GroupByFieldEnum
     public QueryResult groupBy(String field, Query query, QueryOptions queryOptions, String sessionId)
             throws CatalogException, StorageEngineException, IOException {
-        return (QueryResult) secure(query, queryOptions, sessionId, dbAdaptor -> dbAdaptor.groupBy(query, field, queryOptions));
+        return (QueryResult) secure(query, queryOptions, sessionId, dbAdaptor -> {
+            if (isSearchGroupBy(dbAdaptor, query, field, queryOptions)) {
+                return getSearchManager().groupBy(query, field, queryOptions);
+            } else {
+                return dbAdaptor.groupBy(query, field, queryOptions);
+            }
+        });
+    }
+
+    /**
+     * Check if a groupBy can be answered by the search engine alone.
+     *
+     * The search engine only returns counts, sorted by descending count, and does not index the studies of the variants.
+     * Only count queries without filters, in a database with one single study, are sent to the search engine.
+     *
+     * @param dbAdaptor     DBAdaptor of the database
+     * @param query         Query, with the catalog parameters already parsed
+     * @param field         Field to group by
+     * @param queryOptions  Query options
+     * @return If the search engine can be used
+     */
+    boolean isSearchGroupBy(VariantDBAdaptor dbAdaptor, Query query, String field, QueryOptions queryOptions) {
+        if (queryOptions == null || !queryOptions.getBoolean("count", false) || queryOptions.getInt("order", -1) >= 0
+                || SearchManager.getGroupByField(field) == null || !getSearchManager().isActive()) {
+            return false;
+        }
+        for (VariantQueryParams param : VariantQueryParams.values()) {
+            if (param != VariantQueryParams.STUDIES && !NON_FILTER_PARAMS.contains(param)
+                    && VariantDBAdaptorUtils.isValidParam(query, param)) {
+                return false;
+            }
+        }
+        return dbAdaptor.getStudyConfigurationManager().getStudies(null).size() <= 1;
+    }
+
+    private synchronized SearchManager getSearchManager() {
+        if (searchManager == null) {
+            searchManager = new SearchManager(storageConfiguration);
+        }
+        return searchManager;
     }
 
     public QueryResult rank(Query query, String field, int limit, boolean asc, String sessionId)
@@ -19,7 +19,9 @@ package org.opencb.opencga.storage.core.metadata;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
 
 /**
  * Batch file operation information.
@@ -51,6 +53,8 @@ public class BatchFileOperation {
     private long timestamp;
     private final TreeMap<Date, Status> status = new TreeMap<>(Date::compareTo);
     private Type type = Type.OTHER;
+    // Partitions (e.g. chromosomes) of the operation already finished. Used to resume partitioned operations.
+    private Set<String> completedPartitions = new TreeSet<>();
 
     public BatchFileOperation() {
     }
@@ -115,6 +119,20 @@ public class BatchFileOperation {
         return this;
     }
 
+    public Set<String> getCompletedPartitions() {
+        return completedPartitions;
+    }
+
+    public BatchFileOperation setCompletedPartitions(Set<String> completedPartitions) {
+        this.completedPartitions = completedPartitions == null ? new TreeSet<>() : new TreeSet<>(completedPartitions);
+        return this;
+    }
+
+    public BatchFileOperation addCompletedPartition(String partition) {
+        completedPartitions.add(partition);
+        return this;
+    }
+
     @Override
     public String toString() {
         return "BatchFileOperation{"
@@ -122,6 +140,7 @@ public class BatchFileOperation {
                 + ", fileIds=" + fileIds
                 + ", timestamp=" + timestamp
                 + ", status=" + status
+                + ", completedPartitions=" + completedPartitions
                 + '}';
     }
 }
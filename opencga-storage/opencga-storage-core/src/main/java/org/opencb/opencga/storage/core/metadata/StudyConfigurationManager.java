@@ -37,8 +37,9 @@ public abstract class StudyConfigurationManager implements AutoCloseable {
     public static final String READ_ONLY = "ro";
     protected static Logger logger = LoggerFactory.getLogger(StudyConfigurationManager.class);
 
-    private final Map<String, StudyConfiguration> stringStudyConfigurationMap = new HashMap<>();
-    private final Map<Integer, StudyConfiguration> intStudyConfigurationMap = new HashMap<>();
+    // Shared by concurrent iterators
+    private final Map<String, StudyConfiguration> stringStudyConfigurationMap = Collections.synchronizedMap(new HashMap<>());
+    private final Map<Integer, StudyConfiguration> intStudyConfigurationMap = Collections.synchronizedMap(new HashMap<>());
 
     public interface LockCloseable extends AutoCloseable {
         @Override
@@ -6,27 +6,55 @@ import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.impl.BinaryRequestWriter;
 import org.apache.solr.client.solrj.impl.HttpClientUtil;
 import org.apache.solr.client.solrj.impl.HttpSolrClient;
+import org.apache.solr.client.solrj.response.FacetField;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.client.solrj.response.UpdateResponse;
+import org.apache.solr.common.params.FacetParams;
 import org.opencb.biodata.models.variant.Variant;
+import org.opencb.commons.datastore.core.ObjectMap;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.commons.datastore.core.QueryResult;
+import org.opencb.commons.run.ParallelTaskRunner;
+import org.opencb.opencga.core.common.ProgressLogger;
 import org.opencb.opencga.storage.core.config.SearchConfiguration;
 import org.opencb.opencga.storage.core.config.StorageConfiguration;
+import org.opencb.opencga.storage.core.exceptions.StorageEngineException;
 import org.opencb.opencga.storage.core.search.iterators.SolrVariantSearchIterator;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptor;
+import org.opencb.opencga.storage.core.variant.io.db.VariantDBReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Created by wasim on 09/11/16.
  */
 public class SearchManager {
 
+    public static final String LOAD_BATCH_SIZE = "search.load.batchSize";
+    public static final int LOAD_BATCH_SIZE_DEFAULT = 1000;
+    public static final String LOAD_THREADS = "search.load.numThreads";
+    public static final int LOAD_THREADS_DEFAULT = 4;
+    public static final String LOAD_COMMIT_WITHIN = "search.load.commitWithin";
+    public static final int LOAD_COMMIT_WITHIN_DEFAULT = 60000;
+    public static final String LOAD_MAX_RETRIES = "search.load.maxRetries";
+    public static final int LOAD_MAX_RETRIES_DEFAULT = 3;
+    public static final String LOAD_RETRY_BACKOFF = "search.load.retryBackoff";
+    public static final long LOAD_RETRY_BACKOFF_DEFAULT = 1000;
+    public static final String QUERY_PAGE_SIZE = "search.query.pageSize";
+    public static final int QUERY_PAGE_SIZE_DEFAULT = 1000;
+
     private SearchConfiguration searchConfiguration;
     private static HttpSolrClient solrServer;
     private static VariantSearchFactory variantSearchFactory;
 
+    private final Logger logger = LoggerFactory.getLogger(SearchManager.class);
+
 
     public SearchManager() {
         //TODO remove testing constructor
@@ -66,7 +94,7 @@ public class SearchManager {
                     solrServer.commit();
                 }
             } catch (SolrServerException | IOException e) {
-                e.printStackTrace();
+                logger.error("Error indexing " + variantSearches.size() + " variants", e);
             }
         }
     }
@@ -82,37 +110,184 @@ public class SearchManager {
                     solrServer.commit();
                 }
             } catch (SolrServerException | IOException e) {
-                e.printStackTrace();
+                logger.error("Error indexing variant " + variantSearche.getId(), e);
             }
         }
     }
 
+    /**
+     * Index all the variants from a query.
+     *
+     * Variants are read from the database and converted into VariantSearch documents by several threads, and sent to Solr
+     * in batches. Solr commits the documents within {@link #LOAD_COMMIT_WITHIN} milliseconds, and a single commit is done
+     * at the end. Unlike {@link #insert(List)}, this does not commit each batch.
+     *
+     * @param dbAdaptor Variant DBAdaptor to read the variants from
+     * @param query     Variants to index
+     * @param options   Query options and load options, like {@link #LOAD_BATCH_SIZE} or {@link #LOAD_THREADS}
+     * @return Summary of the load, with the number of indexed and failed variants
+     * @throws StorageEngineException if the search engine is not configured, or there is any error reading or converting the variants
+     */
+    public VariantSearchLoadResult load(VariantDBAdaptor dbAdaptor, Query query, QueryOptions options) throws StorageEngineException {
+        if (solrServer == null) {
+            // Fail before reading any variant, instead of failing every batch
+            throw new StorageEngineException("Unable to index variants. Search engine not configured: missing 'host' or 'collection'"
+                    + " in the 'search' section of the storage configuration");
+        }
+        ObjectMap params = options == null ? new ObjectMap() : options;
+        int batchSize = params.getInt(LOAD_BATCH_SIZE, LOAD_BATCH_SIZE_DEFAULT);
+        int numThreads = params.getInt(LOAD_THREADS, LOAD_THREADS_DEFAULT);
+
+        VariantSearchDataWriter writer = new VariantSearchDataWriter(solrServer,
+                params.getInt(LOAD_COMMIT_WITHIN, LOAD_COMMIT_WITHIN_DEFAULT),
+                params.getInt(LOAD_MAX_RETRIES, LOAD_MAX_RETRIES_DEFAULT),
+                params.getLong(LOAD_RETRY_BACKOFF, LOAD_RETRY_BACKOFF_DEFAULT));
+
+        VariantDBReader reader = new VariantDBReader(dbAdaptor, query, new QueryOptions(params));
+        ProgressLogger progressLogger = new ProgressLogger("Indexed variants in search engine:",
+                () -> dbAdaptor.count(query).first(), 200);
+        ParallelTaskRunner.Task<Variant, VariantSearch> task = batch -> {
+            List<VariantSearch> variantSearches = variantSearchFactory.create(batch);
+            progressLogger.increment(batch.size(), () -> ", up to position " + batch.get(batch.size() - 1).toString());
+            return variantSearches;
+        };
+
+        ParallelTaskRunner.Config config = ParallelTaskRunner.Config.builder()
+                .setNumTasks(numThreads)
+                .setBatchSize(batchSize)
+                .setAbortOnFail(true)
+                .setSorted(false).build();
+
+        long start = System.currentTimeMillis();
+        try {
+            new ParallelTaskRunner<>(reader, task, writer, config).run();
+        } catch (ExecutionException e) {
+            throw new StorageEngineException("Error indexing variants in the search engine", e);
+        }
+
+        VariantSearchLoadResult result = new VariantSearchLoadResult(writer.getNumInserted(), writer.getNumFailed(),
+                writer.getNumRetries(), System.currentTimeMillis() - start);
+        logger.info("Indexed {} variants in the search engine in {}s ({} variants/s). Failed: {}, retries: {}",
+                result.getNumLoadedVariants(), result.getTime() / 1000.0, String.format("%.2f", result.getThroughput()),
+                result.getNumFailedVariants(), result.getNumRetries());
+        return result;
+    }
+
+    /**
+     * Iterate over the variants of a query. Results are read from Solr in pages of {@link #QUERY_PAGE_SIZE} variants,
+     * using a cursor.
+     *
+     * @param query         Query
+     * @param queryOptions  Query options. The limit is the total number of variants to return
+     * @return Variants iterator
+     */
     public SolrVariantSearchIterator iterator(Query query, QueryOptions queryOptions) {
 
         SolrQuery solrQuery = SearchUtil.createSolrQuery(query, queryOptions);
-        QueryResponse response = null;
+        int limit = queryOptions.getInt(QueryOptions.LIMIT, 0);
+        int pageSize = queryOptions.getInt(QUERY_PAGE_SIZE, QUERY_PAGE_SIZE_DEFAULT);
+
+        return new SolrVariantSearchIterator(solrServer, solrQuery, pageSize, limit);
+    }
+
+    public VariantSearchFacet getFacet(Query query, QueryOptions queryOptions) {
+
+        SolrQuery solrQuery = SearchUtil.createSolrQuery(query, queryOptions);
+        // Only the counts are needed
+        solrQuery.setRows(0);
+        QueryResponse response;
 
         try {
             response = solrServer.query(solrQuery);
         } catch (SolrServerException | IOException e) {
-            e.printStackTrace();
+            logger.error("Error querying facets from the search engine", e);
+            throw new RuntimeException(e);
         }
 
-        return new SolrVariantSearchIterator(response.getBeans(VariantSearch.class).iterator());
+        return getFacets(response);
     }
 
-    public VariantSearchFacet getFacet(Query query, QueryOptions queryOptions) {
+    /**
+     * Count the variants by the values of a field with a facet of the search engine.
+     * The result has the same format as {@link VariantDBAdaptor#groupBy} with the "count" option: one map with the "id"
+     * and the "count" of each value, sorted by descending count.
+     *
+     * @param query     Query. Only the filters known by the search engine are applied. See {@link SearchUtil#createSolrQuery}
+     * @param field     Field to group by, as in {@link VariantDBAdaptor#groupBy}. See {@link #getGroupByField}
+     * @param options   Query options. Accepted values are skip and limit
+     * @return Count of variants for each value of the field
+     */
+    public QueryResult<ObjectMap> groupBy(Query query, String field, QueryOptions options) {
+        String solrField = getGroupByField(field);
+        if (solrField == null) {
+            throw new IllegalArgumentException("Unable to group by '" + field + "' with the search engine");
+        }
+        long start = System.currentTimeMillis();
+        int skip = Math.max(0, options.getInt(QueryOptions.SKIP, 0));
+        int limit = options.getInt(QueryOptions.LIMIT, -1) > 0 ? options.getInt(QueryOptions.LIMIT) : 10;
 
-        SolrQuery solrQuery = SearchUtil.createSolrQuery(query, queryOptions);
-        QueryResponse response = null;
+        SolrQuery solrQuery = SearchUtil.createSolrQuery(query, new QueryOptions());
+        if (solrQuery.getQuery() == null || solrQuery.getQuery().isEmpty()) {
+            solrQuery.setQuery("*:*");
+        }
+        solrQuery.setRows(0);
+        solrQuery.addFacetField(solrField);
+        solrQuery.setFacetMinCount(1);
+        solrQuery.setFacetLimit(skip + limit);
+        solrQuery.setFacetSort(FacetParams.FACET_SORT_COUNT);
 
+        QueryResponse response;
         try {
             response = solrServer.query(solrQuery);
         } catch (SolrServerException | IOException e) {
-            e.printStackTrace();
+            logger.error("Error querying facets from the search engine", e);
+            throw new RuntimeException(e);
         }
 
-        return getFacets(response);
+        List<ObjectMap> groups = new ArrayList<>(limit);
+        FacetField facetField = response.getFacetField(solrField);
+        if (facetField != null && facetField.getValues() != null) {
+            facetField.getValues().stream()
+                    .skip(skip)
+                    .limit(limit)
+                    .forEach(count -> groups.add(new ObjectMap("id", count.getName()).append("count", count.getCount())));
+        }
+        return new QueryResult<>("groupBy", (int) (System.currentTimeMillis() - start), groups.size(), groups.size(), "", "", groups);
+    }
+
+    /**
+     * Field of the search engine with the values of a {@link VariantDBAdaptor#groupBy} field.
+     * As in the VariantDBAdaptor, any unknown field groups by gene name.
+     *
+     * @param field Field to group by
+     * @return Field of the search engine, or null if the search engine does not index it
+     */
+    public static String getGroupByField(String field) {
+        switch (field) {
+            case "chromosome":
+                return SearchUtil.VariantSolrFields.chromosome.name();
+            case "type":
+                return SearchUtil.VariantSolrFields.type.name();
+            case "gene":
+            case "ensemblGene":
+            case "ensemblTranscript":
+            case "ct":
+            case "consequence_type":
+            case "biotype":
+                // Not indexed
+                return null;
+            default:
+                return SearchUtil.VariantSolrFields.genes.name();
+        }
+    }
+
+    /**
+     * Check if the search engine is configured and active.
+     *
+     * @return true if the variants can be read from the search engine
+     */
+    public boolean isActive() {
+        return solrServer != null && searchConfiguration != null && searchConfiguration.getActive();
     }
 
     private VariantSearchFacet getFacets(QueryResponse response) {
@@ -131,6 +306,9 @@ public class SearchManager {
         if (response.getIntervalFacets() != null) {
             variantSearchFacet.setFacetIntervales(response.getIntervalFacets());
         }
+        if (response.getFacetPivot() != null) {
+            variantSearchFacet.setFacetPivots(response.getFacetPivot());
+        }
 
         return variantSearchFacet;
     }
@@ -89,16 +89,41 @@ public class SearchUtil {
             solrQuery.setFacetPrefix(query.get("facet.prefix").toString());
         }
 
-        //Facet Ranges
-        if (query.containsKey("facet.range")) {
+        if (query.containsKey("facet.limit")) {
+            solrQuery.setFacetLimit(query.getInt("facet.limit"));
+        }
 
-            Map<String, Map<String, Number>> rangeFields = (Map<String, Map<String, Number>>) query.get("facet.range");
+        if (query.containsKey("facet.mincount")) {
+            solrQuery.setFacetMinCount(query.getInt("facet.mincount"));
+        }
+
+        // Facet pivots, to count by several fields. e.g. "chromosome,type;genes,type"
+        if (query.containsKey("facet.pivot")) {
+            for (String pivot : query.getString("facet.pivot").split(";")) {
+                solrQuery.addFacetPivotField(pivot);
+            }
+        }
 
-            for (String key : rangeFields.keySet()) {
-                Number rangeStart = rangeFields.get(key).get("facet.range.start");
-                Number rangeEnd = rangeFields.get(key).get("facet.range.end");
-                Number rangeGap = rangeFields.get(key).get("facet.range.gap");
-                solrQuery.addNumericRangeFacet(key, rangeStart, rangeEnd, rangeGap);
+        //Facet Ranges
+        if (query.containsKey("facet.range")) {
+            if (query.get("facet.range") instanceof Map) {
+                Map<String, Map<String, Number>> rangeFields = (Map<String, Map<String, Number>>) query.get("facet.range");
+
+                for (String key : rangeFields.keySet()) {
+                    Number rangeStart = rangeFields.get(key).get("facet.range.start");
+                    Number rangeEnd = rangeFields.get(key).get("facet.range.end");
+                    Number rangeGap = rangeFields.get(key).get("facet.range.gap");
+                    solrQuery.addNumericRangeFacet(key, rangeStart, rangeEnd, rangeGap);
+                }
+            } else {
+                // Ranges as strings, e.g. "start:1:1000000:10000;caddScaled:0:40:5"
+                for (String range : query.getString("facet.range").split(";")) {
+                    String[] split = range.split(":");
+                    if (split.length != 4) {
+                        throw new IllegalArgumentException("Wrong facet range '" + range + "'. Expected {field}:{start}:{end}:{gap}");
+                    }
+                    solrQuery.addNumericRangeFacet(split[0], parseNumber(split[1]), parseNumber(split[2]), parseNumber(split[3]));
+                }
             }
         }
 
@@ -106,6 +131,14 @@ public class SearchUtil {
         return solrQuery;
     }
 
+    private static Number parseNumber(String value) {
+        if (value.contains(".")) {
+            return Double.valueOf(value);
+        } else {
+            return Long.valueOf(value);
+        }
+    }
+
     private static SolrQuery.ORDER getSortOrder(QueryOptions queryOptions) {
 
         return queryOptions.getString(QueryOptions.ORDER).equals(QueryOptions.ASCENDING) ? SolrQuery.ORDER.asc : SolrQuery.ORDER.desc;
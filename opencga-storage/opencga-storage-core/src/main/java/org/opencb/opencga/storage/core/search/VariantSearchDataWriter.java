@@ -0,0 +1,123 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.core.search;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.response.UpdateResponse;
+import org.opencb.commons.io.DataWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends batches of VariantSearch documents to Solr.
+ *
+ * Documents are not committed after each batch. Solr makes them visible within "commitWithin" milliseconds, and a
+ * single commit is done at the end of the load. Failed batches are retried with exponential backoff. If a batch fails
+ * after all the retries, its documents are counted as failed and the load continues.
+ *
+ * Created on 18/10/26.
+ */
+public class VariantSearchDataWriter implements DataWriter<VariantSearch> {
+
+    private final SolrClient solrClient;
+    private final int commitWithin;
+    private final int maxRetries;
+    private final long retryBackoff;
+
+    private final LongAdder numInserted = new LongAdder();
+    private final LongAdder numFailed = new LongAdder();
+    private final LongAdder numRetries = new LongAdder();
+
+    private final Logger logger = LoggerFactory.getLogger(VariantSearchDataWriter.class);
+
+    /**
+     * Create a writer for the given client. The client is not closed by this writer.
+     *
+     * @param solrClient    Solr client. Required
+     * @param commitWithin  Max time in milliseconds before the documents are committed. Non positive to wait for the final commit
+     * @param maxRetries    Number of retries for each failed batch
+     * @param retryBackoff  Time to wait in milliseconds before the first retry. It is doubled on each retry
+     */
+    public VariantSearchDataWriter(SolrClient solrClient, int commitWithin, int maxRetries, long retryBackoff) {
+        this.solrClient = Objects.requireNonNull(solrClient, "Missing Solr client. Is the search engine configured?");
+        this.commitWithin = commitWithin;
+        this.maxRetries = Math.max(0, maxRetries);
+        this.retryBackoff = retryBackoff;
+    }
+
+    @Override
+    public boolean write(List<VariantSearch> batch) {
+        if (batch.isEmpty()) {
+            return true;
+        }
+        long backoff = retryBackoff;
+        for (int attempt = 0; attempt <= maxRetries; attempt++) {
+            try {
+                UpdateResponse response = solrClient.addBeans(batch, commitWithin);
+                if (response.getStatus() == 0) {
+                    numInserted.add(batch.size());
+                    return true;
+                }
+                logger.warn("Error indexing {} variants. Solr status: {}", batch.size(), response.getStatus());
+            } catch (SolrServerException | IOException | RuntimeException e) {
+                logger.warn("Error indexing {} variants: {}", batch.size(), e.getMessage());
+            }
+            if (attempt < maxRetries) {
+                numRetries.increment();
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                backoff *= 2;
+            }
+        }
+        logger.error("Unable to index {} variants, from {} to {}", batch.size(), batch.get(0).getId(),
+                batch.get(batch.size() - 1).getId());
+        numFailed.add(batch.size());
+        return true;
+    }
+
+    @Override
+    public boolean post() {
+        try {
+            solrClient.commit();
+        } catch (SolrServerException | IOException e) {
+            throw new RuntimeException(e);
+        }
+        return true;
+    }
+
+    public long getNumInserted() {
+        return numInserted.sum();
+    }
+
+    public long getNumFailed() {
+        return numFailed.sum();
+    }
+
+    public long getNumRetries() {
+        return numRetries.sum();
+    }
+}
@@ -2,7 +2,9 @@ package org.opencb.opencga.storage.core.search;
 
 import org.apache.solr.client.solrj.response.FacetField;
 import org.apache.solr.client.solrj.response.IntervalFacet;
+import org.apache.solr.client.solrj.response.PivotField;
 import org.apache.solr.client.solrj.response.RangeFacet;
+import org.apache.solr.common.util.NamedList;
 
 import java.util.List;
 import java.util.Map;
@@ -16,6 +18,7 @@ public class VariantSearchFacet {
     private List<RangeFacet> facetRanges;
     private List<IntervalFacet> facetIntervales;
     private Map<String, Integer> facetQueries;
+    private NamedList<List<PivotField>> facetPivots;
 
     public VariantSearchFacet() {
     }
@@ -62,6 +65,15 @@ public class VariantSearchFacet {
         return this;
     }
 
+    public NamedList<List<PivotField>> getFacetPivots() {
+        return facetPivots;
+    }
+
+    public VariantSearchFacet setFacetPivots(NamedList<List<PivotField>> facetPivots) {
+        this.facetPivots = facetPivots;
+        return this;
+    }
+
     @Override
     public String toString() {
         return "VariantSearchFacet{"
@@ -69,6 +81,7 @@ public class VariantSearchFacet {
                 + ", facetRanges=" + facetRanges
                 + ", facetIntervales=" + facetIntervales
                 + ", facetQueries=" + facetQueries
+                + ", facetPivots=" + facetPivots
                 + '}';
     }
 }
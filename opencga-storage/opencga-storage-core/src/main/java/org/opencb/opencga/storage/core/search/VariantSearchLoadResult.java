@@ -0,0 +1,78 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.core.search;
+
+/**
+ * Summary of a load into the search engine.
+ *
+ * Created on 18/10/26.
+ */
+public class VariantSearchLoadResult {
+
+    private final long numLoadedVariants;
+    private final long numFailedVariants;
+    private final long numRetries;
+    private final long time;
+
+    public VariantSearchLoadResult(long numLoadedVariants, long numFailedVariants, long numRetries, long time) {
+        this.numLoadedVariants = numLoadedVariants;
+        this.numFailedVariants = numFailedVariants;
+        this.numRetries = numRetries;
+        this.time = time;
+    }
+
+    public long getNumLoadedVariants() {
+        return numLoadedVariants;
+    }
+
+    public long getNumFailedVariants() {
+        return numFailedVariants;
+    }
+
+    public long getNumRetries() {
+        return numRetries;
+    }
+
+    /**
+     * Wall time of the load.
+     *
+     * @return Load time in milliseconds
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Throughput of the load.
+     *
+     * @return Loaded variants per second
+     */
+    public double getThroughput() {
+        return time > 0 ? numLoadedVariants * 1000.0 / time : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "VariantSearchLoadResult{"
+                + "numLoadedVariants=" + numLoadedVariants
+                + ", numFailedVariants=" + numFailedVariants
+                + ", numRetries=" + numRetries
+                + ", time=" + time
+                + ", throughput=" + String.format("%.2f", getThroughput())
+                + '}';
+    }
+}
@@ -1,31 +1,145 @@
 package org.opencb.opencga.storage.core.search.iterators;
 
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.params.CursorMarkParams;
 import org.opencb.opencga.storage.core.search.VariantSearch;
 
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
+ * Reads the results page by page using the Solr cursorMark, so large result sets are not materialised in one response.
+ * The next page is requested in background while the current one is consumed.
+ *
  * Created by wasim on 14/11/16.
  */
 public class SolrVariantSearchIterator extends VariantSearchIterator {
 
+    private static final String ID_FIELD = "id";
+
     private Iterator<VariantSearch> solrIterator;
 
+    private final SolrClient solrClient;
+    private final SolrQuery solrQuery;
+    private final int pageSize;
+    private final int limit;
+    private final ExecutorService executor;
+    private Future<QueryResponse> nextPage;
+    private String cursorMark;
+    private boolean lastPage;
+    private int numReturned = 0;
+
     public SolrVariantSearchIterator(Iterator<VariantSearch> solrIterator) {
         this.solrIterator = solrIterator;
+        this.solrClient = null;
+        this.solrQuery = null;
+        this.pageSize = 0;
+        this.limit = Integer.MAX_VALUE;
+        this.executor = null;
+        this.lastPage = true;
+    }
+
+    /**
+     * Iterate over all the results of a query, using a cursor.
+     *
+     * @param solrClient    Solr client
+     * @param solrQuery     Query. The unique key is added to the sort, as required by the cursor
+     * @param pageSize      Number of variants to fetch on each request
+     * @param limit         Max number of variants to return. Non positive for no limit
+     */
+    public SolrVariantSearchIterator(SolrClient solrClient, SolrQuery solrQuery, int pageSize, int limit) {
+        this.solrIterator = Collections.emptyIterator();
+        this.solrClient = solrClient;
+        this.solrQuery = solrQuery.getCopy();
+        this.limit = limit > 0 ? limit : Integer.MAX_VALUE;
+        this.pageSize = Math.max(1, Math.min(pageSize, this.limit));
+        this.solrQuery.setStart(null);
+        this.solrQuery.setRows(this.pageSize);
+        boolean sortedById = false;
+        for (SolrQuery.SortClause sortClause : this.solrQuery.getSorts()) {
+            sortedById |= sortClause.getItem().equals(ID_FIELD);
+        }
+        if (!sortedById) {
+            this.solrQuery.addSort(ID_FIELD, SolrQuery.ORDER.asc);
+        }
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "solr-cursor");
+            t.setDaemon(true);
+            return t;
+        });
+        this.lastPage = false;
+        this.cursorMark = CursorMarkParams.CURSOR_MARK_START;
+        fetchNextPage();
+    }
+
+    private void fetchNextPage() {
+        SolrQuery query = solrQuery.getCopy();
+        query.set(CursorMarkParams.CURSOR_MARK_PARAM, cursorMark);
+        nextPage = executor.submit(() -> solrClient.query(query));
+    }
+
+    private boolean readNextPage() {
+        if (lastPage || numReturned >= limit) {
+            return false;
+        }
+        QueryResponse response;
+        try {
+            response = nextPage.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error reading variants from the search engine", e.getCause());
+        }
+        List<VariantSearch> variants = response.getBeans(VariantSearch.class);
+        String nextCursorMark = response.getNextCursorMark();
+        if (nextCursorMark == null || nextCursorMark.equals(cursorMark) || variants.size() < pageSize
+                || numReturned + variants.size() >= limit) {
+            lastPage = true;
+            executor.shutdown();
+        } else {
+            // Prefetch the next page while this one is consumed
+            cursorMark = nextCursorMark;
+            fetchNextPage();
+        }
+        solrIterator = variants.iterator();
+        return true;
     }
 
     @Override
     public void close() throws Exception {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
     }
 
     @Override
     public boolean hasNext() {
-        return solrIterator.hasNext();
+        if (numReturned >= limit) {
+            return false;
+        }
+        while (!solrIterator.hasNext()) {
+            if (!readNextPage()) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
     public VariantSearch next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        numReturned++;
         return solrIterator.next();
     }
 }
@@ -32,8 +32,9 @@ import org.opencb.opencga.storage.core.metadata.ExportMetadata;
 import org.opencb.opencga.storage.core.metadata.FileStudyConfigurationManager;
 import org.opencb.opencga.storage.core.metadata.StudyConfiguration;
 import org.opencb.opencga.storage.core.metadata.StudyConfigurationManager;
+import org.opencb.opencga.storage.core.search.SearchManager;
+import org.opencb.opencga.storage.core.search.VariantSearchLoadResult;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptor;
-import org.opencb.opencga.storage.core.variant.adaptors.VariantDBIterator;
 import org.opencb.opencga.storage.core.variant.annotation.DefaultVariantAnnotationManager;
 import org.opencb.opencga.storage.core.variant.annotation.VariantAnnotationManager;
 import org.opencb.opencga.storage.core.variant.annotation.VariantAnnotatorException;
@@ -103,6 +104,9 @@ public abstract class VariantStorageEngine extends StorageEngine<VariantDBAdapto
 
         RESUME("resume", false),
 
+        EXPORT_THREADS("export.threads", 1),               //Number of chromosomes exported concurrently. See VariantExporter
+        EXPORT_INDEX("export.index", false),               //Create a tabix index for the exported VCF_GZ files
+
         DEFAULT_TIMEOUT("dbadaptor.default_timeout", 10000), // Default timeout for DBAdaptor operations. Only used if none is provided.
         MAX_TIMEOUT("dbadaptor.max_timeout", 30000);         // Max allowed timeout for DBAdaptor operations
 
@@ -498,13 +502,27 @@ public abstract class VariantStorageEngine extends StorageEngine<VariantDBAdapto
         return VariantStoragePipeline.buildFilename(studyName, fileId);
     }
 
-    public void insertVariantIntoSolr() throws StorageEngineException {
-
-        VariantDBAdaptor dbAdaptor = getDBAdaptor();
-        VariantDBIterator variantDBIterator = dbAdaptor.iterator();
+    public void insertVariantIntoSolr() throws StorageEngineException, IOException {
+        insertVariantIntoSolr("", new Query(), new QueryOptions());
+    }
 
-        while (variantDBIterator.hasNext()) {
-            searchManager.insert(variantDBIterator.next());
+    /**
+     * Index variants into the search engine.
+     *
+     * @param dbName    Database name
+     * @param query     Variants to index
+     * @param options   Query and load options. See {@link SearchManager#load}
+     * @return Summary of the load
+     * @throws StorageEngineException if there is any error reading the variants
+     * @throws IOException if there is any error closing the DBAdaptor
+     */
+    public VariantSearchLoadResult insertVariantIntoSolr(String dbName, Query query, QueryOptions options)
+            throws StorageEngineException, IOException {
+        if (searchManager == null) {
+            searchManager = new SearchManager(configuration);
+        }
+        try (VariantDBAdaptor dbAdaptor = getDBAdaptor(dbName)) {
+            return searchManager.load(dbAdaptor, query, options);
         }
     }
 
@@ -27,13 +27,13 @@ import org.opencb.commons.datastore.core.QueryParam;
 import org.opencb.commons.datastore.core.QueryResult;
 import org.opencb.commons.io.DataWriter;
 import org.opencb.opencga.core.results.VariantQueryResult;
+import org.opencb.opencga.storage.core.cache.CacheManager;
 import org.opencb.opencga.storage.core.metadata.StudyConfiguration;
 import org.opencb.opencga.storage.core.metadata.StudyConfigurationManager;
 import org.opencb.opencga.storage.core.variant.stats.VariantStatsWrapper;
 
 import java.io.IOException;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.function.Consumer;
 
 import static org.opencb.commons.datastore.core.QueryParam.Type.*;
@@ -95,6 +95,9 @@ public interface VariantDBAdaptor extends Iterable<Variant>, AutoCloseable {
 
     String UNKNOWN_GENOTYPE_DESCR = "Returned genotype for unknown genotypes. Common values: [0/0, 0|0, ./.]";
 
+    String ID_BATCH_SIZE = "idBatchSize";
+    int DEFAULT_ID_BATCH_SIZE = 1000;
+
     enum VariantQueryParams implements QueryParam {
         ID("ids", TEXT_ARRAY, ID_DESCR),
         REGION("region", TEXT_ARRAY, REGION_DESCR),
@@ -254,6 +257,114 @@ public interface VariantDBAdaptor extends Iterable<Variant>, AutoCloseable {
      */
     List<VariantQueryResult<Variant>> get(List<Query> queries, QueryOptions options);
 
+    /**
+     * Fetch a list of variants by id, executing one single query for each batch of {@link #ID_BATCH_SIZE} ids.
+     * Variants are returned in the same order as the given ids. Missing variants are skipped.
+     *
+     * @param ids     Variant ids, as "chr:pos:ref:alt" or accession ids like "rs123"
+     * @param query   Additional filters, e.g. {@link VariantQueryParams#RETURNED_STUDIES}. May be null
+     * @param options Query modifiers, accepted values are: include, exclude and {@link #ID_BATCH_SIZE}
+     * @return A QueryResult with the variants found
+     */
+    default VariantQueryResult<Variant> getByIds(List<String> ids, Query query, QueryOptions options) {
+        QueryOptions batchOptions = options == null ? new QueryOptions() : new QueryOptions(options);
+        int batchSize = batchOptions.getInt(ID_BATCH_SIZE, DEFAULT_ID_BATCH_SIZE);
+        if (batchSize <= 0) {
+            batchSize = DEFAULT_ID_BATCH_SIZE;
+        }
+        batchOptions.remove(ID_BATCH_SIZE);
+        batchOptions.remove(QueryOptions.LIMIT);
+        batchOptions.remove(QueryOptions.SKIP);
+        batchOptions.put(QueryOptions.SKIP_COUNT, true);
+        // Point lookups are unlikely to be repeated. Do not fill the cache with them.
+        batchOptions.put(CacheManager.CACHE, false);
+
+        Map<String, Variant> variantsMap = new HashMap<>();
+        Map<String, List<String>> samples = null;
+        int dbTime = 0;
+        for (int i = 0; i < ids.size(); i += batchSize) {
+            Query batchQuery = query == null ? new Query() : new Query(query);
+            batchQuery.put(VariantQueryParams.ID.key(), new ArrayList<>(ids.subList(i, Math.min(ids.size(), i + batchSize))));
+            VariantQueryResult<Variant> batchResult = get(batchQuery, batchOptions);
+            dbTime += batchResult.getDbTime();
+            samples = batchResult.getSamples();
+            for (Variant variant : batchResult.getResult()) {
+                variantsMap.put(variant.toString(), variant);
+                if (variant.getIds() != null) {
+                    for (String id : variant.getIds()) {
+                        variantsMap.putIfAbsent(id, variant);
+                    }
+                }
+            }
+        }
+
+        List<Variant> variants = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Variant variant = VariantDBAdaptorUtils.toVariant(id);
+            Variant found = variantsMap.get(variant == null ? id : variant.toString());
+            if (found != null) {
+                variants.add(found);
+            }
+        }
+        return new VariantQueryResult<>("getByIds", dbTime, variants.size(), variants.size(), "", "", variants, samples);
+    }
+
+    /**
+     * Fetch the variants of a list of regions, executing one single query for each batch of {@link #ID_BATCH_SIZE} regions.
+     * Returns one result per region, in the same order as the given regions. A variant overlapping several of the
+     * given regions is returned in all of them.
+     *
+     * @param regions Regions to fetch
+     * @param query   Additional filters, e.g. {@link VariantQueryParams#RETURNED_STUDIES}. May be null
+     * @param options Query modifiers, accepted values are: include, exclude and {@link #ID_BATCH_SIZE}
+     * @return A list of QueryResult with the variants of each region
+     */
+    default List<VariantQueryResult<Variant>> getByRegions(List<Region> regions, Query query, QueryOptions options) {
+        QueryOptions batchOptions = options == null ? new QueryOptions() : new QueryOptions(options);
+        int batchSize = batchOptions.getInt(ID_BATCH_SIZE, DEFAULT_ID_BATCH_SIZE);
+        if (batchSize <= 0) {
+            batchSize = DEFAULT_ID_BATCH_SIZE;
+        }
+        batchOptions.remove(ID_BATCH_SIZE);
+        batchOptions.remove(QueryOptions.LIMIT);
+        batchOptions.remove(QueryOptions.SKIP);
+        batchOptions.put(QueryOptions.SKIP_COUNT, true);
+        batchOptions.put(CacheManager.CACHE, false);
+
+        List<VariantQueryResult<Variant>> results = new ArrayList<>(regions.size());
+        for (int i = 0; i < regions.size(); i += batchSize) {
+            List<Region> batch = regions.subList(i, Math.min(regions.size(), i + batchSize));
+            List<String> batchRegions = new ArrayList<>(batch.size());
+            List<List<Variant>> batchVariants = new ArrayList<>(batch.size());
+            Map<String, List<Integer>> regionsByChromosome = new HashMap<>();
+            for (int r = 0; r < batch.size(); r++) {
+                Region region = batch.get(r);
+                batchRegions.add(region.toString());
+                batchVariants.add(new ArrayList<>());
+                regionsByChromosome.computeIfAbsent(region.getChromosome(), key -> new ArrayList<>()).add(r);
+            }
+            Query batchQuery = query == null ? new Query() : new Query(query);
+            batchQuery.put(VariantQueryParams.REGION.key(), batchRegions);
+            VariantQueryResult<Variant> batchResult = get(batchQuery, batchOptions);
+
+            // Split the result back into the regions overlapping each variant
+            for (Variant variant : batchResult.getResult()) {
+                for (Integer r : regionsByChromosome.getOrDefault(variant.getChromosome(), Collections.emptyList())) {
+                    Region region = batch.get(r);
+                    if (variant.getEnd() >= region.getStart() && variant.getStart() <= region.getEnd()) {
+                        batchVariants.get(r).add(variant);
+                    }
+                }
+            }
+            for (int r = 0; r < batch.size(); r++) {
+                List<Variant> variants = batchVariants.get(r);
+                results.add(new VariantQueryResult<>(batchRegions.get(r), batchResult.getDbTime(), variants.size(), variants.size(),
+                        "", "", variants, batchResult.getSamples()));
+            }
+        }
+        return results;
+    }
+
     /**
      * Return all the variants in the same phase set for a given sample in a given variant.
      *
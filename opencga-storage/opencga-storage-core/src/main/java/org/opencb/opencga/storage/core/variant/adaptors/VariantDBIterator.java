@@ -33,6 +33,7 @@ public abstract class VariantDBIterator implements Iterator<Variant>, AutoClosea
     protected long timeFetching = 0;
     protected long timeConverting = 0;
     private List<AutoCloseable> closeables = new ArrayList<>();
+    private String queryHash = null;
 
     public void addCloseable(AutoCloseable closeable) {
         this.closeables.add(closeable);
@@ -62,6 +63,20 @@ public abstract class VariantDBIterator implements Iterator<Variant>, AutoClosea
         this.timeConverting = timeConverting;
     }
 
+    /**
+     * Hash of the query, only if the variants are sorted and can be paginated with {@link VariantQueryToken}.
+     *
+     * @return Query hash, or null
+     */
+    public String getQueryHash() {
+        return queryHash;
+    }
+
+    public VariantDBIterator setQueryHash(String queryHash) {
+        this.queryHash = queryHash;
+        return this;
+    }
+
     protected interface TimeFunction<R, E extends Exception> {
         R call() throws E;
     }
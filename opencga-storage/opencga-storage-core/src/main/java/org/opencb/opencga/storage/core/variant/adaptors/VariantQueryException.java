@@ -113,6 +113,10 @@ public class VariantQueryException extends IllegalArgumentException {
         return new VariantQueryException("Sample " + sample + " not found in study " + study);
     }
 
+    public static VariantQueryException malformedToken(String token, String message) {
+        return new VariantQueryException("Malformed token \"" + token + "\". " + message);
+    }
+
     public static VariantQueryException unknownVariantField(String projectionOp, String field) {
         return new VariantQueryException("Found unknown variant field '" + field + "' in " + projectionOp.toLowerCase());
     }
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.core.variant.adaptors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.commons.datastore.core.Query;
+import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.opencga.core.results.VariantQueryResult;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Continuation tokens for keyset pagination.
+ *
+ * A token contains the last returned variant and a hash of the query. The next page is read with a range filter over the
+ * variant key (chromosome, position, reference, alternate), so the cost of any page is the same as the first one.
+ *
+ * Tokens are only generated for results sorted by the variant key in ascending order.
+ *
+ * Created on 18/10/26.
+ */
+public final class VariantQueryToken {
+
+    /** QueryOptions key with the token from the previous page. */
+    public static final String TOKEN = "token";
+
+    private static final String VERSION = "1";
+    private static final String SEPARATOR = "\t";
+
+    private VariantQueryToken() {
+    }
+
+    /**
+     * Hash of the query. Tokens are only valid for the query that generated them.
+     *
+     * @param query Query
+     * @return Hexadecimal hash
+     */
+    public static String getQueryHash(Query query) {
+        StringBuilder sb = new StringBuilder();
+        if (query != null) {
+            // Sort keys, so the hash does not depend on the order of the params
+            for (Map.Entry<String, Object> entry : new TreeMap<>(query).entrySet()) {
+                if (entry.getValue() != null && StringUtils.isNotEmpty(query.getString(entry.getKey()))) {
+                    sb.append(entry.getKey()).append('=').append(query.getString(entry.getKey())).append(';');
+                }
+            }
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hash = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                hash.append(String.format("%02x", digest[i]));
+            }
+            return hash.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Build the token to read the variants after the given one.
+     *
+     * @param queryHash     Hash of the query, from {@link #getQueryHash}
+     * @param lastVariant   Last returned variant
+     * @return Opaque token
+     */
+    public static String encode(String queryHash, Variant lastVariant) {
+        String token = String.join(SEPARATOR, VERSION, queryHash, lastVariant.getChromosome(), lastVariant.getStart().toString(),
+                lastVariant.getReference(), lastVariant.getAlternate());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Read the last variant from a token.
+     *
+     * @param token     Token from a previous page
+     * @param queryHash Hash of the current query
+     * @return Last variant of the previous page
+     * @throws VariantQueryException if the token is malformed or was generated for a different query
+     */
+    public static Variant decode(String token, String queryHash) {
+        // Tokens come from the client, and the hash does not sign them. Validate the content before using it.
+        String[] split;
+        try {
+            split = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(SEPARATOR, -1);
+        } catch (IllegalArgumentException e) {
+            throw VariantQueryException.malformedToken(token, "Not a valid token");
+        }
+        if (split.length != 6 || !split[0].equals(VERSION)) {
+            throw VariantQueryException.malformedToken(token, "Not a valid token");
+        }
+        if (!split[1].equals(queryHash)) {
+            throw VariantQueryException.malformedToken(token, "The token was generated for a different query");
+        }
+        // Chromosome, reference and alternate are used in the query filters
+        for (int i = 2; i < split.length; i++) {
+            if (StringUtils.containsAny(split[i], '\'', '\\')) {
+                throw VariantQueryException.malformedToken(token, "Not a valid token");
+            }
+        }
+        try {
+            return new Variant(split[2], Integer.parseInt(split[3]), split[4], split[5]);
+        } catch (RuntimeException e) {
+            throw VariantQueryException.malformedToken(token, "Not a valid token");
+        }
+    }
+
+    /**
+     * Get the last variant of the previous page, if any token is given in the options.
+     *
+     * @param queryHash Hash of the current query
+     * @param options   Query options
+     * @return Last variant of the previous page, or null if there is no token
+     * @throws VariantQueryException if the token is not valid
+     */
+    public static Variant getLastVariant(String queryHash, QueryOptions options) {
+        if (options == null || StringUtils.isEmpty(options.getString(TOKEN))) {
+            return null;
+        }
+        if (!isSortedAscending(options)) {
+            throw VariantQueryException.malformedToken(options.getString(TOKEN), "Tokens require ascending order");
+        }
+        return decode(options.getString(TOKEN), queryHash);
+    }
+
+    /**
+     * Add the token for the next page, if the page is full and sorted by the variant key in ascending order.
+     *
+     * @param result    Page of variants
+     * @param queryHash Hash of the query, from {@link #getQueryHash}
+     * @param options   Query options
+     * @return The same result
+     */
+    public static VariantQueryResult<Variant> addNextToken(VariantQueryResult<Variant> result, String queryHash,
+                                                           QueryOptions options) {
+        int limit = options == null ? 0 : options.getInt(QueryOptions.LIMIT, 0);
+        List<Variant> variants = result.getResult();
+        if (limit > 0 && variants != null && !variants.isEmpty() && variants.size() >= limit && isSortedAscending(options)) {
+            result.setNextToken(encode(queryHash, variants.get(variants.size() - 1)));
+        }
+        return result;
+    }
+
+    /**
+     * Tokens can only be used and generated if the results are sorted by the variant key in ascending order.
+     *
+     * @param options   Query options
+     * @return If the results can be paginated with tokens
+     */
+    public static boolean isSortedAscending(QueryOptions options) {
+        if (options == null) {
+            return false;
+        }
+        String order = options.getString(QueryOptions.ORDER, QueryOptions.ASCENDING);
+        boolean ascending = order.equalsIgnoreCase(QueryOptions.ASCENDING) || order.equalsIgnoreCase("ASC");
+        return ascending && (StringUtils.isNotEmpty(options.getString(TOKEN)) || options.getBoolean(QueryOptions.SORT)
+                || "_id".equals(options.getString(QueryOptions.SORT)));
+    }
+
+}
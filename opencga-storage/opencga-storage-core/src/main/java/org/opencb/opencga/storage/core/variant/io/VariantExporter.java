@@ -1,9 +1,23 @@
 package org.opencb.opencga.storage.core.variant.io;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+import htsjdk.tribble.index.Index;
+import htsjdk.tribble.index.IndexFactory;
+import htsjdk.variant.vcf.VCFCodec;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileConstants;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.commons.lang3.StringUtils;
+import org.opencb.biodata.models.core.Region;
 import org.opencb.biodata.models.variant.Variant;
+import org.opencb.biodata.models.variant.avro.VariantAvro;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.commons.datastore.core.QueryResult;
 import org.opencb.commons.io.DataWriter;
 import org.opencb.commons.run.ParallelTaskRunner;
 import org.opencb.opencga.core.common.ProgressLogger;
@@ -11,6 +25,7 @@ import org.opencb.opencga.storage.core.exceptions.StorageEngineException;
 import org.opencb.opencga.storage.core.metadata.StudyConfiguration;
 import org.opencb.opencga.storage.core.metadata.StudyConfigurationManager;
 import org.opencb.opencga.storage.core.metadata.ExportMetadata;
+import org.opencb.opencga.storage.core.variant.VariantStorageEngine;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptor;
 import org.opencb.opencga.storage.core.variant.io.VariantWriterFactory.VariantOutputFormat;
 import org.opencb.opencga.storage.core.variant.io.db.VariantDBReader;
@@ -18,28 +33,39 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.OutputStream;
+import java.io.*;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 import java.util.zip.GZIPOutputStream;
 
+import static org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptor.VariantQueryParams.*;
+import static org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptorUtils.isValidParam;
+
 /**
  * Prints the result of a given query in the selected output format, and the associated metadata.
  *
  * This class is intended to be extended by other exporters.
  *
+ * If {@link VariantStorageEngine.Options#EXPORT_THREADS} is greater than one, the query is split by chromosome and each
+ * chromosome is exported concurrently into a separated part, with its own iterator. Parts are concatenated in genomic order.
+ *
  * Created on 06/12/16.
  * @author Jacobo Coll &lt;jacobo167@gmail.com&gt;
  */
 public class VariantExporter {
 
     public static final String METADATA_FILE_EXTENSION = ".meta.json.gz";
+    public static final String TABIX_INDEX_EXTENSION = ".tbi";
+
+    private static final EnumSet<VariantOutputFormat> PARALLEL_FORMATS = EnumSet.of(VariantOutputFormat.VCF, VariantOutputFormat.VCF_GZ,
+            VariantOutputFormat.JSON, VariantOutputFormat.JSON_GZ,
+            VariantOutputFormat.AVRO, VariantOutputFormat.AVRO_GZ, VariantOutputFormat.AVRO_SNAPPY);
+    private static final int BATCH_SIZE = 10;
+
     private final VariantDBAdaptor dbAdaptor;
     private final VariantWriterFactory variantWriterFactory;
 
@@ -67,13 +93,34 @@ public class VariantExporter {
             outputFile = outputFileUri.getPath();
         }
         outputFile = VariantWriterFactory.checkOutput(outputFile, outputFormat);
+        if (query == null) {
+            query = new Query();
+        }
+        if (queryOptions == null) {
+            queryOptions = new QueryOptions();
+        }
         List<Integer> studyIds = dbAdaptor.getReturnedStudies(query, QueryOptions.empty());
+        boolean standardOutput = VariantWriterFactory.isStandardOutput(outputFile);
 
-        try (OutputStream os = VariantWriterFactory.getOutputStream(outputFile, outputFormat)) {
-            boolean logProgress = !VariantWriterFactory.isStandardOutput(outputFile);
-            exportData(os, outputFormat, query, queryOptions, logProgress);
+        int threads = queryOptions.getInt(VariantStorageEngine.Options.EXPORT_THREADS.key(),
+                VariantStorageEngine.Options.EXPORT_THREADS.defaultValue());
+        List<Query> chromosomeQueries = Collections.emptyList();
+        if (threads > 1 && !standardOutput) {
+            chromosomeQueries = splitByChromosome(outputFormat, query, queryOptions);
+        }
+
+        if (chromosomeQueries.size() > 1) {
+            exportDataParallel(Paths.get(outputFile), outputFormat, chromosomeQueries, queryOptions, threads);
+        } else {
+            try (OutputStream os = VariantWriterFactory.getOutputStream(outputFile, outputFormat)) {
+                exportData(os, outputFormat, query, queryOptions, !standardOutput);
+            }
         }
-        if (!VariantWriterFactory.isStandardOutput(outputFile)) {
+        if (!standardOutput) {
+            if (outputFormat == VariantOutputFormat.VCF_GZ && queryOptions.getBoolean(VariantStorageEngine.Options.EXPORT_INDEX.key(),
+                    VariantStorageEngine.Options.EXPORT_INDEX.defaultValue())) {
+                createTabixIndex(Paths.get(outputFile));
+            }
             exportMetaData(query, queryOptions, studyIds, outputFile + METADATA_FILE_EXTENSION);
         }
     }
@@ -93,7 +140,7 @@ public class VariantExporter {
 
         // Task<Variant, Variant>
         ParallelTaskRunner.TaskWithException<Variant, Variant, Exception> progressTask;
-        if (logProgress) {
+        if (!logProgress) {
             progressTask = batch -> batch;
         } else {
             final Query finalQuery = query;
@@ -114,7 +161,7 @@ public class VariantExporter {
         // DataWriter
         DataWriter<Variant> variantDataWriter = variantWriterFactory.newDataWriter(outputFormat, outputStream, query, queryOptions);
 
-        ParallelTaskRunner.Config config = ParallelTaskRunner.Config.builder().setNumTasks(1).setBatchSize(10).build();
+        ParallelTaskRunner.Config config = ParallelTaskRunner.Config.builder().setNumTasks(1).setBatchSize(BATCH_SIZE).build();
 
         ParallelTaskRunner<Variant, Variant> ptr = new ParallelTaskRunner<>(variantDBReader, progressTask, variantDataWriter, config);
         try {
@@ -128,6 +175,269 @@ public class VariantExporter {
 
     }
 
+    /**
+     * Split the query in one query per chromosome, in genomic order.
+     *
+     * Queries filtering by variant id, gene or xref can not be split, as they are not restricted to the given regions.
+     * Neither queries with limit or skip.
+     *
+     * @param outputFormat  Variant output format
+     * @param query         Query with the variants to export
+     * @param queryOptions  Query options
+     * @return  One query per chromosome, or an empty list if the query can not be split
+     */
+    protected List<Query> splitByChromosome(VariantOutputFormat outputFormat, Query query, QueryOptions queryOptions) {
+        if (!PARALLEL_FORMATS.contains(outputFormat)
+                || queryOptions.containsKey(QueryOptions.LIMIT) || queryOptions.containsKey(QueryOptions.SKIP)
+                || isValidParam(query, ID) || isValidParam(query, GENE) || isValidParam(query, ANNOT_XREF)) {
+            return Collections.emptyList();
+        }
+
+        Map<String, List<String>> regionsByChromosome = new HashMap<>();
+        if (isValidParam(query, REGION) || isValidParam(query, CHROMOSOME)) {
+            for (String region : query.getAsStringList(REGION.key())) {
+                regionsByChromosome.computeIfAbsent(Region.parseRegion(region).getChromosome(), k -> new ArrayList<>()).add(region);
+            }
+            // Full chromosomes contain any other region from the same chromosome
+            for (String chromosome : query.getAsStringList(CHROMOSOME.key())) {
+                regionsByChromosome.put(chromosome, Collections.singletonList(chromosome));
+            }
+        } else {
+            for (String chromosome : getChromosomes(query)) {
+                regionsByChromosome.put(chromosome, Collections.singletonList(chromosome));
+            }
+        }
+
+        List<String> chromosomes = new ArrayList<>(regionsByChromosome.keySet());
+        chromosomes.sort(VariantExporter::compareChromosomes);
+        List<Query> queries = new ArrayList<>(chromosomes.size());
+        for (String chromosome : chromosomes) {
+            Query chromosomeQuery = new Query(query);
+            chromosomeQuery.remove(CHROMOSOME.key());
+            chromosomeQuery.put(REGION.key(), regionsByChromosome.get(chromosome));
+            queries.add(chromosomeQuery);
+        }
+        return queries;
+    }
+
+    /**
+     * List of chromosomes with variants in the database. Backends unable to list them will fall back to a single iterator.
+     *
+     * @param query Query with the variants to export
+     * @return      List of chromosomes, or an empty list if unknown
+     */
+    protected List<String> getChromosomes(Query query) {
+        try {
+            QueryResult<?> result = dbAdaptor.distinct(new Query(), CHROMOSOME.key());
+            List<String> chromosomes = new ArrayList<>(result.getResult().size());
+            for (Object chromosome : result.getResult()) {
+                chromosomes.add(String.valueOf(chromosome));
+            }
+            return chromosomes;
+        } catch (UnsupportedOperationException e) {
+            logger.info("Unable to get the list of chromosomes. Export with one single iterator");
+            return Collections.emptyList();
+        }
+    }
+
+    static int compareChromosomes(String chr1, String chr2) {
+        String c1 = StringUtils.removeStartIgnoreCase(chr1, "chr");
+        String c2 = StringUtils.removeStartIgnoreCase(chr2, "chr");
+        boolean numeric1 = StringUtils.isNumeric(c1) && !c1.isEmpty();
+        boolean numeric2 = StringUtils.isNumeric(c2) && !c2.isEmpty();
+        if (numeric1 && numeric2) {
+            int compare = Long.compare(Long.parseLong(c1), Long.parseLong(c2));
+            return compare == 0 ? chr1.compareTo(chr2) : compare;
+        } else if (numeric1) {
+            return -1;
+        } else if (numeric2) {
+            return 1;
+        } else {
+            return chr1.compareTo(chr2);
+        }
+    }
+
+    /**
+     * Export each query concurrently into a temporary part, and concatenate all the parts in the same order.
+     *
+     * @param output        Output file
+     * @param outputFormat  Variant output format
+     * @param queries       Queries to export, in the output order
+     * @param queryOptions  Query options
+     * @param threads       Number of concurrent exports
+     * @throws IOException  If there is any IO error
+     * @throws StorageEngineException  If there is any error exporting variants
+     */
+    protected void exportDataParallel(Path output, VariantOutputFormat outputFormat, List<Query> queries, QueryOptions queryOptions,
+                                      int threads)
+            throws IOException, StorageEngineException {
+        output = output.toAbsolutePath();
+        Path partsDir = Files.createTempDirectory(output.getParent(), "." + output.getFileName() + ".parts_");
+        ProgressLogger progressLogger = new ProgressLogger("Export variants", () -> {
+            long count = 0;
+            for (Query query : queries) {
+                count += dbAdaptor.count(query).first();
+            }
+            return count;
+        }, 200);
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, queries.size()));
+        List<Path> parts = new ArrayList<>(queries.size());
+        try {
+            List<Future<Path>> futures = new ArrayList<>(queries.size());
+            for (int i = 0; i < queries.size(); i++) {
+                Query query = queries.get(i);
+                Path part = partsDir.resolve("part_" + i + '.' + outputFormat.getExtension());
+                boolean writeHeader = i == 0;
+                parts.add(part);
+                futures.add(executor.submit(() -> {
+                    exportPart(part, outputFormat, query, new QueryOptions(queryOptions), writeHeader, progressLogger);
+                    return part;
+                }));
+            }
+            executor.shutdown();
+            for (Future<Path> future : futures) {
+                future.get();
+            }
+            logger.info("Concatenating {} parts into {}", parts.size(), output);
+            concatParts(parts, output, outputFormat);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StorageEngineException("Interrupted exporting variants", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new StorageEngineException("Error exporting variants", e.getCause());
+        } finally {
+            executor.shutdownNow();
+            for (Path part : parts) {
+                Files.deleteIfExists(part);
+            }
+            Files.deleteIfExists(partsDir);
+        }
+    }
+
+    /**
+     * Export the result of the query into a part file, with one single iterator.
+     *
+     * @param part          Part file
+     * @param outputFormat  Variant output format
+     * @param query         Query with the variants to export
+     * @param queryOptions  Query options
+     * @param writeHeader   Write the file header. Only for the first part of the VCF files
+     * @param progressLogger    Shared progress logger
+     * @throws IOException  If there is any IO error
+     */
+    protected void exportPart(Path part, VariantOutputFormat outputFormat, Query query, QueryOptions queryOptions, boolean writeHeader,
+                              ProgressLogger progressLogger) throws IOException {
+        VariantDBReader variantDBReader = new VariantDBReader(dbAdaptor, query, queryOptions);
+        try (PartOutputStream os = new PartOutputStream(VariantWriterFactory.getOutputStream(part.toString(), outputFormat))) {
+            DataWriter<Variant> variantDataWriter = variantWriterFactory.newDataWriter(outputFormat, os, query, queryOptions);
+
+            variantDBReader.open();
+            variantDBReader.pre();
+            variantDataWriter.open();
+            // Headers are written and flushed in the "pre" step
+            os.setDiscard(!writeHeader);
+            variantDataWriter.pre();
+            os.setDiscard(false);
+
+            List<Variant> batch = variantDBReader.read(BATCH_SIZE);
+            while (!batch.isEmpty()) {
+                variantDataWriter.write(batch);
+                Variant last = batch.get(batch.size() - 1);
+                progressLogger.increment(batch.size(), () -> "up to position " + last.toString());
+                batch = variantDBReader.read(BATCH_SIZE);
+            }
+
+            variantDBReader.post();
+            variantDataWriter.post();
+            variantDataWriter.close();
+        } finally {
+            variantDBReader.close();
+        }
+        logger.debug("Exported regions {} in {}s", query.getAsStringList(REGION.key()),
+                variantDBReader.getTimeFetching(TimeUnit.MILLISECONDS) / 1000.0);
+    }
+
+    /**
+     * Concatenate the parts into the output file.
+     *
+     * BGZF parts are concatenated removing the intermediate EOF blocks. Avro parts are merged block by block, without decompressing.
+     * Any other part can be concatenated as it is, including the gzip ones, as a gzip file may contain multiple members.
+     *
+     * @param parts         Parts to concatenate, in order
+     * @param output        Output file
+     * @param outputFormat  Variant output format
+     * @throws IOException  If there is any IO error
+     */
+    protected void concatParts(List<Path> parts, Path output, VariantOutputFormat outputFormat) throws IOException {
+        switch (outputFormat) {
+            case AVRO:
+            case AVRO_GZ:
+            case AVRO_SNAPPY:
+                try (DataFileWriter<VariantAvro> writer = new DataFileWriter<>(new SpecificDatumWriter<>(VariantAvro.class))) {
+                    for (Path part : parts) {
+                        try (DataFileStream<VariantAvro> partStream = new DataFileStream<>(
+                                new BufferedInputStream(Files.newInputStream(part)), new SpecificDatumReader<>(VariantAvro.class))) {
+                            if (part == parts.get(0)) {
+                                String codec = partStream.getMetaString(DataFileConstants.CODEC);
+                                writer.setCodec(CodecFactory.fromString(codec == null ? DataFileConstants.NULL_CODEC : codec));
+                                writer.create(VariantAvro.getClassSchema(), output.toFile());
+                            }
+                            writer.appendAllFrom(partStream, false);
+                        }
+                    }
+                }
+                break;
+            case VCF_GZ:
+                byte[] eof = BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK;
+                try (OutputStream os = new BufferedOutputStream(new FileOutputStream(output.toFile()))) {
+                    for (Path part : parts) {
+                        long length = Files.size(part) - eof.length;
+                        try (InputStream is = new BufferedInputStream(Files.newInputStream(part))) {
+                            copy(is, os, length);
+                        }
+                    }
+                    os.write(eof);
+                }
+                break;
+            default:
+                try (OutputStream os = new BufferedOutputStream(new FileOutputStream(output.toFile()))) {
+                    for (Path part : parts) {
+                        Files.copy(part, os);
+                    }
+                }
+                break;
+        }
+    }
+
+    private static void copy(InputStream is, OutputStream os, long length) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long remaining = length;
+        while (remaining > 0) {
+            int read = is.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                throw new EOFException("Unexpected end of file");
+            }
+            os.write(buffer, 0, read);
+            remaining -= read;
+        }
+    }
+
+    /**
+     * Create a tabix index for a BGZF compressed VCF file.
+     *
+     * @param file          VCF_GZ file to index
+     * @throws IOException  If there is any IO error
+     */
+    protected void createTabixIndex(Path file) throws IOException {
+        logger.info("Creating tabix index for {}", file);
+        Index index = IndexFactory.createIndex(file.toFile(), new VCFCodec(), IndexFactory.IndexType.TABIX);
+        index.writeBasedOnFeatureFile(file.toFile());
+    }
+
     protected void exportMetaData(Query query, QueryOptions queryOptions, List studies, String output) throws IOException {
         StudyConfigurationManager scm = dbAdaptor.getStudyConfigurationManager();
 
@@ -167,4 +477,42 @@ public class VariantExporter {
         }
     }
 
+    /**
+     * OutputStream able to discard the written data, used to skip the headers of the parts. Can be closed more than once.
+     */
+    private static final class PartOutputStream extends FilterOutputStream {
+        private boolean discard;
+        private boolean closed;
+
+        PartOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        void setDiscard(boolean discard) {
+            this.discard = discard;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!discard) {
+                out.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (!discard) {
+                out.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                super.close();
+            }
+        }
+    }
+
 }
@@ -1,5 +1,6 @@
 package org.opencb.opencga.storage.core.variant.io;
 
+import htsjdk.samtools.util.BlockCompressedOutputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.opencb.biodata.models.variant.Variant;
 import org.opencb.biodata.models.variant.avro.VariantAvro;
@@ -165,8 +166,10 @@ public class VariantWriterFactory {
             logger.debug("writing to %s", output);
         }
 
-        // If compressed a GZip output stream is used
-        if (gzip && outputFormat != VariantOutputFormat.AVRO_GZ) {
+        // If compressed a GZip output stream is used. VCF files are written in BGZF blocks, so they can be indexed with tabix
+        if (outputFormat == VCF_GZ) {
+            outputStream = new BlockCompressedOutputStream(outputStream, null);
+        } else if (gzip && outputFormat != VariantOutputFormat.AVRO_GZ) {
             outputStream = new GZIPOutputStream(outputStream);
         } else {
             outputStream = new BufferedOutputStream(outputStream);
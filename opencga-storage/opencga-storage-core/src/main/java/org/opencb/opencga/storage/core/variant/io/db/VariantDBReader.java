@@ -128,6 +128,19 @@ public class VariantDBReader implements VariantReader {
         return variants;
     }
 
+    @Override
+    public boolean close() {
+        if (iterator != null) {
+            try {
+                iterator.close();
+            } catch (Exception e) {
+                logger.warn("Error closing variants iterator", e);
+                return false;
+            }
+        }
+        return true;
+    }
+
     public long getTimeConverting(TimeUnit timeUnit) {
         return timeUnit.convert(timeConverting, TimeUnit.NANOSECONDS);
     }
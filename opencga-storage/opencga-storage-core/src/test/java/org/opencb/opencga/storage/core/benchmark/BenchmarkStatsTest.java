@@ -0,0 +1,96 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.core.benchmark;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Created on 18/10/26.
+ */
+public class BenchmarkStatsTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testLatencySummary() throws Exception {
+        BenchmarkStats stats = new BenchmarkStats();
+        for (int i = 1; i <= 1000; i++) {
+            stats.recordLatency("get", TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        stats.recordError("get");
+        stats.recordLatency("count", TimeUnit.MILLISECONDS.toNanos(5));
+        stats.setMeasuredPeriod(0, TimeUnit.SECONDS.toNanos(10));
+
+        List<Map<String, Object>> summary = stats.latencySummary();
+        assertEquals(2, summary.size());
+        Map<String, Object> get = summary.get(0);
+        assertEquals("get", get.get("query"));
+        assertEquals(1000L, get.get("count"));
+        assertEquals(1L, get.get("errors"));
+        assertEquals(100.0, get.get("qps"));
+        assertEquals(500, ((Double) get.get("p50")), 1);
+        assertEquals(950, ((Double) get.get("p95")), 1);
+        assertEquals(990, ((Double) get.get("p99")), 1);
+        assertEquals(999, ((Double) get.get("p999")), 1);
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        stats.writeCsv(csv);
+        String[] lines = csv.toString().split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("query,count,errors,qps,min,mean,p50,p95,p99,p999,max", lines[0]);
+    }
+
+    @Test
+    public void testReadQueryFile() throws Exception {
+        Path file = temporaryFolder.newFile("queries.json").toPath();
+        Files.write(file, Arrays.asList(
+                "# Query mix",
+                "{\"gene\": \"BRCA2\"}",
+                "{\"name\": \"countChr1\", \"method\": \"count\", \"weight\": 3, \"query\": {\"chromosome\": \"1\"}}",
+                "",
+                "{\"method\": \"distinct\", \"field\": \"gene\", \"options\": {\"limit\": 10}}"));
+
+        List<VariantBenchmarkQuery> queries = VariantBenchmarkQuery.read(file);
+        assertEquals(3, queries.size());
+
+        assertEquals("queries.json:2", queries.get(0).getName());
+        assertEquals(VariantBenchmarkQuery.Method.GET, queries.get(0).getMethod());
+        assertEquals("BRCA2", queries.get(0).getQuery().getString("gene"));
+
+        assertEquals("countChr1", queries.get(1).getName());
+        assertEquals(VariantBenchmarkQuery.Method.COUNT, queries.get(1).getMethod());
+        assertEquals(3, queries.get(1).getWeight());
+        assertEquals("1", queries.get(1).getQuery().getString("chromosome"));
+
+        assertEquals(VariantBenchmarkQuery.Method.DISTINCT, queries.get(2).getMethod());
+        assertEquals("gene", queries.get(2).getOptions().getString(VariantBenchmarkQuery.FIELD));
+        assertEquals(10, queries.get(2).getOptions().getInt("limit"));
+    }
+}
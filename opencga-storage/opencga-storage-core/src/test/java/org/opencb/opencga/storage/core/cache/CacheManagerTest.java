@@ -0,0 +1,217 @@
+package org.opencb.opencga.storage.core.cache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.commons.datastore.core.Query;
+import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.commons.datastore.core.QueryResult;
+import org.opencb.opencga.core.results.VariantQueryResult;
+import org.opencb.opencga.storage.core.config.StorageConfiguration;
+import org.opencb.opencga.storage.core.metadata.StudyConfiguration;
+import org.opencb.opencga.storage.core.variant.dummy.DummyStudyConfigurationManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created on 18/10/26.
+ */
+public class CacheManagerTest {
+
+    private CacheManager cacheManager;
+    private StorageConfiguration storageConfiguration;
+    private DummyStudyConfigurationManager studyConfigurationManager;
+    private AtomicInteger loads;
+    private AtomicInteger metadataReads;
+
+    @Before
+    public void setUp() throws Exception {
+        storageConfiguration = new StorageConfiguration();
+        storageConfiguration.getCache().setActive(true).setSlowThreshold(10).setMaxResultSize(100);
+        cacheManager = new CacheManager(storageConfiguration, "test_" + System.nanoTime());
+        studyConfigurationManager = new DummyStudyConfigurationManager() {
+            @Override
+            public List<Integer> getStudyIds(QueryOptions options) {
+                metadataReads.incrementAndGet();
+                return super.getStudyIds(options);
+            }
+        };
+        metadataReads = new AtomicInteger();
+        DummyStudyConfigurationManager.clear();
+        putStudy(1, 1000L);
+        loads = new AtomicInteger();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        DummyStudyConfigurationManager.clear();
+        cacheManager.close();
+    }
+
+    private void putStudy(int studyId, long timeStamp) {
+        StudyConfiguration studyConfiguration = new StudyConfiguration(studyId, "study_" + studyId);
+        studyConfiguration.setTimeStamp(timeStamp);
+        DummyStudyConfigurationManager.STUDY_CONFIGURATIONS_BY_ID.put(studyId, studyConfiguration);
+        DummyStudyConfigurationManager.STUDY_CONFIGURATIONS_BY_NAME.put(studyConfiguration.getStudyName(), studyConfiguration);
+    }
+
+    private QueryResult<Long> load(int dbTime) {
+        loads.incrementAndGet();
+        return new QueryResult<>("count", dbTime, 1, 1, "", "", Collections.singletonList(42L));
+    }
+
+    private QueryOptions cached() {
+        return new QueryOptions(CacheManager.CACHE, true);
+    }
+
+    private QueryResult<Long> count(Query query, QueryOptions options) {
+        return cacheManager.cached("var", "count", studyConfigurationManager, query, options, () -> load(20));
+    }
+
+    @Test
+    public void testCanonicalKey() throws Exception {
+        Query query1 = new Query("region", "1:100-200,2:100-200").append("gene", "BRCA2");
+        Query query2 = new Query("gene", "BRCA2").append("region", Arrays.asList("1:100-200", "2:100-200")).append("type", "");
+        QueryOptions options1 = new QueryOptions(QueryOptions.LIMIT, 10);
+        QueryOptions options2 = new QueryOptions(QueryOptions.LIMIT, "10").append(CacheManager.CACHE, true)
+                .append(QueryOptions.TIMEOUT, 1000);
+
+        String key = cacheManager.createKey("var", "get", Collections.singletonMap(1, 1000L), query1, options1);
+        assertEquals(key, cacheManager.createKey("var", "get", Collections.singletonMap(1, 1000L), query2, options2));
+        assertNotEquals(key, cacheManager.createKey("var", "get", Collections.singletonMap(1, 1001L), query1, options1));
+        assertNotEquals(key, cacheManager.createKey("var", "count", Collections.singletonMap(1, 1000L), query1, options1));
+        assertNotEquals(key, cacheManager.createKey("var", "get", Collections.singletonMap(1, 1000L),
+                new Query("region", "2:100-200,1:100-200").append("gene", "BRCA2"), options1));
+        assertTrue(key.startsWith(CacheManager.PREFIX_DATABASE_KEY));
+    }
+
+    @Test
+    public void testHitAndMiss() throws Exception {
+        long hits = cacheManager.getStats().getLong("var.count.hit");
+        Query query = new Query("gene", "BRCA2");
+        QueryResult<Long> result = count(query, cached());
+        assertEquals(42L, result.first().longValue());
+        assertEquals(1, loads.get());
+
+        result = count(new Query(query), cached());
+        assertEquals(42L, result.first().longValue());
+        assertEquals(1, loads.get());
+
+        // The cache is opt-in
+        count(query, new QueryOptions(CacheManager.CACHE, false));
+        count(query, new QueryOptions());
+        count(query, null);
+        assertEquals(4, loads.get());
+
+        assertEquals(hits + 1, cacheManager.getStats().getLong("var.count.hit"));
+    }
+
+    @Test
+    public void testModifyCachedResult() throws Exception {
+        Query query = new Query("gene", "BRCA1");
+        count(query, cached()).getResult().clear();
+        QueryResult<Long> result = count(query, cached());
+        assertEquals(1, loads.get());
+        assertEquals(42L, result.first().longValue());
+    }
+
+    @Test
+    public void testKeepNextToken() throws Exception {
+        Query query = new Query("gene", "BRCA2");
+        for (int i = 0; i < 2; i++) {
+            VariantQueryResult<Long> result = cacheManager.cached("var", "get", studyConfigurationManager, query, cached(),
+                    () -> new VariantQueryResult<>(load(20), Collections.emptyMap()).setNextToken("next"));
+            assertEquals("next", result.getNextToken());
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testInvalidateOnStudyConfigurationChange() throws Exception {
+        storageConfiguration.getCache().setMetadataTtl(0);
+        Query query = new Query("gene", "BRCA2");
+        count(query, cached());
+        count(query, cached());
+        assertEquals(1, loads.get());
+
+        putStudy(1, 2000L);
+        count(query, cached());
+        assertEquals(2, loads.get());
+
+        putStudy(2, 1000L);
+        count(query, cached());
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void testReuseStudyTimeStamps() throws Exception {
+        Query query = new Query("gene", "BRCA2");
+        count(query, cached());
+        count(query, cached());
+        count(query, cached());
+        assertEquals(1, loads.get());
+        assertEquals(1, metadataReads.get());
+
+        cacheManager.invalidate();
+        count(query, cached());
+        assertEquals(2, loads.get());
+        assertEquals(2, metadataReads.get());
+    }
+
+    @Test
+    public void testCopyCachedVariants() throws Exception {
+        Query query = new Query("gene", "BRCA2");
+        for (int i = 0; i < 3; i++) {
+            VariantQueryResult<Variant> result = cacheManager.cached("var", "get", studyConfigurationManager, query, cached(), () -> {
+                loads.incrementAndGet();
+                return new VariantQueryResult<>("get", 20, 1, 1, "", "", Collections.singletonList(new Variant("1:100:A:C")),
+                        Collections.emptyMap());
+            });
+            Variant variant = result.first();
+            assertNotEquals(Collections.singletonList("rs1"), variant.getIds());
+            assertEquals("1", variant.getChromosome());
+            // Callers may modify the returned variants
+            variant.setIds(Collections.singletonList("rs1"));
+            variant.setChromosome("2");
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        Query query = new Query("gene", "BRCA2");
+        count(query, cached());
+        cacheManager.invalidate();
+        count(query, cached());
+        assertEquals(2, loads.get());
+
+        // Invalidations are shared by all the CacheManagers of the same namespace
+        CacheManager other = new CacheManager(new StorageConfiguration(), cacheManager.getNamespace());
+        other.invalidate();
+        count(query, cached());
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void testFastQueriesNotCached() throws Exception {
+        Query query = new Query("gene", "BRCA2");
+        cacheManager.cached("var", "count", studyConfigurationManager, query, cached(), () -> load(1));
+        cacheManager.cached("var", "count", studyConfigurationManager, query, cached(), () -> load(1));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testTypeNotAllowed() throws Exception {
+        Query query = new Query("gene", "BRCA2");
+        cacheManager.cached("other", "count", studyConfigurationManager, query, cached(), () -> load(20));
+        cacheManager.cached("other", "count", studyConfigurationManager, query, cached(), () -> load(20));
+        assertEquals(2, loads.get());
+    }
+
+}
@@ -11,6 +11,7 @@ import org.opencb.commons.datastore.core.QueryResult;
 import org.opencb.opencga.catalog.exceptions.CatalogAuthorizationException;
 import org.opencb.opencga.catalog.models.Sample;
 import org.opencb.opencga.catalog.models.acls.permissions.StudyAclEntry;
+import org.opencb.opencga.storage.core.config.SearchConfiguration;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptor;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantField;
 
@@ -79,6 +80,37 @@ public class VariantManagerFetchTest extends AbstractVariantStorageOperationTest
         Assert.assertEquals(Collections.emptyMap(), longListMap);
     }
 
+    @Test
+    public void testSearchGroupBy() throws Exception {
+        SearchConfiguration search = variantManager.getStorageConfiguration().getSearch();
+        String host = search.getHost();
+        String collection = search.getCollection();
+        boolean active = search.getActive();
+        try {
+            search.setHost("http://localhost:8983/solr/").setCollection("variants").setActive(true);
+            VariantDBAdaptor dbAdaptor = mockVariantDBAdaptor();
+            Query query = new Query(VariantDBAdaptor.VariantQueryParams.STUDIES.key(), studyId);
+            QueryOptions count = new QueryOptions("count", true);
+
+            Assert.assertTrue(variantManager.isSearchGroupBy(dbAdaptor, query, "chromosome", count));
+            Assert.assertTrue(variantManager.isSearchGroupBy(dbAdaptor, query, "geneName", count));
+            // Not indexed
+            Assert.assertFalse(variantManager.isSearchGroupBy(dbAdaptor, query, "ct", count));
+            // Variant ids of each group are required
+            Assert.assertFalse(variantManager.isSearchGroupBy(dbAdaptor, query, "chromosome", new QueryOptions()));
+            // Ascending order
+            Assert.assertFalse(variantManager.isSearchGroupBy(dbAdaptor, query, "chromosome", new QueryOptions(count).append("order", 1)));
+            // Filters not applied by the search engine
+            Assert.assertFalse(variantManager.isSearchGroupBy(dbAdaptor,
+                    new Query(query).append(VariantDBAdaptor.VariantQueryParams.REGION.key(), "1:1-1000"), "chromosome", count));
+
+            search.setActive(false);
+            Assert.assertFalse(variantManager.isSearchGroupBy(dbAdaptor, query, "chromosome", count));
+        } finally {
+            search.setHost(host).setCollection(collection).setActive(active);
+        }
+    }
+
     @Test
     public void testQueryAnonymous() throws Exception {
         catalogManager.createStudyAcls(studyStr, "anonymous", StudyAclEntry.StudyPermissions.VIEW_STUDY.name(), null, sessionId);
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.core.search;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.util.NamedList;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Created on 18/10/26.
+ */
+public class VariantSearchDataWriterTest {
+
+    /**
+     * Solr client that fails the first "numFailures" add requests.
+     */
+    private static class FailingSolrClient extends SolrClient {
+        private int numFailures;
+        private int numAdds = 0;
+        private int numCommits = 0;
+
+        FailingSolrClient(int numFailures) {
+            this.numFailures = numFailures;
+        }
+
+        @Override
+        public NamedList<Object> request(SolrRequest request, String collection) throws SolrServerException, IOException {
+            UpdateRequest updateRequest = (UpdateRequest) request;
+            if (updateRequest.getDocuments() != null && !updateRequest.getDocuments().isEmpty()) {
+                if (numFailures > 0) {
+                    numFailures--;
+                    throw new SolrServerException("Server not available");
+                }
+                numAdds++;
+            } else {
+                numCommits++;
+            }
+            return new NamedList<>();
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+
+    private List<VariantSearch> batch(int size) {
+        List<VariantSearch> batch = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            VariantSearch variantSearch = new VariantSearch();
+            variantSearch.setId("1:" + (100 + i) + ":A:C");
+            batch.add(variantSearch);
+        }
+        return batch;
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testMissingClient() throws Exception {
+        new VariantSearchDataWriter(null, 1000, 3, 10);
+    }
+
+    @Test
+    public void testRetry() throws Exception {
+        FailingSolrClient solrClient = new FailingSolrClient(2);
+        VariantSearchDataWriter writer = new VariantSearchDataWriter(solrClient, 1000, 3, 1);
+
+        writer.write(batch(10));
+        writer.write(batch(5));
+        writer.post();
+
+        assertEquals(15, writer.getNumInserted());
+        assertEquals(0, writer.getNumFailed());
+        assertEquals(2, writer.getNumRetries());
+        assertEquals(2, solrClient.numAdds);
+        assertEquals(1, solrClient.numCommits);
+    }
+
+    @Test
+    public void testFailedBatch() throws Exception {
+        FailingSolrClient solrClient = new FailingSolrClient(3);
+        VariantSearchDataWriter writer = new VariantSearchDataWriter(solrClient, 1000, 2, 1);
+
+        writer.write(batch(10));
+        writer.write(batch(5));
+
+        assertEquals(5, writer.getNumInserted());
+        assertEquals(10, writer.getNumFailed());
+        assertEquals(2, writer.getNumRetries());
+    }
+}
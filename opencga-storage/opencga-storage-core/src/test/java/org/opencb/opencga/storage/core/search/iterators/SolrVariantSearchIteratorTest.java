@@ -0,0 +1,148 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.core.search.iterators;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.CursorMarkParams;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.NamedList;
+import org.junit.Test;
+import org.opencb.opencga.storage.core.search.VariantSearch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created on 18/10/26.
+ */
+public class SolrVariantSearchIteratorTest {
+
+    /**
+     * Solr client serving "numVariants" documents. The cursor mark is the position of the next document.
+     */
+    private static class CursorSolrClient extends SolrClient {
+        private final int numVariants;
+        private final List<SolrParams> requests = new ArrayList<>();
+
+        CursorSolrClient(int numVariants) {
+            this.numVariants = numVariants;
+        }
+
+        @Override
+        public NamedList<Object> request(SolrRequest request, String collection) throws SolrServerException, IOException {
+            SolrParams params = request.getParams();
+            synchronized (requests) {
+                requests.add(params);
+            }
+            String cursorMark = params.get(CursorMarkParams.CURSOR_MARK_PARAM);
+            int start = cursorMark.equals(CursorMarkParams.CURSOR_MARK_START) ? 0 : Integer.parseInt(cursorMark);
+            int end = Math.min(numVariants, start + params.getInt(CommonParams.ROWS));
+
+            SolrDocumentList documents = new SolrDocumentList();
+            documents.setNumFound(numVariants);
+            for (int i = start; i < end; i++) {
+                SolrDocument document = new SolrDocument();
+                document.setField("id", "1:" + (100 + i) + ":A:C");
+                documents.add(document);
+            }
+            NamedList<Object> response = new NamedList<>();
+            response.add("response", documents);
+            response.add(CursorMarkParams.CURSOR_MARK_NEXT, end == start ? cursorMark : String.valueOf(end));
+            return response;
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+
+    private int count(SolrVariantSearchIterator iterator) throws Exception {
+        int count = 0;
+        while (iterator.hasNext()) {
+            VariantSearch variantSearch = iterator.next();
+            assertEquals("1:" + (100 + count) + ":A:C", variantSearch.getId());
+            count++;
+        }
+        iterator.close();
+        return count;
+    }
+
+    @Test
+    public void testIterateAll() throws Exception {
+        CursorSolrClient solrClient = new CursorSolrClient(25);
+        SolrVariantSearchIterator iterator = new SolrVariantSearchIterator(solrClient, new SolrQuery("*:*"), 10, 0);
+
+        assertEquals(25, count(iterator));
+        assertEquals(3, solrClient.requests.size());
+        for (SolrParams params : solrClient.requests) {
+            assertEquals("id asc", params.get(CommonParams.SORT));
+            assertEquals(10, params.getInt(CommonParams.ROWS).intValue());
+        }
+    }
+
+    @Test
+    public void testIterateExactPages() throws Exception {
+        CursorSolrClient solrClient = new CursorSolrClient(20);
+        SolrVariantSearchIterator iterator = new SolrVariantSearchIterator(solrClient, new SolrQuery("*:*"), 10, 0);
+
+        assertEquals(20, count(iterator));
+        // Last request returns an empty page with the same cursor mark
+        assertEquals(3, solrClient.requests.size());
+    }
+
+    @Test
+    public void testLimit() throws Exception {
+        CursorSolrClient solrClient = new CursorSolrClient(100);
+        SolrVariantSearchIterator iterator = new SolrVariantSearchIterator(solrClient, new SolrQuery("*:*"), 10, 15);
+
+        assertEquals(15, count(iterator));
+        assertEquals(2, solrClient.requests.size());
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        CursorSolrClient solrClient = new CursorSolrClient(0);
+        SolrVariantSearchIterator iterator = new SolrVariantSearchIterator(solrClient, new SolrQuery("*:*"), 10, 0);
+
+        assertFalse(iterator.hasNext());
+        iterator.close();
+        assertEquals(1, solrClient.requests.size());
+    }
+
+    @Test
+    public void testKeepSort() throws Exception {
+        CursorSolrClient solrClient = new CursorSolrClient(5);
+        SolrQuery solrQuery = new SolrQuery("*:*");
+        solrQuery.addSort("start", SolrQuery.ORDER.desc);
+        SolrVariantSearchIterator iterator = new SolrVariantSearchIterator(solrClient, solrQuery, 10, 0);
+
+        assertTrue(iterator.hasNext());
+        assertEquals(5, count(iterator));
+        assertEquals("start desc,id asc", solrClient.requests.get(0).get(CommonParams.SORT));
+    }
+}
@@ -38,6 +38,8 @@ import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.commons.datastore.core.QueryResult;
 import org.opencb.opencga.core.results.VariantQueryResult;
 import org.opencb.opencga.storage.core.StoragePipelineResult;
+import org.opencb.opencga.storage.core.cache.CacheManager;
+import org.opencb.opencga.storage.core.config.CacheConfiguration;
 import org.opencb.opencga.storage.core.metadata.StudyConfiguration;
 import org.opencb.opencga.storage.core.variant.VariantStorageBaseTest;
 import org.opencb.opencga.storage.core.variant.VariantStorageEngine;
@@ -48,6 +50,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.function.Function;
@@ -240,6 +243,100 @@ public abstract class VariantDBAdaptorTest extends VariantStorageBaseTest {
         }
     }
 
+    @Test
+    public void testGetAllVariants_token_cached() throws Exception {
+        CacheConfiguration cacheConfiguration = variantStorageManager.getConfiguration().getCache();
+        int slowThreshold = cacheConfiguration.getSlowThreshold();
+        boolean active = cacheConfiguration.isActive();
+        // Cache every page
+        cacheConfiguration.setActive(true).setSlowThreshold(0);
+        try (VariantDBAdaptor cachedDBAdaptor = getVariantStorageEngine().getDBAdaptor(DB_NAME)) {
+            List<String> expected = allVariants.getResult().stream().map(Object::toString).collect(Collectors.toList());
+            long hits = new CacheManager().getStats().getLong("var.get.hit");
+
+            // Second round is served from the cache, and must return the same tokens
+            for (int round = 0; round < 2; round++) {
+                List<String> variants = new ArrayList<>();
+                String token = null;
+                do {
+                    QueryOptions options = new QueryOptions(QueryOptions.SORT, true).append(QueryOptions.LIMIT, 100)
+                            .append(CacheManager.CACHE, true);
+                    if (token != null) {
+                        options.put(VariantQueryToken.TOKEN, token);
+                    }
+                    VariantQueryResult<Variant> result = cachedDBAdaptor.get(new Query(), options);
+                    result.getResult().forEach(variant -> variants.add(variant.toString()));
+                    token = result.getNextToken();
+                } while (token != null);
+                assertEquals(expected, variants);
+            }
+            assertTrue(new CacheManager().getStats().getLong("var.get.hit") > hits);
+        } finally {
+            cacheConfiguration.setActive(active).setSlowThreshold(slowThreshold);
+        }
+    }
+
+    @Test
+    public void testGetByIds() throws Exception {
+        List<Variant> variants = allVariants.getResult();
+        Variant first = variants.get(0);
+        Variant middle = variants.get(variants.size() / 2);
+        Variant last = variants.get(variants.size() - 1);
+        // Unsorted, with one missing and one duplicated id
+        List<String> ids = Arrays.asList(last.toString(), "1:1:A:T", first.toString(), middle.toString(), last.toString());
+
+        for (int batchSize : new int[]{1, 2, VariantDBAdaptor.DEFAULT_ID_BATCH_SIZE}) {
+            VariantQueryResult<Variant> result = dbAdaptor.getByIds(ids, new Query(),
+                    new QueryOptions(VariantDBAdaptor.ID_BATCH_SIZE, batchSize));
+            List<String> found = result.getResult().stream().map(Object::toString).collect(Collectors.toList());
+            assertEquals("Batch size " + batchSize, Arrays.asList(last.toString(), first.toString(), middle.toString(),
+                    last.toString()), found);
+            assertEquals(4, result.getNumResults());
+            for (Variant variant : result.getResult()) {
+                // Same variant as the one returned by a simple query
+                Variant expected = dbAdaptor.get(new Query(ID.key(), variant.toString()), new QueryOptions()).first();
+                assertEquals(expected.toJson(), variant.toJson());
+            }
+        }
+
+        assertEquals(0, dbAdaptor.getByIds(Collections.singletonList("1:1:A:T"), null, null).getNumResults());
+        assertEquals(0, dbAdaptor.getByIds(Collections.emptyList(), null, null).getNumResults());
+    }
+
+    @Test
+    public void testGetByRegions() throws Exception {
+        // Overlapping, unsorted, and one without variants
+        List<Region> regions = Arrays.asList(new Region("1", 14000000, 160000000), new Region("1", 13910417, 13910417),
+                new Region("1", 100000000, 200000000), new Region("22", 1, 2), new Region("2"));
+
+        for (int batchSize : new int[]{1, 2, VariantDBAdaptor.DEFAULT_ID_BATCH_SIZE}) {
+            List<VariantQueryResult<Variant>> results = dbAdaptor.getByRegions(regions, new Query(),
+                    new QueryOptions(VariantDBAdaptor.ID_BATCH_SIZE, batchSize));
+            assertEquals(regions.size(), results.size());
+            for (int i = 0; i < regions.size(); i++) {
+                Set<String> expected = dbAdaptor.get(new Query(REGION.key(), regions.get(i).toString()), new QueryOptions())
+                        .getResult().stream().map(Object::toString).collect(Collectors.toSet());
+                Set<String> found = results.get(i).getResult().stream().map(Object::toString).collect(Collectors.toSet());
+                assertEquals("Batch size " + batchSize + ", region " + regions.get(i), expected, found);
+                assertEquals(expected.size(), results.get(i).getNumResults());
+            }
+        }
+
+        assertEquals(0, dbAdaptor.getByRegions(Collections.emptyList(), null, null).size());
+    }
+
+    @Test
+    public void testGetAllVariants_forgedToken() throws Exception {
+        // Valid query hash, but the alternate tries to escape from the filter of the next page
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(String.join("\t", "1",
+                VariantQueryToken.getQueryHash(new Query()), "1", "100", "A", "C') OR ('1'='1").getBytes(StandardCharsets.UTF_8));
+
+        thrown.expect(VariantQueryException.class);
+        thrown.expectMessage("Malformed token");
+        dbAdaptor.get(new Query(), new QueryOptions(QueryOptions.SORT, true).append(QueryOptions.LIMIT, 10)
+                .append(VariantQueryToken.TOKEN, token));
+    }
+
     @Test
     public void testGetVariantsByType() {
         Set<Variant> snv = new HashSet<>(dbAdaptor.get(new Query(VariantDBAdaptor.VariantQueryParams.TYPE.key(), VariantType.SNV), new QueryOptions()).getResult());
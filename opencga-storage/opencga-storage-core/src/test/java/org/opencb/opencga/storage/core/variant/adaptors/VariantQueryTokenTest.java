@@ -0,0 +1,127 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.core.variant.adaptors;
+
+import org.junit.Test;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.commons.datastore.core.Query;
+import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.opencga.core.results.VariantQueryResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptor.VariantQueryParams.*;
+
+/**
+ * Created on 18/10/26.
+ */
+public class VariantQueryTokenTest {
+
+    @Test
+    public void testEncodeDecode() throws Exception {
+        String queryHash = VariantQueryToken.getQueryHash(new Query(STUDIES.key(), "s1").append(TYPE.key(), "SNV"));
+        Variant variant = new Variant("X", 1000, "A", "");
+
+        Variant lastVariant = VariantQueryToken.decode(VariantQueryToken.encode(queryHash, variant), queryHash);
+
+        assertEquals(variant.getChromosome(), lastVariant.getChromosome());
+        assertEquals(variant.getStart(), lastVariant.getStart());
+        assertEquals(variant.getReference(), lastVariant.getReference());
+        assertEquals(variant.getAlternate(), lastVariant.getAlternate());
+    }
+
+    @Test
+    public void testQueryHash() throws Exception {
+        String queryHash = VariantQueryToken.getQueryHash(new Query(STUDIES.key(), "s1").append(TYPE.key(), "SNV"));
+
+        assertEquals(queryHash, VariantQueryToken.getQueryHash(new Query(TYPE.key(), "SNV").append(STUDIES.key(), "s1")
+                .append(GENE.key(), "")));
+        assertNotEquals(queryHash, VariantQueryToken.getQueryHash(new Query(STUDIES.key(), "s1").append(TYPE.key(), "INDEL")));
+    }
+
+    @Test(expected = VariantQueryException.class)
+    public void testDifferentQuery() throws Exception {
+        String token = VariantQueryToken.encode(VariantQueryToken.getQueryHash(new Query(TYPE.key(), "SNV")), new Variant("1:100:A:C"));
+        VariantQueryToken.decode(token, VariantQueryToken.getQueryHash(new Query(TYPE.key(), "INDEL")));
+    }
+
+    @Test(expected = VariantQueryException.class)
+    public void testMalformedToken() throws Exception {
+        VariantQueryToken.decode("not a token", VariantQueryToken.getQueryHash(new Query()));
+    }
+
+    @Test
+    public void testForgedToken() throws Exception {
+        String queryHash = VariantQueryToken.getQueryHash(new Query());
+        // Chromosome, reference and alternate of the last variant
+        for (int field : new int[]{2, 4, 5}) {
+            for (String value : Arrays.asList("C') OR ('1'='1", "C\\'")) {
+                String[] fields = {"1", queryHash, "1", "100", "A", "C"};
+                fields[field] = value;
+                try {
+                    VariantQueryToken.decode(forgeToken(fields), queryHash);
+                    fail("Expected VariantQueryException for token " + Arrays.toString(fields));
+                } catch (VariantQueryException e) {
+                    assertTrue(e.getMessage(), e.getMessage().startsWith("Malformed token"));
+                }
+            }
+        }
+        // A well formed forged token is accepted
+        assertEquals("1:100:A:C", VariantQueryToken.decode(forgeToken("1", queryHash, "1", "100", "A", "C"), queryHash).toString());
+    }
+
+    // Build a token by hand, as a client could do
+    private static String forgeToken(String... fields) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(String.join("\t", fields).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test(expected = VariantQueryException.class)
+    public void testTokenDescendingOrder() throws Exception {
+        String queryHash = VariantQueryToken.getQueryHash(new Query());
+        String token = VariantQueryToken.encode(queryHash, new Variant("1:100:A:C"));
+        VariantQueryToken.getLastVariant(queryHash, new QueryOptions(VariantQueryToken.TOKEN, token)
+                .append(QueryOptions.ORDER, QueryOptions.DESCENDING));
+    }
+
+    @Test
+    public void testAddNextToken() throws Exception {
+        String queryHash = VariantQueryToken.getQueryHash(new Query());
+        QueryOptions options = new QueryOptions(QueryOptions.SORT, true).append(QueryOptions.LIMIT, 2);
+
+        VariantQueryResult<Variant> result = new VariantQueryResult<>("", 0, 2, -1, "", "",
+                Arrays.asList(new Variant("1:100:A:C"), new Variant("1:200:A:C")), Collections.emptyMap());
+        VariantQueryToken.addNextToken(result, queryHash, options);
+        assertEquals(200, VariantQueryToken.decode(result.getNextToken(), queryHash).getStart().intValue());
+
+        // Last page
+        result = new VariantQueryResult<>("", 0, 1, -1, "", "", Collections.singletonList(new Variant("1:300:A:C")),
+                Collections.emptyMap());
+        VariantQueryToken.addNextToken(result, queryHash, options);
+        assertNull(result.getNextToken());
+
+        // Not sorted
+        result = new VariantQueryResult<>("", 0, 2, -1, "", "",
+                Arrays.asList(new Variant("1:100:A:C"), new Variant("1:200:A:C")), Collections.emptyMap());
+        VariantQueryToken.addNextToken(result, queryHash, new QueryOptions(QueryOptions.LIMIT, 2));
+        assertNull(result.getNextToken());
+    }
+
+}
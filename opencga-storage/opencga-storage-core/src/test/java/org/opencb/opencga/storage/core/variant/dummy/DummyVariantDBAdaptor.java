@@ -80,7 +80,14 @@ public class DummyVariantDBAdaptor implements VariantDBAdaptor {
 
     @Override
     public QueryResult distinct(Query query, String field) {
-        return null;
+        if (!field.equals(VariantQueryParams.CHROMOSOME.key())) {
+            return null;
+        }
+        Set<String> chromosomes = new LinkedHashSet<>();
+        for (String template : TEMPLATES) {
+            chromosomes.add(new Variant(template).getChromosome());
+        }
+        return new QueryResult<>("", 0, chromosomes.size(), chromosomes.size(), "", "", new ArrayList<>(chromosomes));
     }
 
     @Override
@@ -91,8 +98,18 @@ public class DummyVariantDBAdaptor implements VariantDBAdaptor {
     @Override
     public VariantDBIterator iterator(Query query, QueryOptions options) {
         List<Variant> variants = new ArrayList<>(TEMPLATES.size());
+        List<Region> regions = new ArrayList<>();
+        if (query != null && VariantDBAdaptorUtils.isValidParam(query, VariantQueryParams.REGION)) {
+            for (String region : query.getAsStringList(VariantQueryParams.REGION.key())) {
+                regions.add(Region.parseRegion(region));
+            }
+        }
         for (String template : TEMPLATES) {
             Variant variant = new Variant(template);
+            if (!regions.isEmpty() && regions.stream().noneMatch(region -> region.getChromosome().equals(variant.getChromosome())
+                    && region.getStart() <= variant.getStart() && variant.getStart() <= region.getEnd())) {
+                continue;
+            }
 
             Map<Integer, List<Integer>> returnedSamples = getReturnedSamples(query, options);
             returnedSamples.forEach((study, samples) -> {
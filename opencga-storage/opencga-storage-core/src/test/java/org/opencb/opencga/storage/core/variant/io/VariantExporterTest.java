@@ -1,5 +1,8 @@
 package org.opencb.opencga.storage.core.variant.io;
 
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFFileReader;
 import org.junit.Before;
 import org.junit.Test;
 import org.opencb.commons.datastore.core.Query;
@@ -7,19 +10,26 @@ import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.opencga.storage.core.config.StorageConfiguration;
 import org.opencb.opencga.storage.core.variant.VariantStorageBaseTest;
 import org.opencb.opencga.storage.core.variant.VariantStorageEngine;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptor;
 import org.opencb.opencga.storage.core.variant.dummy.DummyStudyConfigurationManager;
 import org.opencb.opencga.storage.core.variant.dummy.DummyVariantStorageEngine;
 import org.opencb.opencga.storage.core.variant.io.VariantWriterFactory.VariantOutputFormat;
 
 import java.io.BufferedReader;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URI;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
 import java.util.zip.GZIPInputStream;
 
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.*;
 
 /**
  * Created on 06/12/16.
@@ -78,4 +88,58 @@ public class VariantExporterTest extends VariantStorageBaseTest {
         }
     }
 
+    @Test
+    public void exportStudyVcfGzParallelTest() throws Exception {
+        URI output = newOutputUri().resolve("variant.vcf.gz");
+        variantStorageManager.exportData(output, VariantOutputFormat.VCF_GZ, DB_NAME, new Query(),
+                new QueryOptions(VariantStorageEngine.Options.EXPORT_THREADS.key(), 4)
+                        .append(VariantStorageEngine.Options.EXPORT_INDEX.key(), true));
+        assertTrue(Paths.get(output.getPath() + VariantExporter.TABIX_INDEX_EXTENSION).toFile().exists());
+
+        URI singleOutput = newOutputUri().resolve("variant.vcf.gz");
+        variantStorageManager.exportData(singleOutput, VariantOutputFormat.VCF_GZ, DB_NAME, new Query(), new QueryOptions());
+
+        // Only the header of the first part is kept
+        List<String> lines = readLines(output);
+        assertEquals(1, lines.stream().filter(line -> line.startsWith("#CHROM")).count());
+        List<String> singleLines = readLines(singleOutput);
+        assertEquals(new HashSet<>(singleLines), new HashSet<>(lines));
+        assertEquals(singleLines.size(), lines.size());
+
+        // The concatenated file is a valid BGZF file, sorted by chromosome, and can be read with the tabix index
+        List<String> chromosomes = new ArrayList<>();
+        try (VCFFileReader reader = new VCFFileReader(Paths.get(output).toFile(), true)) {
+            for (VariantContext variantContext : reader) {
+                chromosomes.add(variantContext.getContig());
+            }
+            for (String chromosome : Arrays.asList("1", "10", "22", "MT", "X")) {
+                try (CloseableIterator<VariantContext> iterator = reader.query(chromosome, 1, 2000)) {
+                    assertTrue(chromosome, iterator.hasNext());
+                    assertEquals(chromosome, iterator.next().getContig());
+                    assertFalse(chromosome, iterator.hasNext());
+                }
+            }
+        }
+        List<String> expectedChromosomes = new ArrayList<>(chromosomes);
+        expectedChromosomes.sort(VariantExporter::compareChromosomes);
+        assertEquals(expectedChromosomes, chromosomes);
+        assertEquals(new HashSet<>(chromosomes).size(), chromosomes.size());
+        try (VariantDBAdaptor dbAdaptor = variantStorageManager.getDBAdaptor(DB_NAME)) {
+            assertEquals(dbAdaptor.count(new Query()).first().intValue(), chromosomes.size());
+        }
+    }
+
+    private static List<String> readLines(URI output) throws IOException {
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(output.getPath()))))) {
+            return br.lines().collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void compareChromosomesTest() throws Exception {
+        List<String> chromosomes = new ArrayList<>(Arrays.asList("X", "10", "chr2", "MT", "1", "GL000192.1", "22", "Y", "2"));
+        chromosomes.sort(VariantExporter::compareChromosomes);
+        assertEquals(Arrays.asList("1", "2", "chr2", "10", "22", "GL000192.1", "MT", "X", "Y"), chromosomes);
+    }
+
 }
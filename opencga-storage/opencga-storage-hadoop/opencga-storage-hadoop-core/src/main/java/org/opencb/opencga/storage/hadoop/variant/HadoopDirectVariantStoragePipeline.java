@@ -33,6 +33,7 @@ import org.opencb.opencga.storage.core.variant.io.VariantReaderUtils;
 import org.opencb.opencga.storage.hadoop.auth.HBaseCredentials;
 import org.opencb.opencga.storage.hadoop.variant.adaptors.HadoopVariantSourceDBAdaptor;
 import org.opencb.opencga.storage.hadoop.variant.adaptors.VariantHadoopDBAdaptor;
+import org.opencb.opencga.storage.hadoop.variant.archive.ArchiveDriver;
 import org.opencb.opencga.storage.hadoop.variant.archive.ArchiveHelper;
 import org.opencb.opencga.storage.hadoop.variant.archive.VariantHbasePutTask;
 import org.opencb.opencga.storage.hadoop.variant.executors.MRExecutor;
@@ -98,6 +99,9 @@ public class HadoopDirectVariantStoragePipeline extends AbstractHadoopVariantSto
         if (!VariantReaderUtils.isProto(fileName)) {
             throw new NotImplementedException("Direct loading only available for PROTO files.");
         }
+        if (options.getBoolean(ArchiveDriver.CONFIG_ARCHIVE_BULK_LOAD, false)) {
+            logger.warn("Archive bulk load is only available for the MapReduce load. Loading file with Puts");
+        }
 
         StudyConfiguration studyConfiguration = getStudyConfiguration(options);
         Integer fileId;
@@ -94,6 +94,12 @@ public class HadoopVariantStorageEngine extends VariantStorageEngine {
     public static final String HADOOP_LOAD_VARIANT_BATCH_SIZE = "hadoop.load.variant.batch.size";
     public static final String HADOOP_LOAD_DIRECT = "hadoop.load.direct";
     public static final boolean HADOOP_LOAD_DIRECT_DEFAULT = true;
+    // Number of concurrent scanners for genome wide queries. Use 1 to read with one single scanner.
+    public static final String HADOOP_QUERY_PARALLEL_SCANNERS = "hadoop.query.parallel.scanners";
+    // Max number of variants buffered by each scanner
+    public static final String HADOOP_QUERY_PARALLEL_BUFFER_SIZE = "hadoop.query.parallel.buffer.size";
+    // Size of the thread pool shared by all the parallel queries
+    public static final String HADOOP_QUERY_PARALLEL_THREADS = "hadoop.query.parallel.threads";
 
     public static final String EXTERNAL_MR_EXECUTOR = "opencga.external.mr.executor";
     public static final String ARCHIVE_TABLE_PREFIX = "opencga_study_";
@@ -16,6 +16,7 @@
 
 package org.opencb.opencga.storage.hadoop.variant.adaptors;
 
+import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.HBaseConfiguration;
@@ -23,6 +24,7 @@ import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.client.*;
 import org.apache.hadoop.hbase.filter.*;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.schema.types.PUnsignedInt;
 import org.apache.phoenix.util.SchemaUtil;
 import org.opencb.biodata.models.core.Region;
 import org.opencb.biodata.models.variant.Variant;
@@ -36,6 +38,7 @@ import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.commons.datastore.core.QueryResult;
 import org.opencb.commons.io.DataWriter;
 import org.opencb.opencga.core.results.VariantQueryResult;
+import org.opencb.opencga.storage.core.cache.CacheManager;
 import org.opencb.opencga.storage.core.config.CellBaseConfiguration;
 import org.opencb.opencga.storage.core.config.StorageConfiguration;
 import org.opencb.opencga.storage.core.exceptions.StorageEngineException;
@@ -44,6 +47,7 @@ import org.opencb.opencga.storage.core.metadata.StudyConfigurationManager;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptor;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptorUtils;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantDBIterator;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantQueryToken;
 import org.opencb.opencga.storage.core.variant.annotation.VariantAnnotationManager;
 import org.opencb.opencga.storage.core.variant.stats.VariantStatsWrapper;
 import org.opencb.opencga.storage.hadoop.auth.HBaseCredentials;
@@ -54,10 +58,12 @@ import org.opencb.opencga.storage.hadoop.variant.archive.ArchiveHelper;
 import org.opencb.opencga.storage.hadoop.variant.archive.VariantHadoopArchiveDBIterator;
 import org.opencb.opencga.storage.hadoop.variant.converters.annotation.VariantAnnotationToHBaseConverter;
 import org.opencb.opencga.storage.hadoop.variant.converters.stats.VariantStatsToHBaseConverter;
+import org.opencb.opencga.storage.hadoop.variant.index.VariantHBaseParallelIterator;
 import org.opencb.opencga.storage.hadoop.variant.index.VariantHBaseResultSetIterator;
 import org.opencb.opencga.storage.hadoop.variant.index.annotation.VariantAnnotationPhoenixDBWriter;
 import org.opencb.opencga.storage.hadoop.variant.index.annotation.VariantAnnotationUpsertExecutor;
 import org.opencb.opencga.storage.hadoop.variant.index.phoenix.PhoenixHelper;
+import org.opencb.opencga.storage.hadoop.variant.index.phoenix.PhoenixHelper.Column;
 import org.opencb.opencga.storage.hadoop.variant.index.phoenix.VariantPhoenixHelper;
 import org.opencb.opencga.storage.hadoop.variant.index.phoenix.VariantSqlQueryParser;
 import org.opencb.opencga.storage.hadoop.variant.metadata.HBaseStudyConfigurationManager;
@@ -70,19 +76,28 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
 
 import static org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptor.VariantQueryParams.*;
 import static org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptorUtils.getReturnedSamplesList;
 import static org.opencb.opencga.storage.hadoop.variant.index.phoenix.VariantPhoenixHelper.VariantColumn.BIOTYPE;
+import static org.opencb.opencga.storage.hadoop.variant.index.phoenix.VariantPhoenixHelper.VariantColumn.CHROMOSOME;
 import static org.opencb.opencga.storage.hadoop.variant.index.phoenix.VariantPhoenixHelper.VariantColumn.GENES;
+import static org.opencb.opencga.storage.hadoop.variant.index.phoenix.VariantPhoenixHelper.VariantColumn.SO;
+import static org.opencb.opencga.storage.hadoop.variant.index.phoenix.VariantPhoenixHelper.VariantColumn.TRANSCRIPTS;
+import static org.opencb.opencga.storage.hadoop.variant.index.phoenix.VariantPhoenixHelper.VariantColumn.TYPE;
 
 /**
  * Created by mh719 on 16/06/15.
  */
 public class VariantHadoopDBAdaptor implements VariantDBAdaptor {
     protected static Logger logger = LoggerFactory.getLogger(VariantHadoopDBAdaptor.class);
+    private static final Pattern ENSEMBL_GENE_ID = Pattern.compile("^ENS[A-Z]*G\\d+(\\.\\d+)?$");
     private final String variantTable;
     private final VariantPhoenixHelper phoenixHelper;
     private final HBaseCredentials credentials;
@@ -93,7 +108,13 @@ public class VariantHadoopDBAdaptor implements VariantDBAdaptor {
     private final VariantSqlQueryParser queryParser;
     private final HadoopVariantSourceDBAdaptor variantSourceDBAdaptor;
     private final CellBaseClient cellBaseClient;
+    private final CacheManager cacheManager;
+    private static final int SPLITS_PER_SCANNER = 4;
     private boolean clientSideSkip;
+    private final int parallelScanners;
+    private final int parallelBufferSize;
+    private final int parallelThreads;
+    private final AtomicReference<ExecutorService> parallelExecutor = new AtomicReference<>();
 
     public VariantHadoopDBAdaptor(HBaseCredentials credentials, StorageConfiguration configuration,
                                   Configuration conf) throws IOException {
@@ -121,10 +142,15 @@ public class VariantHadoopDBAdaptor implements VariantDBAdaptor {
         cellBaseClient = new CellBaseClient(species, assembly, clientConfiguration);
 
         clientSideSkip = !options.getBoolean(PhoenixHelper.PHOENIX_SERVER_OFFSET_AVAILABLE, true);
+        parallelScanners = options.getInt(HadoopVariantStorageEngine.HADOOP_QUERY_PARALLEL_SCANNERS, 1);
+        parallelBufferSize = options.getInt(HadoopVariantStorageEngine.HADOOP_QUERY_PARALLEL_BUFFER_SIZE, 1000);
+        parallelThreads = options.getInt(HadoopVariantStorageEngine.HADOOP_QUERY_PARALLEL_THREADS,
+                Math.max(1, parallelScanners) * SPLITS_PER_SCANNER);
         this.queryParser = new VariantSqlQueryParser(genomeHelper, this.variantTable, new VariantDBAdaptorUtils(this),
                 clientSideSkip);
 
         phoenixHelper = new VariantPhoenixHelper(genomeHelper);
+        cacheManager = new CacheManager(configuration, "hadoop:" + variantTable);
     }
 
     public java.sql.Connection getJdbcConnection() {
@@ -143,6 +169,24 @@ public class VariantHadoopDBAdaptor implements VariantDBAdaptor {
         return phoenixCon.get();
     }
 
+    // Executor shared by all the parallel queries of this adaptor
+    private ExecutorService getParallelExecutor() {
+        if (parallelExecutor.get() == null) {
+            AtomicInteger threadId = new AtomicInteger();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelThreads, parallelThreads, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), r -> {
+                        Thread t = new Thread(r, "variant-scan-" + threadId.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    });
+            executor.allowCoreThreadTimeOut(true);
+            if (!parallelExecutor.compareAndSet(null, executor)) {
+                executor.shutdown(); // already set in the mean time
+            }
+        }
+        return parallelExecutor.get();
+    }
+
     public GenomeHelper getGenomeHelper() {
         return genomeHelper;
     }
@@ -203,9 +247,18 @@ public class VariantHadoopDBAdaptor implements VariantDBAdaptor {
         return queryParser.getUtils();
     }
 
+    public CacheManager getCacheManager() {
+        return cacheManager;
+    }
+
     @Override
     public void close() throws IOException {
+        this.cacheManager.close();
         this.genomeHelper.close();
+        ExecutorService executor = this.parallelExecutor.getAndSet(null);
+        if (executor != null) {
+            executor.shutdownNow();
+        }
         try {
            close(this.phoenixCon.getAndSet(null));
         } catch (SQLException e) {
@@ -263,7 +316,11 @@ public class VariantHadoopDBAdaptor implements VariantDBAdaptor {
 
     @Override
     public VariantQueryResult<Variant> get(Query query, QueryOptions options) {
+        return cacheManager.cached(CacheManager.VARIANT, "get", getStudyConfigurationManager(), query, options,
+                () -> getVariantQueryResult(query, options));
+    }
 
+    private VariantQueryResult<Variant> getVariantQueryResult(Query query, QueryOptions options) {
         List<Variant> variants = new LinkedList<>();
         VariantDBIterator iterator = iterator(query, options);
         iterator.forEachRemaining(variants::add);
@@ -296,8 +353,12 @@ public class VariantHadoopDBAdaptor implements VariantDBAdaptor {
         }
 
         Map<String, List<String>> samples = getDBAdaptorUtils().getSamplesMetadata(query, options);
-        return new VariantQueryResult<>("getVariants", ((int) iterator.getTimeFetching()), variants.size(), numTotalResults,
-                warn, error, variants, samples);
+        VariantQueryResult<Variant> result = new VariantQueryResult<>("getVariants", ((int) iterator.getTimeFetching()),
+                variants.size(), numTotalResults, warn, error, variants, samples);
+        if (iterator.getQueryHash() != null) {
+            VariantQueryToken.addNextToken(result, iterator.getQueryHash(), options);
+        }
+        return result;
     }
 
     @Override
@@ -317,9 +378,11 @@ public class VariantHadoopDBAdaptor implements VariantDBAdaptor {
 
     @Override
     public QueryResult<Long> count(Query query) {
-        if (query == null) {
-            query = new Query();
-        }
+        return cacheManager.cached(CacheManager.VARIANT, "count", getStudyConfigurationManager(), query, null,
+                () -> getCountQueryResult(query == null ? new Query() : query));
+    }
+
+    private QueryResult<Long> getCountQueryResult(Query query) {
         long startTime = System.currentTimeMillis();
         String sql = queryParser.parse(query, new QueryOptions(VariantSqlQueryParser.COUNT, true));
         logger.info(sql);
@@ -336,8 +399,16 @@ public class VariantHadoopDBAdaptor implements VariantDBAdaptor {
 
     @Override
     public QueryResult distinct(Query query, String field) {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException();
+        return cacheManager.cached(CacheManager.VARIANT, "distinct." + field, getStudyConfigurationManager(), query, null,
+                () -> getDistinctQueryResult(query == null ? new Query() : query, field));
+    }
+
+    private QueryResult getDistinctQueryResult(Query query, String field) {
+        long startTime = System.currentTimeMillis();
+        Map<Object, Long> counts = countByField(query, field);
+        List<Object> values = new ArrayList<>(counts.keySet());
+        return new QueryResult<>("distinct", ((int) (System.currentTimeMillis() - startTime)),
+                values.size(), values.size(), "", "", values);
     }
 
     @Override
@@ -416,35 +487,69 @@ public class VariantHadoopDBAdaptor implements VariantDBAdaptor {
             }
         } else {
 
-            logger.debug("Table name = " + variantTable);
-            String sql = queryParser.parse(query, options);
-            logger.info(sql);
-            logger.debug("Creating {} iterator", VariantHBaseResultSetIterator.class);
-            try {
-                if (true) {
-                    logger.info("---- " + "EXPLAIN " + sql);
-                    phoenixHelper.getPhoenixHelper().explain(getJdbcConnection(), sql, Logger::info);
-                }
+            // Before parsing, as the query may be modified
+            String queryHash = VariantQueryToken.getQueryHash(query);
+            List<String> keyFilters = new ArrayList<>(1);
+            Variant lastVariant = VariantQueryToken.getLastVariant(queryHash, options);
+            if (lastVariant != null) {
+                // Continue after the last variant of the previous page
+                options.put(QueryOptions.SORT, true);
+                keyFilters.add(VariantSqlQueryParser.buildKeyFilter(">", lastVariant));
+            }
+            VariantDBIterator variantIterator = keyedIterator(query, options, keyFilters);
+            if (VariantQueryToken.isSortedAscending(options)) {
+                variantIterator.setQueryHash(queryHash);
+            }
+            return variantIterator;
+        }
+    }
 
-                Statement statement = getJdbcConnection().createStatement(); // Statemnet closed by iterator
-                statement.setFetchSize(options.getInt("batchSize", -1));
-                ResultSet resultSet = statement.executeQuery(sql); // RS closed by iterator
-                List<String> returnedSamples = getReturnedSamplesList(query, options);
-                VariantHBaseResultSetIterator iterator = new VariantHBaseResultSetIterator(statement,
-                        resultSet, genomeHelper, getStudyConfigurationManager(), options, returnedSamples);
-
-                if (clientSideSkip) {
-                    // Client side skip!
-                    int skip = options.getInt(QueryOptions.SKIP, -1);
-                    if (skip > 0) {
-                        logger.info("Client side skip! skip = {}", skip);
-                        iterator.skip(skip);
-                    }
+    /**
+     * Iterate over the variants of the query, within the given primary key ranges.
+     *
+     * @param query         Query
+     * @param options       Query options
+     * @param keyFilters    Extra filters over the primary key. See {@link VariantSqlQueryParser#buildKeyFilter}
+     * @return Variant iterator
+     */
+    private VariantDBIterator keyedIterator(Query query, QueryOptions options, List<String> keyFilters) {
+        int numScanners = options.getInt(HadoopVariantStorageEngine.HADOOP_QUERY_PARALLEL_SCANNERS, parallelScanners);
+        if (numScanners > 1 && isGenomeWide(query)) {
+            List<String> splitFilters = getSplitFilters(numScanners);
+            if (splitFilters.size() > 1) {
+                return parallelIterator(query, options, keyFilters, splitFilters, numScanners);
+            }
+        }
+
+        logger.debug("Table name = " + variantTable);
+        String sql = queryParser.parse(query, options, keyFilters);
+        logger.info(sql);
+        logger.debug("Creating {} iterator", VariantHBaseResultSetIterator.class);
+        try {
+            if (true) {
+                logger.info("---- " + "EXPLAIN " + sql);
+                phoenixHelper.getPhoenixHelper().explain(getJdbcConnection(), sql, Logger::info);
+            }
+
+            Statement statement = getJdbcConnection().createStatement(); // Statemnet closed by iterator
+            statement.setFetchSize(options.getInt("batchSize", -1));
+            ResultSet resultSet = statement.executeQuery(sql); // RS closed by iterator
+            List<String> returnedSamples = getReturnedSamplesList(query, options);
+            VariantHBaseResultSetIterator iterator = new VariantHBaseResultSetIterator(statement,
+                    resultSet, genomeHelper, getStudyConfigurationManager(), options, returnedSamples);
+
+            if (clientSideSkip) {
+                // Client side skip!
+                int skip = options.getInt(QueryOptions.SKIP, -1);
+                if (skip > 0) {
+                    logger.info("Client side skip! skip = {}", skip);
+                    iterator.skip(skip);
                 }
-                return iterator;
-            } catch (SQLException e) {
-                throw new RuntimeException(e);
             }
+            return iterator;
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
 
 //            logger.debug("Creating {} iterator", VariantHBaseScanIterator.class);
 //            Scan scan = parseQuery(query, options);
@@ -455,7 +560,197 @@ public class VariantHadoopDBAdaptor implements VariantDBAdaptor {
 //            } catch (IOException e) {
 //                throw new RuntimeException(e);
 //            }
+    }
+
+    /**
+     * Read the query with one scanner per split of the table, on the bounded pool of threads shared by all the queries.
+     * All the splits of the query share the same Phoenix connection, closed with the returned iterator.
+     *
+     * Variants are returned in genomic order unless {@link QueryOptions#SORT} is false. Skip is resolved with keyset
+     * pagination: the key of the last skipped variant is fetched, and the splits start after that key.
+     *
+     * @param query         Query
+     * @param options       Query options
+     * @param keyFilters    Extra filters over the primary key, applied to all the splits
+     * @param splitFilters  Row key range of each split, in row key order
+     * @param numScanners   Number of concurrent scanners
+     * @return Variant iterator
+     */
+    private VariantDBIterator parallelIterator(Query query, QueryOptions options, List<String> keyFilters, List<String> splitFilters,
+                                               int numScanners) {
+        boolean sorted = options.getBoolean(QueryOptions.SORT, true);
+        String order = options.getString(QueryOptions.ORDER, QueryOptions.ASCENDING);
+        boolean ascending = order.equalsIgnoreCase(QueryOptions.ASCENDING) || order.equalsIgnoreCase("ASC");
+        int skip = options.getInt(QueryOptions.SKIP, -1);
+        int limit = options.getInt(QueryOptions.LIMIT, -1);
+
+        keyFilters = new ArrayList<>(keyFilters);
+        if (skip > 0) {
+            Variant lastSkipped = getSkipKey(query, keyFilters, skip, ascending);
+            if (lastSkipped == null) {
+                return VariantDBIterator.emptyIterator();
+            }
+            keyFilters.add(VariantSqlQueryParser.buildKeyFilter(ascending ? ">" : "<", lastSkipped));
+        }
+
+        QueryOptions splitOptions = new QueryOptions(options);
+        splitOptions.remove(QueryOptions.SKIP);
+        List<String> returnedSamples = getReturnedSamplesList(query, options);
+
+        java.sql.Connection connection;
+        try {
+            connection = phoenixHelper.newJdbcConnection(this.configuration);
+        } catch (SQLException | ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+        List<Callable<VariantDBIterator>> splits = new ArrayList<>(splitFilters.size());
+        for (String splitFilter : splitFilters) {
+            List<String> filters = new ArrayList<>(keyFilters);
+            filters.add(splitFilter);
+            String sql = queryParser.parse(query, splitOptions, filters);
+            splits.add(() -> splitIterator(connection, sql, splitOptions, returnedSamples));
+        }
+        if (sorted && !ascending) {
+            Collections.reverse(splits);
+        }
+        logger.info("Parallel query with {} scanners over {} splits", numScanners, splits.size());
+        try {
+            VariantHBaseParallelIterator iterator = new VariantHBaseParallelIterator(splits, getParallelExecutor(), numScanners,
+                    parallelBufferSize, sorted, limit);
+            iterator.addCloseable(connection);
+            return iterator;
+        } catch (RuntimeException e) {
+            try {
+                close(connection);
+            } catch (SQLException e1) {
+                e.addSuppressed(e1);
+            }
+            throw e;
+        }
+    }
+
+    private VariantDBIterator splitIterator(java.sql.Connection connection, String sql, QueryOptions options,
+                                            List<String> returnedSamples) throws SQLException {
+        Statement statement;
+        ResultSet resultSet;
+        // Phoenix connections are not thread safe. Splits share the connection, but create and execute
+        // their statements one at a time. Each split reads from its own statement.
+        synchronized (connection) {
+            statement = connection.createStatement(); // Statement closed by iterator
+            try {
+                statement.setFetchSize(options.getInt("batchSize", -1));
+                resultSet = statement.executeQuery(sql); // RS closed by iterator
+            } catch (SQLException | RuntimeException e) {
+                statement.close();
+                throw e;
+            }
+        }
+        return new VariantHBaseResultSetIterator(statement, resultSet, genomeHelper, getStudyConfigurationManager(), options,
+                returnedSamples);
+    }
+
+    /**
+     * Get the key of the last variant to skip. Only the primary key is read, so no variant is converted.
+     *
+     * @param query       Query
+     * @param keyFilters  Extra filters over the primary key
+     * @param skip        Number of variants to skip
+     * @param ascending   Order of the variants
+     * @return Last variant to skip, or null if there are not enough variants
+     */
+    private Variant getSkipKey(Query query, List<String> keyFilters, int skip, boolean ascending) {
+        String sql = queryParser.parseSkipKey(query, keyFilters, skip, ascending);
+        logger.debug(sql);
+        try (Statement statement = getJdbcConnection().createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            Variant variant = null;
+            int count = 0;
+            while (resultSet.next()) {
+                count++;
+                variant = new Variant(resultSet.getString(1), resultSet.getInt(2), resultSet.getString(3), resultSet.getString(4));
+            }
+            // Either the row from the server side offset, or the last of the skipped rows
+            if (clientSideSkip && count < skip) {
+                return null;
+            }
+            return variant;
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Split the variants table by region boundaries. Consecutive regions are grouped to get at most
+     * {@link #SPLITS_PER_SCANNER} splits for each scanner.
+     *
+     * @param numScanners Number of concurrent scanners
+     * @return Row key range filter of each split, in row key order
+     */
+    private List<String> getSplitFilters(int numScanners) {
+        List<Region> boundaries = new ArrayList<>();
+        try (RegionLocator regionLocator = getConnection().getRegionLocator(TableName.valueOf(variantTable))) {
+            byte[][] startKeys = regionLocator.getStartKeys();
+            int step = Math.max(1, (int) Math.ceil(((double) startKeys.length) / (numScanners * SPLITS_PER_SCANNER)));
+            for (int i = step; i < startKeys.length; i += step) {
+                Region boundary = getSplitBoundary(startKeys[i]);
+                if (boundary != null) {
+                    boundaries.add(boundary);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        List<String> filters = new ArrayList<>(boundaries.size() + 1);
+        for (int i = 0; i <= boundaries.size(); i++) {
+            List<String> range = new ArrayList<>(2);
+            if (i > 0) {
+                Region from = boundaries.get(i - 1);
+                range.add(VariantSqlQueryParser.buildKeyFilter(">=", from.getChromosome(), from.getStart()));
+            }
+            if (i < boundaries.size()) {
+                Region to = boundaries.get(i);
+                range.add(VariantSqlQueryParser.buildKeyFilter("<", to.getChromosome(), to.getStart()));
+            }
+            filters.add(range.isEmpty() ? "TRUE" : String.join(" AND ", range));
+        }
+        return filters;
+    }
+
+    /**
+     * Read the (chromosome, position) prefix of a region start key. Keys that can not be read are not used as boundaries.
+     *
+     * @param startKey Region start key
+     * @return Chromosome and start of the boundary, or null
+     */
+    private Region getSplitBoundary(byte[] startKey) {
+        int separator = ArrayUtils.indexOf(startKey, (byte) 0);
+        if (separator <= 0) {
+            return null;
+        }
+        String chromosome = Bytes.toString(startKey, 0, separator);
+        if (chromosome.contains("'")) {
+            return null;
         }
+        int position = 0;
+        int intSize = PUnsignedInt.INSTANCE.getByteSize();
+        if (startKey.length >= separator + 1 + intSize) {
+            position = (Integer) PUnsignedInt.INSTANCE.toObject(startKey, separator + 1, intSize, PUnsignedInt.INSTANCE);
+        }
+        return new Region(chromosome, position, position);
+    }
+
+    /**
+     * Queries without region, chromosome, gene or id filters are read from the whole table.
+     *
+     * @param query Query
+     * @return If the query is genome wide
+     */
+    private boolean isGenomeWide(Query query) {
+        return !VariantDBAdaptorUtils.isValidParam(query, REGION)
+                && !VariantDBAdaptorUtils.isValidParam(query, VariantQueryParams.CHROMOSOME)
+                && !VariantDBAdaptorUtils.isValidParam(query, GENE)
+                && !VariantDBAdaptorUtils.isValidParam(query, ID);
     }
 
     @Override
@@ -470,26 +765,234 @@ public class VariantHadoopDBAdaptor implements VariantDBAdaptor {
 
     @Override
     public QueryResult getFrequency(Query query, Region region, int regionIntervalSize) {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException();
+        QueryOptions keyOptions = new QueryOptions("region", region.toString()).append("interval", regionIntervalSize);
+        return cacheManager.cached(CacheManager.VARIANT, "frequency", getStudyConfigurationManager(), query, keyOptions,
+                () -> getFrequencyQueryResult(query, region, regionIntervalSize));
+    }
+
+    private QueryResult getFrequencyQueryResult(Query query, Region region, int regionIntervalSize) {
+        // If interval is not provided is set to the value that returns 200 values
+        if (regionIntervalSize <= 0) {
+            regionIntervalSize = (region.getEnd() - region.getStart()) / 200;
+        }
+        long startTime = System.currentTimeMillis();
+        String sql = queryParser.parseFrequency(query == null ? new Query() : query, region, regionIntervalSize);
+        logger.info(sql);
+
+        Map<Long, Long> counts = new HashMap<>();
+        try (Statement statement = getJdbcConnection().createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            while (resultSet.next()) {
+                counts.merge(resultSet.getLong(1), resultSet.getLong(2), Long::sum);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        int dbTime = (int) (System.currentTimeMillis() - startTime);
+
+        // Same output as the VariantMongoDBAdaptor, with the intervals without variants
+        List<ObjectMap> intervals = new ArrayList<>();
+        int firstChunkId = region.getStart() / regionIntervalSize;
+        int lastChunkId = region.getEnd() / regionIntervalSize;
+        for (int chunkId = firstChunkId; chunkId <= lastChunkId; chunkId++) {
+            Long count = counts.get((long) chunkId);
+            intervals.add(new ObjectMap("_id", chunkId)
+                    .append("start", chunkId == 0 ? 1 : chunkId * regionIntervalSize)
+                    .append("end", chunkId * regionIntervalSize + regionIntervalSize - 1)
+                    .append("chromosome", region.getChromosome())
+                    .append("features_count", count == null ? 0 : Math.log(count)));
+        }
+        return new QueryResult<>(region.toString(), dbTime, intervals.size(), intervals.size(), null, null, intervals);
     }
 
     @Override
     public QueryResult rank(Query query, String field, int numResults, boolean asc) {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException();
+        QueryOptions options = new QueryOptions();
+        options.put("limit", numResults);
+        options.put("count", true);
+        options.put("order", (asc) ? 1 : -1);
+
+        return groupBy(query, field, options);
     }
 
     @Override
     public QueryResult groupBy(Query query, String field, QueryOptions options) {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException();
+        return cacheManager.cached(CacheManager.VARIANT, "groupBy." + field, getStudyConfigurationManager(), query, options,
+                () -> getGroupByQueryResult(query == null ? new Query() : query, field, options));
+    }
+
+    private QueryResult getGroupByQueryResult(Query query, String field, QueryOptions options) {
+        if (options == null) {
+            options = new QueryOptions();
+        }
+        long startTime = System.currentTimeMillis();
+        boolean count = options.getBoolean("count", false);
+        int order = options.getInt("order", -1);
+        int skip = Math.max(0, options.getInt(QueryOptions.SKIP, 0));
+        int limit = options.getInt(QueryOptions.LIMIT, -1) > 0 ? options.getInt(QueryOptions.LIMIT) : 10;
+
+        Comparator<Map.Entry<Object, Long>> comparator = Map.Entry.comparingByValue();
+        if (order < 0) {
+            comparator = comparator.reversed();
+        }
+        // Sort ties by id, so the results are stable
+        comparator = comparator.thenComparing(entry -> entry.getKey().toString());
+
+        List<ObjectMap> groups = new ArrayList<>(limit);
+        countByField(query, field).entrySet().stream()
+                .sorted(comparator)
+                .skip(skip)
+                .limit(limit)
+                .forEach(entry -> groups.add(new ObjectMap("id", entry.getKey()).append("count", entry.getValue())));
+
+        if (!count && !groups.isEmpty()) {
+            Map<Object, List<ObjectMap>> groupValues = getGroupValues(query, getGroupByColumn(field), groups);
+            for (ObjectMap group : groups) {
+                group.put("values", groupValues.get(group.get("id")));
+            }
+        }
+
+        return new QueryResult<>("groupBy", ((int) (System.currentTimeMillis() - startTime)), groups.size(), groups.size(),
+                "", "", groups);
     }
 
     @Override
     public QueryResult groupBy(Query query, List<String> fields, QueryOptions options) {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException();
+        String warningMsg = "Unimplemented VariantHadoopDBAdaptor::groupBy list of fields. Using field[0] : '" + fields.get(0) + "'";
+        logger.warn(warningMsg);
+        QueryResult queryResult = groupBy(query, fields.get(0), options);
+        queryResult.setWarningMsg(warningMsg);
+        return queryResult;
+    }
+
+    /**
+     * Count the variants for each value of the field.
+     *
+     * Phoenix aggregates in the RegionServers by the whole value of the column, so the arrays are split here.
+     * Each variant is counted once per distinct value, as in the VariantMongoDBAdaptor.
+     *
+     * @param query Query
+     * @param field Field to group by
+     * @return Number of variants by value
+     */
+    private Map<Object, Long> countByField(Query query, String field) {
+        Column column = getGroupByColumn(field);
+        Predicate<Object> filter = getGroupByFilter(field);
+        String sql = queryParser.parseGroupBy(query, column);
+        logger.info(sql);
+
+        Map<Object, Long> counts = new HashMap<>();
+        try (Statement statement = getJdbcConnection().createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            while (resultSet.next()) {
+                long count = resultSet.getLong(2);
+                if (column.getPDataType().isArrayType()) {
+                    java.sql.Array array = resultSet.getArray(1);
+                    if (array == null) {
+                        continue;
+                    }
+                    Set<Object> values = new HashSet<>(Arrays.asList((Object[]) array.getArray()));
+                    for (Object value : values) {
+                        if (value != null && filter.test(value)) {
+                            counts.merge(value, count, Long::sum);
+                        }
+                    }
+                } else {
+                    Object value = resultSet.getObject(1);
+                    if (value != null && filter.test(value)) {
+                        counts.merge(value, count, Long::sum);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        return counts;
+    }
+
+    /**
+     * Read the variants of all the groups with one query, instead of one query per group.
+     * The query is limited to the sum of the counts of the groups, as each variant belongs to at least one group.
+     *
+     * @param query  Query
+     * @param column Grouped column
+     * @param groups Groups, with id and count
+     * @return Variants of each group, by group id
+     */
+    private Map<Object, List<ObjectMap>> getGroupValues(Query query, Column column, List<ObjectMap> groups) {
+        Map<Object, List<ObjectMap>> groupValues = new HashMap<>(groups.size());
+        long numValues = 0;
+        for (ObjectMap group : groups) {
+            groupValues.put(group.get("id"), new ArrayList<>());
+            numValues += group.getLong("count");
+        }
+        String sql = queryParser.parseGroupValues(query, column, groupValues.keySet(), (int) Math.min(numValues, Integer.MAX_VALUE));
+        logger.debug(sql);
+        try (Statement statement = getJdbcConnection().createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            while (resultSet.next()) {
+                Variant variant = new Variant(resultSet.getString(1), resultSet.getInt(2), resultSet.getString(3),
+                        resultSet.getString(4));
+                ObjectMap value = new ObjectMap("start", variant.getStart())
+                        .append("end", variant.getEnd())
+                        .append("chromosome", variant.getChromosome())
+                        .append("alternate", variant.getAlternate())
+                        .append("reference", variant.getReference());
+                Collection<Object> rowGroups;
+                if (column.getPDataType().isArrayType()) {
+                    java.sql.Array array = resultSet.getArray(5);
+                    rowGroups = array == null ? Collections.emptySet() : new HashSet<>(Arrays.asList((Object[]) array.getArray()));
+                } else {
+                    rowGroups = Collections.singleton(resultSet.getObject(5));
+                }
+                for (Object rowGroup : rowGroups) {
+                    List<ObjectMap> values = groupValues.get(rowGroup);
+                    if (values != null) {
+                        values.add(value);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        return groupValues;
+    }
+
+    private static Column getGroupByColumn(String field) {
+        switch (field) {
+            case "chromosome":
+                return CHROMOSOME;
+            case "type":
+                return TYPE;
+            case "ct":
+            case "consequence_type":
+                return SO;
+            case "biotype":
+                return BIOTYPE;
+            case "ensemblTranscript":
+                return TRANSCRIPTS;
+            case "gene":
+            case "ensemblGene":
+            default:
+                return GENES;
+        }
+    }
+
+    /**
+     * The GENES column contains both the gene names and the Ensembl gene ids.
+     * As in the VariantMongoDBAdaptor, "gene" and "ensemblGene" group by the Ensembl id, and any other field by the gene name.
+     *
+     * @param field Field to group by
+     * @return Filter for the values of the grouped column
+     */
+    private static Predicate<Object> getGroupByFilter(String field) {
+        if (getGroupByColumn(field) != GENES) {
+            return value -> true;
+        } else if (field.equals("gene") || field.equals("ensemblGene")) {
+            return value -> ENSEMBL_GENE_ID.matcher(value.toString()).matches();
+        } else {
+            return value -> !ENSEMBL_GENE_ID.matcher(value.toString()).matches();
+        }
     }
 
     /**
@@ -521,6 +1024,7 @@ public class VariantHadoopDBAdaptor implements VariantDBAdaptor {
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
+        cacheManager.invalidate();
         return new QueryResult<>("Update annotations", (int) (System.currentTimeMillis() - start), 0, 0, "", "", Collections.emptyList());
     }
 
@@ -571,6 +1075,7 @@ public class VariantHadoopDBAdaptor implements VariantDBAdaptor {
         } catch (SQLException | ClassNotFoundException | IOException e) {
             throw new RuntimeException(e);
         }
+        cacheManager.invalidate();
         return new QueryResult("Update annotations", (int) (System.currentTimeMillis() - start), 0, 0, "", "", Collections.emptyList());
     }
 
@@ -29,13 +29,21 @@ import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Admin;
 import org.apache.hadoop.hbase.client.Connection;
 import org.apache.hadoop.hbase.client.ConnectionFactory;
+import org.apache.hadoop.hbase.client.RegionLocator;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
 import org.apache.hadoop.hbase.io.compress.Compression;
 import org.apache.hadoop.hbase.io.compress.Compression.Algorithm;
+import org.apache.hadoop.hbase.mapreduce.HFileOutputFormat2;
+import org.apache.hadoop.hbase.mapreduce.LoadIncrementalHFiles;
 import org.apache.hadoop.hbase.mapreduce.TableMapReduceUtil;
 import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 import org.apache.hadoop.util.GenericOptionsParser;
 import org.apache.hadoop.util.Tool;
 import org.apache.hadoop.util.ToolRunner;
@@ -46,10 +54,7 @@ import org.opencb.biodata.models.variant.protobuf.VcfMeta;
 import org.opencb.opencga.storage.hadoop.utils.HBaseManager;
 import org.opencb.opencga.storage.hadoop.variant.GenomeHelper;
 import org.opencb.opencga.storage.hadoop.variant.adaptors.HadoopVariantSourceDBAdaptor;
-import org.opencb.opencga.storage.hadoop.variant.archive.mr.VariantToVcfSliceMapper;
-import org.opencb.opencga.storage.hadoop.variant.archive.mr.VcfSliceCombiner;
-import org.opencb.opencga.storage.hadoop.variant.archive.mr.VcfSliceReducer;
-import org.opencb.opencga.storage.hadoop.variant.archive.mr.VcfSliceWritable;
+import org.opencb.opencga.storage.hadoop.variant.archive.mr.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -72,6 +77,8 @@ public class ArchiveDriver extends Configured implements Tool {
     public static final String CONFIG_ARCHIVE_TABLE_PRESPLIT_SIZE = "opencga.archive.table.presplit.size";
     public static final String CONFIG_ARCHIVE_CHUNK_SIZE          = "opencga.archive.chunk_size";
     public static final String CONFIG_ARCHIVE_ROW_KEY_SEPARATOR   = "opencga.archive.row_key_sep";
+    public static final String CONFIG_ARCHIVE_BULK_LOAD           = "opencga.archive.bulk_load";
+    public static final String CONFIG_ARCHIVE_BULK_LOAD_TMP_DIR   = "opencga.archive.bulk_load.tmp_dir";
 
     public static final int DEFAULT_CHUNK_SIZE = 1000;
 
@@ -128,8 +135,16 @@ public class ArchiveDriver extends Configured implements Tool {
         job.setCombinerClass(VcfSliceCombiner.class);
 
 
-        TableMapReduceUtil.initTableReducerJob(tableName, VcfSliceReducer.class, job, null, null, null, null,
-                conf.getBoolean(GenomeHelper.CONFIG_HBASE_ADD_DEPENDENCY_JARS, true));
+        boolean bulkLoad = conf.getBoolean(CONFIG_ARCHIVE_BULK_LOAD, false);
+        Path bulkLoadDir = null;
+        if (bulkLoad) {
+            bulkLoadDir = new Path(conf.get(CONFIG_ARCHIVE_BULK_LOAD_TMP_DIR, conf.get("hbase.fs.tmp.dir", "/tmp")),
+                    "opencga_archive_" + studyId + "_" + fileId + "_" + System.currentTimeMillis());
+            initHFileReducerJob(job, tableName, bulkLoadDir);
+        } else {
+            TableMapReduceUtil.initTableReducerJob(tableName, VcfSliceReducer.class, job, null, null, null, null,
+                    conf.getBoolean(GenomeHelper.CONFIG_HBASE_ADD_DEPENDENCY_JARS, true));
+        }
         job.setMapOutputValueClass(VcfSliceWritable.class);
 
         Thread hook = new Thread(() -> {
@@ -145,12 +160,64 @@ public class ArchiveDriver extends Configured implements Tool {
         boolean succeed = job.waitForCompletion(true);
         Runtime.getRuntime().removeShutdownHook(hook);
 
+        if (bulkLoad) {
+            if (succeed) {
+                bulkLoad(conf, tableName, bulkLoadDir);
+            }
+            FileSystem fs = bulkLoadDir.getFileSystem(conf);
+            if (fs.exists(bulkLoadDir) && !fs.delete(bulkLoadDir, true)) {
+                LOGGER.warn("Unable to delete bulk load directory " + bulkLoadDir);
+            }
+        }
+
         try (HadoopVariantSourceDBAdaptor manager = new HadoopVariantSourceDBAdaptor(conf)) {
             manager.updateLoadedFilesSummary(studyId, Collections.singletonList(fileId));
         }
         return succeed ? 0 : 1;
     }
 
+    /**
+     * Write the slices into HFiles, one reducer per region of the archive table, instead of sending Puts to the
+     * RegionServers. This skips the WAL, the memstore and the flushes of the live cluster.
+     *
+     * @param job           Job
+     * @param tableName     Archive table
+     * @param outputDir     Directory for the HFiles
+     * @throws IOException  if the table regions can not be read
+     */
+    private void initHFileReducerJob(Job job, String tableName, Path outputDir) throws IOException {
+        job.setMapOutputKeyClass(ImmutableBytesWritable.class);
+        job.setMapOutputValueClass(VcfSliceWritable.class);
+        try (Connection con = ConnectionFactory.createConnection(job.getConfiguration());
+             Table table = con.getTable(TableName.valueOf(tableName));
+             RegionLocator regionLocator = con.getRegionLocator(TableName.valueOf(tableName))) {
+            // Sets the output format, the total order partitioner and one reducer per region
+            HFileOutputFormat2.configureIncrementalLoad(job, table, regionLocator);
+        }
+        // Not a known map output value. Set the reducer after the incremental load configuration.
+        job.setReducerClass(VcfSliceHFileReducer.class);
+        FileOutputFormat.setOutputPath(job, outputDir);
+    }
+
+    /**
+     * Move the HFiles generated by the job into the regions of the archive table.
+     *
+     * @param conf          Configuration
+     * @param tableName     Archive table
+     * @param hFilesDir     Directory with the HFiles
+     * @throws Exception    if the HFiles can not be loaded
+     */
+    private void bulkLoad(Configuration conf, String tableName, Path hFilesDir) throws Exception {
+        long start = System.currentTimeMillis();
+        try (Connection con = ConnectionFactory.createConnection(conf);
+             Admin admin = con.getAdmin();
+             Table table = con.getTable(TableName.valueOf(tableName));
+             RegionLocator regionLocator = con.getRegionLocator(TableName.valueOf(tableName))) {
+            new LoadIncrementalHFiles(conf).doBulkLoad(hFilesDir, admin, table, regionLocator);
+        }
+        LOGGER.info("Bulk load into table '{}' in {}s", tableName, (System.currentTimeMillis() - start) / 1000.0);
+    }
+
     public static boolean createArchiveTableIfNeeded(GenomeHelper genomeHelper, String tableName) throws IOException {
         try (Connection con = ConnectionFactory.createConnection(genomeHelper.getConf())) {
             return createArchiveTableIfNeeded(genomeHelper, tableName, con);
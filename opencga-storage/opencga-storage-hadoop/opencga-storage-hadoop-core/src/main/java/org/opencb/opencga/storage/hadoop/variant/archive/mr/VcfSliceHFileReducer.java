@@ -0,0 +1,71 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.hadoop.variant.archive.mr;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.KeyValueUtil;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.opencb.biodata.models.variant.protobuf.VcfSliceProtos.VcfSlice;
+import org.opencb.biodata.tools.variant.converters.proto.VariantToVcfSliceConverter;
+import org.opencb.biodata.tools.variant.converters.proto.VcfSliceToVariantListConverter;
+import org.opencb.opencga.storage.hadoop.variant.archive.ArchiveHelper;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Same as {@link VcfSliceReducer}, but writes KeyValues to be stored in HFiles by the HFileOutputFormat2, instead of
+ * sending Puts to the RegionServers.
+ *
+ * Rows are received sorted and partitioned by region, and each row contains only the column of the loaded file.
+ *
+ * Created on 18/10/26.
+ */
+public class VcfSliceHFileReducer extends Reducer<ImmutableBytesWritable, VcfSliceWritable, ImmutableBytesWritable, KeyValue> {
+
+    private ArchiveHelper helper;
+
+    private VcfSliceToVariantListConverter converterFromSlice;
+    private VariantToVcfSliceConverter converterToSlice;
+
+    @Override
+    protected void setup(Context context) throws IOException, InterruptedException {
+        super.setup(context);
+
+        helper = new ArchiveHelper(context.getConfiguration());
+        converterFromSlice = new VcfSliceToVariantListConverter(helper.getMeta());
+        converterToSlice = new VariantToVcfSliceConverter();
+    }
+
+    @Override
+    protected void reduce(ImmutableBytesWritable key, Iterable<VcfSliceWritable> values, Context context)
+            throws IOException, InterruptedException {
+
+        VcfSlice joinedSlice = VcfSliceReducer.joinSlices(values, context, converterFromSlice, converterToSlice);
+
+        Put put = helper.wrap(joinedSlice);
+        for (List<Cell> cells : put.getFamilyCellMap().values()) {
+            for (Cell cell : cells) {
+                context.write(key, KeyValueUtil.ensureKeyValue(cell));
+            }
+        }
+    }
+
+}
@@ -19,6 +19,7 @@ package org.opencb.opencga.storage.hadoop.variant.archive.mr;
 import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
 import org.apache.hadoop.hbase.mapreduce.TableReducer;
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
 import org.opencb.biodata.models.variant.Variant;
 import org.opencb.biodata.models.variant.protobuf.VcfSliceProtos.VcfSlice;
 import org.opencb.biodata.tools.variant.converters.proto.VariantToVcfSliceConverter;
@@ -56,6 +57,26 @@ public class VcfSliceReducer extends TableReducer<ImmutableBytesWritable, VcfSli
     protected void reduce(ImmutableBytesWritable key, Iterable<VcfSliceWritable> values, Context context)
             throws IOException, InterruptedException {
 
+        VcfSlice joinedSlice = joinSlices(values, context, converterFromSlice, converterToSlice);
+
+        Put put = helper.wrap(joinedSlice);
+
+        context.write(key, put);
+
+
+    }
+
+    /**
+     * Join all the slices with the same row key into one slice.
+     *
+     * @param values                Slices from the mappers
+     * @param context               Task context, to update the counters
+     * @param converterFromSlice    Slice to variants converter
+     * @param converterToSlice      Variants to slice converter
+     * @return Joined slice
+     */
+    static VcfSlice joinSlices(Iterable<VcfSliceWritable> values, TaskInputOutputContext<?, ?, ?, ?> context,
+                               VcfSliceToVariantListConverter converterFromSlice, VariantToVcfSliceConverter converterToSlice) {
         List<VcfSlice> slices = new LinkedList<>();
 
         for (VcfSliceWritable vcfSlice : values) {
@@ -77,12 +98,7 @@ public class VcfSliceReducer extends TableReducer<ImmutableBytesWritable, VcfSli
 
         context.getCounter("OPENCGA.HBASE", "VCF_REDUCE_COUNT").increment(1);
         context.getCounter("OPENCGA.HBASE", "VCF_REDUCE_COUNT_" + slices.size()).increment(1);
-
-        Put put = helper.wrap(joinedSlice);
-
-        context.write(key, put);
-
-
+        return joinedSlice;
     }
 
     @Override
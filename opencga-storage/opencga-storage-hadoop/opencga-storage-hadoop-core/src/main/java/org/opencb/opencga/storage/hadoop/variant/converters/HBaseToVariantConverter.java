@@ -35,13 +35,13 @@ import org.opencb.commons.datastore.core.QueryResult;
 import org.opencb.opencga.storage.core.metadata.StudyConfiguration;
 import org.opencb.opencga.storage.core.metadata.StudyConfigurationManager;
 import org.opencb.opencga.storage.hadoop.variant.GenomeHelper;
+import org.opencb.opencga.storage.hadoop.variant.index.SampleIdSet;
 import org.opencb.opencga.storage.hadoop.variant.index.VariantTableHelper;
 import org.opencb.opencga.storage.hadoop.variant.index.VariantTableStudyRow;
 import org.opencb.opencga.storage.hadoop.variant.metadata.HBaseStudyConfigurationManager;
 import org.opencb.opencga.storage.hadoop.variant.converters.annotation.HBaseToVariantAnnotationConverter;
 import org.opencb.opencga.storage.hadoop.variant.index.phoenix.VariantPhoenixHelper;
 import org.opencb.opencga.storage.hadoop.variant.converters.stats.HBaseToVariantStatsConverter;
-import org.opencb.opencga.storage.hadoop.variant.models.protobuf.SampleList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -64,7 +64,12 @@ public class HBaseToVariantConverter implements Converter<Result, Variant> {
     private final GenomeHelper genomeHelper;
     private final QueryOptions scmOptions = new QueryOptions(StudyConfigurationManager.READ_ONLY, true)
             .append(StudyConfigurationManager.CACHED, true);
-    private final Map<Integer, LinkedHashMap<String, Integer>> returnedSamplesPositionMap = new HashMap<>();
+    private final Map<Integer, SampleLayout> sampleLayouts = new HashMap<>();
+    // Reusable buffers, by returned sample position
+    private String[] genotypesBuffer = new String[0];
+    private String[] filtersBuffer = new String[0];
+    private final SampleIdSet samplesWithVariant = new SampleIdSet();
+    private final SampleIdSet notPassSamples = new SampleIdSet();
     private final Logger logger = LoggerFactory.getLogger(HBaseToVariantConverter.class);
 
     private List<String> returnedSamples = Collections.emptyList();
@@ -163,8 +168,9 @@ public class HBaseToVariantConverter implements Converter<Result, Variant> {
                 throw new IllegalStateException("No study found for study ID: " + studyId);
             }
             StudyConfiguration studyConfiguration = queryResult.first();
+            SampleLayout layout = getSampleLayout(studyConfiguration);
 
-            LinkedHashMap<String, Integer> returnedSamplesPosition = getReturnedSamplesPosition(studyConfiguration);
+            LinkedHashMap<String, Integer> returnedSamplesPosition = layout.samplesPosition;
             if (mutableSamplesPosition) {
                 returnedSamplesPosition = new LinkedHashMap<>(returnedSamplesPosition);
             }
@@ -173,41 +179,34 @@ public class HBaseToVariantConverter implements Converter<Result, Variant> {
 //                throw new IllegalStateException("No samples found for study!!!");
 //            }
 
-            BiMap<String, Integer> loadedSamples = StudyConfiguration.getIndexedSamples(studyConfiguration);
-
-            List<String> format = Arrays.asList(VariantMerger.GT_KEY, VariantMerger.GENOTYPE_FILTER_KEY);
-            int gtIdx = format.indexOf(VariantMerger.GT_KEY);
-            int ftIdx = format.indexOf(VariantMerger.GENOTYPE_FILTER_KEY);
-
-            int loadedSamplesSize = loadedSamples.size();
+            int loadedSamplesSize = layout.numLoadedSamples;
             calculatePassCallRates(row, attributesMap, loadedSamplesSize);
 
-            Integer nSamples = returnedSamplesPosition.size();
-
-            @SuppressWarnings ("unchecked")
-            List<String>[] samplesDataArray = new List[nSamples];
+            int nSamples = layout.numReturnedSamples;
+            String[] genotypes = getBuffer(nSamples);
+            String[] filters = filtersBuffer;
+            Arrays.fill(genotypes, 0, nSamples, null);
+            Arrays.fill(filters, 0, nSamples, VariantMerger.PASS_VALUE);
+            samplesWithVariant.clear();
 
-            Set<Integer> sampleWithVariant = new HashSet<>();
-            BiMap<Integer, String> mapSampleIds = studyConfiguration.getSampleIds().inverse();
             for (String genotype : row.getGenotypes()) {
-                sampleWithVariant.addAll(row.getSampleIds(genotype));
+                // Union of the sorted sets, without boxing the samples
+                row.addSampleIds(genotype, samplesWithVariant);
                 if (genotype.equals(VariantTableStudyRow.OTHER)) {
                     continue; // skip OTHER -> see Complex type
                 }
                 for (Integer sampleId : row.getSampleIds(genotype)) {
-                    String sampleName = mapSampleIds.get(sampleId);
-                    Integer sampleIdx = returnedSamplesPosition.get(sampleName);
-                    if (sampleIdx == null) {
+                    int sampleIdx = layout.getPosition(sampleId);
+                    if (sampleIdx < 0) {
                         continue;   //Sample may not be required. Ignore this sample.
                     }
-                    List<String> lst = Arrays.asList(genotype, VariantMerger.PASS_VALUE);
-                    samplesDataArray[sampleIdx] = lst;
+                    genotypes[sampleIdx] = genotype;
                 }
             }
 
             // Load Secondary Index
-            List<VariantProto.AlternateCoordinate> s2cgt = row.getComplexVariant().getSecondaryAlternatesList();
-            int secondaryAlternatesCount = row.getComplexVariant().getSecondaryAlternatesCount();
+            List<VariantProto.AlternateCoordinate> s2cgt = row.getSecondaryAlternates();
+            int secondaryAlternatesCount = s2cgt.size();
             List<AlternateCoordinate> secAltArr = new ArrayList<AlternateCoordinate>(secondaryAlternatesCount);
             if (secondaryAlternatesCount > 0) {
                 for (VariantProto.AlternateCoordinate altcoord : s2cgt) {
@@ -222,10 +221,10 @@ public class HBaseToVariantConverter implements Converter<Result, Variant> {
                 }
             }
             // Load complex genotypes
-            for (Entry<Integer, String> entry : row.getComplexVariant().getSampleToGenotype().entrySet()) {
-                sampleWithVariant.add(entry.getKey());
-                Integer samplePosition = getSamplePosition(returnedSamplesPosition, mapSampleIds, entry.getKey());
-                if (samplePosition == null) {
+            for (Entry<Integer, String> entry : row.getSampleToGenotype().entrySet()) {
+                samplesWithVariant.add(entry.getKey());
+                int samplePosition = layout.getPosition(entry.getKey());
+                if (samplePosition < 0) {
                     continue;   //Sample may not be required. Ignore this sample.
                 }
                 String genotype = entry.getValue();
@@ -237,46 +236,27 @@ public class HBaseToVariantConverter implements Converter<Result, Variant> {
                 } else {
                     returnedGenotype = genotype;
                 }
-                samplesDataArray[samplePosition] = Arrays.asList(returnedGenotype, VariantMerger.PASS_VALUE);
-            }
-
-            // Fill gaps (with HOM_REF)
-            int gapCounter = 0;
-            for (int i = 0; i < samplesDataArray.length; i++) {
-                if (samplesDataArray[i] == null) {
-                    ++gapCounter;
-                    samplesDataArray[i] = Arrays.asList(VariantTableStudyRow.HOM_REF, VariantMerger.PASS_VALUE);
-                }
+                genotypes[samplePosition] = returnedGenotype;
             }
 
             // Set pass field
-            int passCount = loadedSamplesSize;
-            for (Entry<String, SampleList> entry : row.getComplexFilter().getFilterNonPass().entrySet()) {
+            for (Entry<String, SampleIdSet> entry : row.getFilterToSamples().entrySet()) {
                 String filterString = entry.getKey();
-                passCount -= entry.getValue().getSampleIdsCount();
-                for (Integer id : entry.getValue().getSampleIdsList()) {
-                    Integer samplePosition = getSamplePosition(returnedSamplesPosition, mapSampleIds, id);
-                    if (samplePosition == null) {
+                for (Integer id : entry.getValue()) {
+                    int samplePosition = layout.getPosition(id);
+                    if (samplePosition < 0) {
                         continue; // Sample may not be required. Ignore this sample.
                     }
-                    samplesDataArray[samplePosition].set(ftIdx, filterString);
+                    filters[samplePosition] = filterString;
                 }
             }
 
-            // Check pass count
-            if (passCount != row.getPassCount()) {
-                String message = String.format(
-                        "Error parsing variant %s. Pass count %s does not match filter fill count: %s using %s loaded samples.",
-                        row.toString(), row.getPassCount(), passCount, loadedSamplesSize);
-                wrongVariant(message);
-            }
-
             // Check homRef count
             int homRefCount = loadedSamplesSize;
-            homRefCount -= sampleWithVariant.size();
+            homRefCount -= samplesWithVariant.size();
             if (homRefCount != row.getHomRefCount()) {
                 String message = "Wrong number of HomRef samples for variant " + variant + ". Got " + homRefCount + ", expect "
-                        + row.getHomRefCount() + ". Samples number: " + samplesDataArray.length + " , ";
+                        + row.getHomRefCount() + ". Samples number: " + nSamples + " , ";
                 message += "'" + VariantTableStudyRow.HOM_REF + "':" + row.getHomRefCount() + " , ";
                 for (String studyColumn : VariantTableStudyRow.GENOTYPE_COLUMNS) {
                     message += "'" + studyColumn + "':" + row.getSampleIds(studyColumn) + " , ";
@@ -284,7 +264,15 @@ public class HBaseToVariantConverter implements Converter<Result, Variant> {
                 wrongVariant(message);
             }
 
-            List<List<String>> samplesData = Arrays.asList(samplesDataArray);
+            // Fill gaps (with HOM_REF). All the samples data of the row share the same array
+            String[] samplesDataArray = new String[nSamples * SampleData.SIZE];
+            List<List<String>> samplesData = new ArrayList<>(nSamples);
+            for (int i = 0; i < nSamples; i++) {
+                int offset = i * SampleData.SIZE;
+                samplesDataArray[offset] = genotypes[i] == null ? VariantTableStudyRow.HOM_REF : genotypes[i];
+                samplesDataArray[offset + 1] = filters[i];
+                samplesData.add(new SampleData(samplesDataArray, offset));
+            }
 
             StudyEntry studyEntry;
             if (studyNameAsStudyId) {
@@ -294,7 +282,7 @@ public class HBaseToVariantConverter implements Converter<Result, Variant> {
             }
             studyEntry.setSortedSamplesPosition(returnedSamplesPosition);
             studyEntry.setSamplesData(samplesData);
-            studyEntry.setFormat(format);
+            studyEntry.setFormat(Arrays.asList(VariantMerger.GT_KEY, VariantMerger.GENOTYPE_FILTER_KEY));
             studyEntry.setFiles(Collections.singletonList(new FileEntry("", "", attributesMap)));
             studyEntry.setSecondaryAlternates(secAltArr);
 
@@ -324,6 +312,23 @@ public class HBaseToVariantConverter implements Converter<Result, Variant> {
 
     private void calculatePassCallRates(VariantTableStudyRow row, Map<String, String> attributesMap, int
             loadedSamplesSize) {
+        // Check the counters with the sample sets of the row. Samples not passing are the union of the filter sets.
+        notPassSamples.clear();
+        for (SampleIdSet samples : row.getFilterToSamples().values()) {
+            samples.addTo(notPassSamples);
+        }
+        int passCount = loadedSamplesSize - notPassSamples.size();
+        if (passCount != row.getPassCount()) {
+            wrongVariant(String.format(
+                    "Error parsing variant %s. Pass count %s does not match filter fill count: %s using %s loaded samples.",
+                    row.toString(), row.getPassCount(), passCount, loadedSamplesSize));
+        }
+        int callCount = loadedSamplesSize - row.getSampleIds(VariantTableStudyRow.NOCALL).size();
+        if (callCount != row.getCallCount()) {
+            wrongVariant(String.format(
+                    "Error parsing variant %s. Call count %s does not match no call samples: %s using %s loaded samples.",
+                    row.toString(), row.getCallCount(), callCount, loadedSamplesSize));
+        }
         attributesMap.put("PASS", row.getPassCount().toString());
         attributesMap.put("CALL", row.getCallCount().toString());
         double passRate = row.getPassCount().doubleValue() / loadedSamplesSize;
@@ -351,28 +356,155 @@ public class HBaseToVariantConverter implements Converter<Result, Variant> {
         }
     }
 
-    private Integer getSamplePosition(LinkedHashMap<String, Integer> returnedSamplesPosition, BiMap<Integer, String> mapSampleIds,
-                                      Integer sampleId) {
-        String sampleName = mapSampleIds.get(sampleId);
-        Integer samplePosition = returnedSamplesPosition.get(sampleName);
-        return samplePosition;
+    private String[] getBuffer(int nSamples) {
+        if (genotypesBuffer.length < nSamples) {
+            genotypesBuffer = new String[nSamples];
+            filtersBuffer = new String[nSamples];
+        }
+        return genotypesBuffer;
     }
 
     /**
-     * Creates a SORTED MAP with the required samples position.
+     * Get the sample layout of the study, computing it again if the StudyConfiguration has changed.
      *
      * @param studyConfiguration Study Configuration
-     * @return Sorted linked hash map
+     * @return Sample layout
      */
-    private LinkedHashMap<String, Integer> getReturnedSamplesPosition(StudyConfiguration studyConfiguration) {
-        if (!returnedSamplesPositionMap.containsKey(studyConfiguration.getStudyId())) {
-            LinkedHashMap<String, Integer> samplesPosition = StudyConfiguration.getReturnedSamplesPosition(studyConfiguration,
-                    new LinkedHashSet<>(this.returnedSamples), StudyConfiguration::getIndexedSamples);
-            returnedSamplesPositionMap.put(studyConfiguration.getStudyId(), samplesPosition);
+    private SampleLayout getSampleLayout(StudyConfiguration studyConfiguration) {
+        SampleLayout layout = sampleLayouts.get(studyConfiguration.getStudyId());
+        if (layout == null || !Objects.equals(layout.timeStamp, studyConfiguration.getTimeStamp())) {
+            layout = new SampleLayout(studyConfiguration, returnedSamples);
+            sampleLayouts.put(studyConfiguration.getStudyId(), layout);
         }
-        return returnedSamplesPositionMap.get(studyConfiguration.getStudyId());
+        return layout;
     }
 
+    /**
+     * Precomputed position of the returned samples of a study, by sampleId.
+     * Computed again only when the StudyConfiguration timeStamp changes.
+     *
+     * Sample ids are global catalog ids, so they may be large and sparse. If the ids of the returned samples are compact,
+     * positions are in an array indexed by (sampleId - minId). Otherwise, in sorted arrays searched with a binary search.
+     */
+    static final class SampleLayout {
+        private static final int MAX_SPARSE_FACTOR = 8;
+        private static final int MIN_DENSE_SIZE = 64;
+
+        private final Long timeStamp;
+        private final int numLoadedSamples;
+        private final int numReturnedSamples;
+        private final LinkedHashMap<String, Integer> samplesPosition;
+        private final int minId;
+        // Position by (sampleId - minId). Null if the ids are sparse
+        private final int[] positionById;
+        // Sorted sample ids, with their positions. Only if the ids are sparse
+        private final int[] sortedIds;
+        private final int[] sortedPositions;
+
+        SampleLayout(StudyConfiguration studyConfiguration, List<String> returnedSamples) {
+            timeStamp = studyConfiguration.getTimeStamp();
+            numLoadedSamples = StudyConfiguration.getIndexedSamples(studyConfiguration).size();
+            samplesPosition = StudyConfiguration.getReturnedSamplesPosition(studyConfiguration,
+                    new LinkedHashSet<>(returnedSamples), StudyConfiguration::getIndexedSamples);
+            numReturnedSamples = samplesPosition.size();
+
+            BiMap<String, Integer> sampleIds = studyConfiguration.getSampleIds();
+            Map<Integer, Integer> positions = new HashMap<>(samplesPosition.size());
+            int min = Integer.MAX_VALUE;
+            int max = -1;
+            for (Entry<String, Integer> entry : samplesPosition.entrySet()) {
+                Integer sampleId = sampleIds.get(entry.getKey());
+                if (sampleId != null) {
+                    positions.put(sampleId, entry.getValue());
+                    min = Math.min(min, sampleId);
+                    max = Math.max(max, sampleId);
+                }
+            }
+            if (positions.isEmpty()) {
+                minId = 0;
+                positionById = new int[0];
+                sortedIds = null;
+                sortedPositions = null;
+            } else if ((long) max - min + 1 <= (long) positions.size() * MAX_SPARSE_FACTOR + MIN_DENSE_SIZE) {
+                minId = min;
+                positionById = new int[max - min + 1];
+                Arrays.fill(positionById, -1);
+                for (Entry<Integer, Integer> entry : positions.entrySet()) {
+                    positionById[entry.getKey() - min] = entry.getValue();
+                }
+                sortedIds = null;
+                sortedPositions = null;
+            } else {
+                minId = min;
+                positionById = null;
+                sortedIds = positions.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+                sortedPositions = new int[sortedIds.length];
+                for (int i = 0; i < sortedIds.length; i++) {
+                    sortedPositions[i] = positions.get(sortedIds[i]);
+                }
+            }
+        }
+
+        /**
+         * Position of the sample in the returned samples.
+         *
+         * @param sampleId Sample id
+         * @return Position of the sample in the returned samples, or -1 if not returned
+         */
+        int getPosition(int sampleId) {
+            if (positionById != null) {
+                int idx = sampleId - minId;
+                return idx >= 0 && idx < positionById.length ? positionById[idx] : -1;
+            } else {
+                int idx = Arrays.binarySearch(sortedIds, sampleId);
+                return idx >= 0 ? sortedPositions[idx] : -1;
+            }
+        }
+
+        // Number of allocated entries, for testing
+        int size() {
+            return positionById != null ? positionById.length : sortedIds.length;
+        }
+    }
+
+    /**
+     * Fixed size view of the data of one sample, [GT, FT], backed by the array of the whole row.
+     */
+    private static final class SampleData extends AbstractList<String> implements RandomAccess {
+        private static final int SIZE = 2;
+        private final String[] data;
+        private final int offset;
+
+        SampleData(String[] data, int offset) {
+            this.data = data;
+            this.offset = offset;
+        }
+
+        @Override
+        public String get(int index) {
+            return data[offset + checkIndex(index)];
+        }
+
+        @Override
+        public String set(int index, String element) {
+            int i = offset + checkIndex(index);
+            String previous = data[i];
+            data[i] = element;
+            return previous;
+        }
+
+        @Override
+        public int size() {
+            return SIZE;
+        }
+
+        private static int checkIndex(int index) {
+            if (index < 0 || index >= SIZE) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + SIZE);
+            }
+            return index;
+        }
+    }
 
     public static boolean isFailOnWrongVariants() {
         return failOnWrongVariants;
@@ -50,6 +50,7 @@ public abstract class AbstractVariantTableMapReduce extends AbstractHBaseMapRedu
     public static final String COUNTER_GROUP_NAME = "OPENCGA.HBASE";
     public static final String SPECIFIC_PUT = "opencga.storage.hadoop.hbase.merge.use_specific_put";
     public static final String ARCHIVE_GET_BATCH_SIZE = "opencga.storage.hadoop.hbase.merge.archive.scan.batchsize";
+    public static final String ARCHIVE_FETCH_THREADS = "opencga.storage.hadoop.hbase.merge.archive.fetch.threads";
 
     protected ArchiveResultToVariantConverter resultConverter;
     protected VariantMerger variantMerger;
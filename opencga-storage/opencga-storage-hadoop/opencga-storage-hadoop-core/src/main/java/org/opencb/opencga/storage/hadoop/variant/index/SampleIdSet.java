@@ -0,0 +1,344 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.hadoop.variant.index;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+
+/**
+ * Set of sample ids backed by a sorted array of ints.
+ *
+ * Sample ids are global catalog ids, so they can be large and sparse. A sorted array takes four bytes per sample in the
+ * set, independently of the value of the ids, instead of one boxed Integer and one hash entry per sample. Unions,
+ * differences and intersections with other SampleIdSets are linear merges. Iteration is always in ascending order.
+ *
+ * Sample ids are serialized sorted and delta encoded. Stored as protobuf packed varints, most of the deltas take one byte.
+ *
+ * Created on 18/10/26.
+ */
+public class SampleIdSet extends AbstractSet<Integer> {
+
+    private static final int[] EMPTY = new int[0];
+
+    private int[] ids;
+    private int size;
+
+    public SampleIdSet() {
+        ids = EMPTY;
+        size = 0;
+    }
+
+    public SampleIdSet(Collection<Integer> sampleIds) {
+        if (sampleIds instanceof SampleIdSet) {
+            SampleIdSet other = (SampleIdSet) sampleIds;
+            ids = Arrays.copyOf(other.ids, other.size);
+            size = other.size;
+        } else {
+            ids = new int[sampleIds.size()];
+            size = 0;
+            for (Integer sampleId : sampleIds) {
+                ids[size++] = sampleId;
+            }
+            Arrays.sort(ids, 0, size);
+            removeDuplicates();
+        }
+    }
+
+    /**
+     * Read a list of delta encoded sample ids.
+     *
+     * @param deltas    Deltas between the sorted sample ids. The first one is the first sample id
+     * @return New SampleIdSet
+     */
+    public static SampleIdSet fromDeltas(Collection<Integer> deltas) {
+        SampleIdSet set = new SampleIdSet();
+        set.ids = new int[deltas.size()];
+        int sampleId = 0;
+        for (Integer delta : deltas) {
+            sampleId += delta;
+            set.ids[set.size++] = sampleId;
+        }
+        set.removeDuplicates();
+        return set;
+    }
+
+    /**
+     * Delta encode the sample ids.
+     *
+     * @return Deltas between the sorted sample ids. The first one is the first sample id
+     */
+    public List<Integer> toDeltas() {
+        List<Integer> deltas = new ArrayList<>(size);
+        int last = 0;
+        for (int i = 0; i < size; i++) {
+            deltas.add(ids[i] - last);
+            last = ids[i];
+        }
+        return deltas;
+    }
+
+    /**
+     * Iterate over the sample ids in ascending order, without boxing.
+     *
+     * @param consumer Sample id consumer
+     */
+    public void forEachInt(IntConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            consumer.accept(ids[i]);
+        }
+    }
+
+    /**
+     * Add all the sample ids from this set to the given one.
+     *
+     * @param other Set to modify
+     */
+    public void addTo(SampleIdSet other) {
+        other.addAll(this);
+    }
+
+    /**
+     * Check if there is any common sample, without computing the intersection.
+     *
+     * @param other Other set
+     * @return If there is any sample in both sets
+     */
+    public boolean intersects(SampleIdSet other) {
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (ids[i] < other.ids[j]) {
+                i++;
+            } else if (ids[i] > other.ids[j]) {
+                j++;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if the given sample id is in the set, without boxing.
+     *
+     * @param sampleId Sample id
+     * @return If the sample is in the set
+     */
+    public boolean containsInt(int sampleId) {
+        return Arrays.binarySearch(ids, 0, size, sampleId) >= 0;
+    }
+
+    @Override
+    public boolean add(Integer sampleId) {
+        int idx;
+        if (size == 0 || ids[size - 1] < sampleId) {
+            // Ids are usually added in ascending order
+            idx = size;
+        } else {
+            idx = Arrays.binarySearch(ids, 0, size, sampleId);
+            if (idx >= 0) {
+                return false;
+            }
+            idx = -idx - 1;
+        }
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(4, size + (size >> 1)));
+        }
+        System.arraycopy(ids, idx, ids, idx + 1, size - idx);
+        ids[idx] = sampleId;
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Integer> c) {
+        SampleIdSet other = c instanceof SampleIdSet ? (SampleIdSet) c : new SampleIdSet((Collection<Integer>) c);
+        if (other.size == 0) {
+            return false;
+        }
+        // Merge both sorted arrays
+        int[] merged = new int[size + other.size];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < size && j < other.size) {
+            if (ids[i] < other.ids[j]) {
+                merged[k++] = ids[i++];
+            } else if (ids[i] > other.ids[j]) {
+                merged[k++] = other.ids[j++];
+            } else {
+                merged[k++] = ids[i++];
+                j++;
+            }
+        }
+        while (i < size) {
+            merged[k++] = ids[i++];
+        }
+        while (j < other.size) {
+            merged[k++] = other.ids[j++];
+        }
+        boolean modified = k != size;
+        ids = merged;
+        size = k;
+        return modified;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer && containsInt((Integer) o);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof Integer)) {
+            return false;
+        }
+        int idx = Arrays.binarySearch(ids, 0, size, (Integer) o);
+        if (idx < 0) {
+            return false;
+        }
+        removeAt(idx);
+        return true;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        if (c instanceof SampleIdSet) {
+            return retain((SampleIdSet) c, false);
+        }
+        boolean modified = false;
+        for (Object o : c) {
+            modified |= remove(o);
+        }
+        return modified;
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        if (c instanceof SampleIdSet) {
+            return retain((SampleIdSet) c, true);
+        }
+        return super.retainAll(c);
+    }
+
+    // Keep, in place, the ids that are (or are not) in the other set
+    private boolean retain(SampleIdSet other, boolean inOther) {
+        int k = 0;
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.ids[j] < ids[i]) {
+                j++;
+            }
+            boolean found = j < other.size && other.ids[j] == ids[i];
+            if (found == inOther) {
+                ids[k++] = ids[i];
+            }
+        }
+        boolean modified = k != size;
+        size = k;
+        return modified;
+    }
+
+    private void removeAt(int idx) {
+        System.arraycopy(ids, idx + 1, ids, idx, size - idx - 1);
+        size--;
+    }
+
+    // Remove consecutive duplicates of the sorted array
+    private void removeDuplicates() {
+        if (size == 0) {
+            return;
+        }
+        int k = 1;
+        for (int i = 1; i < size; i++) {
+            if (ids[i] != ids[k - 1]) {
+                ids[k++] = ids[i];
+            }
+        }
+        size = k;
+    }
+
+    @Override
+    public void clear() {
+        // Keep the array, so the set can be reused
+        size = 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof SampleIdSet) {
+            SampleIdSet other = (SampleIdSet) o;
+            if (size != other.size) {
+                return false;
+            }
+            for (int i = 0; i < size; i++) {
+                if (ids[i] != other.ids[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<Integer>() {
+            private int next = 0;
+            private boolean canRemove = false;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Integer next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                canRemove = true;
+                return ids[next++];
+            }
+
+            @Override
+            public void remove() {
+                if (!canRemove) {
+                    throw new IllegalStateException();
+                }
+                removeAt(--next);
+                canRemove = false;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.hadoop.variant.index;
+
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantDBIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reads several splits of a query concurrently, one VariantDBIterator per split, and merges the results.
+ *
+ * Splits must be given in genomic order. At most numThreads splits are read at the same time. If sorted, the variants
+ * are returned split by split, keeping the genomic order. If not sorted, all the splits write into the same buffer, and
+ * the variants are returned as soon as they are read.
+ *
+ * The splits run on an executor shared with other queries, that is not shut down by this iterator. Buffers are bounded.
+ * A split does not wait for the consumer holding a thread of the executor: when its buffer is full, it leaves the
+ * executor, and it is submitted again once the consumer takes some variants from the buffer.
+ *
+ * Created on 18/10/26.
+ */
+public class VariantHBaseParallelIterator extends VariantDBIterator {
+
+    private static final Object END = new Object();
+
+    private final List<? extends Callable<? extends VariantDBIterator>> splits;
+    private final List<SplitReader> readers;
+    private final ExecutorService executor;
+    private final int numThreads;
+    private final int bufferSize;
+    private final boolean sorted;
+    private final int limit;
+    private final LongAdder splitsTimeFetching = new LongAdder();
+    private final LongAdder splitsTimeConverting = new LongAdder();
+    private final Logger logger = LoggerFactory.getLogger(VariantHBaseParallelIterator.class);
+
+    private int finishedSplits = 0;
+    private int currentSplit = 0;
+    private int numReturned = 0;
+    private Variant next;
+    private volatile boolean closed = false;
+
+    /**
+     * Start reading the first splits.
+     *
+     * @param splits        Iterator suppliers, one per split, in genomic order
+     * @param executor      Executor to read the splits
+     * @param numThreads    Max number of concurrent splits
+     * @param bufferSize    Max number of variants buffered by each split, or in total if not sorted
+     * @param sorted        Return the variants in the same order as the splits
+     * @param limit         Max number of variants to return. Non positive for no limit
+     */
+    public VariantHBaseParallelIterator(List<? extends Callable<? extends VariantDBIterator>> splits, ExecutorService executor,
+                                       int numThreads, int bufferSize, boolean sorted, int limit) {
+        this.splits = splits;
+        this.executor = executor;
+        this.numThreads = Math.max(1, Math.min(numThreads, splits.size()));
+        this.bufferSize = Math.max(1, bufferSize);
+        this.sorted = sorted;
+        this.limit = limit > 0 ? limit : Integer.MAX_VALUE;
+        this.readers = new ArrayList<>(splits.size());
+
+        // Read ahead only numThreads splits. Next splits are submitted as the previous ones finish.
+        BlockingQueue<Object> queue = sorted ? null : new ArrayBlockingQueue<>(this.bufferSize);
+        while (readers.size() < this.numThreads) {
+            submitNextSplit(queue);
+        }
+    }
+
+    private void submitNextSplit(BlockingQueue<Object> queue) {
+        if (readers.size() < splits.size() && !closed) {
+            SplitReader reader = new SplitReader(splits.get(readers.size()),
+                    queue == null ? new ArrayBlockingQueue<>(bufferSize) : queue);
+            readers.add(reader);
+            executor.submit(reader);
+        }
+    }
+
+    private Variant take() throws InterruptedException {
+        while (finishedSplits < splits.size()) {
+            BlockingQueue<Object> queue = readers.get(sorted ? currentSplit : 0).queue;
+            Object item = queue.take();
+            resumeSplits();
+            if (item == END) {
+                finishedSplits++;
+                if (sorted) {
+                    currentSplit++;
+                }
+                submitNextSplit(sorted ? null : queue);
+            } else if (item instanceof Exception) {
+                stop();
+                throw new RuntimeException((Exception) item);
+            } else {
+                return (Variant) item;
+            }
+        }
+        return null;
+    }
+
+    // Submit again the splits that left the executor with a full buffer
+    private void resumeSplits() {
+        if (sorted) {
+            readers.get(currentSplit).resume();
+        } else {
+            for (SplitReader reader : readers) {
+                reader.resume();
+            }
+        }
+    }
+
+    private void stop() {
+        closed = true;
+        // Running splits stop on their own. Close the splits that are waiting out of the executor.
+        for (SplitReader reader : readers) {
+            if (reader.scheduled.compareAndSet(false, true)) {
+                reader.closeIterator();
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && numReturned < limit && !closed) {
+            try {
+                next = fetch(this::take);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public Variant next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Variant variant = next;
+        next = null;
+        numReturned++;
+        if (numReturned >= limit) {
+            // Limit reached. Cancel the pending splits.
+            stop();
+        }
+        return variant;
+    }
+
+    /**
+     * Time converting the variants, added from all the finished splits.
+     *
+     * @return Time in nanoseconds
+     */
+    @Override
+    public long getTimeConverting() {
+        return timeConverting + splitsTimeConverting.sum();
+    }
+
+    /**
+     * Time fetching from the finished splits. Splits run concurrently, so it can be longer than the wall time.
+     *
+     * @return Time in nanoseconds
+     */
+    public long getSplitsTimeFetching() {
+        return splitsTimeFetching.sum();
+    }
+
+    @Override
+    public void close() throws Exception {
+        stop();
+        super.close();
+        logger.debug("Close parallel variant iterator. Splits = {}, returned = {}, wait = {}ms, splits fetch = {}ms",
+                splits.size(), numReturned, getTimeFetching() / 1000000.0, getSplitsTimeFetching() / 1000000.0);
+    }
+
+    /**
+     * Reads one split into its buffer, until the buffer is full or the split is finished.
+     * Only one thread runs a SplitReader at a time: the one that sets {@link #scheduled}.
+     */
+    private final class SplitReader implements Runnable {
+        private final Callable<? extends VariantDBIterator> split;
+        private final BlockingQueue<Object> queue;
+        private final AtomicBoolean scheduled = new AtomicBoolean(true);
+        private volatile boolean finished = false;
+        private VariantDBIterator iterator;
+        // Variant, END or Exception that did not fit in the buffer
+        private Object pending;
+        private int count = 0;
+
+        private SplitReader(Callable<? extends VariantDBIterator> split, BlockingQueue<Object> queue) {
+            this.split = split;
+            this.queue = queue;
+        }
+
+        @Override
+        public void run() {
+            while (!read()) {
+                // Buffer full. Leave the executor, unless the consumer took something in the mean time.
+                scheduled.set(false);
+                if (queue.remainingCapacity() == 0 || !scheduled.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+
+        void resume() {
+            if (!finished && !scheduled.get() && scheduled.compareAndSet(false, true)) {
+                executor.submit(this);
+            }
+        }
+
+        // Returns false if the buffer is full
+        private boolean read() {
+            while (!closed) {
+                if (pending == null) {
+                    pending = readNext();
+                }
+                if (!queue.offer(pending)) {
+                    return false;
+                }
+                if (pending == END || pending instanceof Exception) {
+                    finished = true;
+                    return true;
+                }
+                pending = null;
+            }
+            finished = true;
+            closeIterator();
+            return true;
+        }
+
+        private Object readNext() {
+            try {
+                if (iterator == null) {
+                    iterator = split.call();
+                }
+                if (count < limit && iterator.hasNext()) {
+                    count++;
+                    return iterator.next();
+                }
+                splitsTimeFetching.add(iterator.getTimeFetching());
+                splitsTimeConverting.add(iterator.getTimeConverting());
+                VariantDBIterator finishedIterator = iterator;
+                iterator = null;
+                finishedIterator.close();
+                return END;
+            } catch (Exception e) {
+                closeIterator();
+                return e;
+            }
+        }
+
+        void closeIterator() {
+            if (iterator != null) {
+                try {
+                    iterator.close();
+                } catch (Exception e) {
+                    logger.warn("Error closing split iterator", e);
+                }
+                iterator = null;
+            }
+        }
+    }
+}
@@ -44,6 +44,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -55,6 +56,8 @@ public class VariantTableMapper extends AbstractVariantTableMapReduce {
 
 
     private final AtomicBoolean parallel = new AtomicBoolean(false);
+    private int archiveFetchThreads;
+    private ExecutorService archiveFetchExecutor;
 
 
     private boolean isParallel() {
@@ -71,6 +74,12 @@ public class VariantTableMapper extends AbstractVariantTableMapReduce {
             getLog().info("Using ForkJoinPool of {} ... ", cores);
             this.getResultConverter().setParallel(true);
         }
+        this.archiveFetchThreads = Math.max(1, context.getConfiguration().getInt(ARCHIVE_FETCH_THREADS, 4));
+        this.archiveFetchExecutor = Executors.newFixedThreadPool(archiveFetchThreads, r -> {
+            Thread thread = new Thread(r, "archive-fetch");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     public static  ForkJoinPool createForkJoinPool(final String prefix, int vcores) {
@@ -83,6 +92,9 @@ public class VariantTableMapper extends AbstractVariantTableMapReduce {
 
     @Override
     protected void cleanup(Context context) throws IOException, InterruptedException {
+        if (archiveFetchExecutor != null) {
+            archiveFetchExecutor.shutdownNow();
+        }
         super.cleanup(context);
     }
 
@@ -273,7 +285,15 @@ public class VariantTableMapper extends AbstractVariantTableMapReduce {
         this.getVariantMerger().setExpectedSamples(this.currentIndexingSamples);
         Map<Integer, LinkedHashSet<Integer>> samplesInFiles = this.getStudyConfiguration().getSamplesInFiles();
         BiMap<Integer, String> id2name = StudyConfiguration.getIndexedSamples(this.getStudyConfiguration()).inverse();
-        loadFromArchive(ctx.context, ctx.getCurrRowKey(), ctx.fileIds, (fileIds, res) -> {
+        // Decoded in the fetch threads. Only load variants which have overlap.
+        Function<Result, List<Variant>> decoder = res -> getResultConverter().convert(res, true, var -> {
+            // Complete ALTs
+            completeAlternateCoordinates(var);
+            int min = toPosition(var, true);
+            int max = toPosition(var, false);
+            return IntStream.range(min, max + 1).boxed().anyMatch(i -> coveredPositions.contains(i));
+        });
+        loadFromArchive(ctx.context, ctx.getCurrRowKey(), ctx.fileIds, decoder, (fileIds, archiveOther) -> {
             Set<String> names = fileIds.stream().flatMap(fid -> samplesInFiles.get(fid).stream())
                     .map(id -> {
                         String name = id2name.get(id);
@@ -284,27 +304,15 @@ public class VariantTableMapper extends AbstractVariantTableMapReduce {
                     }).collect(Collectors.toSet());
 
             this.getVariantMerger().addExpectedSamples(names); // add loaded names to merger
-            if (null == res || res.isEmpty()) {
+            if (null == archiveOther) {
                 getLog().info("No variants found for {} files for {} samples...", fileIds.size(), names.size());
                 return;
             }
-            long startTime = System.nanoTime();
-            // Uses ForkJoinPool !!!
-            // only load variants which have overlap.
-            List<Variant> archiveOther = getResultConverter().convert(res, true, var -> {
-                // Complete ALTs
-                completeAlternateCoordinates(var);
-                int min = toPosition(var, true);
-                int max = toPosition(var, false);
-                return IntStream.range(min, max + 1).boxed().anyMatch(i -> coveredPositions.contains(i));
-            });
-            registerRuntime("9b Convert to Variants", System.nanoTime() - startTime);
             getLog().info("Loaded "
                     + archiveOther.size() + " variants for "
                     + fileIds.size() + " files for "
                     + names.size() + " samples... ");
 
-            startTime = System.nanoTime();
             final NavigableMap<Integer, List<Variant>> varPosSortedOther =
                     indexAlts(archiveOther, (int)ctx.startPos, (int)ctx.nextStartPos);
             getLog().info("Create alts index of size " + varPosSortedOther.size() + " ... ");
@@ -546,56 +554,87 @@ public class VariantTableMapper extends AbstractVariantTableMapReduce {
 
     /**
      * Load all variants for all files (except in currFileIds) listed in the study configuration for the specified rowKey.
+     *
+     * Files are read in batches of archiveBatchSize. Up to archiveFetchThreads batches are read and decoded concurrently,
+     * while the previous batches are merged in this thread. Batches are merged in order.
+     *
      * @param context Context
      * @param rowKey Slice to extract data for
      * @param currFileIds File ids to ignore
-     * @param merge BiConsumer accepting ID list and List of {@link Variant} to merge (batch mode)
+     * @param decoder Function to decode the archive result. Executed in the fetch threads
+     * @param merge BiConsumer accepting ID list and the decoded result to merge (batch mode). Null if no data was found
+     * @param <T> Decoded result type
      * @throws IOException
      */
-    private void loadFromArchive(Context context, byte[] rowKey, Set<Integer> currFileIds,
-                                          BiConsumer<Set<Integer>, Result> merge) throws IOException {
+    private <T> void loadFromArchive(Context context, byte[] rowKey, Set<Integer> currFileIds, Function<Result, T> decoder,
+                                     BiConsumer<Set<Integer>, T> merge) throws IOException {
         // Extract File IDs to search through
         LinkedHashSet<Integer> indexedFiles = getStudyConfiguration().getIndexedFiles();
-        Set<String> archiveFileIds = indexedFiles.stream().filter(k -> !currFileIds.contains(k)).map(s -> s.toString())
-                .collect(Collectors.toSet());
+        List<Integer> archiveFileIds = indexedFiles.stream().filter(k -> !currFileIds.contains(k)).collect(Collectors.toList());
         if (archiveFileIds.isEmpty()) {
             getLog().info("No files found to search for in archive table");
             merge.accept(Collections.emptySet(), null);
             return; // done
         }
-        getLog().info("Search archive for " + archiveFileIds.size() + " files in total in batches of " + this.archiveBatchSize  + " ... ");
-        while (!archiveFileIds.isEmpty()) {
-            Long startTime = System.nanoTime();
-            // create batch
-            Set<String> batch = new HashSet<>();
-            for (String e : archiveFileIds) {
-                if (batch.size() < this.archiveBatchSize) {
-                    batch.add(e);
-                } else {
-                    break;
+        // create batches
+        List<Set<Integer>> batches = new ArrayList<>();
+        for (int i = 0; i < archiveFileIds.size(); i += this.archiveBatchSize) {
+            batches.add(new HashSet<>(archiveFileIds.subList(i, Math.min(i + this.archiveBatchSize, archiveFileIds.size()))));
+        }
+        getLog().info("Search archive for " + archiveFileIds.size() + " files in total in " + batches.size() + " batches of "
+                + this.archiveBatchSize + " using " + archiveFetchThreads + " threads ... ");
+
+        Queue<Set<Integer>> pendingBatches = new LinkedList<>();
+        Queue<Future<T>> pendingResults = new LinkedList<>();
+        Iterator<Set<Integer>> iterator = batches.iterator();
+        try {
+            while (iterator.hasNext() || !pendingResults.isEmpty()) {
+                // Keep the fetch threads busy
+                while (iterator.hasNext() && pendingResults.size() < archiveFetchThreads) {
+                    Set<Integer> batch = iterator.next();
+                    if (getLog().isDebugEnabled()) {
+                        getLog().debug("Add files to search in archive: " + StringUtils.join(batch, ','));
+                    }
+                    pendingBatches.add(batch);
+                    pendingResults.add(archiveFetchExecutor.submit(() -> fetchFromArchive(rowKey, batch, decoder)));
                 }
+                long startTime = System.nanoTime();
+                T decoded = pendingResults.remove().get();
+                registerRuntime("9a Wait for archive slice", System.nanoTime() - startTime);
+                merge.accept(pendingBatches.remove(), decoded);
             }
-            archiveFileIds.removeAll(batch); // remove ids
-            getLog().info("Search archive for " + batch.size() + " files with " + archiveFileIds.size()  + " remaining ... ");
-            if (getLog().isDebugEnabled()) {
-                getLog().debug("Add files to search in archive: " + StringUtils.join(batch, ','));
-            }
-            Get get = new Get(rowKey);
-            byte[] cf = getHelper().getColumnFamily();
-            batch.forEach(e -> get.addColumn(cf, Bytes.toBytes(e)));
-            Set<Integer> batchIds = batch.stream().map(e -> Integer.valueOf(e)).collect(Collectors.toSet());
-            Result res = getHelper().getHBaseManager().act(getHelper().getIntputTable(), table -> table.get(get));
-            registerRuntime("9a Load archive slice from hbase", System.nanoTime() - startTime);
-            if (res.isEmpty()) {
-                getLog().warn("No data found in archive table!!!");
-                merge.accept(batchIds, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
             } else {
-                merge.accept(batchIds, res);
+                throw new IllegalStateException(e.getCause());
             }
+        } finally {
+            pendingResults.forEach(future -> future.cancel(true));
         }
         getLog().info("Done processing archive data!");
     }
 
+    private <T> T fetchFromArchive(byte[] rowKey, Set<Integer> batch, Function<Result, T> decoder) throws IOException {
+        long startTime = System.nanoTime();
+        Get get = new Get(rowKey);
+        byte[] cf = getHelper().getColumnFamily();
+        batch.forEach(e -> get.addColumn(cf, Bytes.toBytes(e.toString())));
+        Result res = getHelper().getHBaseManager().act(getHelper().getIntputTable(), table -> table.get(get));
+        registerRuntime("9a Load archive slice from hbase", System.nanoTime() - startTime);
+        if (res.isEmpty()) {
+            getLog().warn("No data found in archive table!!!");
+            return null;
+        }
+        startTime = System.nanoTime();
+        T decoded = decoder.apply(res);
+        registerRuntime("9b Convert to Variants", System.nanoTime() - startTime);
+        return decoded;
+    }
+
     /**
      * Check if Archive has Variant objects covering all bases (including no-call objects).
      * Increases HBase counter with the name VCF_VARIANT-error-FIXME to act on.
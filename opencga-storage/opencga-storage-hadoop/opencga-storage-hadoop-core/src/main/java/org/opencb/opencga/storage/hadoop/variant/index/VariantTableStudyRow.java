@@ -75,6 +75,13 @@ public class VariantTableStudyRow {
 
     public static final char COLUMN_KEY_SEPARATOR = '_';
 
+    /**
+     * Format of the sample id lists in {@link VariantTableStudyRowProto} and {@link ComplexFilter}.
+     * Sample ids are sorted and delta encoded, so most of them take one byte as packed varints.
+     * Protos without format (0) contain absolute sample ids.
+     */
+    public static final int SAMPLE_ID_DELTA_FORMAT = 1;
+
     private Integer studyId;
     private Integer homRefCount = 0;
     private Integer passCount = 0;
@@ -84,9 +91,9 @@ public class VariantTableStudyRow {
     private final String ref;
     private final String alt;
     private final org.opencb.biodata.models.variant.avro.VariantType type;
-    private Map<String, Set<Integer>> callMap = new HashMap<>();
+    private Map<String, SampleIdSet> callMap = new HashMap<>();
     private Map<Integer, String> sampleToGenotype = new HashMap<>();
-    private Map<String, Set<Integer>> filterToSamples = new HashMap<>();
+    private Map<String, SampleIdSet> filterToSamples = new HashMap<>();
     private List<AlternateCoordinate> secAlternate = new ArrayList<>();
 
     public VariantTableStudyRow(Integer studyId, String chr, int pos, String ref, String alt,
@@ -104,7 +111,7 @@ public class VariantTableStudyRow {
         this.homRefCount = row.homRefCount;
         this.callCount = row.callCount;
         this.passCount = row.passCount;
-        this.callMap.putAll(row.callMap.entrySet().stream().collect(Collectors.toMap(p -> p.getKey(), p -> new HashSet<>(p.getValue()))));
+        this.callMap.putAll(row.callMap.entrySet().stream().collect(Collectors.toMap(p -> p.getKey(), p -> new SampleIdSet(p.getValue()))));
         this.secAlternate.addAll(row.secAlternate != null ? row.secAlternate : Collections.emptyList());
         this.sampleToGenotype.putAll(row.sampleToGenotype != null ? row.sampleToGenotype : Collections.emptyMap());
     }
@@ -119,19 +126,17 @@ public class VariantTableStudyRow {
         this.callCount = proto.getCallCount();
         this.passCount = proto.getPassCount();
         this.homRefCount = proto.getHomRefCount();
+        int format = proto.getFormat();
         this.callMap = new HashMap<>(4);
-        callMap.put(HOM_VAR, new HashSet<>(proto.getHomVarList()));
-        callMap.put(HET_REF, new HashSet<>(proto.getHetList()));
-        callMap.put(NOCALL, new HashSet<>(proto.getNocallList()));
-        callMap.put(OTHER, new HashSet<>(proto.getOtherList()));
+        callMap.put(HOM_VAR, readSampleIds(proto.getHomVarList(), format));
+        callMap.put(HET_REF, readSampleIds(proto.getHetList(), format));
+        callMap.put(NOCALL, readSampleIds(proto.getNocallList(), format));
+        callMap.put(OTHER, readSampleIds(proto.getOtherList(), format));
         for (Map.Entry<String, SampleList> entry : proto.getOtherGt().entrySet()) {
             String gt = entry.getKey();
-            for (Integer sid : entry.getValue().getSampleIdsList()) {
-                sampleToGenotype.put(sid, gt);
-            }
+            readSampleIds(entry.getValue().getSampleIdsList(), format).forEachInt(sid -> sampleToGenotype.put(sid, gt));
         }
-        this.filterToSamples = proto.getFilterNonPass().entrySet().stream()
-                .collect(Collectors.toMap(k -> k.getKey(), e -> new HashSet<>(e.getValue().getSampleIdsList())));
+        this.filterToSamples = readSampleListMap(proto.getFilterNonPass(), format);
         this.secAlternate = proto.getSecondaryAlternateList();
     }
 
@@ -153,13 +158,21 @@ public class VariantTableStudyRow {
         Builder b = ComplexFilter.newBuilder();
         Map<String, SampleList> map = toSampleListMap(this.filterToSamples);
         b.putAllFilterNonPass(map);
+        b.setFormat(SAMPLE_ID_DELTA_FORMAT);
         return b.build();
     }
 
     private void setComplexFilter(ComplexFilter cf) {
-        Map<String, Set<Integer>> map = cf.getFilterNonPass().entrySet().stream().collect(
-                Collectors.toMap(e -> e.getKey(), e -> new HashSet<>(e.getValue().getSampleIdsList())));
-        this.filterToSamples.putAll(map);
+        this.filterToSamples.putAll(readSampleListMap(cf.getFilterNonPass(), cf.getFormat()));
+    }
+
+    /**
+     * Samples with a filter other than PASS, without building the {@link ComplexFilter}.
+     *
+     * @return Map from filter to samples
+     */
+    public Map<String, SampleIdSet> getFilterToSamples() {
+        return Collections.unmodifiableMap(filterToSamples);
     }
 
     public ComplexVariant getComplexVariant() {
@@ -168,6 +181,24 @@ public class VariantTableStudyRow {
                 .addAllSecondaryAlternates(this.secAlternate).build();
     }
 
+    /**
+     * Genotypes of the samples in the {@link #OTHER} set, without building the {@link ComplexVariant}.
+     *
+     * @return Map from sample id to genotype
+     */
+    public Map<Integer, String> getSampleToGenotype() {
+        return Collections.unmodifiableMap(sampleToGenotype);
+    }
+
+    /**
+     * Secondary alternates, without building the {@link ComplexVariant}.
+     *
+     * @return List of secondary alternates
+     */
+    public List<AlternateCoordinate> getSecondaryAlternates() {
+        return Collections.unmodifiableList(secAlternate);
+    }
+
     public void setComplexVariant(ComplexVariant complexVariant) {
         Map<Integer, String> map = complexVariant.getSampleToGenotype();
         if (map != null && map.size() > 0) {
@@ -191,6 +222,19 @@ public class VariantTableStudyRow {
         return set;
     }
 
+    /**
+     * Add the samples with the given genotype to a set, without boxing the sample ids.
+     *
+     * @param gt        Genotype code for the samples
+     * @param samples   Set to modify
+     */
+    public void addSampleIds(String gt, SampleIdSet samples) {
+        SampleIdSet set = this.callMap.get(gt);
+        if (set != null) {
+            set.addTo(samples);
+        }
+    }
+
     public Set<Integer> getSampleIds(Genotype gt) {
         return getSampleIds(gt.toString());
     }
@@ -205,9 +249,9 @@ public class VariantTableStudyRow {
      * @throws IllegalStateException in case the sample already exists in the collection
      */
     public void addSampleId(String gt, Collection<Integer> sampleIds) {
-        Set<Integer> set = this.callMap.get(gt);
+        SampleIdSet set = this.callMap.get(gt);
         if (null == set) {
-            set = new HashSet<>();
+            set = new SampleIdSet();
             this.callMap.put(gt, set);
         }
         set.addAll(sampleIds);
@@ -219,9 +263,9 @@ public class VariantTableStudyRow {
      * @throws IllegalStateException in case the sample already exists in the collection
      */
     public void addSampleId(String gt, Integer sampleId) {
-        Set<Integer> set = this.callMap.get(gt);
+        SampleIdSet set = this.callMap.get(gt);
         if (null == set) {
-            set = new HashSet<>();
+            set = new SampleIdSet();
             this.callMap.put(gt, set);
         }
         if (!set.add(sampleId)) {
@@ -335,13 +379,13 @@ public class VariantTableStudyRow {
 
         /**** GT ***/
         Set<Integer> newCalls = new HashSet<>(newSampleIds);
-        for (Entry<String, Set<Integer>> entry : this.callMap.entrySet()) {
+        for (Entry<String, SampleIdSet> entry : this.callMap.entrySet()) {
             byte[] column = Bytes.toBytes(buildColumnKey(sid, entry.getKey()));
             boolean disjoint = Collections.disjoint(entry.getValue(), newSampleIds);
             if (!disjoint) {
                 doPut = true;
+                // SampleIdSet is already sorted
                 List<Integer> value = new ArrayList<>(entry.getValue());
-                Collections.sort(value);
                 byte[] bytesArray = PhoenixHelper.toBytes(value, PUnsignedIntArray.INSTANCE);
                 put.addColumn(cf, column, bytesArray);
                 newHomRef.removeAll(value);
@@ -391,12 +435,12 @@ public class VariantTableStudyRow {
         if (!this.filterToSamples.isEmpty()) {
             put.addColumn(cf, Bytes.toBytes(buildColumnKey(sid, FILTER_OTHER)), this.getComplexFilter().toByteArray());
         }
-        for (Entry<String, Set<Integer>> entry : this.callMap.entrySet()) {
+        for (Entry<String, SampleIdSet> entry : this.callMap.entrySet()) {
             byte[] column = Bytes.toBytes(buildColumnKey(sid, entry.getKey()));
 
+            // SampleIdSet is already sorted
             List<Integer> value = new ArrayList<>(entry.getValue());
             if (!value.isEmpty()) {
-                Collections.sort(value);
                 byte[] bytesArray = PhoenixHelper.toBytes(value, PUnsignedIntArray.INSTANCE);
                 put.addColumn(cf, column, bytesArray);
             }
@@ -423,15 +467,9 @@ public class VariantTableStudyRow {
     }
 
     public VariantTableStudyRowProto toProto() {
-        Map<String, List<Integer>> otherGt = new HashMap<>();
+        Map<String, SampleIdSet> otherGt = new HashMap<>();
         for (Entry<Integer, String> entry : sampleToGenotype.entrySet()) {
-            String gt = entry.getValue();
-            List<Integer> samples = otherGt.get(gt);
-            if (samples == null) {
-                samples = new LinkedList<>();
-                otherGt.put(gt, samples);
-            }
-            samples.add(entry.getKey());
+            otherGt.computeIfAbsent(entry.getValue(), gt -> new SampleIdSet()).add(entry.getKey());
         }
         return VariantTableStudyRowProto.newBuilder()
                 .setStart(pos)
@@ -441,13 +479,14 @@ public class VariantTableStudyRow {
                 .setCallCount(callCount)
                 .setPassCount(passCount)
                 .setHomRefCount(homRefCount)
-                .addAllHomVar(callMap.getOrDefault(HOM_VAR, Collections.emptySet()))
-                .addAllHet(callMap.getOrDefault(HET_REF, Collections.emptySet()))
-                .addAllNocall(callMap.getOrDefault(NOCALL, Collections.emptySet()))
-                .addAllOther(callMap.getOrDefault(OTHER, Collections.emptySet()))
+                .addAllHomVar(toDeltas(callMap.get(HOM_VAR)))
+                .addAllHet(toDeltas(callMap.get(HET_REF)))
+                .addAllNocall(toDeltas(callMap.get(NOCALL)))
+                .addAllOther(toDeltas(callMap.get(OTHER)))
                 .addAllSecondaryAlternate(secAlternate)
                 .putAllOtherGt(toSampleListMap(otherGt))
                 .putAllFilterNonPass(toSampleListMap(this.filterToSamples))
+                .setFormat(SAMPLE_ID_DELTA_FORMAT)
                 .build();
     }
 
@@ -459,11 +498,31 @@ public class VariantTableStudyRow {
         return org.opencb.biodata.models.variant.avro.VariantType.valueOf(type.toString());
     }
 
-    private Map<String, SampleList> toSampleListMap(Map<String, ? extends Collection<Integer>> map) {
+    private Map<String, SampleList> toSampleListMap(Map<String, SampleIdSet> map) {
         return map.entrySet().stream()
                 .collect(Collectors.toMap(
                         Entry::getKey,
-                        entry -> SampleList.newBuilder().addAllSampleIds(entry.getValue()).build()));
+                        entry -> SampleList.newBuilder().addAllSampleIds(entry.getValue().toDeltas()).build()));
+    }
+
+    private static List<Integer> toDeltas(SampleIdSet set) {
+        return set == null ? Collections.emptyList() : set.toDeltas();
+    }
+
+    private static Map<String, SampleIdSet> readSampleListMap(Map<String, SampleList> map, int format) {
+        Map<String, SampleIdSet> sampleIdsMap = new HashMap<>(map.size());
+        for (Entry<String, SampleList> entry : map.entrySet()) {
+            sampleIdsMap.put(entry.getKey(), readSampleIds(entry.getValue().getSampleIdsList(), format));
+        }
+        return sampleIdsMap;
+    }
+
+    private static SampleIdSet readSampleIds(List<Integer> sampleIds, int format) {
+        if (format >= SAMPLE_ID_DELTA_FORMAT) {
+            return SampleIdSet.fromDeltas(sampleIds);
+        } else {
+            return new SampleIdSet(sampleIds);
+        }
     }
 
     public static List<VariantTableStudyRow> parse(Result result, GenomeHelper helper) {
@@ -535,7 +594,7 @@ public class VariantTableStudyRow {
                 case OTHER:
                     try {
                         PhoenixArray phoenixArray = (PhoenixArray) PUnsignedIntArray.INSTANCE.toObject(entry.getValue());
-                        HashSet<Integer> value = new HashSet<>();
+                        SampleIdSet value = new SampleIdSet();
                         if (phoenixArray.getArray() != null) {
                             int[] array = (int[]) phoenixArray.getArray();
                             for (int i : array) {
@@ -610,7 +669,7 @@ public class VariantTableStudyRow {
         }
         for (String gt : new String[] { HET_REF, HOM_VAR, OTHER, NOCALL }) {
             Array sqlArray = resultSet.getArray(buildColumnKey(studyId, gt));
-            HashSet<Integer> value = new HashSet<>();
+            SampleIdSet value = new SampleIdSet();
             if (sqlArray != null && sqlArray.getArray() != null) {
                 int[] array = (int[]) sqlArray.getArray();
                 for (int i : array) {
@@ -736,12 +795,7 @@ public class VariantTableStudyRow {
                     if (StringUtils.isBlank(filterString) || StringUtils.equals("-", filterString)) {
                         filterString = "."; // Blank and '-' filters are saved together as missing
                     }
-                    Set<Integer> set = filterToSamples.get(filterString);
-                    if (set == null) {
-                        set = new HashSet<>();
-                        filterToSamples.put(filterString, set);
-                    }
-                    set.add(sid);
+                    filterToSamples.computeIfAbsent(filterString, k -> new SampleIdSet()).add(sid);
                 }
             }
             addHomeRefCount(homref.size());
@@ -94,6 +94,7 @@ public class VariantAnnotationPhoenixDBWriter extends VariantAnnotationDBWriter
     public void post() {
         try {
             upsertExecutor.close();
+            ((VariantHadoopDBAdaptor) dbAdaptor).getCacheManager().invalidate();
             if (closeConnection) {
                 logger.info("Close Phoenix connection " + connection);
                 connection.close();
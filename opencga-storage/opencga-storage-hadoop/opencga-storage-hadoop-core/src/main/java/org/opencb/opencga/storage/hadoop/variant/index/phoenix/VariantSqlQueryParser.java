@@ -81,6 +81,18 @@ public class VariantSqlQueryParser {
     }
 
     public String parse(Query query, QueryOptions options) {
+        return parse(query, options, Collections.emptyList());
+    }
+
+    /**
+     * Parse the query, restricted to a range of row keys.
+     *
+     * @param query         Query to parse
+     * @param options       Query options
+     * @param keyFilters    Filters over the primary key, like the ones from {@link #buildKeyFilter}
+     * @return SQL
+     */
+    public String parse(Query query, QueryOptions options, List<String> keyFilters) {
 
         StringBuilder sb = new StringBuilder("SELECT ");
 
@@ -94,6 +106,10 @@ public class VariantSqlQueryParser {
                 // Only region filters. Hint no index usage
                 sb.append("/*+ ").append(HintNode.Hint.NO_INDEX.toString()).append(" */ ");
             }
+            if (!keyFilters.isEmpty()) {
+                filters = new ArrayList<>(filters);
+                filters.addAll(keyFilters);
+            }
 
             appendProjectedColumns(sb, query, options);
             appendFromStatement(sb, dynamicColumns);
@@ -134,6 +150,176 @@ public class VariantSqlQueryParser {
         return sb.toString();
     }
 
+    /**
+     * Count the variants grouped by the values of a column. The aggregation is executed in the RegionServers, and Phoenix
+     * merges the partial counts in the client.
+     *
+     * Array columns are grouped by the whole array. The caller has to split the arrays and add up the counts.
+     *
+     * Result columns: value, count
+     *
+     * @param query     Query to parse
+     * @param column    Column to group by
+     * @return SQL
+     */
+    public String parseGroupBy(Query query, Column column) {
+        String groupBy = '"' + column.column() + '"';
+        return parseAggregation(query, groupBy, Collections.emptyList());
+    }
+
+    /**
+     * Count the variants of a region in intervals of the given size.
+     *
+     * Result columns: interval, count. Where interval = FLOOR(position / intervalSize)
+     *
+     * @param query         Query to parse
+     * @param region        Region. The limits are excluded, as in the other VariantDBAdaptors
+     * @param intervalSize  Size of each interval
+     * @return SQL
+     */
+    public String parseFrequency(Query query, Region region, int intervalSize) {
+        String groupBy = "FLOOR(\"" + VariantColumn.POSITION.column() + "\" / " + intervalSize + ")";
+        List<String> regionFilter = Arrays.asList(
+                buildFilter(VariantColumn.CHROMOSOME, "=", region.getChromosome()),
+                buildFilter(VariantColumn.POSITION, ">", region.getStart()),
+                buildFilter(VariantColumn.POSITION, "<", region.getEnd()));
+        return parseAggregation(query, groupBy, Collections.singletonList(appendFilters(regionFilter, QueryOperation.AND.toString())));
+    }
+
+    /**
+     * Select the variants matching the query where the column contains any of the given values.
+     * All the groups are read with one query, and the caller assigns each variant to its groups.
+     *
+     * Result columns: chromosome, position, reference, alternate, column
+     *
+     * @param query     Query to parse
+     * @param column    Grouped column
+     * @param values    Values of the groups
+     * @param limit     Max number of variants to return. Ignored if not positive
+     * @return SQL
+     */
+    public String parseGroupValues(Query query, Column column, Collection<?> values, int limit) {
+        StringBuilder sb = new StringBuilder("SELECT ");
+        try {
+            Set<Column> dynamicColumns = new HashSet<>();
+            List<String> regionFilters = getRegionFilters(query);
+            List<String> filters = new ArrayList<>(getOtherFilters(query, new QueryOptions(), dynamicColumns));
+            List<String> valueFilters = new ArrayList<>(values.size());
+            for (Object value : values) {
+                valueFilters.add(buildFilter(column, "=", value));
+            }
+            filters.add(appendFilters(valueFilters, QueryOperation.OR.toString()));
+
+            sb.append(VariantColumn.CHROMOSOME).append(',')
+                    .append(VariantColumn.POSITION).append(',')
+                    .append(VariantColumn.REFERENCE).append(',')
+                    .append(VariantColumn.ALTERNATE).append(',')
+                    .append('"').append(column.column()).append('"');
+            appendFromStatement(sb, dynamicColumns);
+            appendWhereStatement(sb, regionFilters, filters);
+            if (limit > 0) {
+                sb.append(" LIMIT ").append(limit);
+            }
+        } catch (VariantQueryException e) {
+            e.setQuery(query);
+            throw e;
+        }
+        return sb.toString();
+    }
+
+    private String parseAggregation(Query query, String groupBy, List<String> extraFilters) {
+        StringBuilder sb = new StringBuilder("SELECT ");
+        try {
+            Set<Column> dynamicColumns = new HashSet<>();
+            List<String> regionFilters = getRegionFilters(query);
+            List<String> filters = new ArrayList<>(getOtherFilters(query, new QueryOptions(), dynamicColumns));
+            filters.addAll(extraFilters);
+
+            sb.append(groupBy).append(", COUNT(*)");
+            appendFromStatement(sb, dynamicColumns);
+            appendWhereStatement(sb, regionFilters, filters);
+            sb.append(" GROUP BY ").append(groupBy);
+        } catch (VariantQueryException e) {
+            e.setQuery(query);
+            throw e;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Select the primary key of the variant found after skipping some variants, in row key order.
+     *
+     * Result columns: chromosome, position, reference, alternate
+     *
+     * @param query       Query to parse
+     * @param keyFilters  Extra filters over the primary key. See {@link #buildKeyFilter}
+     * @param skip        Number of variants to skip
+     * @param ascending   Order of the variants
+     * @return SQL. If the offset is not available in the server, the last row is the required one
+     */
+    public String parseSkipKey(Query query, List<String> keyFilters, int skip, boolean ascending) {
+        StringBuilder sb = new StringBuilder("SELECT ");
+        try {
+            Set<Column> dynamicColumns = new HashSet<>();
+            List<String> regionFilters = getRegionFilters(query);
+            List<String> filters = new ArrayList<>(getOtherFilters(query, new QueryOptions(), dynamicColumns));
+            filters.addAll(keyFilters);
+
+            sb.append(VariantColumn.CHROMOSOME).append(',')
+                    .append(VariantColumn.POSITION).append(',')
+                    .append(VariantColumn.REFERENCE).append(',')
+                    .append(VariantColumn.ALTERNATE);
+            appendFromStatement(sb, dynamicColumns);
+            appendWhereStatement(sb, regionFilters, filters);
+        } catch (VariantQueryException e) {
+            e.setQuery(query);
+            throw e;
+        }
+        String order = ascending ? " ASC" : " DESC";
+        sb.append(" ORDER BY ")
+                .append(VariantColumn.CHROMOSOME).append(order).append(',')
+                .append(VariantColumn.POSITION).append(order).append(',')
+                .append(VariantColumn.REFERENCE).append(order).append(',')
+                .append(VariantColumn.ALTERNATE).append(order);
+        if (clientSideSkip) {
+            sb.append(" LIMIT ").append(skip);
+        } else {
+            sb.append(" LIMIT 1 OFFSET ").append(skip - 1);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Build a filter comparing the row key prefix (chromosome, position) with the given values.
+     *
+     * @param op            Comparison operator
+     * @param chromosome    Chromosome
+     * @param position      Position
+     * @return Row value constructor filter
+     */
+    public static String buildKeyFilter(String op, String chromosome, int position) {
+        checkStringValue(chromosome);
+        return "(" + VariantColumn.CHROMOSOME + ", " + VariantColumn.POSITION + ") " + op
+                + " ('" + chromosome + "', " + position + ")";
+    }
+
+    /**
+     * Build a filter comparing the whole row key with the given variant.
+     *
+     * @param op        Comparison operator
+     * @param variant   Variant
+     * @return Row value constructor filter
+     */
+    public static String buildKeyFilter(String op, Variant variant) {
+        checkStringValue(variant.getChromosome());
+        checkStringValue(variant.getReference());
+        checkStringValue(variant.getAlternate());
+        return "(" + VariantColumn.CHROMOSOME + ", " + VariantColumn.POSITION + ", "
+                + VariantColumn.REFERENCE + ", " + VariantColumn.ALTERNATE + ") " + op
+                + " ('" + variant.getChromosome() + "', " + variant.getStart() + ", '"
+                + variant.getReference() + "', '" + variant.getAlternate() + "')";
+    }
+
     public VariantDBAdaptorUtils getUtils() {
         return utils;
     }
@@ -1037,7 +1223,7 @@ public class VariantSqlQueryParser {
         }
     }
 
-    private void checkStringValue(String parsedValue) {
+    private static void checkStringValue(String parsedValue) {
         if (parsedValue.contains("'")) {
             throw new VariantQueryException("Unable to query text field using \"'\"");
         }
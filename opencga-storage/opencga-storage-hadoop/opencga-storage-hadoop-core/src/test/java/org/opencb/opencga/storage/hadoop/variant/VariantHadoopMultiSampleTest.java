@@ -48,6 +48,7 @@ import org.opencb.opencga.storage.core.variant.io.VariantVcfDataWriter;
 import org.opencb.opencga.storage.hadoop.utils.HBaseManager;
 import org.opencb.opencga.storage.hadoop.variant.adaptors.HadoopVariantSourceDBAdaptor;
 import org.opencb.opencga.storage.hadoop.variant.adaptors.VariantHadoopDBAdaptor;
+import org.opencb.opencga.storage.hadoop.variant.archive.ArchiveDriver;
 import org.opencb.opencga.storage.hadoop.variant.index.AbstractVariantTableMapReduce;
 import org.opencb.opencga.storage.hadoop.variant.converters.HBaseToVariantConverter;
 import org.opencb.opencga.storage.hadoop.variant.index.VariantTableMapper;
@@ -136,6 +137,24 @@ public class VariantHadoopMultiSampleTest extends VariantStorageBaseTest impleme
 
     }
 
+    @Test
+    public void testTwoFilesBulkLoadArchive() throws Exception {
+
+        StudyConfiguration studyConfiguration = VariantStorageBaseTest.newStudyConfiguration();
+        VariantHadoopDBAdaptor dbAdaptor = getVariantStorageEngine().getDBAdaptor(DB_NAME);
+        // Bulk load is only available for the MapReduce archive load
+        ObjectMap options = new ObjectMap(ArchiveDriver.CONFIG_ARCHIVE_BULK_LOAD, true)
+                .append(HadoopVariantStorageEngine.HADOOP_LOAD_DIRECT, false)
+                .append(VariantStorageEngine.Options.TRANSFORM_FORMAT.key(), "avro");
+        VariantSource source1 = loadFile("s1.genome.vcf", studyConfiguration, options);
+
+        studyConfiguration = dbAdaptor.getStudyConfigurationManager().getStudyConfiguration(studyConfiguration.getStudyId(), null).first();
+        VariantSource source2 = loadFile("s2.genome.vcf", studyConfiguration, options);
+        printVariants(studyConfiguration, dbAdaptor, newOutputUri());
+
+        checkLoadedFilesS1S2(studyConfiguration, dbAdaptor);
+    }
+
     @Test
     public void testTwoFilesConcurrent() throws Exception {
 
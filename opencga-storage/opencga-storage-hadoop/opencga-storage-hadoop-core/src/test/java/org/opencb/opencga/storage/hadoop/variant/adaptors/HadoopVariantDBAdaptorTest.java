@@ -24,6 +24,7 @@ import org.junit.rules.ExternalResource;
 import org.opencb.commons.datastore.core.ObjectMap;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.commons.datastore.core.QueryResult;
 import org.opencb.opencga.storage.core.variant.VariantStorageEngine;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptorTest;
 import org.opencb.opencga.storage.hadoop.variant.AbstractHadoopVariantStoragePipeline;
@@ -31,8 +32,11 @@ import org.opencb.opencga.storage.hadoop.variant.HadoopVariantStorageEngine;
 import org.opencb.opencga.storage.hadoop.variant.HadoopVariantStorageTest;
 import org.opencb.opencga.storage.hadoop.variant.VariantHbaseTestUtils;
 
+import java.util.List;
 import java.util.Map;
 
+import static org.junit.Assert.assertEquals;
+
 
 /**
  * Created on 20/05/16
@@ -101,17 +105,23 @@ public class HadoopVariantDBAdaptorTest extends VariantDBAdaptorTest implements
     }
 
     @Override
-    @Ignore
-    public void groupBy_gene_limit_0() throws Exception {
-        Assume.assumeTrue(false);
-        super.groupBy_gene_limit_0();
-    }
-
-    @Override
-    @Ignore
     public void groupBy_gene() throws Exception {
-        Assume.assumeTrue(false);
-        super.groupBy_gene();
+        // The GENE filter is translated into the region of the gene, so the number of variants of the gene can not be
+        // compared with the groups, which come from the annotated genes. Check the values of each group against its count.
+        int limit = 10;
+        QueryResult<Map<String, Object>> queryResult_count = dbAdaptor.groupBy(new Query(), "gene", new QueryOptions("limit", limit)
+                .append("count", true));
+        QueryResult<Map<String, Object>> queryResult_group = dbAdaptor.groupBy(new Query(), "gene", new QueryOptions("limit", limit));
+
+        assertEquals(limit, queryResult_count.getNumResults());
+        assertEquals(limit, queryResult_group.getNumResults());
+        for (int i = 0; i < limit; i++) {
+            Map<String, Object> count = queryResult_count.getResult().get(i);
+            Map<String, Object> group = queryResult_group.getResult().get(i);
+            assertEquals(count.get("id"), group.get("id"));
+            assertEquals("Size and count for id (" + group.get("id") + ") are different",
+                    ((Number) count.get("count")).intValue(), ((List) group.get("values")).size());
+        }
     }
 
     @Override
@@ -121,13 +131,6 @@ public class HadoopVariantDBAdaptorTest extends VariantDBAdaptorTest implements
         super.testGetAllVariants_files();
     }
 
-    @Override
-    @Ignore
-    public void rank_ct() throws Exception {
-        Assume.assumeTrue(false);
-        super.rank_ct();
-    }
-
     @Override
     @Ignore
     public void testGetAllVariants() {
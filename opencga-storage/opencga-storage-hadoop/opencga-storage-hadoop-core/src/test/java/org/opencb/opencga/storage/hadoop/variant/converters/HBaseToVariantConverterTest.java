@@ -0,0 +1,175 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.hadoop.variant.converters;
+
+import org.apache.hadoop.conf.Configuration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opencb.biodata.models.variant.StudyEntry;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.biodata.tools.variant.merge.VariantMerger;
+import org.opencb.opencga.storage.core.metadata.StudyConfiguration;
+import org.opencb.opencga.storage.core.variant.dummy.DummyStudyConfigurationManager;
+import org.opencb.opencga.storage.hadoop.variant.GenomeHelper;
+import org.opencb.opencga.storage.hadoop.variant.index.SampleIdSet;
+import org.opencb.opencga.storage.hadoop.variant.index.VariantTableStudyRow;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Created on 18/10/26.
+ */
+public class HBaseToVariantConverterTest {
+
+    private static final int STUDY_ID = 1;
+    private static final int FILE_ID = 1;
+
+    private StudyConfiguration studyConfiguration;
+    private HBaseToVariantConverter converter;
+
+    @Before
+    public void setUp() throws Exception {
+        studyConfiguration = new StudyConfiguration(STUDY_ID, "study");
+        studyConfiguration.setTimeStamp(1L);
+        // Sparse sample ids, not in the same order as the samples of the file
+        int[] sampleIds = {10, 3, 7, 12, 5, 1};
+        LinkedHashSet<Integer> samplesInFile = new LinkedHashSet<>();
+        for (int i = 0; i < sampleIds.length; i++) {
+            studyConfiguration.getSampleIds().put("s" + (i + 1), sampleIds[i]);
+            samplesInFile.add(sampleIds[i]);
+        }
+        studyConfiguration.getSamplesInFiles().put(FILE_ID, samplesInFile);
+        studyConfiguration.getIndexedFiles().add(FILE_ID);
+        DummyStudyConfigurationManager.STUDY_CONFIGURATIONS_BY_ID.put(STUDY_ID, studyConfiguration);
+        DummyStudyConfigurationManager.STUDY_CONFIGURATIONS_BY_NAME.put(studyConfiguration.getStudyName(), studyConfiguration);
+
+        converter = new HBaseToVariantConverter(new GenomeHelper(new Configuration()), new DummyStudyConfigurationManager())
+                .setReturnedSamples(Arrays.asList("s4", "s1", "s5", "s2", "s6"));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        DummyStudyConfigurationManager.clear();
+    }
+
+    private VariantTableStudyRow createRow(String variantStr, String... samplesData) {
+        Variant variant = new Variant(variantStr);
+        StudyEntry studyEntry = new StudyEntry(String.valueOf(STUDY_ID), Collections.emptyList(),
+                Arrays.asList(VariantMerger.GT_KEY, VariantMerger.VCF_FILTER));
+        for (int i = 0; i < samplesData.length; i++) {
+            studyEntry.addSampleData("s" + (i + 1), Arrays.asList(samplesData[i].split(":")));
+        }
+        variant.addStudyEntry(studyEntry);
+        return new VariantTableStudyRow(variant, STUDY_ID, studyConfiguration.getSampleIds());
+    }
+
+    // Samples data as built by the previous converter, looking up each returned sample by name
+    private List<List<String>> legacySamplesData(VariantTableStudyRow row, Map<String, Integer> samplesPosition) {
+        @SuppressWarnings("unchecked")
+        List<String>[] samplesDataArray = new List[samplesPosition.size()];
+        for (Map.Entry<String, Integer> entry : samplesPosition.entrySet()) {
+            Integer sampleId = studyConfiguration.getSampleIds().get(entry.getKey());
+            String genotype = row.getSampleToGenotype().get(sampleId);
+            if (genotype == null) {
+                genotype = VariantTableStudyRow.HOM_REF;
+                for (String gt : row.getGenotypes()) {
+                    if (!gt.equals(VariantTableStudyRow.OTHER) && row.getSampleIds(gt).contains(sampleId)) {
+                        genotype = gt;
+                    }
+                }
+            }
+            List<String> sampleData = Arrays.asList(genotype, VariantMerger.PASS_VALUE);
+            for (Map.Entry<String, SampleIdSet> filter : row.getFilterToSamples().entrySet()) {
+                if (filter.getValue().contains(sampleId)) {
+                    sampleData.set(1, filter.getKey());
+                }
+            }
+            samplesDataArray[entry.getValue()] = sampleData;
+        }
+        return Arrays.asList(samplesDataArray);
+    }
+
+    @Test
+    public void testConvertMultiSampleRow() throws Exception {
+        VariantTableStudyRow row = createRow("1:1000:A:T", "0/1:PASS", "0/0:LowQual", "1/1:PASS", "1/2:PASS", "./.:.", "0/0:PASS");
+
+        StudyEntry studyEntry = converter.convert(row).getStudy(String.valueOf(STUDY_ID));
+
+        assertEquals(Arrays.asList("s4", "s1", "s5", "s2", "s6"), new ArrayList<>(studyEntry.getSamplesPosition().keySet()));
+        assertEquals(Arrays.asList(VariantMerger.GT_KEY, VariantMerger.GENOTYPE_FILTER_KEY), studyEntry.getFormat());
+        assertEquals(legacySamplesData(row, studyEntry.getSamplesPosition()), studyEntry.getSamplesData());
+        assertEquals(Arrays.asList("1/2", VariantMerger.PASS_VALUE), studyEntry.getSampleData("s4"));
+        assertEquals(Arrays.asList(VariantTableStudyRow.HOM_REF, "LowQual"), studyEntry.getSampleData("s2"));
+        assertEquals(Arrays.asList(VariantTableStudyRow.HOM_REF, VariantMerger.PASS_VALUE), studyEntry.getSampleData("s6"));
+    }
+
+    @Test
+    public void testConvertRowsDoNotShareSamplesData() throws Exception {
+        VariantTableStudyRow row1 = createRow("1:1000:A:T", "0/1:PASS", "0/0:LowQual", "1/1:PASS", "0/0:PASS", "0/0:PASS", "0/0:PASS");
+        VariantTableStudyRow row2 = createRow("1:2000:C:G", "0/0:PASS", "1/1:PASS", "0/0:PASS", "0/1:LowQual", "0/0:PASS", "0/1:PASS");
+
+        StudyEntry studyEntry1 = converter.convert(row1).getStudy(String.valueOf(STUDY_ID));
+        StudyEntry studyEntry2 = converter.convert(row2).getStudy(String.valueOf(STUDY_ID));
+
+        assertEquals(legacySamplesData(row1, studyEntry1.getSamplesPosition()), studyEntry1.getSamplesData());
+        assertEquals(legacySamplesData(row2, studyEntry2.getSamplesPosition()), studyEntry2.getSamplesData());
+
+        // Samples data can still be modified, without affecting other samples or variants
+        studyEntry1.getSamplesData().get(0).set(0, "./.");
+        assertEquals(Arrays.asList("./.", VariantMerger.PASS_VALUE), studyEntry1.getSampleData("s4"));
+        assertEquals(Arrays.asList(VariantTableStudyRow.HET_REF, VariantMerger.PASS_VALUE), studyEntry1.getSampleData("s1"));
+        assertEquals(Arrays.asList(VariantTableStudyRow.HET_REF, "LowQual"), studyEntry2.getSampleData("s4"));
+    }
+
+    @Test
+    public void testSampleLayout() throws Exception {
+        // Compact ids. Array from the min to the max returned sample id
+        HBaseToVariantConverter.SampleLayout layout = new HBaseToVariantConverter.SampleLayout(studyConfiguration,
+                Arrays.asList("s4", "s1", "s5", "s2", "s6"));
+        assertEquals(12, layout.size());
+        assertEquals(0, layout.getPosition(12));
+        assertEquals(1, layout.getPosition(10));
+        assertEquals(4, layout.getPosition(1));
+        assertEquals(-1, layout.getPosition(7));
+        assertEquals(-1, layout.getPosition(0));
+        assertEquals(-1, layout.getPosition(13));
+
+        // Large and sparse catalog ids. Only one entry per returned sample
+        int[] sampleIds = {2000000, 3, 1500000, 12, 5, 1};
+        for (int i = 0; i < sampleIds.length; i++) {
+            studyConfiguration.getSampleIds().forcePut("s" + (i + 1), sampleIds[i]);
+        }
+        studyConfiguration.getSamplesInFiles().put(FILE_ID, new LinkedHashSet<>(Arrays.asList(2000000, 3, 1500000, 12, 5, 1)));
+        layout = new HBaseToVariantConverter.SampleLayout(studyConfiguration, Arrays.asList("s4", "s1", "s5", "s2", "s6"));
+        assertEquals(5, layout.size());
+        assertEquals(0, layout.getPosition(12));
+        assertEquals(1, layout.getPosition(2000000));
+        assertEquals(3, layout.getPosition(3));
+        assertEquals(-1, layout.getPosition(1500000));
+        assertEquals(-1, layout.getPosition(1999999));
+
+        // The converter uses the new ids once the timeStamp changes
+        studyConfiguration.setTimeStamp(2L);
+        VariantTableStudyRow row = createRow("1:1000:A:T", "0/1:PASS", "0/0:LowQual", "1/1:PASS", "1/2:PASS", "./.:.", "0/0:PASS");
+        StudyEntry studyEntry = converter.convert(row).getStudy(String.valueOf(STUDY_ID));
+        assertEquals(legacySamplesData(row, studyEntry.getSamplesPosition()), studyEntry.getSamplesData());
+        assertEquals(Arrays.asList(VariantTableStudyRow.HET_REF, VariantMerger.PASS_VALUE), studyEntry.getSampleData("s1"));
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.hadoop.variant.index;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantDBIterator;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created on 18/10/26.
+ */
+public class VariantHBaseParallelIteratorTest {
+
+    private ExecutorService executor;
+    private AtomicInteger openedSplits;
+    private AtomicInteger closedSplits;
+
+    @Before
+    public void setUp() throws Exception {
+        executor = Executors.newFixedThreadPool(4);
+        openedSplits = new AtomicInteger();
+        closedSplits = new AtomicInteger();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+    }
+
+    private List<Callable<VariantDBIterator>> splits(int numSplits, int variantsPerSplit) {
+        List<Callable<VariantDBIterator>> splits = new ArrayList<>(numSplits);
+        for (int i = 0; i < numSplits; i++) {
+            List<Variant> variants = new ArrayList<>(variantsPerSplit);
+            for (int j = 0; j < variantsPerSplit; j++) {
+                variants.add(new Variant("1", i * variantsPerSplit + j + 1, "A", "C"));
+            }
+            splits.add(() -> {
+                openedSplits.incrementAndGet();
+                return iterator(variants);
+            });
+        }
+        return splits;
+    }
+
+    private VariantDBIterator iterator(List<Variant> variants) {
+        Iterator<Variant> iterator = variants.iterator();
+        return new VariantDBIterator() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Variant next() {
+                return iterator.next();
+            }
+
+            @Override
+            public void close() throws Exception {
+                closedSplits.incrementAndGet();
+                super.close();
+            }
+        };
+    }
+
+    private List<Variant> readAll(VariantDBIterator iterator) throws Exception {
+        List<Variant> variants = new ArrayList<>();
+        iterator.forEachRemaining(variants::add);
+        iterator.close();
+        return variants;
+    }
+
+    @Test
+    public void testSorted() throws Exception {
+        List<Variant> variants = readAll(new VariantHBaseParallelIterator(splits(10, 100), executor, 3, 5, true, -1));
+
+        assertEquals(1000, variants.size());
+        for (int i = 0; i < variants.size(); i++) {
+            assertEquals(i + 1, variants.get(i).getStart().intValue());
+        }
+    }
+
+    @Test
+    public void testUnsorted() throws Exception {
+        List<Variant> variants = readAll(new VariantHBaseParallelIterator(splits(10, 100), executor, 4, 5, false, -1));
+
+        assertEquals(1000, variants.size());
+        Set<Integer> positions = new HashSet<>();
+        for (Variant variant : variants) {
+            positions.add(variant.getStart());
+        }
+        assertEquals(1000, positions.size());
+    }
+
+    @Test
+    public void testLimit() throws Exception {
+        List<Variant> variants = readAll(new VariantHBaseParallelIterator(splits(10, 100), executor, 4, 5, true, 150));
+
+        assertEquals(150, variants.size());
+        assertEquals(150, variants.get(149).getStart().intValue());
+    }
+
+    @Test(timeout = 10000)
+    public void testSharedExecutor() throws Exception {
+        // Two iterators at the same time, on a pool with less threads than the iterators need
+        ExecutorService smallExecutor = Executors.newFixedThreadPool(2);
+        try {
+            VariantHBaseParallelIterator iterator1 = new VariantHBaseParallelIterator(splits(10, 100), smallExecutor, 2, 5, true, -1);
+            VariantHBaseParallelIterator iterator2 = new VariantHBaseParallelIterator(splits(10, 100), smallExecutor, 2, 5, false, -1);
+
+            assertEquals(1000, readAll(iterator1).size());
+            assertEquals(1000, readAll(iterator2).size());
+            assertFalse(smallExecutor.isShutdown());
+        } finally {
+            smallExecutor.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testCloseReleasesThreads() throws Exception {
+        ExecutorService smallExecutor = Executors.newFixedThreadPool(1);
+        try {
+            // The first split fills its buffer, and leaves the only thread of the pool
+            VariantHBaseParallelIterator iterator = new VariantHBaseParallelIterator(splits(10, 100), smallExecutor, 1, 5, true, -1);
+            assertEquals(1, iterator.next().getStart().intValue());
+            iterator.close();
+
+            // The thread is free to read other queries
+            assertEquals(1000, readAll(new VariantHBaseParallelIterator(splits(10, 100), smallExecutor, 1, 5, true, -1)).size());
+
+            // All the splits of both queries are closed
+            smallExecutor.shutdown();
+            assertTrue(smallExecutor.awaitTermination(5, TimeUnit.SECONDS));
+            assertEquals(openedSplits.get(), closedSplits.get());
+        } finally {
+            smallExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        assertEquals(0, readAll(new VariantHBaseParallelIterator(Collections.emptyList(), executor, 4, 5, true, -1)).size());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testFailSplit() throws Exception {
+        List<Callable<VariantDBIterator>> splits = splits(4, 10);
+        splits.set(2, () -> {
+            throw new IllegalStateException("Fail split");
+        });
+        readAll(new VariantHBaseParallelIterator(splits, executor, 2, 5, true, -1));
+    }
+
+}
@@ -21,11 +21,14 @@ import org.opencb.biodata.models.variant.StudyEntry;
 import org.opencb.biodata.models.variant.Variant;
 import org.opencb.biodata.tools.variant.merge.VariantMerger;
 import org.opencb.opencga.storage.hadoop.variant.models.protobuf.SampleList;
+import org.opencb.opencga.storage.hadoop.variant.models.protobuf.VariantTableStudyRowProto;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 
 import static org.junit.Assert.*;
 
@@ -76,4 +79,93 @@ public class VariantTableStudyRowTest {
         System.out.println("row = " + row);
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testProtoDeltaFormat() throws Exception {
+        VariantTableStudyRow row = new VariantTableStudyRow(1, "1", 1000, "A", "T",
+                org.opencb.biodata.models.variant.avro.VariantType.SNV);
+        row.addSampleId(VariantTableStudyRow.HET_REF, Arrays.asList(1000, 3, 1001));
+        row.addSampleId(VariantTableStudyRow.HOM_VAR, 7);
+
+        VariantTableStudyRowProto proto = row.toProto();
+        assertEquals(VariantTableStudyRow.SAMPLE_ID_DELTA_FORMAT, proto.getFormat());
+        assertEquals(Arrays.asList(3, 997, 1), proto.getHetList());
+
+        VariantTableStudyRow read = new VariantTableStudyRow(proto, "1", 1);
+        assertEquals(new HashSet<>(Arrays.asList(3, 1000, 1001)), read.getSampleIds(VariantTableStudyRow.HET_REF));
+        assertEquals(Collections.singleton(7), read.getSampleIds(VariantTableStudyRow.HOM_VAR));
+    }
+
+    @Test
+    public void testProtoAbsoluteFormat() throws Exception {
+        // Protos written before the delta format
+        VariantTableStudyRowProto proto = VariantTableStudyRowProto.newBuilder()
+                .setStart(1000).setReference("A").setAlternate("T")
+                .addAllHet(Arrays.asList(1001, 3, 1000))
+                .putFilterNonPass("LowQual", SampleList.newBuilder().addAllSampleIds(Arrays.asList(5, 3)).build())
+                .build();
+
+        VariantTableStudyRow read = new VariantTableStudyRow(proto, "1", 1);
+        assertEquals(new HashSet<>(Arrays.asList(3, 1000, 1001)), read.getSampleIds(VariantTableStudyRow.HET_REF));
+        assertEquals(new HashSet<>(Arrays.asList(3, 5)), read.getFilterToSamples().get("LowQual"));
+    }
+
+    @Test
+    public void testSampleIdSet() throws Exception {
+        SampleIdSet set = new SampleIdSet(Arrays.asList(10, 2, 5));
+        assertEquals(Arrays.asList(2, 5, 10), new ArrayList<>(set));
+        assertEquals(Arrays.asList(2, 3, 5), set.toDeltas());
+        assertEquals(set, SampleIdSet.fromDeltas(set.toDeltas()));
+        assertFalse(set.add(5));
+        assertFalse(set.contains(-1));
+
+        SampleIdSet other = new SampleIdSet(Arrays.asList(5, 20));
+        assertTrue(set.intersects(other));
+        set.removeAll(other);
+        assertEquals(new HashSet<>(Arrays.asList(2, 10)), set);
+        set.addAll(other);
+        assertEquals(4, set.size());
+    }
+
+    @Test
+    public void testSampleIdSetOperations() throws Exception {
+        // Catalog sample ids can be large and sparse
+        SampleIdSet set = new SampleIdSet();
+        for (int sampleId : new int[]{2000003, 5, 2000001, 1000000, 5}) {
+            set.add(sampleId);
+        }
+        assertEquals(Arrays.asList(5, 1000000, 2000001, 2000003), new ArrayList<>(set));
+        assertTrue(set.contains(2000001));
+        assertFalse(set.contains(2000002));
+
+        SampleIdSet other = new SampleIdSet(Arrays.asList(1, 2000001, 3000000));
+        assertTrue(set.intersects(other));
+        assertFalse(set.intersects(new SampleIdSet(Arrays.asList(1, 2000002))));
+
+        SampleIdSet union = new SampleIdSet(set);
+        union.addAll(other);
+        assertEquals(Arrays.asList(1, 5, 1000000, 2000001, 2000003, 3000000), new ArrayList<>(union));
+
+        SampleIdSet intersection = new SampleIdSet(set);
+        intersection.retainAll(other);
+        assertEquals(Collections.singletonList(2000001), new ArrayList<>(intersection));
+
+        SampleIdSet difference = new SampleIdSet(set);
+        difference.removeAll(other);
+        assertEquals(Arrays.asList(5, 1000000, 2000003), new ArrayList<>(difference));
+        assertEquals(new HashSet<>(difference), difference);
+        assertEquals(difference, new HashSet<>(difference));
+        assertEquals(new HashSet<>(difference).hashCode(), difference.hashCode());
+
+        Iterator<Integer> iterator = difference.iterator();
+        iterator.next();
+        iterator.next();
+        iterator.remove();
+        assertEquals(Arrays.asList(5, 2000003), new ArrayList<>(difference));
+
+        difference.clear();
+        assertTrue(difference.isEmpty());
+        difference.add(7);
+        assertEquals(Collections.singletonList(7), new ArrayList<>(difference));
+    }
+}
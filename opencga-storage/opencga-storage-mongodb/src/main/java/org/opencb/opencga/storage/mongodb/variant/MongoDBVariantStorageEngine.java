@@ -75,7 +75,12 @@ public class MongoDBVariantStorageEngine extends VariantStorageEngine {
         MERGE("merge", false),
         MERGE_SKIP("merge.skip", false), // Internal use only
         MERGE_RESUME("merge.resume", false),
-        MERGE_PARALLEL_WRITE("merge.parallel.write", false);
+        MERGE_PARALLEL_WRITE("merge.parallel.write", false),
+        MERGE_PARALLEL_PARTITIONS("merge.parallel.partitions", 4),  // Max number of chromosomes merged at the same time
+        MERGE_STAGE_RANGES("merge.stage.ranges", 2),               // Number of parallel stage readers for each chromosome
+        LOAD_PENDING_WRITES("load.pendingWrites", 2),               // Max number of bulk writes in flight for each writer
+        LOAD_WRITE_CONCERN("load.writeConcern", ""),                // e.g. W1. Empty to use the default write concern
+        GENOTYPE_CLIENT_FILTER("genotype.clientFilter", false);     // Check default genotype filters on the client. Query option
 
         private final String key;
         private final Object value;
@@ -19,6 +19,9 @@ package org.opencb.opencga.storage.mongodb.variant;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.LinkedListMultimap;
 import com.google.common.collect.ListMultimap;
+import com.mongodb.WriteConcern;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
 import org.bson.Document;
 import org.bson.types.Binary;
 import org.opencb.biodata.formats.variant.io.VariantReader;
@@ -30,6 +33,7 @@ import org.opencb.commons.datastore.core.ObjectMap;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.commons.datastore.mongodb.MongoDBCollection;
+import org.opencb.commons.io.DataWriter;
 import org.opencb.commons.run.ParallelTaskRunner;
 import org.opencb.opencga.core.common.ProgressLogger;
 import org.opencb.opencga.storage.core.config.StorageConfiguration;
@@ -45,6 +49,7 @@ import org.opencb.opencga.storage.mongodb.variant.adaptors.VariantMongoDBAdaptor
 import org.opencb.opencga.storage.mongodb.variant.adaptors.VariantMongoDBWriter;
 import org.opencb.opencga.storage.mongodb.variant.converters.DocumentToSamplesConverter;
 import org.opencb.opencga.storage.mongodb.variant.exceptions.MongoVariantStorageEngineException;
+import org.opencb.opencga.storage.mongodb.variant.load.MongoDBPipelinedWriter;
 import org.opencb.opencga.storage.mongodb.variant.load.MongoDBVariantWriteResult;
 import org.opencb.opencga.storage.mongodb.variant.load.stage.MongoDBVariantStageConverterTask;
 import org.opencb.opencga.storage.mongodb.variant.load.stage.MongoDBVariantStageLoader;
@@ -60,6 +65,9 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Predicate;
 
 import static org.opencb.opencga.storage.core.variant.VariantStorageEngine.Options;
@@ -72,6 +80,8 @@ import static org.opencb.opencga.storage.mongodb.variant.MongoDBVariantStorageEn
  */
 public class MongoDBVariantStoragePipeline extends VariantStoragePipeline {
 
+    private static final String WRITE_BARRIER_ID = "_writeBarrier";
+
     private final VariantMongoDBAdaptor dbAdaptor;
     private final ObjectMap loadStats = new ObjectMap();
 
@@ -235,8 +245,9 @@ public class MongoDBVariantStoragePipeline extends VariantStoragePipeline {
 
             ProgressLogger progressLogger = new ProgressLogger("Write variants in STAGE collection:", numRecords, 200);
             MongoDBVariantStageConverterTask converterTask = new MongoDBVariantStageConverterTask(progressLogger);
+            MongoDBCollection stageLoadCollection = getLoadCollection(stageCollection);
             MongoDBVariantStageLoader stageLoader =
-                    new MongoDBVariantStageLoader(stageCollection, studyConfiguration.getStudyId(), fileId,
+                    new MongoDBVariantStageLoader(stageLoadCollection, studyConfiguration.getStudyId(), fileId,
                             isResumeStage(options));
 
             ParallelTaskRunner<Variant, ?> ptr;
@@ -268,7 +279,7 @@ public class MongoDBVariantStoragePipeline extends VariantStoragePipeline {
                             return converterTask.apply(remappedVariants);
                         },
 //                        remapIdsTask.then(converterTask),
-                        stageLoader,
+                        pipelined(stageLoader),
                         build
                 );
             }
@@ -285,6 +296,7 @@ public class MongoDBVariantStoragePipeline extends VariantStoragePipeline {
             Runtime.getRuntime().addShutdownHook(hook);
             try {
                 ptr.run();
+                writeBarrier(stageLoadCollection);
                 stageSuccess(source);
             } catch (ExecutionException e) {
                 e.printStackTrace();
@@ -295,9 +307,9 @@ public class MongoDBVariantStoragePipeline extends VariantStoragePipeline {
             }
 
             long skippedVariants = converterTask.getSkippedVariants();
-            stageLoader.getWriteResult().setSkippedVariants(skippedVariants);
+            MongoDBVariantWriteResult stageWriteResult = stageLoader.getWriteResult().setSkippedVariants(skippedVariants);
             loadStats.append(MERGE.key(), false);
-            loadStats.append("stageWriteResult", stageLoader.getWriteResult());
+            loadStats.append("stageWriteResult", stageWriteResult);
             options.put("skippedVariants", skippedVariants);
             logger.info("Stage Write result: {}", skippedVariants);
         }
@@ -461,7 +473,10 @@ public class MongoDBVariantStoragePipeline extends VariantStoragePipeline {
      * Merge staged files into Variant collection.
      *
      * 1- Find if the files are in different chromosomes.
-     * 2- If splitted, call once per chromosome. Else, call only once.
+     * 2- Split the merge in partitions, one per chromosome. If the files are not splitted by chromosome, take the chromosomes
+     *    from the stage collection.
+     * 3- Merge up to {@link MongoDBVariantStorageEngine.MongoDBVariantOptions#MERGE_PARALLEL_PARTITIONS} partitions at the same
+     *    time, sharing the load threads. Completed partitions are skipped when resuming.
      *
      * @see MongoDBVariantMerger
      *
@@ -537,19 +552,19 @@ public class MongoDBVariantStoragePipeline extends VariantStoragePipeline {
                     throw new StorageEngineException(message);
                 }
 
+                List<MergePartition> partitions = new ArrayList<>();
                 if (chromosomesToLoad.isEmpty()) {
-                    writeResult = mergeByChromosome(fileIds, batchSize, loadThreads, stageCollection,
-                            studyConfiguration, null, studyConfiguration.getIndexedFiles());
+                    // Variants never overlap between chromosomes, so whole genome files can be splitted by chromosome as well
+                    for (String chromosome : MongoDBVariantStageReader.getChromosomes(stageCollection)) {
+                        partitions.add(new MergePartition(chromosome, fileIds, studyConfiguration.getIndexedFiles()));
+                    }
                 } else {
-                    writeResult = new MongoDBVariantWriteResult();
                     for (String chromosome : chromosomesToLoad) {
-                        List<Integer> filesToLoad = chromosomeInFilesToLoad.get(chromosome);
-                        Set<Integer> indexedFiles = new HashSet<>(chromosomeInLoadedFiles.get(chromosome));
-                        MongoDBVariantWriteResult aux = mergeByChromosome(filesToLoad, batchSize, loadThreads, stageCollection,
-                                studyConfiguration, chromosome, indexedFiles);
-                        writeResult.merge(aux);
+                        partitions.add(new MergePartition(chromosome, chromosomeInFilesToLoad.get(chromosome),
+                                new HashSet<>(chromosomeInLoadedFiles.get(chromosome))));
                     }
                 }
+                writeResult = mergePartitions(fileIds, partitions, batchSize, loadThreads, stageCollection, studyConfiguration);
             } catch (Exception e) {
                 setStatus(BatchFileOperation.Status.ERROR, MERGE.key(), fileIds);
                 throw e;
@@ -649,23 +664,147 @@ public class MongoDBVariantStoragePipeline extends VariantStoragePipeline {
         return studyConfiguration;
     }
 
+    /**
+     * Independent piece of a merge. Variants from different partitions never overlap.
+     */
+    private static final class MergePartition {
+        private final String chromosome;
+        private final List<Integer> fileIds;
+        private final Set<Integer> indexedFiles;
+
+        private MergePartition(String chromosome, List<Integer> fileIds, Set<Integer> indexedFiles) {
+            this.chromosome = chromosome;
+            this.fileIds = fileIds;
+            this.indexedFiles = indexedFiles;
+        }
+    }
+
+    private MongoDBVariantWriteResult mergePartitions(List<Integer> fileIds, List<MergePartition> partitions, int batchSize,
+                                                      int loadThreads, MongoDBCollection stageCollection,
+                                                      StudyConfiguration studyConfiguration)
+            throws StorageEngineException {
+        MongoDBVariantWriteResult writeResult = new MongoDBVariantWriteResult();
+
+        Set<String> completedPartitions = Collections.emptySet();
+        if (isResumeMerge(options)) {
+            BatchFileOperation operation = getBatchFileOperation(studyConfiguration.getBatches(),
+                    op -> op.getOperationName().equals(MERGE.key()) && op.getFileIds().equals(fileIds));
+            if (operation != null) {
+                completedPartitions = operation.getCompletedPartitions();
+            }
+        }
+        List<MergePartition> pendingPartitions = new ArrayList<>(partitions.size());
+        for (MergePartition partition : partitions) {
+            if (completedPartitions.contains(partition.chromosome)) {
+                logger.info("Skip chromosome {}. Already merged", partition.chromosome);
+            } else {
+                pendingPartitions.add(partition);
+            }
+        }
+        if (pendingPartitions.isEmpty()) {
+            return writeResult;
+        }
+
+        // The load threads are shared between all the partitions running at the same time
+        int parallelPartitions = options.getInt(MERGE_PARALLEL_PARTITIONS.key(), MERGE_PARALLEL_PARTITIONS.defaultValue());
+        parallelPartitions = Math.max(1, Math.min(Math.min(parallelPartitions, pendingPartitions.size()), loadThreads));
+        int partitionThreads = Math.max(1, loadThreads / parallelPartitions);
+        logger.info("Merging {} chromosomes, {} at a time with {} threads each", pendingPartitions.size(), parallelPartitions,
+                partitionThreads);
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelPartitions, r -> {
+            Thread thread = new Thread(r, "merge-partition");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<MongoDBVariantWriteResult>> futures = new ArrayList<>(pendingPartitions.size());
+            for (MergePartition partition : pendingPartitions) {
+                futures.add(executor.submit(() -> {
+                    MongoDBVariantWriteResult result = mergeByChromosome(partition.fileIds, batchSize, partitionThreads,
+                            stageCollection, studyConfiguration, partition.chromosome, partition.indexedFiles);
+                    setPartitionCompleted(fileIds, partition.chromosome);
+                    return result;
+                }));
+            }
+            for (Future<MongoDBVariantWriteResult> future : futures) {
+                writeResult.merge(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StorageEngineException("Interrupted while merging files " + fileIds, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof StorageEngineException) {
+                throw (StorageEngineException) e.getCause();
+            }
+            throw new StorageEngineException("Error merging files " + fileIds, e.getCause());
+        } finally {
+            // Stop the rest of the partitions on error
+            executor.shutdownNow();
+        }
+        return writeResult;
+    }
+
+    private void setPartitionCompleted(List<Integer> fileIds, String partition) throws StorageEngineException {
+        dbAdaptor.getStudyConfigurationManager().lockAndUpdate(getStudyId(), studyConfiguration -> {
+            BatchFileOperation operation = getBatchFileOperation(studyConfiguration.getBatches(),
+                    op -> op.getOperationName().equals(MERGE.key()) && op.getFileIds().equals(fileIds));
+            if (operation != null) {
+                operation.addCompletedPartition(partition);
+            }
+            return studyConfiguration;
+        });
+    }
+
     private MongoDBVariantWriteResult mergeByChromosome(
             List<Integer> fileIds, int batchSize, int loadThreads, MongoDBCollection stageCollection,
             StudyConfiguration studyConfiguration, String chromosomeToLoad, Set<Integer> indexedFiles)
             throws StorageEngineException {
 
-        MongoDBVariantStageReader reader = new MongoDBVariantStageReader(stageCollection, studyConfiguration.getStudyId(),
-                chromosomeToLoad == null ? Collections.emptyList() : Collections.singletonList(chromosomeToLoad));
+        int studyId = studyConfiguration.getStudyId();
+        List<String> chromosomes = chromosomeToLoad == null ? Collections.emptyList() : Collections.singletonList(chromosomeToLoad);
+        MongoDBVariantStageReader reader = new MongoDBVariantStageReader(stageCollection, studyId, chromosomes);
         boolean resume = isResumeMerge(options);
         ProgressLogger progressLogger = new ProgressLogger("Write variants in VARIANTS collection:", reader::countNumVariants, 200);
         progressLogger.setApproximateTotalCount(reader.countAproxNumVariants());
 
-        MongoDBVariantMerger variantMerger = new MongoDBVariantMerger(dbAdaptor, studyConfiguration, fileIds,
-                dbAdaptor.getVariantsCollection(), indexedFiles, resume);
-        MongoDBVariantMergeLoader variantLoader = new MongoDBVariantMergeLoader(dbAdaptor.getVariantsCollection(), fileIds, resume,
+        MongoDBCollection variantsLoadCollection = getLoadCollection(dbAdaptor.getVariantsCollection());
+        MongoDBVariantMergeLoader variantLoader = new MongoDBVariantMergeLoader(variantsLoadCollection, fileIds, resume,
                 progressLogger);
 
-        ParallelTaskRunner<Document, MongoDBOperations> ptrMerge;
+        // Split the stage in ranges. Each range has its own reader and merger, sharing the load threads
+        int numRanges = Math.min(options.getInt(MERGE_STAGE_RANGES.key(), MERGE_STAGE_RANGES.defaultValue()), loadThreads);
+        List<String> boundaries = MongoDBVariantStageReader.splitRanges(stageCollection, studyId, chromosomes, numRanges);
+        numRanges = boundaries.size() + 1;
+        int rangeThreads = Math.max(1, loadThreads / numRanges);
+
+        List<ParallelTaskRunner<Document, MongoDBOperations>> runners = new ArrayList<>(numRanges);
+        for (int i = 0; i < numRanges; i++) {
+            String fromId = i == 0 ? null : boundaries.get(i - 1);
+            String toId = i == boundaries.size() ? null : boundaries.get(i);
+            MongoDBVariantStageReader rangeReader = new MongoDBVariantStageReader(stageCollection, studyId, chromosomes, fromId, toId);
+            MongoDBVariantMerger variantMerger = new MongoDBVariantMerger(dbAdaptor, studyConfiguration, fileIds,
+                    dbAdaptor.getVariantsCollection(), indexedFiles, resume);
+            runners.add(buildMergeRunner(rangeReader, variantMerger, variantLoader, batchSize, rangeThreads));
+        }
+
+        if (chromosomeToLoad != null) {
+            logger.info("Merging files {} in chromosome: {}. Other indexed files in chromosome {}: {}",
+                    fileIds, chromosomeToLoad, chromosomeToLoad, indexedFiles);
+        } else {
+            logger.info("Merging files " + fileIds);
+        }
+        if (numRanges > 1) {
+            logger.info("Reading stage in {} ranges, split at {}", numRanges, boundaries);
+        }
+        runMergeRunners(runners);
+        writeBarrier(variantsLoadCollection);
+        return variantLoader.getResult();
+    }
+
+    private ParallelTaskRunner<Document, MongoDBOperations> buildMergeRunner(
+            MongoDBVariantStageReader reader, MongoDBVariantMerger variantMerger, MongoDBVariantMergeLoader variantLoader,
+            int batchSize, int loadThreads) throws StorageEngineException {
         ParallelTaskRunner.Config config = ParallelTaskRunner.Config.builder()
                 .setReadQueuePutTimeout(20 * 60)
                 .setNumTasks(loadThreads)
@@ -673,30 +812,93 @@ public class MongoDBVariantStoragePipeline extends VariantStoragePipeline {
                 .setAbortOnFail(true).build();
         try {
             if (options.getBoolean(MERGE_PARALLEL_WRITE.key(), MERGE_PARALLEL_WRITE.defaultValue())) {
-                ptrMerge = new ParallelTaskRunner<>(reader, batch -> {
+                return new ParallelTaskRunner<>(reader, batch -> {
                     List<MongoDBOperations> apply = variantMerger.apply(batch);
                     variantLoader.write(apply);     // Load in each thread
                     return apply;
                 }, null, config);
             } else {
-                ptrMerge = new ParallelTaskRunner<>(reader, variantMerger, variantLoader, config);
+                return new ParallelTaskRunner<>(reader, variantMerger, pipelined(variantLoader), config);
             }
         } catch (RuntimeException e) {
             throw new StorageEngineException("Error while creating ParallelTaskRunner", e);
         }
+    }
+
+    /**
+     * Get the collection to write during the load, with the write concern from
+     * {@link MongoDBVariantStorageEngine.MongoDBVariantOptions#LOAD_WRITE_CONCERN}.
+     *
+     * @param collection    Collection
+     * @return              Collection with the load write concern
+     * @throws StorageEngineException if the write concern is unknown or unacknowledged
+     */
+    private MongoDBCollection getLoadCollection(MongoDBCollection collection) throws StorageEngineException {
+        String name = options.getString(LOAD_WRITE_CONCERN.key(), LOAD_WRITE_CONCERN.defaultValue());
+        if (name == null || name.isEmpty()) {
+            return collection;
+        }
+        WriteConcern writeConcern = WriteConcern.valueOf(name.toUpperCase());
+        // Acknowledged writes are needed to detect the duplicated key errors and to count the loaded variants
+        if (writeConcern == null || !writeConcern.isAcknowledged()) {
+            throw new StorageEngineException("Unsupported write concern for load: '" + name + "'");
+        }
+        return collection.withWriteConcern(writeConcern);
+    }
+
+    /**
+     * Wait until all the writes done with the load write concern are in the journal.
+     *
+     * @param collection    Collection used during the load
+     */
+    private void writeBarrier(MongoDBCollection collection) {
+        if (options.getString(LOAD_WRITE_CONCERN.key(), LOAD_WRITE_CONCERN.defaultValue()).isEmpty()) {
+            return;
+        }
+        // A journaled write is not acknowledged until the journal, with all the previous writes, is on disk.
+        // Does not modify any document.
+        collection.withWriteConcern(WriteConcern.JOURNALED)
+                .update(Filters.eq("_id", WRITE_BARRIER_ID), Updates.set(WRITE_BARRIER_ID, true), new QueryOptions());
+    }
+
+    private <T> DataWriter<T> pipelined(DataWriter<T> writer) {
+        int pendingWrites = options.getInt(LOAD_PENDING_WRITES.key(), LOAD_PENDING_WRITES.defaultValue());
+        return pendingWrites > 1 ? new MongoDBPipelinedWriter<>(writer, pendingWrites) : writer;
+    }
 
+    private void runMergeRunners(List<ParallelTaskRunner<Document, MongoDBOperations>> runners) throws StorageEngineException {
+        if (runners.size() == 1) {
+            try {
+                runners.get(0).run();
+            } catch (ExecutionException e) {
+                throw new StorageEngineException("Error while executing LoadVariants in ParallelTaskRunner", e);
+            }
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(runners.size(), r -> {
+            Thread thread = new Thread(r, "merge-range");
+            thread.setDaemon(true);
+            return thread;
+        });
         try {
-            if (chromosomeToLoad != null) {
-                logger.info("Merging files {} in chromosome: {}. Other indexed files in chromosome {}: {}",
-                        fileIds, chromosomeToLoad, chromosomeToLoad, indexedFiles);
-            } else {
-                logger.info("Merging files " + fileIds);
+            List<Future<?>> futures = new ArrayList<>(runners.size());
+            for (ParallelTaskRunner<Document, MongoDBOperations> runner : runners) {
+                futures.add(executor.submit(() -> {
+                    runner.run();
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
             }
-            ptrMerge.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StorageEngineException("Interrupted while executing LoadVariants", e);
         } catch (ExecutionException e) {
-            throw new StorageEngineException("Error while executing LoadVariants in ParallelTaskRunner", e);
+            throw new StorageEngineException("Error while executing LoadVariants in ParallelTaskRunner", e.getCause());
+        } finally {
+            executor.shutdownNow();
         }
-        return variantLoader.getResult();
     }
 
     @Override
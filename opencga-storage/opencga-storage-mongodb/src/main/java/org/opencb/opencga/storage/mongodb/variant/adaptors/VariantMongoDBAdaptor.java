@@ -23,6 +23,7 @@ import com.mongodb.*;
 import com.mongodb.bulk.BulkWriteError;
 import com.mongodb.bulk.BulkWriteResult;
 import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCursor;
 import com.mongodb.client.model.Updates;
 import com.mongodb.client.result.UpdateResult;
 import htsjdk.variant.vcf.VCFConstants;
@@ -88,6 +89,7 @@ import static org.opencb.opencga.storage.core.variant.VariantStorageEngine.Optio
 import static org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptorUtils.*;
 import static org.opencb.opencga.storage.mongodb.variant.MongoDBVariantStorageEngine.MongoDBVariantOptions.COLLECTION_STAGE;
 import static org.opencb.opencga.storage.mongodb.variant.MongoDBVariantStorageEngine.MongoDBVariantOptions.DEFAULT_GENOTYPE;
+import static org.opencb.opencga.storage.mongodb.variant.MongoDBVariantStorageEngine.MongoDBVariantOptions.GENOTYPE_CLIENT_FILTER;
 
 /**
  * @author Ignacio Medina <igmecas@gmail.com>
@@ -156,7 +158,7 @@ public class VariantMongoDBAdaptor implements VariantDBAdaptor {
             species = clientConfiguration.getDefaultSpecies();
         }
         cellBaseClient = new CellBaseClient(species, assembly, clientConfiguration);
-        this.cacheManager = new CacheManager(storageConfiguration);
+        this.cacheManager = new CacheManager(storageConfiguration, "mongodb:" + credentials.getMongoDbName() + '.' + collectionName);
         NUMBER_INSTANCES.incrementAndGet();
     }
 
@@ -204,8 +206,10 @@ public class VariantMongoDBAdaptor implements VariantDBAdaptor {
 //                includeGenotypes ? new DBObjectToSamplesConverter(studyConfiguration) : null);
         DocumentToStudyVariantEntryConverter sourceEntryConverter =
                 new DocumentToStudyVariantEntryConverter(true, new DocumentToSamplesConverter(studyConfiguration));
-        return insert(variants, fileId, variantConverter, sourceEntryConverter, studyConfiguration, getLoadedSamples(fileId,
-                studyConfiguration));
+        QueryResult result = insert(variants, fileId, variantConverter, sourceEntryConverter, studyConfiguration,
+                getLoadedSamples(fileId, studyConfiguration));
+        cacheManager.invalidate();
+        return result;
     }
 
     @Override
@@ -213,6 +217,7 @@ public class VariantMongoDBAdaptor implements VariantDBAdaptor {
         Bson mongoQuery = parseQuery(query);
         logger.debug("Delete to be executed: '{}'", mongoQuery.toString());
         QueryResult queryResult = variantsCollection.remove(mongoQuery, options);
+        cacheManager.invalidate();
 
         return queryResult;
     }
@@ -255,6 +260,7 @@ public class VariantMongoDBAdaptor implements VariantDBAdaptor {
             Document purgeQuery = new Document(DocumentToVariantConverter.STUDIES_FIELD, new Document("$size", 0));
             variantsCollection.remove(purgeQuery, new QueryOptions(MULTI, true));
         }
+        cacheManager.invalidate();
 
         return result;
     }
@@ -262,31 +268,22 @@ public class VariantMongoDBAdaptor implements VariantDBAdaptor {
     @Override
     public VariantQueryResult<Variant> get(Query query, QueryOptions options) {
 
-        if (options == null) {
-            options = new QueryOptions();
-        }
-
-        VariantQueryResult<Variant> queryResult;
+        // Copy, as the options are modified by getVariantQueryResult
+        options = options == null ? new QueryOptions() : new QueryOptions(options);
+        // Set before building the cache key, as it is added by getVariantQueryResult
+        options.putIfAbsent(QueryOptions.SKIP_COUNT, true);
 
-        if (options.getBoolean("cache") && cacheManager.isTypeAllowed("var")) {
-            List<Integer> studyIds = utils.getStudyIds(query.getAsList(VariantQueryParams.STUDIES.key()), options);
-            // TODO : ONLY USING ONE STUDY ID ?
-            String key = cacheManager.createKey(studyIds.get(0).toString(), "var", query, options);
-            queryResult = new VariantQueryResult<>(cacheManager.get(key), null);
-            if (queryResult.getResult() != null && queryResult.getResult().size() != 0) {
-                return queryResult;
-            } else {
-                queryResult = getVariantQueryResult(query, options);
-                cacheManager.set(key, query, queryResult);
-            }
-        } else {
-            return getVariantQueryResult(query, options);
-        }
-        return queryResult;
+        QueryOptions finalOptions = options;
+        return cacheManager.cached(CacheManager.VARIANT, "get", studyConfigurationManager, query, options,
+                () -> getVariantQueryResult(query, finalOptions));
     }
 
     private VariantQueryResult<Variant> getVariantQueryResult(Query query, QueryOptions options) {
-        Document mongoQuery = parseQuery(query);
+        // Before parsing, as the query may be modified
+        String queryHash = VariantQueryToken.getQueryHash(query);
+        DocumentGenotypeFilter genotypeFilter = newGenotypeFilter(query, options);
+        Document mongoQuery = parseQuery(query, genotypeFilter);
+        addTokenFilter(mongoQuery, queryHash, options);
         Document projection = createProjection(query, options);
 //        logger.debug("Query to be executed: '{}'", mongoQuery.toJson(new JsonWriterSettings(JsonMode.SHELL, false)));
         options.putIfAbsent(QueryOptions.SKIP_COUNT, true);
@@ -312,7 +309,102 @@ public class VariantMongoDBAdaptor implements VariantDBAdaptor {
 //        }
         DocumentToVariantConverter converter = getDocumentToVariantConverter(query, options);
         Map<String, List<String>> samples = getDBAdaptorUtils().getSamplesMetadata(query, options);
-        return new VariantQueryResult<>(variantsCollection.find(mongoQuery, projection, converter, options), samples);
+        QueryResult<Variant> queryResult;
+        if (genotypeFilter == null || genotypeFilter.isEmpty()) {
+            queryResult = variantsCollection.find(mongoQuery, projection, converter, options);
+        } else {
+            queryResult = findGenotypeFiltered(mongoQuery, projection, converter, genotypeFilter, options);
+        }
+        VariantQueryResult<Variant> result = new VariantQueryResult<>(queryResult, samples);
+        return VariantQueryToken.addNextToken(result, queryHash, options);
+    }
+
+    /**
+     * Genotype filter to check on the client, if enabled with
+     * {@link MongoDBVariantStorageEngine.MongoDBVariantOptions#GENOTYPE_CLIENT_FILTER}.
+     * The returned documents must contain the genotypes of all the studies, so it is not used if the projection
+     * excludes the genotypes or returns only one study.
+     *
+     * @param query     Query
+     * @param options   Query options
+     * @return          Empty genotype filter, to be filled by {@link #parseQuery(Query, DocumentGenotypeFilter)}, or null
+     */
+    private DocumentGenotypeFilter newGenotypeFilter(Query query, QueryOptions options) {
+        boolean enabled = configuration.getBoolean(GENOTYPE_CLIENT_FILTER.key(), GENOTYPE_CLIENT_FILTER.defaultValue());
+        if (options != null) {
+            enabled = options.getBoolean(GENOTYPE_CLIENT_FILTER.key(), enabled);
+        }
+        if (!enabled || query == null || !isValidParam(query, VariantQueryParams.GENOTYPE)) {
+            return null;
+        }
+        if (options != null) {
+            Document projection = createProjection(query, new QueryOptions(options));
+            String studies = DocumentToVariantConverter.STUDIES_FIELD;
+            if (!projection.isEmpty() && !Integer.valueOf(1).equals(projection.get(studies))
+                    && !(projection.containsKey(studies + '.' + DocumentToStudyVariantEntryConverter.STUDYID_FIELD)
+                    && projection.containsKey(studies + '.' + DocumentToStudyVariantEntryConverter.GENOTYPES_FIELD))) {
+                return null;
+            }
+        }
+        return new DocumentGenotypeFilter();
+    }
+
+    private QueryResult<Variant> findGenotypeFiltered(Document mongoQuery, Document projection, DocumentToVariantConverter converter,
+                                                      DocumentGenotypeFilter genotypeFilter, QueryOptions options) {
+        StopWatch watch = new StopWatch();
+        watch.start();
+        // Skip and limit can only be applied after the genotype filter
+        int skip = options.getInt(QueryOptions.SKIP, 0);
+        int limit = options.getInt(QueryOptions.LIMIT, 0);
+        QueryOptions findOptions = new QueryOptions(options);
+        findOptions.remove(QueryOptions.SKIP);
+        findOptions.remove(QueryOptions.LIMIT);
+
+        List<Variant> variants = new ArrayList<>();
+        int numTotalResults = 0;
+        boolean count = !options.getBoolean(QueryOptions.SKIP_COUNT, false);
+        try (MongoCursor<Document> cursor = variantsCollection.nativeQuery().find(mongoQuery, projection, findOptions).iterator()) {
+            while (cursor.hasNext() && (count || limit <= 0 || variants.size() < limit)) {
+                Document document = cursor.next();
+                if (genotypeFilter.test(document)) {
+                    numTotalResults++;
+                    if (numTotalResults > skip && (limit <= 0 || variants.size() < limit)) {
+                        variants.add(converter.convertToDataModelType(document));
+                    }
+                }
+            }
+        }
+        watch.stop();
+        return new QueryResult<>("", (int) watch.getTime(), variants.size(), count ? numTotalResults : -1, "", "", variants);
+    }
+
+    /**
+     * Continue after the variant from the token, if any. Variants are sorted by _id to be paginated with tokens.
+     *
+     * @param mongoQuery    Mongo query to modify
+     * @param queryHash     Hash of the original query
+     * @param options       Query options
+     */
+    @SuppressWarnings("unchecked")
+    private void addTokenFilter(Document mongoQuery, String queryHash, QueryOptions options) {
+        Variant lastVariant = VariantQueryToken.getLastVariant(queryHash, options);
+        if (lastVariant != null) {
+            options.put(QueryOptions.SORT, true);
+            Document filter = new Document("$gt", MongoDBVariantStageLoader.STRING_ID_CONVERTER.buildId(lastVariant));
+            if (mongoQuery.containsKey("_id")) {
+                Object idFilter = mongoQuery.remove("_id");
+                List<Document> and = new ArrayList<>(2);
+                and.add(new Document("_id", idFilter));
+                and.add(new Document("_id", filter));
+                if (mongoQuery.containsKey("$and")) {
+                    ((List<Object>) mongoQuery.get("$and")).addAll(and);
+                } else {
+                    mongoQuery.put("$and", and);
+                }
+            } else {
+                mongoQuery.put("_id", filter);
+            }
+        }
     }
 
     @Override
@@ -382,14 +474,45 @@ public class VariantMongoDBAdaptor implements VariantDBAdaptor {
 
     @Override
     public QueryResult<Long> count(Query query) {
-        Document mongoQuery = parseQuery(query);
-        return variantsCollection.count(mongoQuery);
+        return cacheManager.cached(CacheManager.VARIANT, "count", studyConfigurationManager, query, null,
+                () -> countVariants(query));
+    }
+
+    private QueryResult<Long> countVariants(Query query) {
+        DocumentGenotypeFilter genotypeFilter = newGenotypeFilter(query, null);
+        Document mongoQuery = parseQuery(query, genotypeFilter);
+        if (genotypeFilter == null || genotypeFilter.isEmpty()) {
+            return variantsCollection.count(mongoQuery);
+        }
+        StopWatch watch = new StopWatch();
+        watch.start();
+        Document projection = new Document()
+                .append(DocumentToVariantConverter.STUDIES_FIELD + '.' + DocumentToStudyVariantEntryConverter.STUDYID_FIELD, 1)
+                .append(DocumentToVariantConverter.STUDIES_FIELD + '.' + DocumentToStudyVariantEntryConverter.GENOTYPES_FIELD, 1);
+        long count = 0;
+        try (MongoCursor<Document> cursor = variantsCollection.nativeQuery().find(mongoQuery, projection, new QueryOptions()).iterator()) {
+            while (cursor.hasNext()) {
+                if (genotypeFilter.test(cursor.next())) {
+                    count++;
+                }
+            }
+        }
+        watch.stop();
+        return new QueryResult<>("count", (int) watch.getTime(), 1, 1, "", "", Collections.singletonList(count));
     }
 
     @Override
     public QueryResult distinct(Query query, String field) {
+        return cacheManager.cached(CacheManager.VARIANT, "distinct." + field, studyConfigurationManager, query, null,
+                () -> getDistinctQueryResult(query, field));
+    }
+
+    private QueryResult getDistinctQueryResult(Query query, String field) {
         String documentPath;
         switch (field) {
+            case "chromosome":
+                documentPath = DocumentToVariantConverter.CHROMOSOME_FIELD;
+                break;
             case "gene":
             case "ensemblGene":
                 documentPath = DocumentToVariantConverter.ANNOTATION_FIELD
@@ -431,20 +554,40 @@ public class VariantMongoDBAdaptor implements VariantDBAdaptor {
         if (query == null) {
             query = new Query();
         }
-        Document mongoQuery = parseQuery(query);
+        String queryHash = VariantQueryToken.getQueryHash(query);
+        DocumentGenotypeFilter genotypeFilter = newGenotypeFilter(query, options);
+        Document mongoQuery = parseQuery(query, genotypeFilter);
+        addTokenFilter(mongoQuery, queryHash, options);
         Document projection = createProjection(query, options);
         DocumentToVariantConverter converter = getDocumentToVariantConverter(query, options);
         options.putIfAbsent(MongoDBCollection.BATCH_SIZE, 100);
 
+        QueryOptions findOptions = options;
+        boolean filterOnClient = genotypeFilter != null && !genotypeFilter.isEmpty();
+        if (filterOnClient) {
+            // Skip and limit are applied by the iterator, after the genotype filter
+            findOptions = new QueryOptions(options);
+            findOptions.remove(QueryOptions.SKIP);
+            findOptions.remove(QueryOptions.LIMIT);
+        }
+
+        VariantMongoDBIterator iterator;
         // Short unsorted queries with timeout or limit don't need the persistent cursor.
         if (options.containsKey(QueryOptions.TIMEOUT)
                 || options.containsKey(QueryOptions.LIMIT)
                 || !options.containsKey(QueryOptions.SORT)) {
-            FindIterable<Document> dbCursor = variantsCollection.nativeQuery().find(mongoQuery, projection, options);
-            return new VariantMongoDBIterator(dbCursor, converter);
+            FindIterable<Document> dbCursor = variantsCollection.nativeQuery().find(mongoQuery, projection, findOptions);
+            iterator = new VariantMongoDBIterator(dbCursor, converter);
         } else {
-            return VariantMongoDBIterator.persistentIterator(variantsCollection, mongoQuery, projection, options, converter);
+            iterator = VariantMongoDBIterator.persistentIterator(variantsCollection, mongoQuery, projection, findOptions, converter);
+        }
+        if (filterOnClient) {
+            iterator.setFilter(genotypeFilter, options.getInt(QueryOptions.SKIP, 0), options.getInt(QueryOptions.LIMIT, 0));
+        }
+        if (VariantQueryToken.isSortedAscending(options)) {
+            iterator.setQueryHash(queryHash);
         }
+        return iterator;
     }
 
     @Override
@@ -464,6 +607,12 @@ public class VariantMongoDBAdaptor implements VariantDBAdaptor {
 
     @Override
     public QueryResult getFrequency(Query query, Region region, int regionIntervalSize) {
+        QueryOptions keyOptions = new QueryOptions("region", region.toString()).append("interval", regionIntervalSize);
+        return cacheManager.cached(CacheManager.VARIANT, "frequency", studyConfigurationManager, query, keyOptions,
+                () -> getFrequencyQueryResult(query, region, regionIntervalSize));
+    }
+
+    private QueryResult getFrequencyQueryResult(Query query, Region region, int regionIntervalSize) {
         // db.variants.aggregate( { $match: { $and: [ {chr: "1"}, {start: {$gt: 251391, $lt: 2701391}} ] }},
         //                        { $group: { _id: { $subtract: [ { $divide: ["$start", 20000] }, { $divide: [{$mod: ["$start", 20000]},
         // 20000] } ] },
@@ -583,6 +732,11 @@ public class VariantMongoDBAdaptor implements VariantDBAdaptor {
 
     @Override
     public QueryResult groupBy(Query query, String field, QueryOptions options) {
+        return cacheManager.cached(CacheManager.VARIANT, "groupBy." + field, studyConfigurationManager, query, options,
+                () -> getGroupByQueryResult(query, field, options));
+    }
+
+    private QueryResult getGroupByQueryResult(Query query, String field, QueryOptions options) {
         String documentPath;
         String unwindPath;
         int numUnwinds = 2;
@@ -777,6 +931,7 @@ public class VariantMongoDBAdaptor implements VariantDBAdaptor {
         }
         BulkWriteResult writeResult = variantsCollection.update(pushQueriesBulkList, pushUpdatesBulkList, new QueryOptions()).first();
         int writes = writeResult.getModifiedCount();
+        cacheManager.invalidate();
 
 
         return new QueryResult<>("", ((int) (System.nanoTime() - start)), writes, writes, "", "", Collections.singletonList(writeResult));
@@ -804,7 +959,9 @@ public class VariantMongoDBAdaptor implements VariantDBAdaptor {
         logger.debug("deleteStats: query = {}", query);
         logger.debug("deleteStats: update = {}", update);
 
-        return variantsCollection.update(query, update, new QueryOptions(MULTI, true));
+        QueryResult result = variantsCollection.update(query, update, new QueryOptions(MULTI, true));
+        cacheManager.invalidate();
+        return result;
     }
 
     @Override
@@ -833,6 +990,7 @@ public class VariantMongoDBAdaptor implements VariantDBAdaptor {
             updates.add(update);
         }
         BulkWriteResult writeResult = variantsCollection.update(queries, updates, null).first();
+        cacheManager.invalidate();
 
         return new QueryResult<>("", ((int) (System.nanoTime() - start)), 1, 1, "", "", Collections.singletonList(writeResult));
     }
@@ -841,9 +999,11 @@ public class VariantMongoDBAdaptor implements VariantDBAdaptor {
     public QueryResult updateCustomAnnotations(Query query, String name, AdditionalAttribute attribute, QueryOptions options) {
         Document queryDocument = parseQuery(query);
         Document updateDocument = DocumentToVariantAnnotationConverter.convertToStorageType(attribute);
-        return variantsCollection.update(queryDocument,
+        QueryResult result = variantsCollection.update(queryDocument,
                 Updates.set(DocumentToVariantConverter.CUSTOM_ANNOTATION_FIELD + "." + name, updateDocument),
                 new QueryOptions(MULTI, true));
+        cacheManager.invalidate();
+        return result;
     }
 
     @Override
@@ -853,7 +1013,9 @@ public class VariantMongoDBAdaptor implements VariantDBAdaptor {
 
         Document update = new Document("$set", new Document(DocumentToVariantConverter.ANNOTATION_FIELD + ".0", null));
         logger.debug("deleteAnnotation: update = {}", update);
-        return variantsCollection.update(mongoQuery, update, new QueryOptions(MULTI, true));
+        QueryResult result = variantsCollection.update(mongoQuery, update, new QueryOptions(MULTI, true));
+        cacheManager.invalidate();
+        return result;
     }
 
 
@@ -868,6 +1030,18 @@ public class VariantMongoDBAdaptor implements VariantDBAdaptor {
     }
 
     private Document parseQuery(Query query) {
+        return parseQuery(query, null);
+    }
+
+    /**
+     * Build the mongo query. If a genotype filter is given, the genotype filters for the default genotype are added to it
+     * instead of to the mongo query, and the caller must check them on the returned documents.
+     *
+     * @param query             Query to parse
+     * @param genotypeFilter    Genotype filter to be evaluated on the client, or null
+     * @return                  Mongo query
+     */
+    private Document parseQuery(Query query, DocumentGenotypeFilter genotypeFilter) {
         QueryBuilder builder = new QueryBuilder();
         if (query != null) {
             /** VARIANT PARAMS **/
@@ -1012,7 +1186,7 @@ public class VariantMongoDBAdaptor implements VariantDBAdaptor {
             parseAnnotationQueryParams(query, builder);
 
             /** STUDIES **/
-            final StudyConfiguration defaultStudyConfiguration = parseStudyQueryParams(query, builder);
+            final StudyConfiguration defaultStudyConfiguration = parseStudyQueryParams(query, builder, genotypeFilter);
 
             /** STATS PARAMS **/
             parseStatsQueryParams(query, builder, defaultStudyConfiguration);
@@ -1233,7 +1407,7 @@ public class VariantMongoDBAdaptor implements VariantDBAdaptor {
         }
     }
 
-    private StudyConfiguration parseStudyQueryParams(Query query, QueryBuilder builder) {
+    private StudyConfiguration parseStudyQueryParams(Query query, QueryBuilder builder, DocumentGenotypeFilter genotypeFilter) {
 
         if (query != null) {
             Map<String, Integer> studies = getStudyConfigurationManager().getStudies(null);
@@ -1348,6 +1522,8 @@ public class VariantMongoDBAdaptor implements VariantDBAdaptor {
 
                     int sampleId;
                     final String genotypes;
+                    // Study of the sample, if known
+                    final StudyConfiguration sampleStudyConfiguration;
                     if (sampleGenotype.length == 3) {  //Expect to be as <study>:<sample>
                         String study = sampleGenotype[0];
                         String sample = sampleGenotype[1];
@@ -1360,13 +1536,27 @@ public class VariantMongoDBAdaptor implements VariantDBAdaptor {
                             throw VariantQueryException.sampleNotFound(sample, study);
                         }
                         sampleId = queryResult.first().getSampleIds().get(sample);
+                        sampleStudyConfiguration = queryResult.first();
                     } else {
                         String sample = sampleGenotype[0];
                         genotypes = sampleGenotype[1];
                         sampleId = utils.getSampleId(sample, defaultStudyConfiguration);
+                        sampleStudyConfiguration = defaultStudyConfiguration;
                     }
 
                     String[] genotypesArray = genotypes.split(OR);
+                    if (genotypeFilter != null && sampleStudyConfiguration != null
+                            && Arrays.stream(genotypesArray).anyMatch(gt -> "0/0".equals(gt) || "0|0".equals(gt))) {
+                        // Checking that the sample is not in any other genotype is expensive in the server.
+                        // Only match the study here, and check the genotype on the client.
+                        int studyId = sampleStudyConfiguration.getStudyId();
+                        genotypeFilter.addFilter(studyId, sampleId, Arrays.asList(genotypesArray),
+                                sampleStudyConfiguration.getAttributes().getAsStringList(DEFAULT_GENOTYPE.key()));
+                        if (!singleStudy) {
+                            studyBuilder.and(studyQueryPrefix + DocumentToStudyVariantEntryConverter.STUDYID_FIELD).is(studyId);
+                        }
+                        continue;
+                    }
                     QueryBuilder genotypesBuilder = QueryBuilder.start();
                     for (String genotype : genotypesArray) {
                         if ("0/0".equals(genotype) || "0|0".equals(genotype)) {
@@ -2691,6 +2881,10 @@ public class VariantMongoDBAdaptor implements VariantDBAdaptor {
         return utils;
     }
 
+    public CacheManager getCacheManager() {
+        return cacheManager;
+    }
+
     public static List<Integer> getLoadedSamples(int fileId, StudyConfiguration studyConfiguration) {
         List<Integer> loadedSampleIds = new LinkedList<>();
         for (Integer indexedFile : studyConfiguration.getIndexedFiles()) {
@@ -27,6 +27,9 @@ import org.opencb.commons.datastore.mongodb.MongoPersistentCursor;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantDBIterator;
 import org.opencb.opencga.storage.mongodb.variant.converters.DocumentToVariantConverter;
 
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
 /**
  * Created by jacobo on 9/01/15.
  */
@@ -34,6 +37,12 @@ public class VariantMongoDBIterator extends VariantDBIterator {
 
     private MongoCursor<Document> dbCursor;
     private DocumentToVariantConverter documentToVariantConverter;
+    // Filter evaluated on the documents before converting them. Skip and limit are applied after the filter
+    private Predicate<Document> filter;
+    private int skip;
+    private int limit;
+    private int returned;
+    private Document nextDocument;
 
     //Package protected
     VariantMongoDBIterator(FindIterable<Document> dbCursor, DocumentToVariantConverter documentToVariantConverter) {
@@ -62,14 +71,48 @@ public class VariantMongoDBIterator extends VariantDBIterator {
         this.dbCursor = cursor;
     }
 
+    //Package protected
+    VariantMongoDBIterator setFilter(Predicate<Document> filter, int skip, int limit) {
+        this.filter = filter;
+        this.skip = Math.max(skip, 0);
+        this.limit = limit;
+        return this;
+    }
+
     @Override
     public boolean hasNext() {
-        return dbCursor.hasNext();
+        if (filter == null) {
+            return dbCursor.hasNext();
+        }
+        if (limit > 0 && returned >= limit) {
+            return false;
+        }
+        while (nextDocument == null && dbCursor.hasNext()) {
+            Document document = fetch(() -> dbCursor.next());
+            if (filter.test(document)) {
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    nextDocument = document;
+                }
+            }
+        }
+        return nextDocument != null;
     }
 
     @Override
     public Variant next() {
-        Document document = fetch(() -> dbCursor.next());
+        final Document document;
+        if (filter == null) {
+            document = fetch(() -> dbCursor.next());
+        } else {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            document = nextDocument;
+            nextDocument = null;
+            returned++;
+        }
         return convert(() -> documentToVariantConverter.convertToDataModelType(document));
     }
 
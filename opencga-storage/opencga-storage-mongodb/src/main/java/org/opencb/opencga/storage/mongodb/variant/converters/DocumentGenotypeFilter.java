@@ -0,0 +1,145 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.mongodb.variant.converters;
+
+import org.bson.Document;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Genotype filter evaluated on the variant documents read from the database.
+ *
+ * Samples with the default genotype are not stored in the "gt" document, so a server side filter for the default genotype
+ * has to check that the sample is not in any of the other genotypes. This filter decodes the "gt" document of each variant
+ * into a primitive index from the filtered samples to their genotype, and checks all the genotype filters on it.
+ *
+ * All the filters must match. Each filter matches if the genotype of the sample is any of the given genotypes.
+ *
+ * Created on 18/10/26.
+ */
+public class DocumentGenotypeFilter implements Predicate<Document> {
+
+    private static final Set<String> REFERENCE_GENOTYPES = new HashSet<>(Arrays.asList("0/0", "0|0"));
+
+    private final Map<Integer, List<SampleFilter>> filtersByStudy = new LinkedHashMap<>();
+    // Index of the filtered samples of each study. Built lazily
+    private final Map<Integer, DocumentToSamplesConverter.SamplePositions> samplePositionsByStudy = new HashMap<>();
+
+    private static final class SampleFilter {
+        private final int sampleId;
+        // Storage genotypes, as keys of the "gt" document
+        private final Set<String> genotypes;
+        // If the sample matches when it is not in the "gt" document
+        private final boolean matchesDefault;
+        private int position;
+
+        private SampleFilter(int sampleId, Set<String> genotypes, boolean matchesDefault) {
+            this.sampleId = sampleId;
+            this.genotypes = genotypes;
+            this.matchesDefault = matchesDefault;
+        }
+    }
+
+    /**
+     * Add a genotype filter for a sample.
+     *
+     * @param studyId           Study of the sample
+     * @param sampleId          Sample id
+     * @param genotypes         Accepted genotypes, as in the query
+     * @param defaultGenotypes  Default genotypes of the study. Samples not in the "gt" document have the default genotype
+     * @return this
+     */
+    public DocumentGenotypeFilter addFilter(int studyId, int sampleId, Collection<String> genotypes, Collection<String> defaultGenotypes) {
+        Set<String> storageGenotypes = new HashSet<>(genotypes.size());
+        boolean matchesDefault = false;
+        for (String genotype : genotypes) {
+            storageGenotypes.add(DocumentToSamplesConverter.genotypeToStorageType(genotype));
+            matchesDefault |= REFERENCE_GENOTYPES.contains(genotype) || defaultGenotypes.contains(genotype);
+        }
+        filtersByStudy.computeIfAbsent(studyId, key -> new ArrayList<>()).add(new SampleFilter(sampleId, storageGenotypes, matchesDefault));
+        samplePositionsByStudy.remove(studyId);
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return filtersByStudy.isEmpty();
+    }
+
+    /**
+     * Test if a variant document matches all the genotype filters.
+     *
+     * @param variant   Variant document, with the "sid" and "gt" fields of the filtered studies
+     * @return          If all the filters match
+     */
+    @Override
+    public boolean test(Document variant) {
+        List studies = variant.get(DocumentToVariantConverter.STUDIES_FIELD, List.class);
+        if (studies == null) {
+            return filtersByStudy.isEmpty();
+        }
+        for (Map.Entry<Integer, List<SampleFilter>> entry : filtersByStudy.entrySet()) {
+            Document study = null;
+            for (Object object : studies) {
+                Number studyId = ((Document) object).get(DocumentToStudyVariantEntryConverter.STUDYID_FIELD, Number.class);
+                if (studyId != null && studyId.intValue() == entry.getKey()) {
+                    study = (Document) object;
+                    break;
+                }
+            }
+            if (study == null || !test(entry.getKey(), entry.getValue(), study)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean test(int studyId, List<SampleFilter> filters, Document study) {
+        DocumentToSamplesConverter.SamplePositions positions = getSamplePositions(studyId, filters);
+        // Genotype of each filtered sample. Null for the default genotype
+        String[] genotypes = new String[filters.size()];
+        Document gt = study.get(DocumentToStudyVariantEntryConverter.GENOTYPES_FIELD, Document.class);
+        if (gt != null) {
+            for (Map.Entry<String, Object> entry : gt.entrySet()) {
+                for (Object sampleId : (List) entry.getValue()) {
+                    int position = positions.get(((Number) sampleId).intValue());
+                    if (position >= 0) {
+                        genotypes[position] = entry.getKey();
+                    }
+                }
+            }
+        }
+        for (SampleFilter filter : filters) {
+            String genotype = genotypes[filter.position];
+            if (genotype == null ? !filter.matchesDefault : !filter.genotypes.contains(genotype)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private DocumentToSamplesConverter.SamplePositions getSamplePositions(int studyId, List<SampleFilter> filters) {
+        return samplePositionsByStudy.computeIfAbsent(studyId, key -> {
+            Map<Integer, Integer> positions = new HashMap<>();
+            for (SampleFilter filter : filters) {
+                // The same sample may be filtered more than once
+                filter.position = positions.computeIfAbsent(filter.sampleId, id -> positions.size());
+            }
+            return new DocumentToSamplesConverter.SamplePositions(positions);
+        });
+    }
+}
@@ -52,6 +52,8 @@ public class DocumentToSamplesConverter extends AbstractDocumentConverter {
     private final Map<Integer, BiMap<String, Integer>> __studySamplesId; //Inverse map from "sampleIds". Do not use directly, can be null
     // . Use "getIndexedIdSamplesMap()"
     private final Map<Integer, LinkedHashMap<String, Integer>> __returnedSamplesPosition;
+    // Returned position by sample id. -1 if the sample is not returned. Do not use directly, use "getReturnedSamplesPositionById()"
+    private final Map<Integer, SamplePositions> __returnedSamplesPositionById;
     private final Map<Integer, Set<String>> studyDefaultGenotypeSet;
     private LinkedHashSet<String> returnedSamples;
     private StudyConfigurationManager studyConfigurationManager;
@@ -108,6 +110,7 @@ public class DocumentToSamplesConverter extends AbstractDocumentConverter {
         studyConfigurations = new HashMap<>();
         __studySamplesId = new HashMap<>();
         __returnedSamplesPosition = new HashMap<>();
+        __returnedSamplesPositionById = new HashMap<>();
         studyDefaultGenotypeSet = new HashMap<>();
         returnedSamples = new LinkedHashSet<>();
         studyConfigurationManager = null;
@@ -265,7 +268,7 @@ public class DocumentToSamplesConverter extends AbstractDocumentConverter {
         // in the position specified in the array, such as:
         // "0|1" : [ 41, 311, 342, 358, 881, 898, 903 ]
         // genotypes[41], genotypes[311], etc, will be set to "0|1"
-        Map<Integer, String> idSamples = getIndexedSamplesIdMap(studyId).inverse();
+        final SamplePositions positionById = getReturnedSamplesPositionById(studyConfiguration);
         if (!excludeGenotypes) {
             Document mongoGenotypes = (Document) object.get(DocumentToStudyVariantEntryConverter.GENOTYPES_FIELD);
             for (Map.Entry<String, Object> dbo : mongoGenotypes.entrySet()) {
@@ -282,9 +285,10 @@ public class DocumentToSamplesConverter extends AbstractDocumentConverter {
                 } else {
                     genotype = genotypeToDataModelType(dbo.getKey());
                 }
-                for (Integer sampleId : (List<Integer>) dbo.getValue()) {
-                    if (idSamples.containsKey(sampleId)) {
-                        samplesData.get(samplesPositionToReturn.get(idSamples.get(sampleId))).set(0, genotype);
+                for (Object sampleId : (List) dbo.getValue()) {
+                    int samplePosition = positionById.get(((Number) sampleId).intValue());
+                    if (samplePosition >= 0) {
+                        samplesData.get(samplePosition).set(0, genotype);
                     }
                 }
             }
@@ -341,9 +345,8 @@ public class DocumentToSamplesConverter extends AbstractDocumentConverter {
                             supplier = () -> iterator.hasNext() ? iterator.next() : UNKNOWN_FIELD;
                         }
                         for (Integer sampleId : studyConfiguration.getSamplesInFiles().get(fid)) {
-                            String sampleName = studyConfiguration.getSampleIds().inverse().get(sampleId);
-                            Integer samplePosition = samplesPositionToReturn.get(sampleName);
-                            if (samplePosition == null) {
+                            int samplePosition = positionById.get(sampleId);
+                            if (samplePosition < 0) {
                                 // The sample on this position is not returned. Skip this value.
                                 supplier.get();
                             } else {
@@ -362,9 +365,8 @@ public class DocumentToSamplesConverter extends AbstractDocumentConverter {
                     }
                     for (int i = 0; i < extraFields.size(); i++) {
                         for (Integer sampleId : studyConfiguration.getSamplesInFiles().get(fid)) {
-                            String sampleName = studyConfiguration.getSampleIds().inverse().get(sampleId);
-                            Integer samplePosition = samplesPositionToReturn.get(sampleName);
-                            if (samplePosition != null) {
+                            int samplePosition = positionById.get(sampleId);
+                            if (samplePosition >= 0) {
                                 if (samplesData.get(samplePosition).get(extraFieldPosition) == null) {
                                     samplesData.get(samplePosition).set(extraFieldPosition, UNKNOWN_FIELD);
                                 }
@@ -613,11 +615,13 @@ public class DocumentToSamplesConverter extends AbstractDocumentConverter {
         this.returnedSamples = new LinkedHashSet<>(returnedSamples);
         __studySamplesId.clear();
         __returnedSamplesPosition.clear();
+        __returnedSamplesPositionById.clear();
     }
 
     public void addStudyConfiguration(StudyConfiguration studyConfiguration) {
         this.studyConfigurations.put(studyConfiguration.getStudyId(), studyConfiguration);
         this.__studySamplesId.put(studyConfiguration.getStudyId(), null);
+        this.__returnedSamplesPositionById.remove(studyConfiguration.getStudyId());
 
         Set defGenotypeSet = studyConfiguration.getAttributes().get(DEFAULT_GENOTYPE.key(), Set.class);
         if (defGenotypeSet == null) {
@@ -675,6 +679,98 @@ public class DocumentToSamplesConverter extends AbstractDocumentConverter {
         return __returnedSamplesPosition.get(studyConfiguration.getStudyId());
     }
 
+    /**
+     * Index from sample id to the returned position, so the sample ids read from the documents do not need to be boxed
+     * or looked up in any map.
+     */
+    private SamplePositions getReturnedSamplesPositionById(StudyConfiguration studyConfiguration) {
+        SamplePositions positionById = __returnedSamplesPositionById.get(studyConfiguration.getStudyId());
+        if (positionById == null) {
+            LinkedHashMap<String, Integer> samplesPosition = getReturnedSamplesPosition(studyConfiguration);
+            Map<Integer, Integer> positions = new HashMap<>(samplesPosition.size());
+            for (Map.Entry<String, Integer> entry : studyConfiguration.getSampleIds().entrySet()) {
+                Integer position = samplesPosition.get(entry.getKey());
+                if (position != null && entry.getValue() >= 0) {
+                    positions.put(entry.getValue(), position);
+                }
+            }
+            positionById = new SamplePositions(positions);
+            __returnedSamplesPositionById.put(studyConfiguration.getStudyId(), positionById);
+        }
+        return positionById;
+    }
+
+    /**
+     * Returned position by sample id, for the returned samples only.
+     *
+     * Sample ids are catalog ids, so they can be much higher than the number of samples in the study. The ids are indexed
+     * with an array offset by the lowest returned id if the range of ids is dense enough, or with a sorted array of ids.
+     */
+    static final class SamplePositions {
+        private static final int MAX_SPARSE_FACTOR = 8;
+        private static final int MIN_DENSE_SIZE = 64;
+
+        private final int minId;
+        // Position by (sampleId - minId). Null if the ids are sparse
+        private final int[] positionById;
+        // Sorted sample ids, with their positions. Only if the ids are sparse
+        private final int[] sortedIds;
+        private final int[] sortedPositions;
+
+        SamplePositions(Map<Integer, Integer> positions) {
+            int min = Integer.MAX_VALUE;
+            int max = -1;
+            for (Integer sampleId : positions.keySet()) {
+                min = Math.min(min, sampleId);
+                max = Math.max(max, sampleId);
+            }
+            if (positions.isEmpty()) {
+                minId = 0;
+                positionById = new int[0];
+                sortedIds = null;
+                sortedPositions = null;
+            } else if ((long) max - min + 1 <= (long) positions.size() * MAX_SPARSE_FACTOR + MIN_DENSE_SIZE) {
+                minId = min;
+                positionById = new int[max - min + 1];
+                Arrays.fill(positionById, -1);
+                for (Map.Entry<Integer, Integer> entry : positions.entrySet()) {
+                    positionById[entry.getKey() - min] = entry.getValue();
+                }
+                sortedIds = null;
+                sortedPositions = null;
+            } else {
+                minId = min;
+                positionById = null;
+                sortedIds = positions.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+                sortedPositions = new int[sortedIds.length];
+                for (int i = 0; i < sortedIds.length; i++) {
+                    sortedPositions[i] = positions.get(sortedIds[i]);
+                }
+            }
+        }
+
+        /**
+         * Get the returned position of a sample.
+         *
+         * @param sampleId Sample id
+         * @return Returned position of the sample, or -1 if the sample is not returned
+         */
+        int get(int sampleId) {
+            if (positionById != null) {
+                int idx = sampleId - minId;
+                return idx >= 0 && idx < positionById.length ? positionById[idx] : -1;
+            } else {
+                int idx = Arrays.binarySearch(sortedIds, sampleId);
+                return idx >= 0 ? sortedPositions[idx] : -1;
+            }
+        }
+
+        // Number of allocated entries, for testing
+        int size() {
+            return positionById != null ? positionById.length : sortedIds.length;
+        }
+    }
+
     public static LinkedHashMap<String, Integer> getReturnedSamplesPosition(
             StudyConfiguration studyConfiguration,
             LinkedHashSet<String> returnedSamples) {
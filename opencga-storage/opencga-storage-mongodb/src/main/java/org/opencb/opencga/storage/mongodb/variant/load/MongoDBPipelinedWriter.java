@@ -0,0 +1,125 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.mongodb.variant.load;
+
+import org.opencb.commons.io.DataWriter;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps several writes in flight over a thread safe DataWriter.
+ *
+ * Each call to {@link #write(List)} returns as soon as the batch is handed to a background thread, so the caller can
+ * prepare the next batch while MongoDB executes the previous bulk operations. At most "pendingWrites" batches are written
+ * at the same time. Errors are thrown on the next call to {@link #write(List)} or {@link #post()}, which waits for all the
+ * pending writes.
+ *
+ * Created on 18/10/26.
+ */
+public class MongoDBPipelinedWriter<T> implements DataWriter<T> {
+
+    private final DataWriter<T> writer;
+    private final int pendingWrites;
+    private final Semaphore semaphore;
+    private final AtomicReference<Throwable> error = new AtomicReference<>();
+    private ExecutorService executor;
+
+    public MongoDBPipelinedWriter(DataWriter<T> writer, int pendingWrites) {
+        this.writer = writer;
+        this.pendingWrites = Math.max(1, pendingWrites);
+        this.semaphore = new Semaphore(this.pendingWrites);
+    }
+
+    @Override
+    public boolean open() {
+        executor = Executors.newFixedThreadPool(pendingWrites, r -> {
+            Thread thread = new Thread(r, "mongodb-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        return writer.open();
+    }
+
+    @Override
+    public boolean pre() {
+        return writer.pre();
+    }
+
+    @Override
+    public boolean write(List<T> batch) {
+        checkError();
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    writer.write(batch);
+                } catch (RuntimeException | Error e) {
+                    error.compareAndSet(null, e);
+                } finally {
+                    semaphore.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            semaphore.release();
+            throw e;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean post() {
+        waitPendingWrites();
+        checkError();
+        return writer.post();
+    }
+
+    @Override
+    public boolean close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        return writer.close();
+    }
+
+    private void waitPendingWrites() {
+        try {
+            semaphore.acquire(pendingWrites);
+            semaphore.release(pendingWrites);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void checkError() {
+        Throwable e = error.get();
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        } else if (e != null) {
+            throw (Error) e;
+        }
+    }
+}
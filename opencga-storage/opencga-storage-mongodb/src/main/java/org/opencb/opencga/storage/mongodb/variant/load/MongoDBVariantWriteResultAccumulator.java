@@ -0,0 +1,61 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.mongodb.variant.load;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free accumulator of {@link MongoDBVariantWriteResult}, to be shared by several writer threads.
+ *
+ * Created on 18/10/26.
+ */
+public class MongoDBVariantWriteResultAccumulator {
+
+    private final LongAdder newVariants = new LongAdder();
+    private final LongAdder updatedVariants = new LongAdder();
+    private final LongAdder updatedMissingVariants = new LongAdder();
+    private final LongAdder overlappedVariants = new LongAdder();
+    private final LongAdder skippedVariants = new LongAdder();
+    private final LongAdder nonInsertedVariants = new LongAdder();
+    private final LongAdder newVariantsNanoTime = new LongAdder();
+    private final LongAdder existingVariantsNanoTime = new LongAdder();
+    private final LongAdder fillGapsNanoTime = new LongAdder();
+
+    public MongoDBVariantWriteResultAccumulator add(MongoDBVariantWriteResult result) {
+        newVariants.add(result.getNewVariants());
+        updatedVariants.add(result.getUpdatedVariants());
+        updatedMissingVariants.add(result.getUpdatedMissingVariants());
+        overlappedVariants.add(result.getOverlappedVariants());
+        skippedVariants.add(result.getSkippedVariants());
+        nonInsertedVariants.add(result.getNonInsertedVariants());
+        newVariantsNanoTime.add(result.getNewVariantsNanoTime());
+        existingVariantsNanoTime.add(result.getExistingVariantsNanoTime());
+        fillGapsNanoTime.add(result.getFillGapsNanoTime());
+        return this;
+    }
+
+    /**
+     * Sum of all the accumulated results. Not atomic if there are concurrent writes.
+     *
+     * @return New MongoDBVariantWriteResult
+     */
+    public MongoDBVariantWriteResult get() {
+        return new MongoDBVariantWriteResult(newVariants.sum(), updatedVariants.sum(), updatedMissingVariants.sum(),
+                overlappedVariants.sum(), skippedVariants.sum(), nonInsertedVariants.sum(),
+                newVariantsNanoTime.sum(), existingVariantsNanoTime.sum(), fillGapsNanoTime.sum());
+    }
+}
@@ -32,6 +32,7 @@ import org.opencb.commons.io.DataWriter;
 import org.opencb.opencga.storage.mongodb.variant.converters.VariantStringIdConverter;
 import org.opencb.opencga.storage.mongodb.variant.converters.stage.VariantToAvroBinaryConverter;
 import org.opencb.opencga.storage.mongodb.variant.load.MongoDBVariantWriteResult;
+import org.opencb.opencga.storage.mongodb.variant.load.MongoDBVariantWriteResultAccumulator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,13 +56,17 @@ public class MongoDBVariantStageLoader implements DataWriter<ListMultimap<Docume
 
     private static final QueryOptions QUERY_OPTIONS = new QueryOptions(MongoDBCollection.UPSERT, true);
     public static final Pattern DUP_KEY_WRITE_RESULT_ERROR_PATTERN = Pattern.compile("^.*dup key: \\{ : \"([^\"]*)\" \\}$");
+    /** Max number of retries for the updates failed with a duplicated key error. */
+    public static final int MAX_RETRIES = 3;
+    /** Time to wait before the first retry. Doubled on each retry. */
+    public static final long RETRY_BACKOFF_MS = 20;
 
     private final MongoDBCollection collection;
     private final String fieldName;
     private final boolean resumeStageLoad;
     private final Logger logger = LoggerFactory.getLogger(MongoDBVariantStageLoader.class);
 
-    private final MongoDBVariantWriteResult writeResult = new MongoDBVariantWriteResult();
+    private final MongoDBVariantWriteResultAccumulator writeResult = new MongoDBVariantWriteResultAccumulator();
 
     public static final ComplexTypeConverter<Variant, Binary> VARIANT_CONVERTER_DEFAULT = new VariantToAvroBinaryConverter();
 
@@ -85,17 +90,24 @@ public class MongoDBVariantStageLoader implements DataWriter<ListMultimap<Docume
         final long start = System.nanoTime();
 
         MongoDBVariantWriteResult result = new MongoDBVariantWriteResult();
-        Set<String> retryKeys = updateMongo(ids, result, null);
-        if (!retryKeys.isEmpty()) {
-            updateMongo(ids, result, retryKeys);
+        Set<String> retryKeys = updateMongo(ids, result, null, false);
+        long backoff = RETRY_BACKOFF_MS;
+        for (int retry = 1; !retryKeys.isEmpty(); retry++) {
+            // Only retry the failed updates
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+            backoff *= 2;
+            retryKeys = updateMongo(ids, result, retryKeys, retry == MAX_RETRIES);
         }
 
         result.setNewVariantsNanoTime(System.nanoTime() - start);
 //        result.setSkippedVariants(skippedVariants);
 
-        synchronized (writeResult) {
-            writeResult.merge(result);
-        }
+        writeResult.add(result);
         return result;
     }
 
@@ -119,17 +131,20 @@ public class MongoDBVariantStageLoader implements DataWriter<ListMultimap<Docume
      * @param values        Map with all the values to insert
      * @param result        MongoDBVariantWriteResult to fill
      * @param retryIds      List of IDs to retry. If not null, only will update those documents within this set
+     * @param lastAttempt   Fail if there is any error
      * @return              List of non updated documents.
-     * @throws MongoBulkWriteException if the exception was not a DuplicatedKeyException (e:11000)
+     * @throws MongoBulkWriteException if the exception was not a DuplicatedKeyException (e:11000), or it is the last attempt
      */
-    private Set<String> updateMongo(ListMultimap<Document, Binary> values, MongoDBVariantWriteResult result, Set<String> retryIds) {
+    private Set<String> updateMongo(ListMultimap<Document, Binary> values, MongoDBVariantWriteResult result, Set<String> retryIds,
+                                    boolean lastAttempt) {
 
         Set<String> nonInsertedIds = Collections.emptySet();
         if (values.isEmpty()) {
             return nonInsertedIds;
         }
-        List<Bson> queries = new LinkedList<>();
-        List<Bson> updates = new LinkedList<>();
+        int size = retryIds == null ? values.keySet().size() : retryIds.size();
+        List<Bson> queries = new ArrayList<>(size);
+        List<Bson> updates = new ArrayList<>(size);
         for (Document id : values.keySet()) {
             if (retryIds == null || retryIds.contains(id.getString("_id"))) {
                 List<Binary> binaryList = values.get(id);
@@ -150,15 +165,14 @@ public class MongoDBVariantStageLoader implements DataWriter<ListMultimap<Docume
 
         try {
             final BulkWriteResult mongoResult = collection.update(queries, updates, QUERY_OPTIONS).first();
-            result.setNewVariants(mongoResult.getInsertedCount())
-                    .setUpdatedVariants(mongoResult.getModifiedCount());
+            result.setNewVariants(result.getNewVariants() + mongoResult.getInsertedCount())
+                    .setUpdatedVariants(result.getUpdatedVariants() + mongoResult.getModifiedCount());
         } catch (MongoBulkWriteException e) {
-            result.setNewVariants(e.getWriteResult().getInsertedCount())
-                    .setUpdatedVariants(e.getWriteResult().getModifiedCount());
+            result.setNewVariants(result.getNewVariants() + e.getWriteResult().getInsertedCount())
+                    .setUpdatedVariants(result.getUpdatedVariants() + e.getWriteResult().getModifiedCount());
 
 
-            if (retryIds != null) {
-                // If retryIds != null, means that this this was the second attempt to update. In this case, do fail.
+            if (lastAttempt) {
                 logger.error("BulkWriteErrors when retrying the updates");
                 throw e;
             }
@@ -247,6 +261,6 @@ public class MongoDBVariantStageLoader implements DataWriter<ListMultimap<Docume
 
 
     public MongoDBVariantWriteResult getWriteResult() {
-        return writeResult;
+        return writeResult.get();
     }
 }
@@ -19,7 +19,6 @@ package org.opencb.opencga.storage.mongodb.variant.load.stage;
 import com.mongodb.client.model.Sorts;
 import org.bson.Document;
 import org.bson.conversions.Bson;
-import org.opencb.biodata.models.variant.Variant;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.commons.datastore.mongodb.MongoDBCollection;
 import org.opencb.commons.datastore.mongodb.MongoPersistentCursor;
@@ -29,6 +28,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -40,6 +40,9 @@ import static com.mongodb.client.model.Filters.*;
  * Given a MongoDBCollection and a studyId, iterates over the collection
  * returning sorted results.
  *
+ * The reader can be restricted to a range of _id, so the stage can be read by several readers at the same time.
+ * See {@link #splitRanges}.
+ *
  * Created on 13/04/16.
  *
  * @author Jacobo Coll &lt;jacobo167@gmail.com&gt;
@@ -48,21 +51,39 @@ public class MongoDBVariantStageReader implements DataReader<Document> {
     private final MongoDBCollection stageCollection;
     private final int studyId;
     private final Collection<String> chromosomes;
+    private final String fromId;    // Inclusive
+    private final String toId;      // Exclusive
     private MongoPersistentCursor iterator;
     private Document next = null;   // Pending variant
 
+    private static final int BOUNDARY_BATCH_SIZE = 100;
+
     private final Logger logger = LoggerFactory.getLogger(MongoDBVariantStageReader.class);
 
     public MongoDBVariantStageReader(MongoDBCollection stageCollection, int studyId) {
-        this.stageCollection = stageCollection;
-        this.studyId = studyId;
-        this.chromosomes = Collections.emptyList();
+        this(stageCollection, studyId, Collections.emptyList());
     }
 
     public MongoDBVariantStageReader(MongoDBCollection stageCollection, int studyId, Collection<String> chromosomes) {
+        this(stageCollection, studyId, chromosomes, null, null);
+    }
+
+    /**
+     * Reader for a range of the stage collection.
+     *
+     * @param stageCollection   Stage collection
+     * @param studyId           Study to read
+     * @param chromosomes       Chromosomes to read. Empty for all
+     * @param fromId            First _id of the range, inclusive. Null to read from the beginning
+     * @param toId              Last _id of the range, exclusive. Null to read until the end
+     */
+    public MongoDBVariantStageReader(MongoDBCollection stageCollection, int studyId, Collection<String> chromosomes,
+                                     String fromId, String toId) {
         this.stageCollection = stageCollection;
         this.studyId = studyId;
         this.chromosomes = chromosomes == null ? Collections.emptyList() : chromosomes;
+        this.fromId = fromId;
+        this.toId = toId;
     }
 
     public long countNumVariants() {
@@ -73,6 +94,128 @@ public class MongoDBVariantStageReader implements DataReader<Document> {
         return stageCollection.count().first();
     }
 
+    /**
+     * List the chromosomes in the stage collection, following the _id order.
+     * Does one indexed query per chromosome, skipping all the variants in between.
+     *
+     * @param stageCollection Stage collection
+     * @return Chromosomes, sorted as in the _id
+     */
+    public static List<String> getChromosomes(MongoDBCollection stageCollection) {
+        List<String> chromosomes = new ArrayList<>();
+        QueryOptions options = new QueryOptions(QueryOptions.SORT, Sorts.ascending("_id"))
+                .append(QueryOptions.INCLUDE, "_id")
+                .append(QueryOptions.LIMIT, 1);
+        Bson query = new Document();
+        while (true) {
+            Document first = stageCollection.find(query, options).first();
+            if (first == null) {
+                break;
+            }
+            String id = first.getString("_id");
+            // Chromosome as in the _id, with the padding
+            String chromosome = id.substring(0, id.indexOf(VariantStringIdConverter.SEPARATOR_CHAR));
+            chromosomes.add(chromosome.trim());
+            query = gte("_id", chromosome + (char) (VariantStringIdConverter.SEPARATOR_CHAR + 1));
+        }
+        return chromosomes;
+    }
+
+    /**
+     * Split the stage collection in ranges of _id with a similar number of documents, to be read in parallel.
+     *
+     * The split points are taken walking the _id index, as the splitVector command does. Then, each split point is moved
+     * forward until it does not overlap with the previous variant of the study, so a group of overlapping variants is never
+     * splitted between two ranges.
+     *
+     * @param stageCollection   Stage collection
+     * @param studyId           Study to read
+     * @param chromosomes       Chromosomes to read. Empty for all
+     * @param numRanges         Expected number of ranges
+     * @return Sorted list of _id boundaries. Range "i" goes from boundary "i-1" (inclusive) to boundary "i" (exclusive).
+     *         Contains at most numRanges - 1 elements.
+     */
+    public static List<String> splitRanges(MongoDBCollection stageCollection, int studyId, Collection<String> chromosomes,
+                                           int numRanges) {
+        if (numRanges <= 1) {
+            return Collections.emptyList();
+        }
+        Bson chrFilter = getChromosomesFilter(chromosomes == null ? Collections.emptyList() : chromosomes);
+        Bson idFilter = chrFilter == null ? new Document() : chrFilter;
+        // Only uses the _id index
+        long count = stageCollection.nativeQuery().count(idFilter);
+        if (count < numRanges * 2L) {
+            return Collections.emptyList();
+        }
+
+        Bson studyFilter = exists(Integer.toString(studyId));
+        List<String> boundaries = new ArrayList<>(numRanges - 1);
+        for (int i = 1; i < numRanges; i++) {
+            QueryOptions options = new QueryOptions(QueryOptions.SORT, Sorts.ascending("_id"))
+                    .append(QueryOptions.INCLUDE, "_id")
+                    .append(QueryOptions.SKIP, (int) (count * i / numRanges))
+                    .append(QueryOptions.LIMIT, 1);
+            Document splitPoint = stageCollection.find(idFilter, options).first();
+            if (splitPoint == null) {
+                break;
+            }
+            String boundary = extendBoundary(stageCollection, studyFilter, splitPoint.getString("_id"));
+            if (boundary == null) {
+                // All the remaining variants overlap
+                break;
+            }
+            if (boundaries.isEmpty() || boundary.compareTo(boundaries.get(boundaries.size() - 1)) > 0) {
+                boundaries.add(boundary);
+            }
+        }
+        return boundaries;
+    }
+
+    /**
+     * Move the boundary forward until the first variant that does not overlap with the previous ones.
+     *
+     * @param stageCollection   Stage collection
+     * @param studyFilter       Filter by study
+     * @param boundary          Initial boundary
+     * @return  New boundary, or null if all the following variants overlap
+     */
+    private static String extendBoundary(MongoDBCollection stageCollection, Bson studyFilter, String boundary) {
+        QueryOptions options = new QueryOptions(QueryOptions.SORT, Sorts.descending("_id"))
+                .append(QueryOptions.INCLUDE, Arrays.asList("_id", VariantStringIdConverter.END_FIELD))
+                .append(QueryOptions.LIMIT, 1);
+        Document previous = stageCollection.find(and(studyFilter, lt("_id", boundary)), options).first();
+        if (previous == null) {
+            return boundary;
+        }
+        String previousId = previous.getString("_id");
+        String chr = getChromosome(previousId);
+        int start = getStart(previousId);
+        int end = getEnd(previous);
+
+        options = new QueryOptions(QueryOptions.SORT, Sorts.ascending("_id"))
+                .append(QueryOptions.INCLUDE, Arrays.asList("_id", VariantStringIdConverter.END_FIELD))
+                .append(QueryOptions.LIMIT, BOUNDARY_BATCH_SIZE);
+        Bson query = and(studyFilter, gte("_id", boundary));
+        while (true) {
+            List<Document> documents = stageCollection.find(query, options).getResult();
+            for (Document document : documents) {
+                String id = document.getString("_id");
+                int nextStart = getStart(id);
+                int nextEnd = getEnd(document);
+                if (overlaps(chr, start, end, getChromosome(id), nextStart, nextEnd)) {
+                    start = Math.min(start, nextStart);
+                    end = Math.max(end, nextEnd);
+                } else {
+                    return id;
+                }
+            }
+            if (documents.size() < BOUNDARY_BATCH_SIZE) {
+                return null;
+            }
+            query = and(studyFilter, gt("_id", documents.get(documents.size() - 1).getString("_id")));
+        }
+    }
+
     @Override
     public boolean open() {
         //Filter documents with the selected studyId and chromosomes
@@ -89,21 +232,31 @@ public class MongoDBVariantStageReader implements DataReader<Document> {
     }
 
     protected Bson getQuery() {
-        ArrayList<Bson> chrFilters = new ArrayList<>(chromosomes.size());
-
-        for (String chromosome : chromosomes) {
-            addChromosomeFilter(chrFilters, chromosome);
+        List<Bson> filters = new ArrayList<>(4);
+        filters.add(exists(Integer.toString(studyId)));
+        Bson chrFilter = getChromosomesFilter(chromosomes);
+        if (chrFilter != null) {
+            filters.add(chrFilter); // Be in any of these chromosomes
         }
-        Bson bson;
-        if (chrFilters.isEmpty()) {
-            bson = exists(Integer.toString(studyId));
-        } else {
-            bson = and(exists(Integer.toString(studyId)), or(chrFilters)); // Be in any of these chromosomes
+        if (fromId != null) {
+            filters.add(gte("_id", fromId));
         }
+        if (toId != null) {
+            filters.add(lt("_id", toId));
+        }
+        Bson bson = filters.size() == 1 ? filters.get(0) : and(filters);
         logger.debug("stage filter: " +  bson.toBsonDocument(Document.class, com.mongodb.MongoClient.getDefaultCodecRegistry()));
         return bson;
     }
 
+    private static Bson getChromosomesFilter(Collection<String> chromosomes) {
+        List<Bson> chrFilters = new ArrayList<>(chromosomes.size());
+        for (String chromosome : chromosomes) {
+            addChromosomeFilter(chrFilters, chromosome);
+        }
+        return chrFilters.isEmpty() ? null : or(chrFilters);
+    }
+
     public static void addChromosomeFilter(List<Bson> chrFilters, String chromosome) {
         if (chromosome == null || chromosome.isEmpty()) {
             return;
@@ -132,27 +285,29 @@ public class MongoDBVariantStageReader implements DataReader<Document> {
         }
 
         if (iterator.hasNext()) {
-            // Obtain the LastVariant from the read LastDocument
-            Variant lastVar = MongoDBVariantStageLoader.STRING_ID_CONVERTER.convertToDataModelType(last);
-            int start = lastVar.getStart();
-            int end = lastVar.getEnd();
-            String chr = lastVar.getChromosome();
+            // Obtain the location of the last variant from the read last document
+            String lastId = last.getString("_id");
+            int start = getStart(lastId);
+            int end = getEnd(last);
+            String chr = getChromosome(lastId);
             while (iterator.hasNext()) {
                 // Get the next document. Check if this should be in the current batch.
                 // If not, will be added as the first element of the next batch
                 next = iterator.next();
-                Variant nextVar = MongoDBVariantStageLoader.STRING_ID_CONVERTER.convertToDataModelType(next);
+                String nextId = next.getString("_id");
+                int nextStart = getStart(nextId);
+                int nextEnd = getEnd(next);
 
                 // If the last and next variants overlaps, add next to the batch.
-                if (nextVar.overlapWith(chr, start, end, true)) {
+                if (overlaps(chr, start, end, getChromosome(nextId), nextStart, nextEnd)) {
                     list.add(next);
-                    logger.debug("Add overlapping variant last: {}, next: {}", lastVar, nextVar);
+                    logger.debug("Add overlapping variant last: {}, next: {}", lastId, nextId);
 
                     // Adding next to the batch, next is the new last.
                     last = next;
-                    lastVar = nextVar;
-                    start = Math.min(start, nextVar.getStart());
-                    end = Math.max(end, nextVar.getEnd());
+                    lastId = nextId;
+                    start = Math.min(start, nextStart);
+                    end = Math.max(end, nextEnd);
                     next = null;
                 } else {
                     // If they are not overlapped, stop looping.
@@ -169,5 +324,39 @@ public class MongoDBVariantStageReader implements DataReader<Document> {
         return true;
     }
 
+    /*
+     * Read the location of the variant from the stage document, without building the whole Variant.
+     * The _id is "{chromosome}:{start}:{ref}:{alt}", with the chromosome and start left padded.
+     */
+
+    static String getChromosome(String id) {
+        return id.substring(0, id.indexOf(VariantStringIdConverter.SEPARATOR_CHAR)).trim();
+    }
+
+    static int getStart(String id) {
+        int from = id.indexOf(VariantStringIdConverter.SEPARATOR_CHAR) + 1;
+        int to = id.indexOf(VariantStringIdConverter.SEPARATOR_CHAR, from);
+        return Integer.parseInt(id.substring(from, to).trim());
+    }
+
+    static int getEnd(Document document) {
+        return document.getInteger(VariantStringIdConverter.END_FIELD);
+    }
+
+    // Same as Variant.overlapWith(chr, start, end, true)
+    static boolean overlaps(String chr, int start, int end, String otherChr, int otherStart, int otherEnd) {
+        if (!chr.equals(otherChr)) {
+            return false;
+        }
+        // Insertions have start = end + 1
+        if (start > end) {
+            start = end;
+        }
+        if (otherStart > otherEnd) {
+            otherStart = otherEnd;
+        }
+        return start <= otherEnd && end >= otherStart;
+    }
+
 
 }
@@ -12,6 +12,7 @@ import org.opencb.commons.datastore.mongodb.MongoDBCollection;
 import org.opencb.commons.io.DataWriter;
 import org.opencb.opencga.core.common.ProgressLogger;
 import org.opencb.opencga.storage.mongodb.variant.load.MongoDBVariantWriteResult;
+import org.opencb.opencga.storage.mongodb.variant.load.MongoDBVariantWriteResultAccumulator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,14 +48,14 @@ public class MongoDBVariantMergeLoader implements DataWriter<MongoDBOperations>
     private final List<Integer> fileIds;
 
     // Variables that must be aware of concurrent modification
-    private final MongoDBVariantWriteResult result;
+    private final MongoDBVariantWriteResultAccumulator result;
 
     public MongoDBVariantMergeLoader(MongoDBCollection collection, List<Integer> fileIds, boolean resume, ProgressLogger progressLogger) {
         this.progressLogger = progressLogger;
         this.collection = collection;
         this.resume = resume;
         this.fileIds = fileIds;
-        this.result = new MongoDBVariantWriteResult();
+        this.result = new MongoDBVariantWriteResultAccumulator();
     }
 
     @Override
@@ -66,7 +67,7 @@ public class MongoDBVariantMergeLoader implements DataWriter<MongoDBOperations>
     }
 
     public MongoDBVariantWriteResult getResult() {
-        return result;
+        return result.get();
     }
 
     /**
@@ -101,9 +102,7 @@ public class MongoDBVariantMergeLoader implements DataWriter<MongoDBOperations>
                 updatesNewStudyExistingVariant + updatesWithDataExistingStudy, mongoDBOps.getMissingVariants(),
                 mongoDBOps.getOverlappedVariants(), mongoDBOps.getSkipped(), mongoDBOps.getNonInserted(), newVariantsTime, existingVariants,
                 fillGapsVariants);
-        synchronized (result) {
-            result.merge(writeResult);
-        }
+        result.add(writeResult);
 
         int processedVariants = mongoDBOps.getNewStudy().getQueries().size() + mongoDBOps.getExistingStudy().getQueries().size();
         logProgress(processedVariants);
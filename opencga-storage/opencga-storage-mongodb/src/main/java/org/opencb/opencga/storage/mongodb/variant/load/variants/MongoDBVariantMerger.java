@@ -301,77 +301,66 @@ public class MongoDBVariantMerger implements ParallelTaskRunner.Task<Document, M
         // Set of operations to be executed in the Database
         MongoDBOperations mongoDBOps = new MongoDBOperations();
 
-        Variant previousVariant = null;
-        Document previousDocument = null;
-        int start = 0;
-        int end = 0;
-        String chromosome = null;
-        List<Document> overlappedVariants = null;
-
-        Iterator<Document> iterator = variants.iterator();
-        // Get first valid variant
-        while (iterator.hasNext()) {
-            Document document = iterator.next();
-            if (document.get(studyIdStr) != null) {
-                previousDocument = document;
-                previousVariant = STRING_ID_CONVERTER.convertToDataModelType(previousDocument);
-
-                chromosome = previousVariant.getChromosome();
-                start = previousVariant.getStart();
-                end = getEnd(previousVariant);
-                break;
+        List<List<Document>> groups = groupOverlappedVariants(variants);
+
+        // Read in one single query all the loaded variants required to merge the overlapping regions of this batch
+        Map<String, Variant> fetchedVariants = fetchOverlappedVariants(groups);
+
+        for (List<Document> group : groups) {
+            if (group.size() == 1) {
+                Document document = group.get(0);
+                processVariantTryCatch(document, STRING_ID_CONVERTER.convertToDataModelType(document), mongoDBOps);
+            } else {
+                processOverlappedVariants(group, fetchedVariants, mongoDBOps);
             }
         }
 
-        while (iterator.hasNext()) {
-            Document document = iterator.next();
-            Variant variant = STRING_ID_CONVERTER.convertToDataModelType(document);
-            Document study = document.get(studyIdStr, Document.class);
-            if (study != null) {
-                if (checkOverlappings && variant.overlapWith(chromosome, start, end, true)) {
-                    // If the variant overlaps with the last one, add to the overlappedVariants list.
-                    // Do not process any variant yet!
-                    if (overlappedVariants == null) {
-                        overlappedVariants = new ArrayList<>();
-                        overlappedVariants.add(previousDocument);
-                    }
-                    overlappedVariants.add(document);
+//        // Execute MongoDB Operations
+//        return executeMongoDBOperations(mongoDBOps);
 
-                    // Take min start and max end
-                    start = Math.min(start, variant.getStart());
-                    end = Math.max(end, getEnd(variant));
-                } else {
-                    // If the current variant does not overlap with the previous variant, we can load the previous variant (or region)
-                    if (overlappedVariants != null) {
-                        processOverlappedVariants(overlappedVariants, mongoDBOps);
-                        overlappedVariants = null;
-                    } else {
-                        processVariantTryCatch(previousDocument, previousVariant, mongoDBOps);
-                    }
+        return mongoDBOps;
+    }
 
-                    // Reset region
-                    chromosome = variant.getChromosome();
-                    start = variant.getStart();
-                    end = getEnd(variant);
+    /**
+     * Split the batch of documents from the stage collection in groups of overlapping variants.
+     * Variants not overlapping with any other are returned in a singleton group. Documents from other studies are skipped.
+     *
+     * @param variants  Sorted documents from the stage collection
+     * @return          Groups of overlapping documents, in the same order
+     */
+    protected List<List<Document>> groupOverlappedVariants(List<Document> variants) {
+        List<List<Document>> groups = new ArrayList<>();
 
-                }
+        List<Document> group = null;
+        int start = 0;
+        int end = 0;
+        String chromosome = null;
 
-                previousDocument = document;
-                previousVariant = variant;
+        for (Document document : variants) {
+            if (document.get(studyIdStr) == null) {
+                continue;
             }
-        }
+            Variant variant = STRING_ID_CONVERTER.convertToDataModelType(document);
+            if (group != null && checkOverlappings && variant.overlapWith(chromosome, start, end, true)) {
+                // If the variant overlaps with the last one, add to the current group.
+                group.add(document);
 
-        // Process remaining variants
-        if (overlappedVariants != null) {
-            processOverlappedVariants(overlappedVariants, mongoDBOps);
-        } else if (previousDocument != null) {
-            processVariantTryCatch(previousDocument, previousVariant, mongoDBOps);
+                // Take min start and max end
+                start = Math.min(start, variant.getStart());
+                end = Math.max(end, getEnd(variant));
+            } else {
+                // If the current variant does not overlap with the previous variant, start a new group (or region)
+                group = new ArrayList<>();
+                group.add(document);
+                groups.add(group);
+
+                // Reset region
+                chromosome = variant.getChromosome();
+                start = variant.getStart();
+                end = getEnd(variant);
+            }
         }
-
-//        // Execute MongoDB Operations
-//        return executeMongoDBOperations(mongoDBOps);
-
-        return mongoDBOps;
+        return groups;
     }
 
     public Integer getEnd(Variant variant) {
@@ -473,10 +462,11 @@ public class MongoDBVariantMerger implements ParallelTaskRunner.Task<Document, M
         updateMongoDBOperations(emptyVar, new ArrayList<>(ids), fileDocuments, alternateDocuments, gts, newStudy, newVariant, mongoDBOps);
     }
 
-    protected void processOverlappedVariants(List<Document> overlappedVariants, MongoDBOperations mongoDBOps) {
+    protected void processOverlappedVariants(List<Document> overlappedVariants, Map<String, Variant> fetchedVariants,
+                                             MongoDBOperations mongoDBOps) {
         for (Document document : overlappedVariants) {
             try {
-                processOverlappedVariants(document, overlappedVariants, mongoDBOps);
+                processOverlappedVariants(document, overlappedVariants, fetchedVariants, mongoDBOps);
             } catch (Exception e) {
                 Variant mainVariant = STRING_ID_CONVERTER.convertToDataModelType(document);
                 List<Variant> variants = overlappedVariants.stream()
@@ -496,9 +486,11 @@ public class MongoDBVariantMerger implements ParallelTaskRunner.Task<Document, M
      *
      * @param mainDocument          Main document to add.
      * @param overlappedVariants    Overlapping documents from Stage collection.
+     * @param fetchedVariants       Variants already read from the database. See {@link #fetchOverlappedVariants}
      * @param mongoDBOps            Set of MongoDB operations to update
      */
-    protected void processOverlappedVariants(Document mainDocument, List<Document> overlappedVariants, MongoDBOperations mongoDBOps) {
+    protected void processOverlappedVariants(Document mainDocument, List<Document> overlappedVariants,
+                                             Map<String, Variant> fetchedVariants, MongoDBOperations mongoDBOps) {
 
         Variant mainVariant = STRING_ID_CONVERTER.convertToDataModelType(mainDocument);
 
@@ -574,7 +566,7 @@ public class MongoDBVariantMerger implements ParallelTaskRunner.Task<Document, M
 
 
         // Merge documents
-        Variant variant = mergeOverlappedVariants(mainVariant, overlappedVariants);
+        Variant variant = mergeOverlappedVariants(mainVariant, overlappedVariants, fetchedVariants);
 
         Document gts = new Document();
         List<Document> fileDocuments = new LinkedList<>();
@@ -655,9 +647,11 @@ public class MongoDBVariantMerger implements ParallelTaskRunner.Task<Document, M
      *
      * @param mainVariant           Main variant to resolve conflicts.
      * @param overlappedVariants    Overlapping documents from Stage collection.
+     * @param fetchedVariants       Variants already read from the database. Missing variants will be read one by one.
      * @return  For each document, its corresponding merged variant
      */
-    protected Variant mergeOverlappedVariants(Variant mainVariant, List<Document> overlappedVariants) {
+    protected Variant mergeOverlappedVariants(Variant mainVariant, List<Document> overlappedVariants,
+                                              Map<String, Variant> fetchedVariants) {
 //        System.out.println("--------------------------------");
 //        System.out.println("Overlapped region = " + overlappedVariants
 //                .stream()
@@ -808,14 +802,19 @@ public class MongoDBVariantMerger implements ParallelTaskRunner.Task<Document, M
             for (Variant variant : variants) {
                 // If the variant is not new in this study, query to the database for the loaded info.
                 if (!newStudies.get(i)) {
-                    QueryResult<Variant> queryResult = fetchVariant(variant);
-                    if (queryResult.getResult().size() == 1 && queryResult.first().getStudies().size() == 1) {
-                        variantsToMerge.add(queryResult.first());
+                    List<Variant> loadedVariants;
+                    if (fetchedVariants.containsKey(variant.toString())) {
+                        loadedVariants = Collections.singletonList(fetchedVariants.get(variant.toString()));
+                    } else {
+                        loadedVariants = fetchVariants(Collections.singletonList(variant.toString())).getResult();
+                    }
+                    if (loadedVariants.size() == 1 && loadedVariants.get(0).getStudies().size() == 1) {
+                        variantsToMerge.add(loadedVariants.get(0));
                     } else {
-                        if (queryResult.getResult().isEmpty()) {
+                        if (loadedVariants.isEmpty()) {
                             throw new IllegalStateException("Variant " + variant + " not found!");
                         } else {
-                            throw new IllegalStateException("Variant " + variant + " found wrong! : " + queryResult.getResult());
+                            throw new IllegalStateException("Variant " + variant + " found wrong! : " + loadedVariants);
                         }
                     }
                     // Because the loaded variants were an overlapped region, all the information required is in every variant.
@@ -840,22 +839,64 @@ public class MongoDBVariantMerger implements ParallelTaskRunner.Task<Document, M
     }
 
     /**
-     * Reads the given variant from the 'variants' collection.
+     * Read from the database the loaded variants that will be needed to merge the overlapping regions.
+     * Only the regions with new and already loaded variants for this study require data from the database,
+     * and only the first already loaded variant of each of those regions is used.
+     *
+     * @param groups    Groups of overlapping documents from the stage collection
+     * @return          Loaded variants, by variant id
+     */
+    protected Map<String, Variant> fetchOverlappedVariants(List<List<Document>> groups) {
+        if (indexedFiles.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<String> ids = new ArrayList<>();
+        for (List<Document> group : groups) {
+            if (group.size() > 1) {
+                boolean newOverlappingRegion = false;
+                boolean completelyNewOverlappingRegion = true;
+                for (Document document : group) {
+                    boolean newStudy = isNewStudy(document.get(studyIdStr, Document.class));
+                    newOverlappingRegion |= newStudy;
+                    completelyNewOverlappingRegion &= newStudy;
+                }
+                if (newOverlappingRegion && !completelyNewOverlappingRegion) {
+                    // The merge only reads the first already loaded variant of the region
+                    for (Document document : group) {
+                        if (!isNewStudy(document.get(studyIdStr, Document.class))) {
+                            ids.add(STRING_ID_CONVERTER.convertToDataModelType(document).toString());
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Variant> fetchedVariants = new HashMap<>(ids.size());
+        for (Variant variant : fetchVariants(ids).getResult()) {
+            fetchedVariants.put(variant.toString(), variant);
+        }
+        return fetchedVariants;
+    }
+
+    /**
+     * Reads the given variants from the 'variants' collection, with one query per batch.
      *
      * It may happen that, 3s of default timeout, is not enough if there is a
      * lot of writes at the same time in the "variants" collection. Also add a
      * retry, just in case.
-     * @param variant Variant to read
+     * @param ids   Ids of the variants to read
      * @return  Query result of the query
      */
-    private QueryResult<Variant> fetchVariant(Variant variant) {
+    private QueryResult<Variant> fetchVariants(List<String> ids) {
         QueryResult<Variant> queryResult = null;
         int maxNumFails = 2;
         int fails = 0;
         while (queryResult == null) {
             try {
-                queryResult = dbAdaptor.get(new Query()
-                                .append(VariantDBAdaptor.VariantQueryParams.ID.key(), variant.toString())
+                queryResult = dbAdaptor.getByIds(ids, new Query()
                                 .append(VariantDBAdaptor.VariantQueryParams.UNKNOWN_GENOTYPE.key(), ".")
                                 .append(VariantDBAdaptor.VariantQueryParams.RETURNED_STUDIES.key(), studyId),
                         new QueryOptions(QueryOptions.TIMEOUT, 30_000));
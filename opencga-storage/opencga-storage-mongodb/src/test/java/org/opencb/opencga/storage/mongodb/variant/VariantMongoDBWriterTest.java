@@ -194,6 +194,58 @@ public class VariantMongoDBWriterTest implements MongoDBVariantStorageTest {
 
     }
 
+    /**
+     * Load a deletion overlapping with a variant already loaded in the study.
+     * The variants prefetched by the merger must be the same as the ones read one by one.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPrefetchOverlappedVariants() throws StorageEngineException {
+        studyConfiguration.getAttributes().put(VariantStorageEngine.Options.EXTRA_GENOTYPE_FIELDS.key(), Arrays.asList("GQX", "DP"));
+        studyConfiguration.getAttributes().put(VariantStorageEngine.Options.EXTRA_GENOTYPE_FIELDS_TYPE.key(), Arrays.asList("Float", "Integer"));
+        studyConfiguration2.getAttributes().put(VariantStorageEngine.Options.EXTRA_GENOTYPE_FIELDS.key(), Arrays.asList("DP", "GQX"));
+        studyConfiguration2.getAttributes().put(VariantStorageEngine.Options.EXTRA_GENOTYPE_FIELDS_TYPE.key(), Arrays.asList("Integer", "Float"));
+        loadFile1();
+        loadFile2();
+
+        List<Variant> variants = createFile3Variants();
+        Variant deletion = new Variant("X", 1003, 1004, "AA", "");
+        StudyEntry sourceEntry = new StudyEntry(source3.getFileId(), source3.getStudyId());
+        sourceEntry.addSampleData("NA00001.X", ((Map) new ObjectMap("GT", "0/1").append("DP", "5").append("GQX", "0.7")));
+        sourceEntry.addSampleData("NA00002.X", ((Map) new ObjectMap("GT", "0/0").append("DP", "6").append("GQX", "0.7")));
+        sourceEntry.addSampleData("NA00003.X", ((Map) new ObjectMap("GT", "1/0").append("DP", "7").append("GQX", "0.7")));
+        sourceEntry.addSampleData("NA00004.X", ((Map) new ObjectMap("GT", "0/0").append("DP", "8").append("GQX", "0.7")));
+        deletion.addStudyEntry(sourceEntry);
+        variants.add(2, deletion);
+
+        Map<String, Variant> prefetched = new HashMap<>();
+        Map<String, Variant> readOneByOne = new HashMap<>();
+        MongoDBVariantMerger dbMerger = new MongoDBVariantMerger(dbAdaptor, studyConfiguration2, Collections.singletonList(fileId3),
+                dbAdaptor.getVariantsCollection(), studyConfiguration2.getIndexedFiles(), false) {
+            @Override
+            protected Map<String, Variant> fetchOverlappedVariants(List<List<Document>> groups) {
+                Map<String, Variant> fetchedVariants = super.fetchOverlappedVariants(groups);
+                // Read the same variants with one query each, before the merged variants are written
+                for (String id : fetchedVariants.keySet()) {
+                    readOneByOne.put(id, dbAdaptor.get(new Query(VariantDBAdaptor.VariantQueryParams.ID.key(), id)
+                            .append(VariantDBAdaptor.VariantQueryParams.UNKNOWN_GENOTYPE.key(), ".")
+                            .append(VariantDBAdaptor.VariantQueryParams.RETURNED_STUDIES.key(), studyId2), new QueryOptions()).first());
+                }
+                prefetched.putAll(fetchedVariants);
+                return fetchedVariants;
+            }
+        };
+        mergeVariants(studyConfiguration2, Collections.singletonList(fileId3), stageVariants(studyConfiguration2, variants, fileId3),
+                Collections.emptyList(), dbMerger);
+
+        assertEquals(Collections.singleton("X:1004:A:C"), prefetched.keySet());
+        assertEquals(readOneByOne.keySet(), prefetched.keySet());
+        for (Map.Entry<String, Variant> entry : prefetched.entrySet()) {
+            assertEquals(readOneByOne.get(entry.getKey()).toJson(), entry.getValue().toJson());
+        }
+        assertEquals(6, dbAdaptor.count(new Query()).first().intValue());
+    }
+
     @Test
     public void testInsertMultiFilesMultiMerge() throws StorageEngineException {
         List<Variant> allVariants;
@@ -487,11 +539,17 @@ public class VariantMongoDBWriterTest implements MongoDBVariantStorageTest {
     }
     public MongoDBVariantWriteResult mergeVariants(StudyConfiguration studyConfiguration, List<Integer> fileIds,
                                                    MongoDBVariantWriteResult stageWriteResult, List<String> chromosomes) {
+        MongoDBVariantMerger dbMerger = new MongoDBVariantMerger(dbAdaptor, studyConfiguration, fileIds,
+                dbAdaptor.getVariantsCollection(), studyConfiguration.getIndexedFiles(), false);
+        return mergeVariants(studyConfiguration, fileIds, stageWriteResult, chromosomes, dbMerger);
+    }
+
+    public MongoDBVariantWriteResult mergeVariants(StudyConfiguration studyConfiguration, List<Integer> fileIds,
+                                                   MongoDBVariantWriteResult stageWriteResult, List<String> chromosomes,
+                                                   MongoDBVariantMerger dbMerger) {
         MongoDBCollection stage = dbAdaptor.getStageCollection();
         MongoDBCollection variantsCollection = dbAdaptor.getVariantsCollection();
         MongoDBVariantStageReader reader = new MongoDBVariantStageReader(stage, studyConfiguration.getStudyId(), chromosomes);
-        MongoDBVariantMerger dbMerger = new MongoDBVariantMerger(dbAdaptor, studyConfiguration, fileIds,
-                variantsCollection, studyConfiguration.getIndexedFiles(), false);
         MongoDBVariantMergeLoader variantLoader = new MongoDBVariantMergeLoader(variantsCollection, fileIds, false, null);
 
         reader.open();
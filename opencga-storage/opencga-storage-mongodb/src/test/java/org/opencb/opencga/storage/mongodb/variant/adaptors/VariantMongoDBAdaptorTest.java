@@ -25,9 +25,14 @@ import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.commons.datastore.core.QueryResult;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptor;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptorTest;
+import org.opencb.opencga.storage.mongodb.variant.MongoDBVariantStorageEngine.MongoDBVariantOptions;
 import org.opencb.opencga.storage.mongodb.variant.MongoDBVariantStorageTest;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
 
@@ -107,4 +112,36 @@ public class VariantMongoDBAdaptorTest extends VariantDBAdaptorTest implements M
         assertEquals(numVariantsChr1, numVariantsNoAnnotation);
     }
 
+    @Test
+    public void testGetAllVariants_genotypesClientFilter() throws Exception {
+        Integer na19600 = studyConfiguration.getSampleIds().get("NA19600");
+        Integer na19685 = studyConfiguration.getSampleIds().get("NA19685");
+        for (String genotypes : Arrays.asList(
+                na19600 + ":1|1" + ";" + na19685 + ":0|0,1|0",
+                na19685 + ":0|0",
+                "NA19600:0|0,./.",
+                studyConfiguration.getStudyName() + ":NA19600:0|0;NA19685:1|1")) {
+            Query query = new Query(VariantDBAdaptor.VariantQueryParams.GENOTYPE.key(), genotypes);
+            List<String> expected = toIds(dbAdaptor.get(query, new QueryOptions(QueryOptions.SORT, true)).getResult());
+            assertFalse(genotypes, expected.isEmpty());
+
+            QueryOptions options = new QueryOptions(MongoDBVariantOptions.GENOTYPE_CLIENT_FILTER.key(), true)
+                    .append(QueryOptions.SORT, true);
+            assertEquals(genotypes, expected, toIds(dbAdaptor.get(query, options).getResult()));
+
+            // Skip and limit are applied after the genotype filter
+            QueryOptions page = new QueryOptions(options).append(QueryOptions.SKIP, 2).append(QueryOptions.LIMIT, 5);
+            assertEquals(genotypes, expected.subList(Math.min(2, expected.size()), Math.min(7, expected.size())),
+                    toIds(dbAdaptor.get(query, page).getResult()));
+
+            List<String> iterated = new ArrayList<>();
+            dbAdaptor.iterator(query, new QueryOptions(options)).forEachRemaining(variant -> iterated.add(variant.toString()));
+            assertEquals(genotypes, expected, iterated);
+        }
+    }
+
+    private static List<String> toIds(List<Variant> variants) {
+        return variants.stream().map(Variant::toString).collect(Collectors.toList());
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.mongodb.variant.converters;
+
+import org.bson.Document;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created on 18/10/26.
+ */
+public class DocumentGenotypeFilterTest {
+
+    private static final List<String> DEFAULT_GENOTYPES = Collections.singletonList("0/0");
+
+    @Test
+    public void testDefaultGenotype() throws Exception {
+        Document variant = variant(study(1, new Document("0/1", Arrays.asList(10, 2000)).append("-1/-1", Arrays.asList(30))));
+
+        assertTrue(new DocumentGenotypeFilter().addFilter(1, 20, Arrays.asList("0/0"), DEFAULT_GENOTYPES).test(variant));
+        assertFalse(new DocumentGenotypeFilter().addFilter(1, 2000, Arrays.asList("0/0"), DEFAULT_GENOTYPES).test(variant));
+        assertTrue(new DocumentGenotypeFilter().addFilter(1, 2000, Arrays.asList("0/0", "0/1"), DEFAULT_GENOTYPES).test(variant));
+        assertTrue(new DocumentGenotypeFilter().addFilter(1, 30, Arrays.asList("0/0", "./."), DEFAULT_GENOTYPES).test(variant));
+        assertFalse(new DocumentGenotypeFilter().addFilter(1, 30, Arrays.asList("0/0", "1/1"), DEFAULT_GENOTYPES).test(variant));
+    }
+
+    @Test
+    public void testAllFiltersMatch() throws Exception {
+        Document variant = variant(
+                study(1, new Document("0/1", Arrays.asList(10)).append("1/1", Arrays.asList(11))),
+                study(2, new Document("0/1", Arrays.asList(20))));
+
+        assertTrue(new DocumentGenotypeFilter()
+                .addFilter(1, 10, Arrays.asList("0/1"), DEFAULT_GENOTYPES)
+                .addFilter(1, 12, Arrays.asList("0/0"), DEFAULT_GENOTYPES)
+                .addFilter(2, 21, Arrays.asList("0/0"), DEFAULT_GENOTYPES)
+                .test(variant));
+        assertFalse(new DocumentGenotypeFilter()
+                .addFilter(1, 10, Arrays.asList("0/1"), DEFAULT_GENOTYPES)
+                .addFilter(1, 11, Arrays.asList("0/0"), DEFAULT_GENOTYPES)
+                .test(variant));
+        // Same sample filtered twice
+        assertFalse(new DocumentGenotypeFilter()
+                .addFilter(1, 10, Arrays.asList("0/0", "0/1"), DEFAULT_GENOTYPES)
+                .addFilter(1, 10, Arrays.asList("0/0"), DEFAULT_GENOTYPES)
+                .test(variant));
+        // Study not in the variant
+        assertFalse(new DocumentGenotypeFilter().addFilter(3, 30, Arrays.asList("0/0"), DEFAULT_GENOTYPES).test(variant));
+    }
+
+    @Test
+    public void testUnknownDefaultGenotype() throws Exception {
+        List<String> unknownDefault = Collections.singletonList(DocumentToSamplesConverter.UNKNOWN_GENOTYPE);
+        Document variant = variant(study(1, new Document("0/0", Arrays.asList(10)).append("0/1", Arrays.asList(11))));
+
+        assertTrue(new DocumentGenotypeFilter().addFilter(1, 10, Arrays.asList("0/0"), unknownDefault).test(variant));
+        assertTrue(new DocumentGenotypeFilter().addFilter(1, 12, Arrays.asList("?/?"), unknownDefault).test(variant));
+        assertFalse(new DocumentGenotypeFilter().addFilter(1, 12, Arrays.asList("0/1"), unknownDefault).test(variant));
+    }
+
+    private static Document variant(Document... studies) {
+        return new Document(DocumentToVariantConverter.STUDIES_FIELD, Arrays.asList(studies));
+    }
+
+    private static Document study(int studyId, Document gt) {
+        return new Document(DocumentToStudyVariantEntryConverter.STUDYID_FIELD, studyId)
+                .append(DocumentToStudyVariantEntryConverter.GENOTYPES_FIELD, gt);
+    }
+}
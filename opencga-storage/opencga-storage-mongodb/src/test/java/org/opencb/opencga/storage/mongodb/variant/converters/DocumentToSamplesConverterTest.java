@@ -16,10 +16,20 @@
 
 package org.opencb.opencga.storage.mongodb.variant.converters;
 
+import org.bson.Document;
 import org.junit.Test;
+import org.opencb.opencga.storage.core.metadata.StudyConfiguration;
 import org.opencb.opencga.storage.mongodb.variant.converters.DocumentToSamplesConverter;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
 import static org.junit.Assert.*;
+import static org.opencb.opencga.storage.mongodb.variant.MongoDBVariantStorageEngine.MongoDBVariantOptions.DEFAULT_GENOTYPE;
 
 /**
  * Created on 07/03/16.
@@ -68,6 +78,76 @@ public class DocumentToSamplesConverterTest {
 
     }
 
+    @Test
+    public void testReturnedSamplesGenotypes() throws Exception {
+        StudyConfiguration studyConfiguration = new StudyConfiguration(1, "study");
+        for (int i = 0; i < 4; i++) {
+            studyConfiguration.getSampleIds().put("s" + i, 10 + i);
+        }
+        studyConfiguration.getSamplesInFiles().put(5, new LinkedHashSet<>(Arrays.asList(10, 11, 12, 13)));
+        studyConfiguration.getIndexedFiles().add(5);
+        studyConfiguration.getAttributes().put(DEFAULT_GENOTYPE.key(), "0/0");
+
+        DocumentToSamplesConverter converter = new DocumentToSamplesConverter(studyConfiguration);
+        converter.setReturnedSamples(Arrays.asList("s3", "s1", "s2"));
+
+        Document document = new Document(DocumentToStudyVariantEntryConverter.GENOTYPES_FIELD,
+                new Document("0/1", Arrays.asList(12, 10)).append("1/1", Collections.singletonList(13)));
+        List<List<String>> samplesData = converter.convertToDataModelType(document, 1);
+
+        assertEquals(Arrays.asList(Collections.singletonList("1/1"), Collections.singletonList("0/0"),
+                Collections.singletonList("0/1")), samplesData);
+    }
+
+    @Test
+    public void testReturnedSamplesGenotypesHighIds() throws Exception {
+        StudyConfiguration studyConfiguration = new StudyConfiguration(1, "study");
+        // Catalog ids, far from 0 and with gaps
+        int[] sampleIds = {2000000, 2000100, 5000000, 9000000};
+        for (int i = 0; i < sampleIds.length; i++) {
+            studyConfiguration.getSampleIds().put("s" + i, sampleIds[i]);
+        }
+        studyConfiguration.getSamplesInFiles().put(5, new LinkedHashSet<>(Arrays.asList(2000000, 2000100, 5000000, 9000000)));
+        studyConfiguration.getIndexedFiles().add(5);
+        studyConfiguration.getAttributes().put(DEFAULT_GENOTYPE.key(), "0/0");
+
+        DocumentToSamplesConverter converter = new DocumentToSamplesConverter(studyConfiguration);
+        converter.setReturnedSamples(Arrays.asList("s3", "s1", "s2"));
+
+        Document document = new Document(DocumentToStudyVariantEntryConverter.GENOTYPES_FIELD,
+                new Document("0/1", Arrays.asList(5000000, 2000000)).append("1/1", Collections.singletonList(9000000)));
+        List<List<String>> samplesData = converter.convertToDataModelType(document, 1);
+
+        assertEquals(Arrays.asList(Collections.singletonList("1/1"), Collections.singletonList("0/0"),
+                Collections.singletonList("0/1")), samplesData);
+    }
+
+    @Test
+    public void testSamplePositions() throws Exception {
+        Map<Integer, Integer> positions = new HashMap<>();
+        positions.put(1000, 0);
+        positions.put(1002, 1);
+        positions.put(1001, 2);
+        DocumentToSamplesConverter.SamplePositions samplePositions = new DocumentToSamplesConverter.SamplePositions(positions);
+        assertEquals(3, samplePositions.size());
+        assertEquals(0, samplePositions.get(1000));
+        assertEquals(2, samplePositions.get(1001));
+        assertEquals(1, samplePositions.get(1002));
+        assertEquals(-1, samplePositions.get(999));
+        assertEquals(-1, samplePositions.get(1003));
+        assertEquals(-1, samplePositions.get(0));
+
+        // Sparse ids are not indexed with an array of the whole range
+        positions.put(5000000, 3);
+        samplePositions = new DocumentToSamplesConverter.SamplePositions(positions);
+        assertEquals(4, samplePositions.size());
+        assertEquals(3, samplePositions.get(5000000));
+        assertEquals(2, samplePositions.get(1001));
+        assertEquals(-1, samplePositions.get(4999999));
+
+        assertEquals(-1, new DocumentToSamplesConverter.SamplePositions(Collections.emptyMap()).get(0));
+    }
+
     public void testInteger(String dataModelType) {
         assertEquals(dataModelType, DocumentToSamplesConverter.INTEGER_COMPLEX_TYPE_CONVERTER.convertToDataModelType(DocumentToSamplesConverter.INTEGER_COMPLEX_TYPE_CONVERTER.convertToStorageType(dataModelType)));
     }
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2015-2016 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.mongodb.variant.load;
+
+import org.junit.Test;
+import org.opencb.commons.io.DataWriter;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Created on 18/10/26.
+ */
+public class MongoDBPipelinedWriterTest {
+
+    private static class SlowWriter implements DataWriter<Integer> {
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxRunning = new AtomicInteger();
+        private final LongAdder written = new LongAdder();
+        private final int failOn;
+        private boolean post = false;
+
+        SlowWriter(int failOn) {
+            this.failOn = failOn;
+        }
+
+        @Override
+        public boolean write(List<Integer> batch) {
+            int current = running.incrementAndGet();
+            maxRunning.accumulateAndGet(current, Math::max);
+            try {
+                Thread.sleep(20);
+                if (batch.contains(failOn)) {
+                    throw new IllegalStateException("Error writing " + failOn);
+                }
+                written.add(batch.size());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+            return true;
+        }
+
+        @Override
+        public boolean post() {
+            post = true;
+            return true;
+        }
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        SlowWriter slowWriter = new SlowWriter(-1);
+        MongoDBPipelinedWriter<Integer> writer = new MongoDBPipelinedWriter<>(slowWriter, 3);
+        writer.open();
+        writer.pre();
+        for (int i = 0; i < 20; i++) {
+            writer.write(Collections.singletonList(i));
+        }
+        writer.post();
+        writer.close();
+
+        assertEquals(20, slowWriter.written.sum());
+        assertTrue(slowWriter.maxRunning.get() <= 3);
+        assertTrue(slowWriter.maxRunning.get() > 1);
+        assertTrue(slowWriter.post);
+    }
+
+    @Test
+    public void testError() throws Exception {
+        SlowWriter slowWriter = new SlowWriter(5);
+        MongoDBPipelinedWriter<Integer> writer = new MongoDBPipelinedWriter<>(slowWriter, 2);
+        writer.open();
+        writer.pre();
+        try {
+            for (int i = 0; i < 10; i++) {
+                writer.write(Collections.singletonList(i));
+            }
+            writer.post();
+            fail("Expected exception");
+        } catch (IllegalStateException e) {
+            assertEquals("Error writing 5", e.getMessage());
+        } finally {
+            writer.close();
+        }
+        assertTrue(!slowWriter.post);
+    }
+}
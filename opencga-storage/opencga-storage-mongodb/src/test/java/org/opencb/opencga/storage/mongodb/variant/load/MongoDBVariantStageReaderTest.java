@@ -120,6 +120,53 @@ public class MongoDBVariantStageReaderTest implements MongoDBVariantStorageTest
         Assert.assertEquals(read.size(), 6);
     }
 
+    @Test
+    public void testGetChromosomes() throws Exception {
+        List<String> chromosomes = MongoDBVariantStageReader.getChromosomes(collection);
+
+        // Sorted as in the stage _id
+        Assert.assertEquals(asList("1", "2", "10", "11", "22", "X"), chromosomes);
+    }
+
+    @Test
+    public void testSplitRanges() throws Exception {
+        List<String> boundaries = MongoDBVariantStageReader.splitRanges(collection, 1, Collections.emptyList(), 3);
+        Assert.assertEquals(2, boundaries.size());
+
+        int numVariants = 0;
+        for (int i = 0; i <= boundaries.size(); i++) {
+            String fromId = i == 0 ? null : boundaries.get(i - 1);
+            String toId = i == boundaries.size() ? null : boundaries.get(i);
+            List<Document> read = readAll(new MongoDBVariantStageReader(collection, 1, Collections.emptyList(), fromId, toId));
+            Assert.assertEquals(2, read.size());
+            numVariants += read.size();
+        }
+        Assert.assertEquals(6, numVariants);
+    }
+
+    @Test
+    public void testSplitRangesOverlapping() throws Exception {
+        MongoDBVariantStageLoader loader = new MongoDBVariantStageLoader(collection, 1, 1, false);
+        MongoDBVariantStageConverterTask converterTask = new MongoDBVariantStageConverterTask(null);
+        loader.open();
+        loader.pre();
+        writeVariant(converterTask, loader, "3:100:AAAAAAAAAA:-");
+        writeVariant(converterTask, loader, "3:105:AAAAAAAAAA:-");
+        writeVariant(converterTask, loader, "3:110:A:T");
+        writeVariant(converterTask, loader, "3:200:A:T");
+        loader.post();
+        loader.close();
+
+        // The split point "3:110" overlaps with "3:105", so the boundary is moved to the next variant
+        List<String> boundaries = MongoDBVariantStageReader.splitRanges(collection, 1, Collections.singletonList("3"), 2);
+        Assert.assertEquals(1, boundaries.size());
+        Assert.assertTrue(boundaries.get(0).startsWith(VariantStringIdConverter.convertChromosome("3") + ":       200:"));
+
+        List<String> chromosomes = Collections.singletonList("3");
+        Assert.assertEquals(3, readAll(new MongoDBVariantStageReader(collection, 1, chromosomes, null, boundaries.get(0))).size());
+        Assert.assertEquals(1, readAll(new MongoDBVariantStageReader(collection, 1, chromosomes, boundaries.get(0), null)).size());
+    }
+
     public List<Document> readAll(MongoDBVariantStageReader reader) {
         List<Document> read;
         reader.open();